@@ -220,8 +220,171 @@ tokens {
 	 */
 	private int ltCounter = 0;
 
+	/** Memo slot of the declaration production. */
+	private static final int MEMO_DECLARATION = 0;
+
+	/** Memo slot of the unaryExpressionNotPlusMinus production. */
+	private static final int MEMO_UNARY_EXPRESSION = 1;
+
+	/** Memo value of a production that failed to match. */
+	private static final int MEMO_FAILED = -1;
+
+	/**
+	 * Holds the outcomes of the memoized productions while guessing, one array per
+	 * production indexed by start token. An entry is either 0 (unknown),
+	 * MEMO_FAILED or the index of the first token after the production plus one.
+	 */
+	private int[][] memo = new int[2][256];
+
+	/** The highest token index a memo entry was recorded for. */
+	private int memoLimit = -1;
+
+	/** Indicates whether the outcomes of guessed productions are memoized. */
+	private boolean memoize = true;
+
+	/** The index of the current token. */
+	private int tokenIndex;
+
+	/** The token indexes of the pending marks. */
+	private int[] marks = new int[16];
+
+	/** The number of pending marks. */
+	private int markCount;
+
 	protected abstract void attachStuff(JavaNode[] nodes)  throws TokenStreamIOException;
 
+	/**
+	 * Sets whether the outcomes of guessed productions should be memoized. Memoizing
+	 * never changes the parse tree, only the time it takes to build it.
+	 *
+	 * @param memoize if false, guessed productions are parsed again every time.
+	 */
+	public void setMemoize(boolean memoize)
+	{
+		this.memoize = memoize;
+	}
+
+	public void setTokenBuffer(TokenBuffer t)
+	{
+		super.setTokenBuffer(t);
+
+		// also called by the super constructor, before our fields are initialized
+		if (this.memo == null)
+		{
+			return;
+		}
+
+		for (int i = 0; i < this.memo.length; i++)
+		{
+			java.util.Arrays.fill(this.memo[i], 0, this.memoLimit + 1, 0);
+		}
+
+		this.memoLimit = -1;
+		this.tokenIndex = 0;
+		this.markCount = 0;
+	}
+
+	public void consume() throws TokenStreamException
+	{
+		super.consume();
+		this.tokenIndex++;
+	}
+
+	public int mark()
+	{
+		if (this.markCount == this.marks.length)
+		{
+			int[] marks = new int[this.markCount << 1];
+			System.arraycopy(this.marks, 0, marks, 0, this.markCount);
+			this.marks = marks;
+		}
+
+		this.marks[this.markCount++] = this.tokenIndex;
+
+		return super.mark();
+	}
+
+	public void rewind(int pos)
+	{
+		super.rewind(pos);
+		this.tokenIndex = this.marks[--this.markCount];
+	}
+
+	/**
+	 * Determines whether the outcome of the given production at the current token is
+	 * already known from an earlier guess. Syntactic predicates guess the same token
+	 * ranges over and over again (think of nested casts or anonymous classes), the memo
+	 * makes every production parse a range only once while guessing. The memo is only
+	 * used outside of type arguments, as the productions there depend on the LT count.
+	 *
+	 * @param production the memo slot of the production.
+	 * @return true if the production already matched and its tokens have been consumed.
+	 * @throws RecognitionException if the production is known to fail.
+	 */
+	private boolean alreadyParsed(int production)
+		throws RecognitionException, TokenStreamException
+	{
+		if (!this.memoize || (this.inputState.guessing == 0) || (this.ltCounter != 0))
+		{
+			return false;
+		}
+
+		int[] outcomes = this.memo[production];
+
+		if (this.tokenIndex >= outcomes.length)
+		{
+			for (int i = 0; i < this.memo.length; i++)
+			{
+				int[] grown = new int[Math.max(this.memo[i].length << 1, this.tokenIndex + 1)];
+				System.arraycopy(this.memo[i], 0, grown, 0, this.memo[i].length);
+				this.memo[i] = grown;
+			}
+
+			outcomes = this.memo[production];
+		}
+
+		int outcome = outcomes[this.tokenIndex];
+
+		if (outcome == 0)
+		{
+			// assume failure until the production has matched
+			outcomes[this.tokenIndex] = MEMO_FAILED;
+			this.memoLimit = Math.max(this.memoLimit, this.tokenIndex);
+
+			return false;
+		}
+
+		if (outcome == MEMO_FAILED)
+		{
+			throw new NoViableAltException(LT(1), getFilename());
+		}
+
+		while (this.tokenIndex < outcome - 1)
+		{
+			consume();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Records that the given production matched the tokens from the given start token
+	 * up to the current token.
+	 *
+	 * @param production the memo slot of the production.
+	 * @param start the index of the first token of the production.
+	 * @return always true.
+	 */
+	private boolean parsed(int production, int start)
+	{
+		if (this.memoize && (this.inputState.guessing != 0) && (this.ltCounter == 0))
+		{
+			this.memo[production][start] = this.tokenIndex + 1;
+		}
+
+		return true;
+	}
+
 }
 
 // Compilation Unit: In Java, this is a single file. This is the start
@@ -283,7 +446,14 @@ protected typeDefinitionInternal[JavaNode mods]
 // A declaration is the creation of a reference or primitive-type variable
 // Create a separate Type/Var tree for each var in the var list.
 declaration!
+	{
+		int memoStart = this.tokenIndex;
+
+		if (alreadyParsed(MEMO_DECLARATION))
+			return;
+	}
 	:	m:modifiers t:typeSpec[false] v:variableDefinitions[#m,#t]
+		{parsed(MEMO_DECLARATION, memoStart)}?
 		{#declaration = #v;}
 	;
 
@@ -1435,7 +1605,13 @@ unaryExpression
 	;
 
 unaryExpressionNotPlusMinus
-	:	BNOT^ unaryExpression
+	{
+		int memoStart = this.tokenIndex;
+
+		if (alreadyParsed(MEMO_UNARY_EXPRESSION))
+			return;
+	}
+	:	(	BNOT^ unaryExpression
 	|	LNOT^ unaryExpression
 	|	(	// subrule allows option to shut off warnings
 			options {
@@ -1458,6 +1634,8 @@ unaryExpressionNotPlusMinus
 
 	|	postfixExpression
 	)
+	)
+	{parsed(MEMO_UNARY_EXPRESSION, memoStart)}?
 	;
 
 // qualified names, array expressions, method invocation, post inc/dec
@@ -49,6 +49,8 @@ import de.hunsicker.jalopy.language.JavaRecognizer;
 import de.hunsicker.jalopy.language.antlr.Node;
 import de.hunsicker.jalopy.language.NodeFactory;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.printer.MemberCache;
+import de.hunsicker.jalopy.printer.MemberPrinterPool;
 import de.hunsicker.jalopy.printer.NodeWriter;
 import de.hunsicker.jalopy.printer.PrinterFactory;
 import de.hunsicker.jalopy.storage.Convention;
@@ -129,6 +131,9 @@ public final class Jalopy
     /** The empty byte array. */
     private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
+    /** The maximal number of files to keep the printed members of. */
+    private static final int MAX_MEMBER_CACHES = 16;
+
     /** Indicates a file input. */
     private static final int FILE_INPUT = 1;
 
@@ -225,6 +230,18 @@ public final class Jalopy
      */
     private Map _issues; // Map of <JavaNode>:<Object>
 
+    /** The printed members of the recently formatted files, <code>null</code> if disabled. */
+    private Map _memberCaches; // Map of <String>:<MemberCache>
+
+    /** Indicates whether the lengths of the measured nodes are cached while printing. */
+    private boolean _cacheMeasures = true;
+
+    /** Indicates whether the widths of alignment chunks are cached while printing. */
+    private boolean _cacheAlignments = true;
+
+    /** The workers to print the members of large class bodies with. */
+    private MemberPrinterPool _memberPrinters;
+
     /** What history method should be used if file policy is enabled? */
     private History.Method _historyMethod = History.Method.TIMESTAMP;
 
@@ -302,9 +319,9 @@ public final class Jalopy
     {
         initConventionDefaults();
         _issues = new HashMap(30);
-        _factory = new CompositeFactory();
-        
-        _recognizer = new JavaRecognizer(_factory);
+        _recognizer = JavaRecognizer.acquire();
+        _factory = _recognizer.getCompositeFactory();
+        _memberPrinters = new MemberPrinterPool(_factory);
         _inspector = new CodeInspector(_issues);
         _spy = new SpyAppender();
         Loggers.ALL.addAppender(_spy);
@@ -366,6 +383,67 @@ public final class Jalopy
     }
 
 
+    /**
+     * Enables or disables caching of the alignment widths while printing. The printers
+     * align consecutive declarations, assignments and parameters; with the cache the
+     * members of such a chunk are measured only once per file. Disabling the cache
+     * does not change the output, it only makes printing slower.
+     *
+     * <p>
+     * Defaults to <code>true</code>.
+     * </p>
+     *
+     * @param enabled if <code>true</code> the alignment widths will be cached.
+     */
+    public void setCacheAlignments(boolean enabled)
+    {
+        _cacheAlignments = enabled;
+    }
+
+
+    /**
+     * Enables or disables caching of the measured node lengths while printing. The
+     * printers measure nodes to decide where to wrap lines; with the cache every node is
+     * measured only once per file. Disabling the cache does not change the output, it
+     * only makes printing slower.
+     *
+     * <p>
+     * Defaults to <code>true</code>.
+     * </p>
+     *
+     * @param enabled if <code>true</code> the measured lengths will be cached.
+     */
+    public void setCacheMeasures(boolean enabled)
+    {
+        _cacheMeasures = enabled;
+    }
+
+
+    /**
+     * Enables or disables caching of the printed members between formatting runs.
+     * Methods and constructors that did not change since the same file was formatted
+     * the last time are then taken over instead of printed again, which speeds up
+     * formatting a file over and over again, as editors do.
+     *
+     * <p>
+     * Defaults to <code>false</code>.
+     * </p>
+     *
+     * @param enabled if <code>true</code> the printed members will be cached.
+     */
+    public void setCacheMembers(boolean enabled)
+    {
+        if (!enabled)
+        {
+            _memberCaches = null;
+        }
+        else if (_memberCaches == null)
+        {
+            _memberCaches = new HashMap();
+        }
+    }
+
+
     /**
      * Sets the encoding that controls how Jalopy interprets text files containing
      * characters beyond the ASCII character set.
@@ -1070,9 +1148,11 @@ public final class Jalopy
             Loggers.IO.l7dlog(Level.ERROR, "UNKNOWN_ERROR" /* NOI18N */, _args, ex);
         }
         finally {
-            //todo add togglable 
-            //_factory.clear();
             cleanup();
+
+            // the tree is gone, so recycle its nodes and tokens for the next run
+            _factory.clear();
+            _memberPrinters.clear();
         }
         
 
@@ -1298,10 +1378,26 @@ public final class Jalopy
     public void reset()
     {
         cleanup();
+        _memberCaches = null;
+        _cacheMeasures = true;
+        _cacheAlignments = true;
         initConventionDefaults();
     }
 
 
+    /**
+     * Releases the resources held by this instance, so they can be reused by the
+     * instances created afterwards. This instance must not be used any longer after
+     * calling this method.
+     */
+    public void release()
+    {
+        cleanup();
+        Loggers.ALL.removeAppender(_spy);
+        JavaRecognizer.release(_recognizer);
+    }
+
+
     /**
      * Resets the profiling timers.
      */
@@ -1831,6 +1927,41 @@ public final class Jalopy
     }
 
 
+    /**
+     * Returns the cache of the printed members of the current input file.
+     *
+     * @param packageName package name of the file.
+     * @param lineSeparator the line separator to use.
+     *
+     * @return the cache of the printed members.
+     */
+    private MemberCache getMemberCache(
+        String packageName,
+        String lineSeparator)
+    {
+        // the printed members depend on the local environment variables, too
+        String key =
+            _inputFile.getAbsolutePath() + '|' + packageName + '|'
+            + _outputFileFormat.getName() + '|' + lineSeparator;
+        MemberCache result = (MemberCache) _memberCaches.get(key);
+
+        if (result == null)
+        {
+            if (_memberCaches.size() >= MAX_MEMBER_CACHES)
+            {
+                _memberCaches.clear();
+            }
+
+            result = new MemberCache();
+            _memberCaches.put(key, result);
+        }
+
+        result.begin();
+
+        return result;
+    }
+
+
     /**
      * Sets the local macro variables.
      *
@@ -2257,12 +2388,22 @@ public final class Jalopy
             outputWriter = _outputWriter;
         }
 
+        String lineSeparator = getLineSeparator(_outputFileFormat, format);
         NodeWriter out =
             new NodeWriter(
                 outputWriter,_factory, _inputFile.getAbsolutePath(), _issues,
-                getLineSeparator(_outputFileFormat, format), format.toString());
+                lineSeparator, format.toString());
 
         out.setTracking(_recognizer.hasAnnotations() || _recognizer.hasPosition());
+        out.setCacheMeasures(_cacheMeasures);
+        out.setCacheAlignments(_cacheAlignments);
+
+        if (_memberCaches != null)
+        {
+            out.setMemberCache(getMemberCache(packageName, lineSeparator));
+        }
+
+        out.setMemberPrinterPool(_memberPrinters);
 
         Environment environment = Environment.getInstance().copy();
         setLocalVariables(
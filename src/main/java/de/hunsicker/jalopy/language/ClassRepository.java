@@ -44,7 +44,9 @@ import org.apache.log4j.Level;
  * declarations</em>.
  * 
  * <p>
- * This class is thread-safe.
+ * This class is thread-safe. The repository state is published as an immutable snapshot
+ * through a single volatile reference, so readers never block. Writers are serialized
+ * and build the next snapshot off to the side before they publish it.
  * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
@@ -79,11 +81,8 @@ public class ClassRepository
     /** Our working directory. */
     private File _repositoryDirectory;
 
-    /** Holds information about the currently active repository entries. */
-    private List _infos = new ArrayList(); // List of <ClassRepositoryEntry.Info>
-
-    /** The current contents. */
-    private String[] _content = EMPTY_STRING_ARRAY;
+    /** The currently published repository state. */
+    private volatile Snapshot _snapshot = new Snapshot(EMPTY_STRING_ARRAY, EMPTY_INFO_ARRAY);
 
     //~ Constructors ---------------------------------------------------------------------
 
@@ -132,9 +131,9 @@ public class ClassRepository
      * @return active contents. The repository can be empty in which case an empty array
      *         will be returned. This method never returns <code>null</code>.
      */
-    public synchronized String[] getContent()
+    public String[] getContent()
     {
-        return _content;
+        return _snapshot.content;
     }
 
 
@@ -143,9 +142,9 @@ public class ClassRepository
      *
      * @return <code>true</code> if the repository is currently empty.
      */
-    public synchronized boolean isEmpty()
+    public boolean isEmpty()
     {
-        return _content.length == 0;
+        return _snapshot.content.length == 0;
     }
 
 
@@ -154,11 +153,9 @@ public class ClassRepository
      *
      * @return repository information.
      */
-    public synchronized ClassRepositoryEntry.Info[] getInfo()
+    public ClassRepositoryEntry.Info[] getInfo()
     {
-        List infos = new ArrayList(_infos);
-
-        return (ClassRepositoryEntry.Info[]) infos.toArray(EMPTY_INFO_ARRAY);
+        return (ClassRepositoryEntry.Info[]) _snapshot.infos.clone();
     }
 
 
@@ -171,7 +168,7 @@ public class ClassRepository
      */
     public int getSize()
     {
-        return _content.length;
+        return _snapshot.content.length;
     }
 
 
@@ -263,11 +260,13 @@ public class ClassRepository
      *         file for the given location exists (i.e. the given location was not
      *         registered yet).
      */
-    public synchronized ClassRepositoryEntry.Info get(File location)
+    public ClassRepositoryEntry.Info get(File location)
     {
-        for (int i = 0, size = _infos.size(); i < size; i++)
+        ClassRepositoryEntry.Info[] infos = _snapshot.infos;
+
+        for (int i = 0; i < infos.length; i++)
         {
-            ClassRepositoryEntry.Info info = (ClassRepositoryEntry.Info) _infos.get(i);
+            ClassRepositoryEntry.Info info = infos[i];
 
             if (info.getLocation().equals(location))
             {
@@ -306,19 +305,22 @@ public class ClassRepository
     public synchronized void load(File location)
       throws IOException
     {
-        ClassRepositoryEntry entry = loadEntry(location);
+        Snapshot current = _snapshot;
+        List infos = new ArrayList(Arrays.asList(current.infos));
+        ClassRepositoryEntry entry = loadEntry(location, infos);
 
         if (entry == null)
         {
+            publish(current.content, infos);
+
             return;
         }
 
         Set data = entry.getData();
-        Set temp = new HashSet(_content.length + data.size());
-        temp.addAll(Arrays.asList(_content));
+        Set temp = new HashSet(current.content.length + data.size());
+        temp.addAll(Arrays.asList(current.content));
         temp.addAll(data);
-        _content = (String[]) temp.toArray(EMPTY_STRING_ARRAY);
-        Arrays.sort(_content);
+        publish(toSortedArray(temp), infos);
 
         if (Loggers.IO.isDebugEnabled())
         {
@@ -343,12 +345,14 @@ public class ClassRepository
             return;
         }
 
+        Snapshot current = _snapshot;
+        List infos = new ArrayList(Arrays.asList(current.infos));
         Set data = new HashSet(1000);
 
         for (Iterator i = locations.iterator(); i.hasNext();)
         {
             File location = (File) i.next();
-            ClassRepositoryEntry entry = loadEntry(location);
+            ClassRepositoryEntry entry = loadEntry(location, infos);
 
             if (entry != null)
             {
@@ -363,12 +367,15 @@ public class ClassRepository
             }
         }
 
+        String[] content = current.content;
+
         if (!data.isEmpty())
         {
-            data.addAll(Arrays.asList(_content));
-            _content = (String[]) data.toArray(EMPTY_STRING_ARRAY);
-            Arrays.sort(_content);
+            data.addAll(Arrays.asList(content));
+            content = toSortedArray(data);
         }
+
+        publish(content, infos);
     }
 
 
@@ -381,7 +388,7 @@ public class ClassRepository
      *
      * @throws IOException if an I/O error occurred.
      */
-    public synchronized ClassRepositoryEntry.Info loadInfo(File file)
+    public ClassRepositoryEntry.Info loadInfo(File file)
       throws IOException
     {
         return (ClassRepositoryEntry.Info) IoHelper.deserialize(file);
@@ -402,23 +409,22 @@ public class ClassRepository
       throws IOException
     {
         ClassRepositoryEntry.Info template = new ClassRepositoryEntry.Info(location);
+        Snapshot current = _snapshot;
+        List infos = new ArrayList(Arrays.asList(current.infos));
 
-        if (!_infos.contains(template))
+        if (!infos.contains(template))
         {
             return;
         }
 
         ClassRepositoryEntry entry = createEntry(template);
         Set data = entry.getData();
-        Set temp = new HashSet(Arrays.asList(_content));
+        Set temp = new HashSet(Arrays.asList(current.content));
         temp.removeAll(data);
-        _content = (String[]) temp.toArray(EMPTY_STRING_ARRAY);
-        Arrays.sort(_content);
 
         // update the info
-        ClassRepositoryEntry.Info info =
-            (ClassRepositoryEntry.Info) _infos.get(_infos.indexOf(template));
-        info.setLoaded(false);
+        setLoaded(infos, template, false);
+        publish(toSortedArray(temp), infos);
 
         if (Loggers.IO.isDebugEnabled())
         {
@@ -441,6 +447,8 @@ public class ClassRepository
     public synchronized void unloadAll(List locations)
       throws IOException
     {
+        Snapshot current = _snapshot;
+        List infos = new ArrayList(Arrays.asList(current.infos));
         Set data = new HashSet(1000);
 
         for (Iterator i = locations.iterator(); i.hasNext();)
@@ -456,7 +464,7 @@ public class ClassRepository
                 {
                     template = new ClassRepositoryEntry.Info(location);
 
-                    if (!_infos.contains(template))
+                    if (!infos.contains(template))
                     {
                         continue;
                     }
@@ -472,9 +480,7 @@ public class ClassRepository
                 }
 
                 // update the info
-                ClassRepositoryEntry.Info info =
-                    (ClassRepositoryEntry.Info) _infos.get(_infos.indexOf(template));
-                info.setLoaded(false);
+                setLoaded(infos, template, false);
 
                 if (Loggers.IO.isDebugEnabled())
                 {
@@ -485,13 +491,16 @@ public class ClassRepository
             }
         }
 
+        String[] content = current.content;
+
         if (!data.isEmpty())
         {
-            Set temp = new HashSet(Arrays.asList(_content));
+            Set temp = new HashSet(Arrays.asList(content));
             temp.removeAll(data);
-            _content = (String[]) temp.toArray(EMPTY_STRING_ARRAY);
-            Arrays.sort(_content);
+            content = toSortedArray(temp);
         }
+
+        publish(content, infos);
     }
 
 
@@ -616,12 +625,15 @@ public class ClassRepository
      * Loads the entry from the given location.
      *
      * @param location location where the entry is stored.
+     * @param infos the infos of the next snapshot, will be updated.
      *
      * @return the entry. Returns <code>null</code> if the entry is up-to-date.
      *
      * @throws IOException if the entry could not be loaded.
      */
-    private ClassRepositoryEntry loadEntry(File location)
+    private ClassRepositoryEntry loadEntry(
+        File location,
+        List infos)
       throws IOException
     {
         // either the user has deleted/renamed the .jar since the first
@@ -653,9 +665,9 @@ public class ClassRepository
         ClassRepositoryEntry entry = null;
 
         // location already registered
-        if (_infos.contains(template))
+        if (infos.contains(template))
         {
-            info = (ClassRepositoryEntry.Info) _infos.get(_infos.indexOf(template));
+            info = (ClassRepositoryEntry.Info) infos.get(infos.indexOf(template));
 
             if (Loggers.IO.isDebugEnabled())
             {
@@ -739,7 +751,7 @@ public class ClassRepository
         }
         else
         {
-            _infos.add(template);
+            infos.add(template);
 
             if (Loggers.IO.isDebugEnabled())
             {
@@ -752,8 +764,7 @@ public class ClassRepository
             saveToDisk(entry);
         }
 
-        info = (ClassRepositoryEntry.Info) _infos.get(_infos.indexOf(template));
-        info.setLoaded(true);
+        setLoaded(infos, template, true);
 
         return entry;
     }
@@ -803,6 +814,8 @@ public class ClassRepository
      */
     private void preload()
     {
+        List infos = new ArrayList();
+
         try
         {
             File[] files = getWorkingDir().listFiles(new ExtensionFilter(EXT_REPOSITORY));
@@ -816,7 +829,7 @@ public class ClassRepository
             for (int i = 0; i < files.length; i++)
             {
                 ClassRepositoryEntry.Info info = loadInfo(files[i]);
-                _infos.add(info);
+                infos.add(info);
 
                 if ((files[i].lastModified() + delta) < now)
                 {
@@ -832,11 +845,65 @@ public class ClassRepository
         }
         catch (Throwable ex)
         {
-            _infos.clear();
+            infos.clear();
             Loggers.IO.warn(
                 "Error preloading the class repository, no import optimizaton available",
                 ex);
         }
+
+        publish(EMPTY_STRING_ARRAY, infos);
+    }
+
+
+    /**
+     * Publishes a new snapshot with the given state.
+     *
+     * @param content the sorted repository contents.
+     * @param infos the entry infos (of type {@link ClassRepositoryEntry.Info}).
+     */
+    private void publish(
+        String[] content,
+        List     infos)
+    {
+        _snapshot =
+            new Snapshot(
+                content, (ClassRepositoryEntry.Info[]) infos.toArray(EMPTY_INFO_ARRAY));
+    }
+
+
+    /**
+     * Replaces the registered info that matches the given template with a copy that
+     * has the given load state. Infos are never modified in place as they might have
+     * been published already.
+     *
+     * @param infos the infos of the next snapshot.
+     * @param template template to find the registered info.
+     * @param loaded the new load state.
+     */
+    private static void setLoaded(
+        List                      infos,
+        ClassRepositoryEntry.Info template,
+        boolean                   loaded)
+    {
+        int index = infos.indexOf(template);
+        ClassRepositoryEntry.Info info = (ClassRepositoryEntry.Info) infos.get(index);
+        infos.set(index, info.copy(loaded));
+    }
+
+
+    /**
+     * Returns the given type names as a sorted array.
+     *
+     * @param types type names (of type {@link java.lang.String &lt;String&gt;}).
+     *
+     * @return sorted array with the type names.
+     */
+    private static String[] toSortedArray(Set types)
+    {
+        String[] result = (String[]) types.toArray(EMPTY_STRING_ARRAY);
+        Arrays.sort(result);
+
+        return result;
     }
 
 
@@ -868,4 +935,33 @@ public class ClassRepository
             out.close();
         }
     }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * An immutable state of the repository. Neither the snapshot nor the arrays it
+     * holds are ever modified after publication.
+     */
+    private static final class Snapshot
+    {
+        /** The sorted type names. */
+        final String[] content;
+
+        /** Information about the registered entries. */
+        final ClassRepositoryEntry.Info[] infos;
+
+        /**
+         * Creates a new Snapshot object.
+         *
+         * @param content the sorted type names.
+         * @param infos information about the registered entries.
+         */
+        Snapshot(
+            String[]                    content,
+            ClassRepositoryEntry.Info[] infos)
+        {
+            this.content = content;
+            this.infos = infos;
+        }
+    }
 }
@@ -249,6 +249,35 @@ public class ClassRepositoryEntry
             }
         }
 
+        /**
+         * Creates a copy of the given Info object.
+         *
+         * @param info the info to copy.
+         * @param loaded the load state of the copy.
+         */
+        private Info(
+            Info    info,
+            boolean loaded)
+        {
+            this.location = info.location;
+            this.filename = info.filename;
+            this.loaded = loaded;
+        }
+
+        /**
+         * Returns a copy of this info with the given load state. Used by the repository
+         * to avoid modifying infos that were already published to readers.
+         *
+         * @param loaded the load state of the copy.
+         *
+         * @return a copy of this info.
+         */
+        Info copy(boolean loaded)
+        {
+            return new Info(this, loaded);
+        }
+
+
         /**
          * Returns the filename under which this entry is stored.
          *
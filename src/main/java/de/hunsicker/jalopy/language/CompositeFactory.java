@@ -1,33 +1,39 @@
 package de.hunsicker.jalopy.language;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Vector;
-
 import de.hunsicker.jalopy.language.antlr.ExtendedToken;
 import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
+import de.hunsicker.jalopy.language.antlr.JavadocLexer;
+import de.hunsicker.jalopy.language.antlr.JavadocParser;
 import de.hunsicker.jalopy.language.antlr.Node;
 
 /**
  * This class creates instances of all the Factories used to generate JavaNodes, Nodes, &
  * Extended Tokens. It is also responsible for maintaining and clearing the cache for these
- * factories
+ * factories.
+ * 
+ * <p>The created objects are kept in one arena per factory. Upon {@link #clear()} all
+ * objects are handed back to their arena in bulk and will be recycled for the next file,
+ * so steady-state formatting creates (almost) no new nodes and tokens. One instance
+ * serves a single worker (i.e. one Jalopy instance) and is therefore not thread-safe.</p>
  */
 public class CompositeFactory {
+    /** The maximal number of objects an arena retains for reuse. */
+    private static final int MAX_ARENA_SIZE = 1 << 16;
+
     /**TODO DOCUMENT ME!*/
     private ExtendedTokenFactory extendedTokenFactory = null;
 
     /**TODO DOCUMENT ME!*/
     private JavaNodeFactory javaNodeFactory = null;
 
-    /**TODO DOCUMENT ME!*/
-    private final Map cacheMap;
+    /** The arena for the tokens. */
+    private final Arena tokenArena = new Arena();
 
-    /**TODO DOCUMENT ME!*/
-    private final Map reuseMap;
+    /** The arena for the Java nodes. */
+    private final Arena javaNodeArena = new Arena();
+
+    /** The arena for the (Javadoc) nodes. */
+    private final Arena nodeArena = new Arena();
 
     /**TODO DOCUMENT ME!*/
     private NodeFactory nodeFactory = null;
@@ -35,6 +41,20 @@ public class CompositeFactory {
     /**TODO DOCUMENT ME!*/
     private Recognizer recognizer;
 
+    /** Parses Javadoc comments in the background, if enabled. */
+    private JavadocParserPool javadocParserPool;
+
+    /** Was this factory created by {@link #fork}? Then the Javadoc pool is borrowed. */
+    private boolean forked;
+
+    /**
+     * The token class created by the token factory. Does not refer to the enclosing
+     * factory, so tokens carry no more fields than necessary.
+     */
+    private static class ExtendedTokenImpl extends ExtendedToken {
+        // Empty implementation
+    } // end ExtendedTokenImpl
+
     /**
      * TODO DOCUMENT ME!
      * @author Steve Heyns Mar, 2007
@@ -44,15 +64,6 @@ public class CompositeFactory {
         /**TODO DOCUMENT ME!*/
         private final CompositeFactory compositeFactory;
 
-        /**
-         * TODO DOCUMENT ME!
-         * @author Steve Heyns Mar, 2007
-         * @version 1.0
-          */
-        private class ExtendedTokenImpl extends ExtendedToken {
-            // Empty implementation
-        } // end ExtendedTokenImpl
-
         /**
          * TODO Creates a new ExtendedTokenFactory object.
          *
@@ -96,12 +107,65 @@ public class CompositeFactory {
         } // end create()
     } // end ExtendedTokenFactory
 
+    /**
+     * Holds the objects created by one factory. Objects are recycled in creation order.
+     */
+    private static final class Arena {
+        /** The created objects. */
+        private Object[] objects = new Object[1024];
+
+        /** The number of objects in the arena. */
+        private int size;
+
+        /** The number of objects handed out since the last reset. */
+        private int used;
+
+        /**
+         * Returns the next object to recycle
+         *
+         * @return the next object or <code>null</code> if all objects are in use
+         */
+        Object next() {
+            if (used < size) {
+                return objects[used++];
+            } // end if
+
+            return null;
+        } // end next()
+
+        /**
+         * Adds a newly created object that is in use
+         *
+         * @param object The object
+         */
+        void add(Object object) {
+            // objects beyond the limit are left to the GC
+            if (size == MAX_ARENA_SIZE) {
+                return;
+            } // end if
+
+            if (size == objects.length) {
+                Object[] temp = new Object[size << 1];
+                System.arraycopy(objects, 0, temp, 0, size);
+                objects = temp;
+            } // end if
+
+            objects[size++] = object;
+            used = size;
+        } // end add()
+
+        /**
+         * Marks all objects as available for reuse
+         */
+        void reset() {
+            used = 0;
+        } // end reset()
+    } // end Arena
+
     /**
      * A constructor to provide single instance attributes
      */
     public CompositeFactory() {
-        this.cacheMap = new HashMap();
-        this.reuseMap = new HashMap();
         this.extendedTokenFactory = new ExtendedTokenFactory(this);
         this.javaNodeFactory = new JavaNodeFactory(this);
         this.nodeFactory = new NodeFactory(this);
@@ -115,71 +179,107 @@ public class CompositeFactory {
      */
     public void addCached(Class  class1,
                           Object cached) {
-        synchronized (cacheMap) {
-            List cache = (List)cacheMap.get(class1);
+        Arena arena = getArena(class1);
 
-            if (cache == null) {
-                cache = new Vector();
-                cacheMap.put(class1, cache);
-                reuseMap.put(class1, new Vector());
-            } // end if
-            cache.add(cached);
-        } // end synchronized
+        if (arena != null) {
+            arena.add(cached);
+        } // end if
     } // end addCached()
 
     /**
-     * Clears all objects that were created in the factories
+     * Hands all objects that were created in the factories back to their arena. The
+     * objects must not be used anymore afterwards. The pool that parses Javadoc
+     * comments in the background is only cleared by the factory that owns it, a forked
+     * factory leaves it alone as the file it belongs to is still being printed
      */
     public void clear() {
-        List cache = null;
-
-        //        List reuseList = null;
-        Object item = null;
-
-        // For each of the types clear the contents
-        synchronized (cacheMap) {
-            for (Iterator i = cacheMap.entrySet().iterator(); i.hasNext();) {
-                Map.Entry entry = (Entry)i.next();
-
-                //            reuseList = (List) reuseMap.get(entry.getKey());
-                cache = (List)entry.getValue();
-
-                for (Iterator l = cache.iterator(); l.hasNext();) {
-                    item = l.next();
-                    if (item instanceof Node) {
-                        ((Node)item).clear();
-                    } // end if
-                    else if (item instanceof ExtendedToken) {
-                        ((ExtendedToken)item).clear();
-                    } // end else if
-                    //                reuseList.add(item);
-                    l.remove();
-                } // end for
-            } // end for
-        } // end synchronized
+        tokenArena.reset();
+        javaNodeArena.reset();
+        nodeArena.reset();
+
+        if ((javadocParserPool != null) && !forked) {
+            javadocParserPool.clear();
+        } // end if
     } // end clear()
 
+    /**
+     * Creates a factory to print parts of a tree on another thread. The new factory has
+     * its own arenas and its own Javadoc recognizer that knows the same tags as the
+     * recognizer of this factory. The pool that parses Javadoc comments in the
+     * background is shared, and not cleared when the new factory is cleared
+     *
+     * @return a new factory
+     */
+    public CompositeFactory fork() {
+        CompositeFactory result = new CompositeFactory();
+        result.forked = true;
+        JavadocLexer lexer = new JavadocLexer(result);
+        JavadocParser parser = (JavadocParser)lexer.getParser();
+        Recognizer javadocRecognizer = new Recognizer(parser, lexer);
+
+        parser.setRecognizer(javadocRecognizer);
+
+        if (recognizer != null) {
+            JavadocParser source = (JavadocParser)recognizer.getParser();
+
+            parser.setCustomStandardTags(source.getStandardTags());
+            parser.setCustomInlineTags(source.getInlineTags());
+        } // end if
+
+        result.setJavadocRecognizer(javadocRecognizer);
+        result.setJavadocParserPool(javadocParserPool);
+        return result;
+    } // end fork()
+
     /**
      * A factory calls this method to return an object that was cached
      *
      * @param class1 The class used to index
      *
-     * @return
+     * @return a recycled object in its initial state or <code>null</code> if the
+     *         factory has to create a new one
      */
     public Object getCached(Class class1) {
-        return null;
-        // Commented out, just allow the objects to be created by the factories and let
-        // the GC take care of removing them
-        //        List cache = (List) reuseMap.get(class1);
-        //        Object result= null;
-        //        if (cache!=null && !cache.isEmpty()) {
-        //            result = cache.remove(0);
-        //            addCached(class1, result);
-        //        }
-        //        
-        //        return result;
+        Arena arena = getArena(class1);
+
+        if (arena == null) {
+            return null;
+        } // end if
+
+        Object result = arena.next();
+
+        if (result instanceof Node) {
+            ((Node)result).clear();
+        } // end if
+        else if (result instanceof ExtendedToken) {
+            ((ExtendedToken)result).clear();
+        } // end else if
+
+        return result;
     } // end getCached()
 
+    /**
+     * Returns the arena for the given factory class
+     *
+     * @param class1 The class used to index
+     *
+     * @return The arena or <code>null</code> if objects of the given factory are not
+     *         cached
+     */
+    private Arena getArena(Class class1) {
+        if (class1 == ExtendedTokenFactory.class) {
+            return tokenArena;
+        } // end if
+        else if (class1 == JavaNodeFactory.class) {
+            return javaNodeArena;
+        } // end else if
+        else if (class1 == NodeFactory.class) {
+            return nodeArena;
+        } // end else if
+
+        return null;
+    } // end getArena()
+
     /**
      * Returns the local copy of the token factory
      *
@@ -224,4 +324,23 @@ public class CompositeFactory {
     public void setJavadocRecognizer(Recognizer recognizer) {
         this.recognizer = recognizer;
     } // end setJavadocRecognizer()
+
+    /**
+     * Returns the pool that parses Javadoc comments in the background.
+     *
+     * @return the pool or <code>null</code> if comments are parsed on demand only.
+     */
+    public JavadocParserPool getJavadocParserPool() {
+        return javadocParserPool;
+    } // end getJavadocParserPool()
+
+    /**
+     * Sets the pool that parses Javadoc comments in the background.
+     *
+     * @param javadocParserPool the pool, <code>null</code> to parse comments on demand
+     *        only.
+     */
+    public void setJavadocParserPool(JavadocParserPool javadocParserPool) {
+        this.javadocParserPool = javadocParserPool;
+    } // end setJavadocParserPool()
 } // end CompositeFactory
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import antlr.collections.AST;
+
+
+/**
+ * Tree walker that lets several walkers share a single walk over a tree.
+ *
+ * <p>
+ * Walkers are {@link #add registered} together with the node types they are interested
+ * in and are only called back for nodes of these types. A walker that {@link
+ * TreeWalker#stop stops} is not called back any longer, the walk ends after all
+ * walkers have stopped. Only walkers that rely on the default implementation of {@link
+ * TreeWalker#walkNode} can be combined, and they must not change the structure of the
+ * tree while it is being walked.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+final class CompositeTreeWalker
+    extends TreeWalker
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The maximal number of walkers (one bit of a dispatch mask each). */
+    private static final int MAX_WALKERS = 32;
+
+    private static final int[] EMPTY_INT_ARRAY = new int[0];
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The registered walkers. */
+    private final TreeWalker[] _walkers = new TreeWalker[MAX_WALKERS];
+
+    /** The walkers interested in a node type, indexed by node type. */
+    private int[] _dispatch = EMPTY_INT_ARRAY;
+
+    /** The walkers interested in every node. */
+    private int _all;
+
+    /** The walkers not yet stopped. */
+    private int _active;
+
+    /** The number of registered walkers. */
+    private int _count;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new CompositeTreeWalker object.
+     */
+    public CompositeTreeWalker()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Determines whether no walkers are registered.
+     *
+     * @return <code>true</code> if no walkers are registered.
+     */
+    public boolean isEmpty()
+    {
+        return _count == 0;
+    }
+
+
+    /**
+     * Registers the given walker.
+     *
+     * @param walker the walker to call back during the walk. Must not be stopped.
+     * @param types the node types the walker should be called back for. Use
+     *        <code>null</code> to call it back for every node.
+     *
+     * @throws IllegalStateException if the maximal number of walkers is already
+     *         registered.
+     */
+    public void add(
+        TreeWalker walker,
+        int[]      types)
+    {
+        if (_count == MAX_WALKERS)
+        {
+            throw new IllegalStateException("too many walkers -- " + _count);
+        }
+
+        int bit = 1 << _count;
+        _walkers[_count++] = walker;
+        _active |= bit;
+
+        if (types == null)
+        {
+            _all |= bit;
+
+            return;
+        }
+
+        for (int i = 0; i < types.length; i++)
+        {
+            if (types[i] >= _dispatch.length)
+            {
+                int[] dispatch = new int[types[i] + 1];
+                System.arraycopy(_dispatch, 0, dispatch, 0, _dispatch.length);
+                _dispatch = dispatch;
+            }
+
+            _dispatch[types[i]] |= bit;
+        }
+    }
+
+
+    /**
+     * Removes all registered walkers. The walkers keep whatever they have collected.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < _count; i++)
+        {
+            _walkers[i] = null;
+        }
+
+        for (int i = 0; i < _dispatch.length; i++)
+        {
+            _dispatch[i] = 0;
+        }
+
+        _count = 0;
+        _all = 0;
+        _active = 0;
+        reset();
+    }
+
+
+    /**
+     * Calls back all walkers that are interested in the given node.
+     *
+     * @param node a node of the tree.
+     */
+    public void visit(AST node)
+    {
+        int type = node.getType();
+        int mask = _all;
+
+        if ((type >= 0) && (type < _dispatch.length))
+        {
+            mask |= _dispatch[type];
+        }
+
+        mask &= _active;
+
+        for (int i = 0; mask != 0; i++, mask >>>= 1)
+        {
+            if ((mask & 1) != 0)
+            {
+                TreeWalker walker = _walkers[i];
+                walker.visit(node);
+
+                if (walker.stop)
+                {
+                    _active &= ~(1 << i);
+
+                    if (_active == 0)
+                    {
+                        stop();
+                    }
+                }
+            }
+        }
+    }
+}
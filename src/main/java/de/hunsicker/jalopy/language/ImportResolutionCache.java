@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.hunsicker.util.StringHelper;
+
+
+/**
+ * Memoizes the class repository lookups performed by the import transformation.
+ *
+ * <p>
+ * Outside of a batch run every caller gets a fresh, private cache which is thrown away
+ * after the file has been processed. Between {@link #beginBatch} and {@link #endBatch}
+ * all callers share one cache, so files of the same package or with identical import
+ * blocks reuse the results computed for the files processed before.
+ * </p>
+ *
+ * <p>
+ * A cache is bound to one snapshot of the repository contents. Whenever the
+ * repository changes, the shared cache will be discarded upon the next request.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jalopy contributors
+ *
+ * @see de.hunsicker.jalopy.language.ImportTransformation
+ */
+public final class ImportResolutionCache
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Marker we use to mark the start of new package in the type array. */
+    private static final String MARKER = "#" /* NOI18N */;
+
+    /** Guards the batch state. */
+    private static final Object LOCK = new Object();
+
+    /** The cache shared during a batch run, if any. */
+    private static ImportResolutionCache _batch;
+
+    /** The number of batch runs currently active. */
+    private static int _batchCount;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The repository contents this cache was built upon. */
+    private final String[] _content;
+
+    /** Holds the resolved identifiers. */
+    private final Map _resolutions = new HashMap(100); // Map of <String>:<boolean[]>
+
+    /** Holds the type names of packages. */
+    private final Map _packageTypes = new HashMap(50); // Map of <String>:<List>
+
+    /** Holds the type names two packages have in common. */
+    private final Map _sharedTypes = new HashMap(50); // Map of <String>:<List>
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new ImportResolutionCache object.
+     *
+     * @param content the repository contents to resolve against.
+     */
+    private ImportResolutionCache(String[] content)
+    {
+        _content = content;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Marks the start of a batch run. Until the matching call to {@link #endBatch},
+     * resolution results will be shared between all files and threads. Batch runs may
+     * nest.
+     */
+    public static void beginBatch()
+    {
+        synchronized (LOCK)
+        {
+            _batchCount++;
+        }
+    }
+
+
+    /**
+     * Marks the end of a batch run. The shared cache will be released after the
+     * outermost batch run ended.
+     */
+    public static void endBatch()
+    {
+        synchronized (LOCK)
+        {
+            if ((_batchCount > 0) && (--_batchCount == 0))
+            {
+                _batch = null;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the cache to use for the given repository contents.
+     *
+     * @param content the current repository contents.
+     *
+     * @return the cache shared by the active batch run or a fresh cache if no batch
+     *         run is active.
+     */
+    static ImportResolutionCache getInstance(String[] content)
+    {
+        synchronized (LOCK)
+        {
+            if (_batchCount == 0)
+            {
+                return new ImportResolutionCache(content);
+            }
+
+            // the repository changed since we've started, so start over
+            if ((_batch == null) || (_batch._content != content))
+            {
+                _batch = new ImportResolutionCache(content);
+            }
+
+            return _batch;
+        }
+    }
+
+
+    /**
+     * Returns all type names of the given package (without package name).
+     *
+     * @param packageName a package name.
+     *
+     * @return unmodifiable list with all type names of the given package. If
+     *         <code><em>packageName</em> == null</code> or the given package is not
+     *         contained in the repository, an empty list will be returned.
+     */
+    List getPackageTypes(String packageName)
+    {
+        if ((packageName == null) || (_content.length == 0))
+        {
+            return Collections.EMPTY_LIST;
+        }
+
+        List result;
+
+        synchronized (_packageTypes)
+        {
+            result = (List) _packageTypes.get(packageName);
+        }
+
+        if (result == null)
+        {
+            result = Collections.unmodifiableList(findPackageTypes(packageName));
+
+            synchronized (_packageTypes)
+            {
+                _packageTypes.put(packageName, result);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Returns the type names that are contained in both given packages.
+     *
+     * @param firstPackageName name of the first package.
+     * @param firstPackageTypes type names of the first package.
+     * @param secondPackageName name of the second package.
+     * @param secondPackageTypes type names of the second package.
+     *
+     * @return unmodifiable list with the common type names, in the order of the first
+     *         package. Returns an empty list if the packages share no type names.
+     */
+    List getSharedTypes(
+        String firstPackageName,
+        List   firstPackageTypes,
+        String secondPackageName,
+        List   secondPackageTypes)
+    {
+        String key = firstPackageName + ' ' + secondPackageName;
+        List result;
+
+        synchronized (_sharedTypes)
+        {
+            result = (List) _sharedTypes.get(key);
+        }
+
+        if (result == null)
+        {
+            result = new ArrayList(0);
+
+            for (int i = 0, size = firstPackageTypes.size(); i < size; i++)
+            {
+                String type = (String) firstPackageTypes.get(i);
+
+                if (!type.endsWith(MARKER) && secondPackageTypes.contains(type))
+                {
+                    result.add(type);
+                }
+            }
+
+            result =
+                result.isEmpty() ? Collections.EMPTY_LIST
+                                 : Collections.unmodifiableList(result);
+
+            synchronized (_sharedTypes)
+            {
+                _sharedTypes.put(key, result);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Resolves the given identifier against the given on-demand import packages.
+     *
+     * @param importsKey key that uniquely identifies the given packages.
+     * @param packageNames the package names of the on-demand imports.
+     * @param identifier an unqualified type identifier.
+     *
+     * @return array with one element per package, an element is <code>true</code> if
+     *         the repository contains the identifier in the corresponding package. The
+     *         returned array is shared and must not be modified.
+     */
+    boolean[] resolve(
+        String   importsKey,
+        String[] packageNames,
+        String   identifier)
+    {
+        String key = importsKey + '|' + identifier;
+        boolean[] result;
+
+        synchronized (_resolutions)
+        {
+            result = (boolean[]) _resolutions.get(key);
+        }
+
+        if (result == null)
+        {
+            result = new boolean[packageNames.length];
+
+            StringBuffer buf = new StringBuffer(50);
+
+            for (int i = 0; i < packageNames.length; i++)
+            {
+                buf.setLength(0);
+                buf.append(packageNames[i]);
+                buf.append('.');
+                buf.append(identifier);
+                result[i] = Arrays.binarySearch(_content, buf.toString()) > -1;
+            }
+
+            synchronized (_resolutions)
+            {
+                _resolutions.put(key, result);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Searches the repository for the type names of the given package.
+     *
+     * @param packageName a package name.
+     *
+     * @return list with all type names of the given package.
+     */
+    private List findPackageTypes(String packageName)
+    {
+        String[] content = _content;
+
+        // search the start marker for the package (that is why we have
+        // added the '#' marker!)
+        int startOffset = Arrays.binarySearch(content, packageName + MARKER);
+        List result = new ArrayList(20);
+
+        // we found a marker...
+        if (startOffset > -1)
+        {
+            int depth = StringHelper.occurs('.', packageName) + 1;
+
+            // so search from the next entry on
+            for (int i = startOffset + 1; i < content.length; i++)
+            {
+                // as long as the type starts with the package name
+                if (content[i].startsWith(packageName))
+                {
+                    // and resides in the exact same package, not a
+                    // sub-package
+                    //
+                    //   java.util      --> OK
+                    //   java.util.jar  --> SKIP
+                    if (StringHelper.occurs('.', content[i]) == depth)
+                    {
+                        result.add(StringHelper.getClassName(content[i]));
+                    }
+                }
+                else
+                {
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+}
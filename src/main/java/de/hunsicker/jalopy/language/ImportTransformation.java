@@ -64,9 +64,6 @@ final class ImportTransformation
     /** The empty node array. */
     private static final JavaNode[] EMPTY_NODE_ARRAY = new JavaNode[0];
 
-    /** Marker we use to mark the start of new package in the type array. */
-    private static final String MARKER = "#" /* NOI18N */;
-
     /** The empty string. */
     private static final String EMPTY_STRING = "" /* NOI18N */.intern();
 
@@ -85,6 +82,21 @@ final class ImportTransformation
     /** The first CLASS_DEF node, if any. */
     private AST _class;
 
+    /** The import declaration nodes in the order they appear in the tree. */
+    private final List _imports = new ArrayList(); // List of <JavaNode>
+
+    /** The names of the import declarations, in the order they appear in the tree. */
+    private final List _names = new ArrayList(); // List of <String>
+
+    /** The encoded grouping info the decoded grouping info is cached for. */
+    private String _groupingInfo;
+
+    /** The decoded grouping info. */
+    private List _grouping;
+
+    /** Indicates whether the import declarations are interspersed with semicolons. */
+    private boolean _semi;
+
     /** The package node of the tree, if any. */
     private JavaNode _packageNameNode;
 
@@ -116,6 +128,9 @@ final class ImportTransformation
     private int _line;
     private JavaNodeFactory _factory = null;
 
+    /** Memoizes the repository lookups, maybe shared with other files of a batch run. */
+    private ImportResolutionCache _cache;
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -160,6 +175,10 @@ final class ImportTransformation
             // we only can expand/collapse if our repository is available
             if (!ClassRepository.getInstance().isEmpty())
             {
+                _cache =
+                    ImportResolutionCache.getInstance(
+                        ClassRepository.getInstance().getContent());
+
                 if (expand)
                 {
                     walk(tree);
@@ -173,13 +192,13 @@ final class ImportTransformation
                 else if (_sortImports) // only sort
                 {
                     walk(tree);
-                    updateTree(_onDemandImports, _singleTypeImports);
+                    sort();
                 }
             }
             else if (_sortImports) // only sort
             {
                 walk(tree);
-                updateTree(_onDemandImports, _singleTypeImports);
+                sort();
             }
         }
         finally
@@ -202,6 +221,8 @@ final class ImportTransformation
     {
         String identifier = JavaNodeHelper.getDottedName(node.getFirstChild());
         JavaNode importNode = (JavaNode) node;
+        _imports.add(importNode);
+        _names.add(identifier);
 
         if (_line == 0)
         {
@@ -322,6 +343,7 @@ final class ImportTransformation
             }
 
             case JavaTokenTypes.SEMI :
+                _semi = true;
                 walkNode(node.getNextSibling());
 
                 break;
@@ -473,52 +495,7 @@ final class ImportTransformation
      */
     private List getPackageTypes(String packageName)
     {
-        if (packageName == null)
-        {
-            return Collections.EMPTY_LIST;
-        }
-
-        String[] content = ClassRepository.getInstance().getContent();
-
-        if (content.length == 0)
-        {
-            return Collections.EMPTY_LIST;
-        }
-
-        // search the start marker for the package (that is why we have
-        // added the '#' marker!)
-        int startOffset = Arrays.binarySearch(content, packageName + '#');
-        List result = new ArrayList(20);
-
-        // we found a marker...
-        if (startOffset > -1)
-        {
-            int depth = StringHelper.occurs('.', packageName) + 1;
-
-            // so search from the next entry on
-            for (int i = startOffset + 1; i < content.length; i++)
-            {
-                // as long as the type starts with the package name
-                if (content[i].startsWith(packageName))
-                {
-                    // and resides in the exact same package, not a
-                    // sub-package
-                    //
-                    //   java.util      --> OK
-                    //   java.util.jar  --> SKIP
-                    if (StringHelper.occurs('.', content[i]) == depth)
-                    {
-                        result.add(StringHelper.getClassName(content[i]));
-                    }
-                }
-                else
-                {
-                    break;
-                }
-            }
-        }
-
-        return result;
+        return _cache.getPackageTypes(packageName);
     }
 
 
@@ -691,12 +668,16 @@ final class ImportTransformation
     {
         _onDemandImports.clear();
         _singleTypeImports.clear();
+        _imports.clear();
+        _names.clear();
+        _semi = false;
         _packageName = EMPTY_STRING;
         _packageNameNode = null;
         _class = null;
         _root = null;
         _filename = null;
         _line = 0;
+        _cache = null;
     }
 
     private void collapse()
@@ -821,14 +802,16 @@ final class ImportTransformation
                 }
 
                 List secondPackageTypes = (List) secondPackageData.getValue();
+                List sharedTypes =
+                    _cache.getSharedTypes(
+                        firstPackageName, firstPackageTypes, secondPackageName,
+                        secondPackageTypes);
 
-                for (int i = 0, size = firstPackageTypes.size(); i < size; i++)
+                for (int i = 0, size = sharedTypes.size(); i < size; i++)
                 {
-                    String type = (String) firstPackageTypes.get(i);
+                    String type = (String) sharedTypes.get(i);
 
-                    if (
-                        !type.endsWith(MARKER) && secondPackageTypes.contains(type)
-                        && isUsed(type, defaultTypes))
+                    if (isUsed(type, defaultTypes))
                     {
                         conflicts.add(firstPackageName);
                         template.setText(firstPackageName);
@@ -901,7 +884,7 @@ final class ImportTransformation
         }
         else
         {
-            updateTree(_onDemandImports, Collections.EMPTY_LIST);
+            sort();
         }
     }
 
@@ -1086,6 +1069,67 @@ final class ImportTransformation
     }
 
 
+    /**
+     * Determines whether the import declarations found are already in canonical form:
+     * free of duplicates and stray semicolons and sorted according to the grouping info.
+     * Sorting such declarations would yield the very same order.
+     *
+     * @return <code>true</code> if the import declarations are in canonical form.
+     */
+    private boolean isCanonical()
+    {
+        int size = _imports.size();
+
+        // duplicates will be removed, semicolons dropped
+        if (
+            (size == 0) || _semi
+            || (size != (_onDemandImports.size() + _singleTypeImports.size())))
+        {
+            return false;
+        }
+
+        if (((AST) _imports.get(size - 1)).getNextSibling() != _class)
+        {
+            return false;
+        }
+
+        COMP_IMPORT.identifiers = getGroupingInfo();
+
+        // as there are no duplicates, the sort order is strict
+        for (int i = 1; i < size; i++)
+        {
+            if (COMP_IMPORT.compare((String) _names.get(i - 1), (String) _names.get(i)) >= 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns the decoded grouping info of the current code convention.
+     *
+     * @return list with the package names (of type <code>String</code>) in the order
+     *         of their groups.
+     */
+    private List getGroupingInfo()
+    {
+        String info =
+            Convention.getInstance().get(
+                ConventionKeys.IMPORT_GROUPING, ConventionDefaults.IMPORT_GROUPING);
+
+        if (!info.equals(_groupingInfo))
+        {
+            _grouping = decodeGroupingInfo(info);
+            _groupingInfo = info;
+        }
+
+        return _grouping;
+    }
+
+
     private List decodeGroupingInfo(String info)
     {
         List result = new ArrayList();
@@ -1174,27 +1218,48 @@ final class ImportTransformation
         List result = new ArrayList(20);
         Map conflicts = new HashMap(20);
 
+        // files with the same on-demand imports share the repository lookups
+        String[] packageNames = new String[expandableImports.size()];
+
+        for (int i = 0; i < packageNames.length; i++)
+        {
+            packageNames[i] = ((JavaNode) expandableImports.get(i)).getText();
+            buf.append(packageNames[i]);
+            buf.append(',');
+        }
+
+        String importsKey = buf.toString();
+        buf.setLength(0);
+
+        boolean[][] resolved = new boolean[identifiers.size()][];
+
+        for (int j = 0; j < resolved.length; j++)
+        {
+            resolved[j] =
+                _cache.resolve(importsKey, packageNames, (String) identifiers.get(j));
+        }
+
         // we first build a list with the possible single-type import declarations
         for (int i = 0, size = expandableImports.size(); i < size; i++)
         {
             for (int j = 0, tempSize = identifiers.size(); j < tempSize; j++)
             {
-                String unresolvedIdent = (String) identifiers.get(j);
-                JavaNode resolvableImport = (JavaNode) expandableImports.get(i);
+                // check if this single-type is contained in the repository
+                if (resolved[j][i])
+                {
+                    String unresolvedIdent = (String) identifiers.get(j);
+                    JavaNode resolvableImport = (JavaNode) expandableImports.get(i);
 
-                // construct a single-type import out of
-                // the package name from the on-demand import...
-                buf.append(resolvableImport.getText());
-                buf.append('.');
+                    // construct a single-type import out of
+                    // the package name from the on-demand import...
+                    buf.append(resolvableImport.getText());
+                    buf.append('.');
 
-                // and the type name found in the source
-                buf.append(unresolvedIdent);
-                template.setText(buf.toString());
-                buf.setLength(0);
+                    // and the type name found in the source
+                    buf.append(unresolvedIdent);
+                    template.setText(buf.toString());
+                    buf.setLength(0);
 
-                // check if this single-type is contained in the repository
-                if (Arrays.binarySearch(repository, template.getText()) > -1)
-                {
                     // don't add an already existing declaration
                     if (
                         !singleTypeImports.contains(template)
@@ -1410,6 +1475,39 @@ CHECK:
     }
 
 
+    /**
+     * Sorts the import declarations found and updates the tree. Import declarations
+     * which are already in canonical form are left as they are.
+     */
+    private void sort()
+    {
+        if (!_sortImports || !isCanonical())
+        {
+            updateTree(_onDemandImports, _singleTypeImports);
+
+            return;
+        }
+
+        // the nodes are in place, just link them back into the tree and
+        // update the node texts like the rebuilt nodes would be
+        for (int i = 0, size = _imports.size(); i < size; i++)
+        {
+            ((JavaNode) _imports.get(i)).setText((String) _names.get(i));
+        }
+
+        AST first = (AST) _imports.get(0);
+
+        if (_packageNameNode != null)
+        {
+            _packageNameNode.setNextSibling(first);
+        }
+        else
+        {
+            _root.setFirstChild(first);
+        }
+    }
+
+
     /**
      * Updates the tree with the given information.
      *
@@ -1435,11 +1533,7 @@ CHECK:
         // sort lexicographically
         if (_sortImports)
         {
-            List info =
-                decodeGroupingInfo(
-                    Convention.getInstance().get(
-                        ConventionKeys.IMPORT_GROUPING, ConventionDefaults.IMPORT_GROUPING));
-            COMP_IMPORT.identifiers = info;
+            COMP_IMPORT.identifiers = getGroupingInfo();
             Collections.sort(imports, COMP_IMPORT);
         }
         else // we should preserve the original order, so sort by line
@@ -1466,11 +1560,16 @@ CHECK:
                 return 0;
             }
 
-            JavaNode n1 = (JavaNode) o1;
-            JavaNode n2 = (JavaNode) o2;
+            return compare(((JavaNode) o1).getText(), ((JavaNode) o2).getText());
+        }
+
 
-            int i1 = getIndex(identifiers, n1.getText());
-            int i2 = getIndex(identifiers, n2.getText());
+        public int compare(
+            String name1,
+            String name2)
+        {
+            int i1 = getIndex(identifiers, name1);
+            int i2 = getIndex(identifiers, name2);
 
             if (i1 > -1)
             {
@@ -1513,7 +1612,7 @@ CHECK:
                 }
             }
 
-            return n1.getText().compareTo(n2.getText());
+            return name1.compareTo(name2);
         }
     }
 
@@ -28,6 +28,7 @@ import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.StringTokenizer;
 
@@ -49,9 +50,24 @@ public final class JavaRecognizer extends Recognizer
    /** Indicates JDK version 1.4. */
    public static final int JDK_1_4 = JavaLexer.JDK_1_4;
 
+   /** The maximal number of idle recognizers kept for reuse. */
+   private static final int MAX_IDLE = 16;
+
+   /** The idle recognizers. */
+   private static final LinkedList _idle = new LinkedList(); // List of <JavaRecognizer>
+
    /** The code convention. */
    private Convention _settings;
 
+   /** The factory that creates the nodes and tokens. */
+   private final CompositeFactory _factory;
+
+   /**
+    * The modification count of the code convention the lexer and parsers were
+    * configured for, -1 if they were not configured yet.
+    */
+   private int _configured = -1;
+
    /** List with the annotations for the current input source. */
    List _annotations = Collections.EMPTY_LIST;  // List of <Annotation>
 
@@ -65,7 +81,7 @@ public final class JavaRecognizer extends Recognizer
     * Checks whether debug logging calls are enclosing with a boolean
     * expression .
     */
-   private Transformation _loggingTransformation;
+   private LoggerTransformation _loggingTransformation;
 
    /** Inserts a serial version UID for serializable classes. */
    private Transformation _serialTrans;
@@ -73,6 +89,9 @@ public final class JavaRecognizer extends Recognizer
    /** Sorts the AST tree. */
    private Transformation _sortTrans;
 
+   /** Walks the tree once for all walkers that only collect nodes. */
+   private final CompositeTreeWalker _walker = new CompositeTreeWalker();
+
    /**
     * DOCUMENT ME!
     */
@@ -94,6 +113,7 @@ public final class JavaRecognizer extends Recognizer
    public JavaRecognizer(CompositeFactory factory)
    {
       _settings = Convention.getInstance();
+      _factory = factory;
 
       JavaLexer l = new JavaLexer(factory);
       this.lexer = l;
@@ -108,6 +128,80 @@ public final class JavaRecognizer extends Recognizer
       _loggingTransformation    = new LoggerTransformation(factory.getJavaNodeFactory());
    }
 
+   /**
+    * Returns a recognizer configured for the current code convention. Recognizers
+    * are expensive to create (they each come with their own lexers, parsers,
+    * transformations and node factory), so released recognizers are reused.
+    *
+    * @return a recognizer with its own factory, see {@link #getCompositeFactory}.
+    *
+    * @see #release
+    */
+   public static JavaRecognizer acquire()
+   {
+      Convention settings = Convention.getInstance();
+      JavaRecognizer recognizer = null;
+
+      synchronized(_idle)
+      {
+         while(!_idle.isEmpty())
+         {
+            JavaRecognizer candidate = (JavaRecognizer)_idle.removeFirst();
+
+            // the code convention was replaced meanwhile, forget about it
+            if(candidate._settings == settings)
+            {
+               recognizer = candidate;
+
+               break;
+            }
+         }
+      }
+
+      if(recognizer == null)
+      {
+         recognizer = new JavaRecognizer(new CompositeFactory());
+      }
+
+      recognizer.configure();
+
+      return recognizer;
+   }
+
+   /**
+    * Hands the given recognizer back for reuse. The caller must not use the
+    * recognizer, its factory or any tree created by them afterwards.
+    *
+    * @param recognizer a recognizer obtained via {@link #acquire}.
+    */
+   public static void release(JavaRecognizer recognizer)
+   {
+      recognizer.reset();
+      recognizer._factory.clear();
+      recognizer._annotations = Collections.EMPTY_LIST;
+      recognizer._position = null;
+      recognizer._trackPosition = false;
+      recognizer.root = null;
+
+      synchronized(_idle)
+      {
+         if(_idle.size() < MAX_IDLE)
+         {
+            _idle.addFirst(recognizer);
+         }
+      }
+   }
+
+   /**
+    * Returns the factory that creates the nodes and tokens for this recognizer.
+    *
+    * @return the factory.
+    */
+   public CompositeFactory getCompositeFactory()
+   {
+      return _factory;
+   }
+
    /**
     * Returns the package name of the parsed source file. @return the package
     * name of the parsed source file. Returns the empty String if the source
@@ -178,7 +272,7 @@ public final class JavaRecognizer extends Recognizer
                tracker.annotation = (Annotation)_annotations.get(0);
             }
 
-            tracker.walk(super.getParseTree());
+            _walker.add(tracker, null);
          }
 
          transform();
@@ -289,26 +383,19 @@ public final class JavaRecognizer extends Recognizer
    }
 
    /**
-    * {@inheritDoc}
-    *
-    * @param in DOCUMENT ME!
-    * @param filename DOCUMENT ME!
-    *
-    * @throws IllegalStateException DOCUMENT ME!
-    * @throws ParseException DOCUMENT ME!
+    * Applies the code convention to the lexer and parsers. As the settings hardly
+    * ever change between two files, this is only done if the code convention was
+    * modified since the last call.
     */
-   public void parse(Reader in, String filename)
+   private void configure()
    {
-      if(this.running)
+      int modCount = _settings.getModificationCount();
+
+      if(modCount == _configured)
       {
-         throw new IllegalStateException("parser currently running");
+         return;
       }
 
-      this.finished    = false;
-      this.running     = true;
-      _transformed     = false;
-
-      // update the parsers/lexer driving settings prior to parsing
       JavaParser javaParser = (JavaParser)this.parser;
       javaParser.stripQualification = _settings.getBoolean(ConventionKeys.STRIP_QUALIFICATION,
             ConventionDefaults.STRIP_QUALIFICATION);
@@ -328,14 +415,59 @@ public final class JavaRecognizer extends Recognizer
             ConventionDefaults.COMMENT_REMOVE_MULTI_LINE);
       javaLexer.formatMLComments = _settings.getBoolean(ConventionKeys.COMMENT_FORMAT_MULTI_LINE,
             ConventionDefaults.COMMENT_FORMAT_MULTI_LINE);
+      javaLexer.fastScanner = _settings.getBoolean(ConventionKeys.FAST_SCANNER,
+            ConventionDefaults.FAST_SCANNER);
 
-      JavadocParser javadocParser = javaLexer.getJavadocParser();
-      javadocParser.setCustomStandardTags(decodeTags(_settings.get(
+      Collection standardTags = decodeTags(_settings.get(
                ConventionKeys.COMMENT_JAVADOC_TAGS_STANDARD,
-               ConventionDefaults.COMMENT_JAVADOC_TAGS_STANDARD)));
-      javadocParser.setCustomInlineTags(decodeTags(_settings.get(
+               ConventionDefaults.COMMENT_JAVADOC_TAGS_STANDARD));
+      Collection inlineTags = decodeTags(_settings.get(
                ConventionKeys.COMMENT_JAVADOC_TAGS_INLINE,
-               ConventionDefaults.COMMENT_JAVADOC_TAGS_INLINE)));
+               ConventionDefaults.COMMENT_JAVADOC_TAGS_INLINE));
+      JavadocParser javadocParser = javaLexer.getJavadocParser();
+      javadocParser.setCustomStandardTags(standardTags);
+      javadocParser.setCustomInlineTags(inlineTags);
+
+      // with background parsing enabled, the lexer hands every Javadoc comment
+      // over to the pool as soon as it has been read
+      javaLexer.javadocParseThreads = javaLexer.parseJavadocComments
+            ? _settings.getInt(ConventionKeys.COMMENT_JAVADOC_PARSE_THREADS,
+                  ConventionDefaults.COMMENT_JAVADOC_PARSE_THREADS)
+            : 0;
+      JavadocParserPool pool = javaLexer.getJavadocParserPool();
+
+      if(pool != null)
+      {
+         pool.setCustomTags(standardTags, inlineTags);
+      }
+
+      _configured = modCount;
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * @param in DOCUMENT ME!
+    * @param filename DOCUMENT ME!
+    *
+    * @throws IllegalStateException DOCUMENT ME!
+    * @throws ParseException DOCUMENT ME!
+    */
+   public void parse(Reader in, String filename)
+   {
+      if(this.running)
+      {
+         throw new IllegalStateException("parser currently running");
+      }
+
+      this.finished    = false;
+      this.running     = true;
+      _transformed     = false;
+
+      // update the parsers/lexer driving settings prior to parsing
+      configure();
+
+      JavaLexer javaLexer = (JavaLexer)this.lexer;
 
       this.lexer.setInputBuffer(in);
 
@@ -655,6 +787,30 @@ public final class JavaRecognizer extends Recognizer
    private void transform()
    {
       AST tree = this.parser.getParseTree();
+      boolean logging =
+         _settings.getBoolean(ConventionKeys.INSERT_LOGGING_CONDITIONAL,
+            ConventionDefaults.INSERT_LOGGING_CONDITIONAL);
+
+      if(logging)
+      {
+         _loggingTransformation.reset();
+         _walker.add(_loggingTransformation, LoggerTransformation.NODE_TYPES);
+      }
+
+      try
+      {
+         // the position tracker and the logging transformation only collect nodes
+         // the other transformations leave alone, so a single walk over the original
+         // tree serves them all
+         if((tree != null) && !_walker.isEmpty())
+         {
+            _walker.walk(tree);
+         }
+      }
+      finally
+      {
+         _walker.clear();
+      }
 
       if(tree != null)
       {
@@ -673,10 +829,9 @@ public final class JavaRecognizer extends Recognizer
                _sortTrans.apply(tree);
             }
 
-            if(_settings.getBoolean(ConventionKeys.INSERT_LOGGING_CONDITIONAL,
-                    ConventionDefaults.INSERT_LOGGING_CONDITIONAL))
+            if(logging)
             {
-               _loggingTransformation.apply(tree);
+               _loggingTransformation.transform(tree);
             }
          }
          catch(TransformationException ex)
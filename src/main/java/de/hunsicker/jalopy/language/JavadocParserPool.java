@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import antlr.collections.AST;
+
+import de.hunsicker.jalopy.language.antlr.JavadocLexer;
+import de.hunsicker.jalopy.language.antlr.JavadocParser;
+import de.hunsicker.util.concurrent.FutureResult;
+
+
+/**
+ * Parses the Javadoc comments of a file in the background while the Java lexer and
+ * parser go on with the rest of the file.
+ *
+ * <p>
+ * The lexer {@link #submit submits} the raw comments as it encounters them. A number of
+ * worker threads parse the comments concurrently, each with its own Javadoc recognizer
+ * and node factory. The printer {@link #get collects} the trees when it needs them. A
+ * comment nobody has started to work on by then is handed back, so the caller parses it
+ * itself rather than waiting.
+ * </p>
+ *
+ * <p>
+ * The workers never report problems. A comment that could not be parsed without
+ * problems is handed back as well, so the problems are reported by the caller, in the
+ * order and at the position they would be reported without the pool.
+ * </p>
+ *
+ * <p>
+ * Workers are started on demand and terminate after they have been idle for some time.
+ * The nodes of the parse trees are recycled by the workers once the file has been
+ * processed and {@link #clear} was called.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jalopy contributors
+ *
+ * @see de.hunsicker.jalopy.language.antlr.JavaLexer
+ */
+public final class JavadocParserPool
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Time in milliseconds an idle worker waits for new comments before it quits. */
+    private static final long KEEP_ALIVE = 5000;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The comments not yet picked up by a worker. */
+    private final LinkedList _queue = new LinkedList(); // List of <Task>
+
+    /** The submitted comments not yet collected. */
+    private final Map _tasks = new IdentityHashMap(); // Map of <AST>:<Task>
+
+    /** The maximal number of workers. */
+    private final int _maxThreads;
+
+    /** The number of running workers. */
+    private int _threads;
+
+    /** The number of workers waiting for comments. */
+    private int _idle;
+
+    /** The current generation, incremented for every processed file. */
+    private int _generation;
+
+    /** The custom standard tags to recognize. */
+    private Collection _standardTags = Collections.EMPTY_LIST;
+
+    /** The custom in-line tags to recognize. */
+    private Collection _inlineTags = Collections.EMPTY_LIST;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new JavadocParserPool object.
+     *
+     * @param threads the maximal number of worker threads to use.
+     *
+     * @throws IllegalArgumentException if <code><em>threads</em> &lt; 1</code>.
+     */
+    public JavadocParserPool(int threads)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads < 1 -- " + threads);
+        }
+
+        _maxThreads = threads;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Sets the custom Javadoc tags the workers should recognize.
+     *
+     * @param standardTags the custom standard tags.
+     * @param inlineTags the custom in-line tags.
+     */
+    public synchronized void setCustomTags(
+        Collection standardTags,
+        Collection inlineTags)
+    {
+        _standardTags = standardTags;
+        _inlineTags = inlineTags;
+    }
+
+
+    /**
+     * Returns the maximal number of worker threads.
+     *
+     * @return the maximal number of worker threads.
+     */
+    public int getMaximumThreads()
+    {
+        return _maxThreads;
+    }
+
+
+    /**
+     * Returns the number of submitted comments no worker has started to parse yet.
+     *
+     * @return the number of pending comments.
+     */
+    synchronized int getPendingCount()
+    {
+        return _queue.size();
+    }
+
+
+    /**
+     * Discards all comments not yet collected and lets the workers recycle the nodes of
+     * the trees they have built so far. Must only be called after the tree of the
+     * current file has been processed.
+     */
+    public synchronized void clear()
+    {
+        _queue.clear();
+        _tasks.clear();
+        _generation++;
+    }
+
+
+    /**
+     * Returns the parse tree of the given comment.
+     *
+     * @param comment a Javadoc comment.
+     * @param line the line the caller would start to parse the comment at.
+     * @param column the column the caller would start to parse the comment at.
+     *
+     * @return the parse tree of the comment. Returns <code>null</code> if the comment
+     *         was never submitted, no worker has started to parse it yet, it was
+     *         parsed at another position or problems were found. The caller is then
+     *         responsible to parse the comment.
+     */
+    public AST get(
+        AST comment,
+        int line,
+        int column)
+    {
+        Task task;
+
+        synchronized (this)
+        {
+            task = (Task) _tasks.remove(comment);
+
+            if ((task == null) || _queue.remove(task))
+            {
+                return null;
+            }
+        }
+
+        // the positions end up in the tree
+        if ((task.line != line) || (task.column != column))
+        {
+            return null;
+        }
+
+        try
+        {
+            return (AST) task.result.get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+
+            return null;
+        }
+        catch (InvocationTargetException ex)
+        {
+            return null;
+        }
+    }
+
+
+    /**
+     * Submits the given comment for parsing.
+     *
+     * @param comment a Javadoc comment.
+     * @param line the line to start parsing the comment at.
+     * @param column the column to start parsing the comment at.
+     * @param filename name of the file the comment belongs to.
+     */
+    public synchronized void submit(
+        AST    comment,
+        int    line,
+        int    column,
+        String filename)
+    {
+        Task task = new Task(comment.getText(), line, column, filename, _generation);
+        _tasks.put(comment, task);
+        _queue.add(task);
+
+        if ((_queue.size() > _idle) && (_threads < _maxThreads))
+        {
+            _threads++;
+
+            Worker worker = new Worker();
+            worker.start();
+        }
+        else
+        {
+            notify();
+        }
+    }
+
+
+    /**
+     * Returns the next comment to parse. Waits until a comment becomes available.
+     *
+     * @return the next comment or <code>null</code> if the calling worker should quit.
+     */
+    synchronized Task take()
+    {
+        if (_queue.isEmpty())
+        {
+            _idle++;
+
+            try
+            {
+                wait(KEEP_ALIVE);
+            }
+            catch (InterruptedException ex)
+            {
+                ;
+            }
+            finally
+            {
+                _idle--;
+            }
+
+            if (_queue.isEmpty())
+            {
+                _threads--;
+
+                return null;
+            }
+        }
+
+        return (Task) _queue.removeFirst();
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * A comment to parse.
+     */
+    static final class Task
+    {
+        /** The result of the parse. */
+        final FutureResult result = new FutureResult();
+
+        /** Name of the file the comment belongs to. */
+        final String filename;
+
+        /** The comment text. */
+        final String text;
+
+        /** The column to start parsing the comment at. */
+        final int column;
+
+        /** The generation of the file. */
+        final int generation;
+
+        /** The line to start parsing the comment at. */
+        final int line;
+
+        Task(
+            String text,
+            int    line,
+            int    column,
+            String filename,
+            int    generation)
+        {
+            this.text = text;
+            this.line = line;
+            this.column = column;
+            this.filename = filename;
+            this.generation = generation;
+        }
+    }
+
+
+    /**
+     * Parses submitted comments until it has been idle for some time.
+     */
+    private final class Worker
+        extends Thread
+    {
+        /** The factory that creates the nodes of the parse trees. */
+        private final CompositeFactory _factory = new CompositeFactory();
+
+        /** The Javadoc recognizer. */
+        private final Recognizer _recognizer;
+
+        /** The custom standard tags currently known to the parser. */
+        private Collection _knownStandardTags = Collections.EMPTY_LIST;
+
+        /** The custom in-line tags currently known to the parser. */
+        private Collection _knownInlineTags = Collections.EMPTY_LIST;
+
+        /** The generation of the last parsed comment. */
+        private int _lastGeneration;
+
+        public Worker()
+        {
+            super("Javadoc parser" /* NOI18N */);
+            setDaemon(true);
+
+            JavadocLexer lexer = new JavadocLexer(_factory);
+            JavadocParser parser = (JavadocParser) lexer.getParser();
+            _recognizer = new Recognizer(parser, lexer);
+            parser.setRecognizer(_recognizer);
+            parser.setQuiet(true);
+            _lastGeneration = _generation;
+        }
+
+        public void run()
+        {
+            for (Task task; (task = take()) != null;)
+            {
+                try
+                {
+                    task.result.set(parse(task));
+                }
+                catch (Throwable ex)
+                {
+                    // the caller parses the comment again and reports the problem
+                    task.result.set(null);
+                }
+            }
+        }
+
+
+        /**
+         * Parses the given comment. The recognizer is reset before, so no state of
+         * former comments is left.
+         *
+         * @param task the comment to parse.
+         *
+         * @return the parse tree or <code>null</code> if problems were found.
+         *
+         * @throws Exception if an error occured.
+         */
+        private AST parse(Task task)
+          throws Exception
+        {
+            // the trees of former files are gone, so recycle their nodes
+            if (task.generation != _lastGeneration)
+            {
+                _factory.clear();
+                _lastGeneration = task.generation;
+            }
+
+            _recognizer.reset();
+            updateTags();
+            _recognizer.setLine(task.line);
+            _recognizer.setColumn(task.column);
+            _recognizer.parse(task.text, task.filename);
+
+            JavadocParser parser = (JavadocParser) _recognizer.getParser();
+
+            if (parser.getProblemCount() > 0)
+            {
+                return null;
+            }
+
+            return _recognizer.getParseTree();
+        }
+
+
+        /**
+         * Makes the current custom tags known to the parser.
+         */
+        private void updateTags()
+        {
+            Collection standardTags;
+            Collection inlineTags;
+
+            synchronized (JavadocParserPool.this)
+            {
+                standardTags = _standardTags;
+                inlineTags = _inlineTags;
+            }
+
+            JavadocParser parser = (JavadocParser) _recognizer.getParser();
+
+            if (!standardTags.equals(_knownStandardTags))
+            {
+                parser.setCustomStandardTags(standardTags);
+                _knownStandardTags = standardTags;
+            }
+
+            if (!inlineTags.equals(_knownInlineTags))
+            {
+                parser.setCustomInlineTags(inlineTags);
+                _knownInlineTags = inlineTags;
+            }
+        }
+    }
+}
@@ -42,6 +42,9 @@ final class LoggerTransformation
     private static final String LOCALIZED_LOG = "l7dlog";
     private static final String PRIORITY_DEBUG = "Priority.DEBUG";
 
+    /** The node types the transformation needs to visit. */
+    static final int[] NODE_TYPES = { JavaTokenTypes.METHOD_CALL };
+
     //~ Instance variables ---------------------------------------------------------------
 
     private List _calls = new ArrayList(50); // List of <JavaNode>
@@ -57,11 +60,28 @@ final class LoggerTransformation
      */
     public void apply(AST tree)
       throws TransformationException
+    {
+        walk(tree);
+        transform(tree);
+    }
+
+
+    /**
+     * Adds the enclosing boolean expressions for the debug logging calls found during
+     * the last walk. The walk may well be performed on the tree before other
+     * transformations are applied, as long as they leave the method bodies alone.
+     *
+     * @param tree the root node of the tree that was walked.
+     *
+     * @throws TransformationException if the transformation failed.
+     *
+     * @see #NODE_TYPES
+     */
+    void transform(AST tree)
+      throws TransformationException
     {
         try
         {
-            walk(tree);
-
             for (int i = 0, size = _calls.size(); i < size; i++)
             {
                 AST node = (AST) _calls.get(i);
@@ -91,11 +111,21 @@ final class LoggerTransformation
         }
         finally
         {
-            _calls.clear();
+            reset();
         }
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        super.reset();
+        _calls.clear();
+    }
+
+
     /**
      * {@inheritDoc}
      */
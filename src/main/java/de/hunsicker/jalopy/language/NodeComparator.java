@@ -8,6 +8,8 @@ package de.hunsicker.jalopy.language;
 
 import java.lang.reflect.Modifier;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
 
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
 import de.hunsicker.jalopy.storage.Convention;
@@ -20,6 +22,12 @@ import antlr.collections.AST;
  * CTOR_DEF, INSTANCE_INT and STATIC_INIT). The nodes will be sorted according to their
  * access modifiers first, then by type and - if these are equal - lexicographically.
  *
+ * <p>
+ * Everything the comparison depends on is derived from a node once, by {@link
+ * #createKey}. Sort the keys rather than the nodes to avoid deriving it again for every
+ * single comparison.
+ * </p>
+ *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.5 $
  */
@@ -91,7 +99,38 @@ class NodeComparator
             return 0;
         }
 
-        return compareNodes((AST) o1, (AST) o2);
+        return compareNodes(toKey(o1), toKey(o2));
+    }
+
+
+    /**
+     * Creates the sort key for the given node.
+     *
+     * @param node a node of one of the types this comparator can handle.
+     *
+     * @return the sort key of the node.
+     */
+    public Key createKey(AST node)
+    {
+        return new Key(node);
+    }
+
+
+    /**
+     * Returns the sort key for the given object.
+     *
+     * @param o either a sort key or a node.
+     *
+     * @return the sort key.
+     */
+    protected Key toKey(Object o)
+    {
+        if (o instanceof Key)
+        {
+            return (Key) o;
+        }
+
+        return createKey((AST) o);
     }
 
     /**
@@ -101,7 +140,7 @@ class NodeComparator
      *
      * @return the parameters count.
      */
-    protected int getParamCount(AST node)
+    protected static int getParamCount(AST node)
     {
         AST params = JavaNodeHelper.getFirstChild(node, JavaTokenTypes.PARAMETERS);
 
@@ -125,30 +164,24 @@ class NodeComparator
     /**
      * Compares the 2 bean names
      *
-     * @param node1 THe first node
-     * @param node2 The second node
+     * @param key1 THe first key
+     * @param key2 The second key
      *
      * @return A positive or negative value of the comparision of the 2 nodes
      */
     protected int compareBeanNames(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        String name1 =
-            JavaNodeHelper.getFirstChild(node1, JavaTokenTypes.IDENT).getText();
-        String name2 =
-            JavaNodeHelper.getFirstChild(node2, JavaTokenTypes.IDENT).getText();
-        MethodType type1 = MethodType.valueOf(name1);
-        MethodType type2 = MethodType.valueOf(name2);
+        MethodType type1 = key1.methodType;
+        MethodType type2 = key2.methodType;
 
         if (type1 == type2)
         {
-            return name1.compareTo(name2);
+            return key1.name.compareTo(key2.name);
         }
 
-        String base1 = stripPrefix(name1);
-        String base2 = stripPrefix(name2);
-        int result = base1.compareTo(base2);
+        int result = key1.baseName.compareTo(key2.baseName);
 
         if (result == 0) // both are Java Bean methods
         {
@@ -158,11 +191,6 @@ class NodeComparator
         {
             if (!type1.isBean())
             {
-                if (!type2.isBean())
-                {
-                    result = name1.compareTo(name2);
-                }
-
                 result = type1.compareTo(type2);
             }
 
@@ -177,71 +205,43 @@ class NodeComparator
 
 
     /**
-     * Compares the two class declaration nodes.
+     * Compares the two class or enumeration declaration nodes.
      *
-     * @param node1 the first CLASS_DEF node.
-     * @param node2 the second  CLASS_DEF node.
+     * @param key1 the key of the first CLASS_DEF, INTERFACE_DEF or ENUM_DEF node.
+     * @param key2 the key of the second CLASS_DEF, INTERFACE_DEF or ENUM_DEF node.
      *
      * @return a negative integer, zero, or a positive integer as the first node is less
      *         than, equal to, or greater than the second node.
      */
     protected int compareClass(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        int mod1 = JavaNodeModifier.valueOf(node1);
-        int mod2 = JavaNodeModifier.valueOf(node2);
-        int result = compareModifiers(mod1, mod2);
+        int result = compareModifiers(key1, key2);
 
         if (result != 0)
         {
             return result;
         }
 
-        return compareNames(node1, node2);
-    }
-    /**
-     * Compares the two enumeration declaration nodes.
-     *
-     * @param node1 the first ENUM_DEF node.
-     * @param node2 the second  ENUM_DEF node.
-     *
-     * @return a negative integer, zero, or a positive integer as the first node is less
-     *         than, equal to, or greater than the second node.
-     */
-    protected int compareEnum(
-        AST node1,
-        AST node2)
-    {
-        int mod1 = JavaNodeModifier.valueOf(node1);
-        int mod2 = JavaNodeModifier.valueOf(node2);
-        int result = compareModifiers(mod1, mod2);
-
-        if (result != 0)
-        {
-            return result;
-        }
-
-        return compareNames(node1, node2);
+        return compareNames(key1, key2);
     }
 
 
     /**
      * Compares the two method declaration nodes.
      *
-     * @param node1 the first METHOD_DEF node.
-     * @param node2 the second METHOD_DEF node.
+     * @param key1 the key of the first METHOD_DEF node.
+     * @param key2 the key of the second METHOD_DEF node.
      *
      * @return a negative integer, zero, or a positive integer as the first node is less
      *         than, equal to, or greater than the second.
      */
     protected int compareMethod(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        int mod1 = JavaNodeModifier.valueOf(JavaNodeHelper.getFirstChild(node1,JavaTokenTypes.MODIFIERS));
-        int mod2 = JavaNodeModifier.valueOf(JavaNodeHelper.getFirstChild(node2,JavaTokenTypes.MODIFIERS));
-        int result = compareModifiers(mod1, mod2);
+        int result = compareModifiers(key1, key2);
 
         if (result != 0)
         {
@@ -250,11 +250,11 @@ class NodeComparator
 
         if (_beanSorting)
         {
-            result = compareBeanNames(node1, node2);
+            result = compareBeanNames(key1, key2);
         }
         else
         {
-            result = compareNames(node1, node2);
+            result = compareNames(key1, key2);
         }
 
         if (result != 0)
@@ -262,15 +262,15 @@ class NodeComparator
             return result;
         }
 
-        return compareParamCount(node1, node2);
+        return compareParamCount(key1, key2);
     }
 
 
     /**
      * Compares the two nodes.
      *
-     * @param node1 the first node.
-     * @param node2 the second node.
+     * @param key1 the key of the first node.
+     * @param key2 the key of the second node.
      *
      * @return a negative integer, zero, or a positive integer as the first node is less
      *         than, equal to, or greater than the second.
@@ -280,11 +280,11 @@ class NodeComparator
      *         METHOD_DEF.
      */
     protected int compareNodes(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        int type1 = node1.getType();
-        int type2 = node2.getType();
+        int type1 = key1.type;
+        int type2 = key2.type;
 
         if (type1 == type2)
         {
@@ -293,19 +293,17 @@ class NodeComparator
                 case JavaTokenTypes.METHOD_DEF :
                 case JavaTokenTypes.CTOR_DEF :
                 case JavaTokenTypes.ANNOTATION_DEF :
-                    return compareMethod(node1, node2);
+                    return compareMethod(key1, key2);
 
                 case JavaTokenTypes.VARIABLE_DEF :
-                    return compareVariable(node1, node2);
+                    return compareVariable(key1, key2);
 
                 case JavaTokenTypes.CLASS_DEF :
                 case JavaTokenTypes.INTERFACE_DEF :
-                    return compareClass(node1, node2);
-                
                 case JavaTokenTypes.ENUM_DEF:
-                    return compareEnum(node1,node2);
+                    return compareClass(key1, key2);
                 case JavaTokenTypes.ENUM_CONSTANT_DEF:
-                    return compareNames(node1,node2);
+                    return compareNames(key1, key2);
                 // nothing to compare here
                 case JavaTokenTypes.STATIC_INIT :
                 case JavaTokenTypes.INSTANCE_INIT :
@@ -315,7 +313,7 @@ class NodeComparator
                 default :
                     throw new IllegalArgumentException(
                         "Heck. I don't know about this type -- " + type1+ 
-                        node1);
+                        key1.node);
             }
         }
         switch (type1)
@@ -444,19 +442,19 @@ class NodeComparator
     /**
      * Compares the two nodes according to their parameter counts.
      *
-     * @param node1 the first node.
-     * @param node2 the second node.
+     * @param key1 the key of the first node.
+     * @param key2 the key of the second node.
      *
      * @return a negative integer, zero, or a positive integer as the first node's
      *         parameter count is less than, equal to, or greater than parameter count
      *         of the second node.
      */
     protected int compareParamCount(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        int count1 = getParamCount(node1);
-        int count2 = getParamCount(node2);
+        int count1 = key1.paramCount;
+        int count2 = key2.paramCount;
 
         if (count1 > count2)
         {
@@ -474,33 +472,31 @@ class NodeComparator
     /**
      * Compares the two variable declaration nodes.
      *
-     * @param node1 the first VARIABLE_DEF node.
-     * @param node2 the second VARIABLE_DEF node.
+     * @param key1 the key of the first VARIABLE_DEF node.
+     * @param key2 the key of the second VARIABLE_DEF node.
      *
      * @return a negative integer, zero, or a positive integer as the first node is less
      *         than, equal to, or greater than the second node.
      */
     protected int compareVariable(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        int mod1 = JavaNodeModifier.valueOf(node1);
-        int mod2 = JavaNodeModifier.valueOf(node2);
-        int result = compareModifiers(mod1, mod2);
+        int result = compareModifiers(key1, key2);
 
         if (result != 0)
         {
             return result;
         }
 
-        result = compareTypes(node1, node2);
+        result = compareTypes(key1, key2);
 
         if (result != 0)
         {
             return result;
         }
 
-        return compareNames(node1, node2);
+        return compareNames(key1, key2);
     }
 
 
@@ -546,37 +542,37 @@ class NodeComparator
 
 
     /**
-     * Compares the two modifier masks.
+     * Compares the modifier masks of the two nodes.
      *
-     * @param mod1 the first modifier mask.
-     * @param mod2 the second modifier mask.
+     * @param key1 the key of the first node.
+     * @param key2 the key of the second node.
      *
      * @return a negative integer, zero, or a positive integer as the first mask is less
      *         than, equal to, or greater than the mask.
      */
     protected int compareModifiers(
-        int mod1,
-        int mod2)
+        Key key1,
+        Key key2)
     {
         
         if (!_modifierSorting) {
             return 0;
         }
         
-        ModifierType modifier1 = ModifierType.valueOf(mod1);
-        ModifierType modifier2 = ModifierType.valueOf(mod2);
-        
-        if (modifier1!=null && modifier2!=null) {
-            if (!modifier1.shouldSort(mod1)) {
-                if (modifier2.shouldSort(mod2)) {
+        if (key1.modifierType!=null && key2.modifierType!=null) {
+            if (!key1.sortModifiers) {
+                if (key2.sortModifiers) {
                     return 1;
                 }
                 return 0;
             }
-            else if (!modifier2.shouldSort(mod2)) {
+            else if (!key2.sortModifiers) {
                     return -1;
             }
         }
+
+        int mod1 = key1.modifiers;
+        int mod2 = key2.modifiers;
         
         
 // TODO Add some logic here 
@@ -668,30 +664,25 @@ class NodeComparator
     /**
      * Compares the names of the two nodes.
      *
-     * @param node1 the first node.
-     * @param node2 the second node.
+     * @param key1 the key of the first node.
+     * @param key2 the key of the second node.
      *
      * @return a negative integer, zero, or a positive integer as the first node's name
      *         is less than, equal to, or greater than the second node's name.
      */
     static int compareNames(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        String ident1 =
-            JavaNodeHelper.getFirstChild(node1, JavaTokenTypes.IDENT).getText();
-        String ident2 =
-            JavaNodeHelper.getFirstChild(node2, JavaTokenTypes.IDENT).getText();
-
-        return ident1.compareTo(ident2);
+        return key1.name.compareTo(key2.name);
     }
 
 
     /**
      * Compares the two nodes by their type names.
      *
-     * @param node1 the first node.
-     * @param node2 the second node.
+     * @param key1 the key of the first node.
+     * @param key2 the key of the second node.
      *
      * @return a negative integer, zero, or a positive integer as the first node's name
      *         is less than, equal to, or greater than the second node's name.
@@ -699,13 +690,10 @@ class NodeComparator
      * @since 1.0b8
      */
     static int compareTypes(
-        AST node1,
-        AST node2)
+        Key key1,
+        Key key2)
     {
-        String ident1 = getType(node1);
-        String ident2 = getType(node2);
-
-        return ident1.compareTo(ident2);
+        return key1.typeName.compareTo(key2.typeName);
     }
 
 
@@ -730,4 +718,134 @@ class NodeComparator
         }
             return ident.substring(offset + 1);
     }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * The sort key of a declaration node: holds everything the comparison depends on.
+     */
+    static final class Key
+    {
+        /** The declaration node. */
+        final AST node;
+
+        /** The node type. */
+        final int type;
+
+        /** The modifier mask (declarations with modifiers only). */
+        final int modifiers;
+
+        /** The type of the modifier mask. */
+        final ModifierType modifierType;
+
+        /** Indicates whether the modifiers take part in sorting. */
+        final boolean sortModifiers;
+
+        /** The name (named declarations only). */
+        final String name;
+
+        /** The method type of the name (METHOD_DEF, CTOR_DEF and ANNOTATION_DEF only). */
+        final MethodType methodType;
+
+        /** The name stripped of a Java Bean prefix. */
+        final String baseName;
+
+        /** The number of parameters. */
+        final int paramCount;
+
+        /** The type name (VARIABLE_DEF only). */
+        final String typeName;
+
+        /**
+         * The texts of all nodes of the initializer (VARIABLE_DEF only). Is
+         * <code>null</code> if the variable has no initializer.
+         */
+        final Set references;
+
+        Key(AST node)
+        {
+            this.node = node;
+            this.type = node.getType();
+
+            int mod = 0;
+            String ident = null;
+            String typeIdent = null;
+            Set texts = null;
+
+            switch (this.type)
+            {
+                case JavaTokenTypes.VARIABLE_DEF :
+                    typeIdent = getType(node);
+
+                    AST assign = JavaNodeHelper.getFirstChild(node, JavaTokenTypes.ASSIGN);
+
+                    if (assign != null)
+                    {
+                        texts = new HashSet();
+                        addTexts(assign, texts);
+                    }
+
+                // fall through
+                case JavaTokenTypes.METHOD_DEF :
+                case JavaTokenTypes.CTOR_DEF :
+                case JavaTokenTypes.ANNOTATION_DEF :
+                case JavaTokenTypes.CLASS_DEF :
+                case JavaTokenTypes.INTERFACE_DEF :
+                case JavaTokenTypes.ENUM_DEF :
+                    mod = JavaNodeModifier.valueOf(node);
+
+                // fall through
+                case JavaTokenTypes.ENUM_CONSTANT_DEF :
+                    ident = JavaNodeHelper.getFirstChild(node, JavaTokenTypes.IDENT).getText();
+
+                    break;
+            }
+
+            this.modifiers = mod;
+            this.modifierType = ModifierType.valueOf(mod);
+            this.sortModifiers =
+                (this.modifierType != null) && this.modifierType.shouldSort(mod);
+            this.name = ident;
+            this.typeName = typeIdent;
+            this.references = texts;
+
+            switch (this.type)
+            {
+                case JavaTokenTypes.METHOD_DEF :
+                case JavaTokenTypes.CTOR_DEF :
+                case JavaTokenTypes.ANNOTATION_DEF :
+                    this.methodType = MethodType.valueOf(ident);
+                    this.baseName = stripPrefix(ident);
+                    this.paramCount = getParamCount(node);
+
+                    break;
+
+                default :
+                    this.methodType = null;
+                    this.baseName = null;
+                    this.paramCount = 0;
+
+                    break;
+            }
+        }
+
+        /**
+         * Adds the texts of the given node and all its descendants to the given set.
+         *
+         * @param node a node.
+         * @param texts set to add the texts to.
+         */
+        private static void addTexts(
+            AST node,
+            Set texts)
+        {
+            texts.add(node.getText());
+
+            for (AST child = node.getFirstChild(); child != null;
+                child = child.getNextSibling())
+            {
+                addTexts(child, texts);
+            }
+        }
+    }
 }
@@ -31,7 +31,7 @@ public class NodeFactory
     /** The empty string constant. */
     protected static final String EMPTY_STRING = "" /* NOI18N */.intern();
     private final CompositeFactory compositeFactory;
-    private class NodeImpl extends Node{}
+    private static class NodeImpl extends Node{}
     //~ Constructors ---------------------------------------------------------------------
 
     /**
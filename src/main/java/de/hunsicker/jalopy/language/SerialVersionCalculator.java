@@ -0,0 +1,778 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+import de.hunsicker.util.ChainingRuntimeException;
+import de.hunsicker.util.Helper;
+
+
+/**
+ * Computes the serial version UID of a class from its class file, as specified in
+ * section 4.6 of the <em>Java Object Serialization Specification</em>.
+ *
+ * <p>
+ * Unlike {@link ObjectStreamClass#lookup} this does not load the class: no class gets
+ * defined and no static initializer runs. The class files are searched in the
+ * locations of the {@link ClassRepository class repository} first and then as resources
+ * of the class loaders. The computed values are cached per class file checksum. An
+ * archive of the repository is only opened while the class file is looked up, and a
+ * cached value only needs the checksum from its directory.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jalopy contributors
+ *
+ * @see de.hunsicker.jalopy.language.SerializableTransformation
+ */
+final class SerialVersionCalculator
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    private static final String CLINIT = "<clinit>" /* NOI18N */;
+    private static final String ENUM = "java.lang.Enum" /* NOI18N */;
+    private static final String EXT_CLASS = ".class" /* NOI18N */;
+    private static final String INIT = "<init>" /* NOI18N */;
+    private static final String SERIAL_VERSION_UID = "serialVersionUID" /* NOI18N */;
+
+    /** The maximal number of cached values. */
+    private static final int CACHE_SIZE = 1000;
+
+    /** The magic number of class files. */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /** Access flag of enum types. */
+    private static final int ACC_ENUM = 0x4000;
+
+    /** The class modifiers that contribute to the hash. */
+    private static final int CLASS_MASK =
+        Modifier.PUBLIC | Modifier.FINAL | Modifier.INTERFACE | Modifier.ABSTRACT;
+
+    /** The field modifiers that contribute to the hash. */
+    private static final int FIELD_MASK =
+        Modifier.PUBLIC | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC
+        | Modifier.FINAL | Modifier.VOLATILE | Modifier.TRANSIENT;
+
+    /** The method and constructor modifiers that contribute to the hash. */
+    private static final int METHOD_MASK =
+        Modifier.PUBLIC | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC
+        | Modifier.FINAL | Modifier.SYNCHRONIZED | Modifier.NATIVE | Modifier.ABSTRACT
+        | Modifier.STRICT;
+
+    /* constant pool tags */
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+
+    /** Sorts members by name. */
+    private static final Comparator BY_NAME =
+        new Comparator()
+        {
+            public int compare(
+                Object o1,
+                Object o2)
+            {
+                return ((Member) o1).name.compareTo(((Member) o2).name);
+            }
+        };
+
+    /** Sorts members by signature. */
+    private static final Comparator BY_SIGNATURE =
+        new Comparator()
+        {
+            public int compare(
+                Object o1,
+                Object o2)
+            {
+                return ((Member) o1).signature.compareTo(((Member) o2).signature);
+            }
+        };
+
+    /** Sorts members by name and signature. */
+    private static final Comparator BY_NAME_AND_SIGNATURE =
+        new Comparator()
+        {
+            public int compare(
+                Object o1,
+                Object o2)
+            {
+                Member m1 = (Member) o1;
+                Member m2 = (Member) o2;
+                int result = m1.name.compareTo(m2.name);
+
+                return (result != 0) ? result
+                                     : m1.signature.compareTo(m2.signature);
+            }
+        };
+
+    /** The computed values. */
+    private static final Map _cache = new HashMap(); // Map of <String>:<Long>
+
+    /** The number of values answered from the cache, only read by the tests. */
+    static int hits;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    private SerialVersionCalculator()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Returns the serial version UID of the given class. That is the value of its
+     * <code>serialVersionUID</code> field, if declared, or the default value computed
+     * from its signature otherwise.
+     *
+     * @param name the fully qualified binary name of the class.
+     * @param o the object whose class loader should be used as a last resort.
+     *
+     * @return the serial version UID.
+     *
+     * @throws ClassNotFoundException if no class file could be found for the class or
+     *         the class file could not be read.
+     */
+    public static long getSerialVersionUID(
+        String name,
+        Object o)
+      throws ClassNotFoundException
+    {
+        String path = name.replace('.', '/') + EXT_CLASS;
+
+        try
+        {
+            ClassRepositoryEntry.Info[] infos = ClassRepository.getInstance().getInfo();
+
+            for (int i = 0; i < infos.length; i++)
+            {
+                if (infos[i].isLoaded())
+                {
+                    File location = infos[i].getLocation();
+
+                    if (location.isDirectory())
+                    {
+                        File file = new File(location, path);
+
+                        if (file.isFile())
+                        {
+                            return compute(
+                                name, read(new FileInputStream(file), (int) file.length()),
+                                o);
+                        }
+                    }
+                    else if (location.isFile())
+                    {
+                        // the archive is closed right away, so it does not stay locked
+                        JarFile archive = new JarFile(location);
+
+                        try
+                        {
+                            JarEntry entry = archive.getJarEntry(path);
+
+                            if (entry != null)
+                            {
+                                Long cached = getCached(name, entry.getCrc());
+
+                                if (cached != null)
+                                {
+                                    return cached.longValue();
+                                }
+
+                                return compute(
+                                    name,
+                                    read(
+                                        archive.getInputStream(entry),
+                                        (int) entry.getSize()), o);
+                            }
+                        }
+                        finally
+                        {
+                            archive.close();
+                        }
+                    }
+                }
+            }
+
+            ClassLoader[] loaders =
+            {
+                Thread.currentThread().getContextClassLoader(),
+                o.getClass().getClassLoader()
+            };
+
+            for (int i = 0; i < loaders.length; i++)
+            {
+                InputStream in =
+                    (loaders[i] != null) ? loaders[i].getResourceAsStream(path)
+                                         : null;
+
+                if (in != null)
+                {
+                    return compute(name, read(in, 1024), o);
+                }
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new ClassNotFoundException(name, ex);
+        }
+
+        throw new ClassNotFoundException(name);
+    }
+
+
+    /**
+     * Returns the cached value for the given class file.
+     *
+     * @param name the name of the class.
+     * @param checksum the CRC-32 checksum of the class file, <code>-1</code> if
+     *        unknown.
+     *
+     * @return the cached value or <code>null</code> if no value is cached.
+     */
+    private static Long getCached(
+        String name,
+        long   checksum)
+    {
+        if (checksum == -1)
+        {
+            return null;
+        }
+
+        synchronized (_cache)
+        {
+            Long result = (Long) _cache.get(name + ':' + checksum);
+
+            if (result != null)
+            {
+                hits++;
+            }
+
+            return result;
+        }
+    }
+
+
+    /**
+     * Returns the serial version UID for the given class file.
+     *
+     * @param name the name of the class.
+     * @param bytes the class file.
+     * @param o the object whose class loader should be used if the class has to be
+     *        loaded after all.
+     *
+     * @return the serial version UID.
+     *
+     * @throws IOException if the class file is malformed.
+     * @throws ClassNotFoundException if the class has to be loaded, but could not be
+     *         found.
+     */
+    private static long compute(
+        String name,
+        byte[] bytes,
+        Object o)
+      throws IOException, ClassNotFoundException
+    {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        long checksum = crc.getValue();
+        Long cached = getCached(name, checksum);
+
+        if (cached != null)
+        {
+            return cached.longValue();
+        }
+
+        Long value = parse(name, bytes);
+
+        if (value == null)
+        {
+            // the declared value is not a constant and only known to the class
+            // itself
+            Class clazz = Helper.loadClass(name, o);
+            value = new Long(ObjectStreamClass.lookup(clazz).getSerialVersionUID());
+        }
+
+        synchronized (_cache)
+        {
+            if (_cache.size() >= CACHE_SIZE)
+            {
+                _cache.clear();
+            }
+
+            _cache.put(name + ':' + checksum, value);
+        }
+
+        return value.longValue();
+    }
+
+
+    /**
+     * Parses the given class file and computes the serial version UID.
+     *
+     * @param name the name of the class.
+     * @param bytes the class file.
+     *
+     * @return the serial version UID. Returns <code>null</code> if the class declares
+     *         a <code>serialVersionUID</code> field that is no compile-time constant.
+     *
+     * @throws IOException if the class file is malformed or does not define the given
+     *         class.
+     */
+    private static Long parse(
+        String name,
+        byte[] bytes)
+      throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("no class file -- " + name);
+        }
+
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        Object[] pool = readConstantPool(in);
+        int classModifiers = in.readUnsignedShort();
+        String className = getClassName(pool, in.readUnsignedShort());
+
+        if (!className.equals(name))
+        {
+            throw new IOException("class file defines " + className + " -- " + name);
+        }
+
+        in.readUnsignedShort(); // super class
+
+        List interfaces = new ArrayList();
+
+        for (int i = 0, count = in.readUnsignedShort(); i < count; i++)
+        {
+            interfaces.add(getClassName(pool, in.readUnsignedShort()));
+        }
+
+        List fields = new ArrayList();
+        Object declared = null;
+        boolean declaresUid = false;
+
+        for (int i = 0, count = in.readUnsignedShort(); i < count; i++)
+        {
+            Member field = readMember(in, pool);
+
+            // only integral fields yield a value, like with Field.getLong()
+            if (
+                SERIAL_VERSION_UID.equals(field.name)
+                && ((field.modifiers & (Modifier.STATIC | Modifier.FINAL)) == (Modifier.STATIC
+                | Modifier.FINAL)) && (field.signature.length() == 1)
+                && ("JISBC" /* NOI18N */.indexOf(field.signature) > -1))
+            {
+                declaresUid = true;
+                declared = field.constant;
+            }
+
+            if (
+                ((field.modifiers & Modifier.PRIVATE) == 0)
+                || ((field.modifiers & (Modifier.STATIC | Modifier.TRANSIENT)) == 0))
+            {
+                fields.add(field);
+            }
+        }
+
+        List constructors = new ArrayList();
+        List methods = new ArrayList();
+        boolean hasInitializer = false;
+        int declaredMethods = 0;
+
+        for (int i = 0, count = in.readUnsignedShort(); i < count; i++)
+        {
+            Member method = readMember(in, pool);
+
+            if (CLINIT.equals(method.name))
+            {
+                hasInitializer = true;
+
+                continue;
+            }
+
+            boolean constructor = INIT.equals(method.name);
+
+            if (!constructor)
+            {
+                declaredMethods++;
+            }
+
+            if ((method.modifiers & Modifier.PRIVATE) == 0)
+            {
+                method.signature = method.signature.replace('/', '.');
+
+                if (constructor)
+                {
+                    constructors.add(method);
+                }
+                else
+                {
+                    methods.add(method);
+                }
+            }
+        }
+
+        // enums always have the value 0L, even if they declare one
+        if (((classModifiers & ACC_ENUM) != 0) || ENUM.equals(className))
+        {
+            return new Long(0L);
+        }
+
+        if (declaresUid)
+        {
+            return (declared != null) ? new Long(((Number) declared).longValue())
+                                      : null;
+        }
+
+        // nested classes have their modifiers recorded in the InnerClasses attribute
+        for (int i = 0, count = in.readUnsignedShort(); i < count; i++)
+        {
+            String attribute = (String) pool[in.readUnsignedShort()];
+            int length = in.readInt();
+
+            if ("InnerClasses" /* NOI18N */.equals(attribute))
+            {
+                boolean found = false;
+
+                for (int j = 0, classes = in.readUnsignedShort(); j < classes; j++)
+                {
+                    int inner = in.readUnsignedShort();
+                    in.readUnsignedShort(); // outer class
+                    in.readUnsignedShort(); // simple name
+
+                    int modifiers = in.readUnsignedShort();
+
+                    if (!found && (inner != 0) && className.equals(getClassName(pool, inner)))
+                    {
+                        classModifiers = modifiers;
+                        found = true;
+                    }
+                }
+            }
+            else
+            {
+                in.skipBytes(length);
+            }
+        }
+
+        classModifiers &= CLASS_MASK;
+
+        if ((classModifiers & Modifier.INTERFACE) != 0)
+        {
+            classModifiers =
+                (declaredMethods > 0) ? (classModifiers | Modifier.ABSTRACT)
+                                      : (classModifiers & ~Modifier.ABSTRACT);
+        }
+
+        Collections.sort(interfaces);
+        Collections.sort(fields, BY_NAME);
+        Collections.sort(constructors, BY_SIGNATURE);
+        Collections.sort(methods, BY_NAME_AND_SIGNATURE);
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(buf);
+        out.writeUTF(className);
+        out.writeInt(classModifiers);
+
+        for (int i = 0, size = interfaces.size(); i < size; i++)
+        {
+            out.writeUTF((String) interfaces.get(i));
+        }
+
+        write(out, fields, FIELD_MASK);
+
+        if (hasInitializer)
+        {
+            out.writeUTF(CLINIT);
+            out.writeInt(Modifier.STATIC);
+            out.writeUTF("()V" /* NOI18N */);
+        }
+
+        write(out, constructors, METHOD_MASK);
+        write(out, methods, METHOD_MASK);
+        out.flush();
+
+        byte[] hash;
+
+        try
+        {
+            hash = MessageDigest.getInstance("SHA" /* NOI18N */).digest(buf.toByteArray());
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new ChainingRuntimeException(ex);
+        }
+
+        long value = 0;
+
+        for (int i = Math.min(hash.length, 8) - 1; i >= 0; i--)
+        {
+            value = (value << 8) | (hash[i] & 0xFF);
+        }
+
+        return new Long(value);
+    }
+
+
+    /**
+     * Returns the binary name of the class at the given constant pool index.
+     *
+     * @param pool the constant pool.
+     * @param index index of a CONSTANT_Class entry.
+     *
+     * @return the binary name of the class.
+     */
+    private static String getClassName(
+        Object[] pool,
+        int      index)
+    {
+        return ((String) pool[((Integer) pool[index]).intValue()]).replace('/', '.');
+    }
+
+
+    /**
+     * Reads the given stream completely.
+     *
+     * @param in the stream to read, will be closed.
+     * @param size the expected number of bytes.
+     *
+     * @return the bytes read.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static byte[] read(
+        InputStream in,
+        int         size)
+      throws IOException
+    {
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(size, 32));
+            byte[] buf = new byte[4096];
+
+            for (int read; (read = in.read(buf)) > -1;)
+            {
+                out.write(buf, 0, read);
+            }
+
+            return out.toByteArray();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+
+    /**
+     * Reads the constant pool. Only the entries needed to compute the hash are kept:
+     * UTF-8 strings, the name indices of classes (as <code>Integer</code>s) and the
+     * values of numeric constants (as <code>Number</code>s, wrapped in a one element
+     * array to tell them apart from class entries).
+     *
+     * @param in the class file, positioned at the constant pool count.
+     *
+     * @return the constant pool, indexed like in the class file.
+     *
+     * @throws IOException if the class file is malformed.
+     */
+    private static Object[] readConstantPool(DataInputStream in)
+      throws IOException
+    {
+        Object[] pool = new Object[in.readUnsignedShort()];
+
+        for (int i = 1; i < pool.length; i++)
+        {
+            int tag = in.readUnsignedByte();
+
+            switch (tag)
+            {
+                case CONSTANT_UTF8 :
+                    pool[i] = in.readUTF();
+
+                    break;
+
+                case CONSTANT_INTEGER :
+                    pool[i] = new Object[] { new Integer(in.readInt()) };
+
+                    break;
+
+                case CONSTANT_FLOAT :
+                    pool[i] = new Object[] { new Float(in.readFloat()) };
+
+                    break;
+
+                case CONSTANT_LONG :
+                    pool[i++] = new Object[] { new Long(in.readLong()) };
+
+                    break;
+
+                case CONSTANT_DOUBLE :
+                    pool[i++] = new Object[] { new Double(in.readDouble()) };
+
+                    break;
+
+                case CONSTANT_CLASS :
+                    pool[i] = new Integer(in.readUnsignedShort());
+
+                    break;
+
+                case CONSTANT_METHOD_HANDLE :
+                    in.skipBytes(3);
+
+                    break;
+
+                case CONSTANT_DYNAMIC :
+                case CONSTANT_INVOKE_DYNAMIC :
+                case 9 : // Fieldref
+                case 10 : // Methodref
+                case 11 : // InterfaceMethodref
+                case 12 : // NameAndType
+                    in.skipBytes(4);
+
+                    break;
+
+                case 8 : // String
+                case 16 : // MethodType
+                case 19 : // Module
+                case 20 : // Package
+                    in.skipBytes(2);
+
+                    break;
+
+                default :
+                    throw new IOException("invalid constant pool tag -- " + tag);
+            }
+        }
+
+        return pool;
+    }
+
+
+    /**
+     * Reads a field or method.
+     *
+     * @param in the class file, positioned at the member.
+     * @param pool the constant pool.
+     *
+     * @return the member.
+     *
+     * @throws IOException if the class file is malformed.
+     */
+    private static Member readMember(
+        DataInputStream in,
+        Object[]        pool)
+      throws IOException
+    {
+        Member member = new Member();
+        member.modifiers = in.readUnsignedShort();
+        member.name = (String) pool[in.readUnsignedShort()];
+        member.signature = (String) pool[in.readUnsignedShort()];
+
+        for (int i = 0, count = in.readUnsignedShort(); i < count; i++)
+        {
+            String attribute = (String) pool[in.readUnsignedShort()];
+            int length = in.readInt();
+
+            if ("ConstantValue" /* NOI18N */.equals(attribute))
+            {
+                Object constant = pool[in.readUnsignedShort()];
+
+                if (constant instanceof Object[])
+                {
+                    member.constant = ((Object[]) constant)[0];
+                }
+            }
+            else
+            {
+                in.skipBytes(length);
+            }
+        }
+
+        return member;
+    }
+
+
+    /**
+     * Writes the given members.
+     *
+     * @param out stream to write to.
+     * @param members the sorted members.
+     * @param mask the modifiers that contribute to the hash.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void write(
+        DataOutputStream out,
+        List             members,
+        int              mask)
+      throws IOException
+    {
+        for (int i = 0, size = members.size(); i < size; i++)
+        {
+            Member member = (Member) members.get(i);
+            out.writeUTF(member.name);
+            out.writeInt(member.modifiers & mask);
+            out.writeUTF(member.signature);
+        }
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * A field, method or constructor of a class file.
+     */
+    private static final class Member
+    {
+        /** The value of a constant field, if any. */
+        Object constant;
+
+        /** The name. */
+        String name;
+
+        /** The type descriptor. */
+        String signature;
+
+        /** The access flags. */
+        int modifiers;
+    }
+}
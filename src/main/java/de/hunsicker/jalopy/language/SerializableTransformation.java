@@ -6,7 +6,6 @@
  */
 package de.hunsicker.jalopy.language;
 
-import java.io.ObjectStreamClass;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,7 +16,6 @@ import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
 import de.hunsicker.jalopy.language.antlr.JavadocTokenTypes;
 import de.hunsicker.jalopy.language.antlr.Node;
 import de.hunsicker.jalopy.storage.Loggers;
-import de.hunsicker.util.Helper;
 
 import org.apache.log4j.Level;
 
@@ -81,9 +79,8 @@ final class SerializableTransformation
                 {
                     try
                     {
-                        Class clazz = Helper.loadClass(info.name, this);
-                        ObjectStreamClass oclazz = ObjectStreamClass.lookup(clazz);
-                        long serialVersionUID = oclazz.getSerialVersionUID();
+                        long serialVersionUID =
+                            SerialVersionCalculator.getSerialVersionUID(info.name, this);
                         insertSerialVer(tree, info, serialVersionUID);
                     }
                     catch (ClassNotFoundException ex)
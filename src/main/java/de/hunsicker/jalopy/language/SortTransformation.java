@@ -7,8 +7,7 @@
 package de.hunsicker.jalopy.language;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -88,8 +87,8 @@ final class SortTransformation
      * @param comp comparator to use.
      */
     public void sort(
-        AST        tree,
-        Comparator comp)
+        AST            tree,
+        NodeComparator comp)
     {
         if (tree == null)
         {
@@ -142,6 +141,43 @@ LOOP:
     }
 
 
+    /**
+     * Determines whether the children of the given block already appear in the order of
+     * the given declaration groups.
+     *
+     * @param lcurly the block.
+     * @param groups the declaration groups (of type <code>List</code>) in the order
+     *        they should appear.
+     * @param rcurly the closing curly brace of the block.
+     *
+     * @return <code>true</code> if the children appear in the order of the groups.
+     */
+    private boolean isInOrder(
+        AST  lcurly,
+        List groups,
+        AST  rcurly)
+    {
+        AST child = lcurly.getFirstChild();
+
+        for (int i = 0, size = groups.size(); i < size; i++)
+        {
+            List nodes = (List) groups.get(i);
+
+            for (int j = 0, count = nodes.size(); j < count; j++)
+            {
+                if (child != nodes.get(j))
+                {
+                    return false;
+                }
+
+                child = child.getNextSibling();
+            }
+        }
+
+        return child == rcurly;
+    }
+
+
     /**
      * Appends <em>sibling</em> as a new sibling to <em>node</em>.
      *
@@ -371,6 +407,58 @@ LOOP:
     }
 
 
+    /**
+     * Sorts the given declaration nodes. The sort keys of the nodes are created up front
+     * so the comparator does not have to derive them again for every comparison. Leaves
+     * the list untouched if the nodes are already in order.
+     *
+     * @param nodes the nodes to sort.
+     * @param comp comparator to use for sorting.
+     */
+    private void sort(
+        List           nodes,
+        NodeComparator comp)
+    {
+        int size = nodes.size();
+
+        if (size < 2)
+        {
+            return;
+        }
+
+        NodeComparator.Key[] keys = new NodeComparator.Key[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            keys[i] = comp.createKey((AST) nodes.get(i));
+        }
+
+        boolean sorted = true;
+
+        for (int i = 1; i < size; i++)
+        {
+            if (comp.compare(keys[i], keys[i - 1]) < 0)
+            {
+                sorted = false;
+
+                break;
+            }
+        }
+
+        if (sorted)
+        {
+            return;
+        }
+
+        Arrays.sort(keys, comp);
+
+        for (int i = 0; i < size; i++)
+        {
+            nodes.set(i, keys[i].node);
+        }
+    }
+
+
     /**
      * Sorts the given tree portion.
      *
@@ -385,9 +473,9 @@ LOOP:
      *         type.
      */
     private AST sortDeclarations(
-        AST        node,
-        Comparator comp,
-        int        level)
+        AST            node,
+        NodeComparator comp,
+        int            level)
     {
         JavaNode lcurly = null;
 
@@ -442,6 +530,7 @@ LOOP:
         List names = new ArrayList(); // type names of all instance variables
 
         AST rcurly = null; // stores the last rcurly
+        boolean semi = false;
 
         // add nodes to the different lists
         for (
@@ -516,6 +605,8 @@ LOOP:
                     // it is perfectly valid to use a SEMI and totally
                     // useless, we ignore it and don't care (at least until
                     // someone rings a bell)
+                    semi = true;
+
                     break;
 
                 default :
@@ -532,44 +623,44 @@ LOOP:
             // because we recursively link into inner classes in the switch we
             // have to set our type names for every level
             _variablesComparator.names = names;
-            Collections.sort(variables, _variablesComparator);
+            sort(variables, _variablesComparator);
             names.clear();
         }
 
         if (settings.getBoolean(ConventionKeys.SORT_CTOR, ConventionDefaults.SORT_CTOR))
         {
-            Collections.sort(ctors, comp);
+            sort(ctors, comp);
         }
 
         if (
             settings.getBoolean(
                 ConventionKeys.SORT_METHOD, ConventionDefaults.SORT_METHOD))
         {
-            Collections.sort(methods, comp);
+            sort(methods, comp);
         }
 
         if (settings.getBoolean(ConventionKeys.SORT_CLASS, ConventionDefaults.SORT_CLASS))
         {
-            Collections.sort(classes, comp);
+            sort(classes, comp);
         }
 
         if (
             settings.getBoolean(
                 ConventionKeys.SORT_INTERFACE, ConventionDefaults.SORT_INTERFACE))
         {
-            Collections.sort(interfaces, comp);
+            sort(interfaces, comp);
         }
         if (
                 settings.getBoolean(
                     ConventionKeys.SORT_ENUM, ConventionDefaults.SORT_ENUM))
             {
-                Collections.sort(enums, comp);
+                sort(enums, comp);
             }
         if (
                 settings.getBoolean(
                     ConventionKeys.SORT_ANNOTATION, ConventionDefaults.SORT_ANNOTATION))
             {
-                Collections.sort(annotations, comp);
+                sort(annotations, comp);
             }
 
         Map nodemap = new HashMap(10, 1.0f);
@@ -606,41 +697,48 @@ LOOP:
             settings.getInt(ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
         int indent =
             settings.getInt(ConventionKeys.INDENT_SIZE, ConventionDefaults.INDENT_SIZE);
-        JavaNode tmp = (JavaNode) _factory.getJavaNodeFactory().create();
-        JavaNode current = tmp;
+        List groups = new ArrayList(10);
 
         // add the different declaration groups in the specified order
         if (!enumdef.isEmpty()) {
             // Add in any enumeration definitions first
-            current =
-                addSiblings(
-                    enumdef, current, addSeparator,
-                    indent * level, maxwidth);
-            
+            groups.add(enumdef);
         } // end if
         for (
             StringTokenizer tokens = new StringTokenizer(sortString, "|");
             tokens.hasMoreTokens();)
         {
             String nextToken = tokens.nextToken(); 
-            current =
-                addSiblings(
-                    (List) nodemap.get(nextToken), current, addSeparator,
-                    indent * level, maxwidth);
+            groups.add(nodemap.get(nextToken));
         }
 
-        current.setNextSibling(rcurly);
+        // no need to relink the declarations if they are already in order
+        if (addSeparator || semi || !isInOrder(lcurly, groups, rcurly))
+        {
+            JavaNode tmp = (JavaNode) _factory.getJavaNodeFactory().create();
+            JavaNode current = tmp;
 
-        // get the first sibling
-        JavaNode sibling = (JavaNode) tmp.getNextSibling();
+            for (int i = 0, size = groups.size(); i < size; i++)
+            {
+                current =
+                    addSiblings(
+                        (List) groups.get(i), current, addSeparator,
+                        indent * level, maxwidth);
+            }
 
-        // and link it into the tree
-        sibling.setPreviousSibling(lcurly);
-        lcurly.setFirstChild(sibling);
+            current.setNextSibling(rcurly);
 
-        tmp.setNextSibling(null); // don't leave any old pointers set
+            // get the first sibling
+            JavaNode sibling = (JavaNode) tmp.getNextSibling();
 
-        current.setNextSibling(rcurly);
+            // and link it into the tree
+            sibling.setPreviousSibling(lcurly);
+            lcurly.setFirstChild(sibling);
+
+            tmp.setNextSibling(null); // don't leave any old pointers set
+
+            current.setNextSibling(rcurly);
+        }
 
         staticStuff.clear(); // both variables and initializers
         variables.clear(); // instance variables
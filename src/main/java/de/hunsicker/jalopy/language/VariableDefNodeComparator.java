@@ -6,13 +6,8 @@
  */
 package de.hunsicker.jalopy.language;
 
-import java.util.Comparator;
 import java.util.List;
 
-import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
-
-import antlr.collections.AST;
-
 
 /**
  * Compares two VARIABLE_DEF nodes first by accessibility, then by name. Special checking
@@ -29,9 +24,6 @@ final class VariableDefNodeComparator
     /** Holds all instance variable type names of a given class. */
     List names; // List of <String>
 
-    /** Simple tree walker to search tree portions. */
-    private final TreeSearcher _searcher = new TreeSearcher();
-
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -70,76 +62,35 @@ final class VariableDefNodeComparator
             throw new IllegalStateException("no variable type names has been set");
         }
 
-        AST node1 = (AST) o1;
-        AST node2 = (AST) o2;
-        String name1 =
-            JavaNodeHelper.getFirstChild(node1, JavaTokenTypes.IDENT).getText();
-        //String name2 =
-        //    JavaNodeHelper.getFirstChild(node2, JavaTokenTypes.IDENT).getText();
+        Key key1 = toKey(o1);
+        Key key2 = toKey(o2);
 
         // first make sure we don't introduce forward references
         //
         //      private short indentSize = 4;
         //      private short currentIndent = indentSize;
         //
-        AST assign = JavaNodeHelper.getFirstChild(node2, JavaTokenTypes.ASSIGN);
-
-        if (assign != null)
+        // if the name of the first node is contained in the second one,
+        if ((key2.references != null) && key2.references.contains(key1.name))
         {
-            _searcher.reset();
-            _searcher.name = name1;
-            _searcher.walk(assign);
-
-            // if the name of the first node is contained in the second one,
-            if (_searcher.result == TreeSearcher.FOUND)
-            {
-                return -1;
-            }
+            return -1;
         }
 
         // now check the accessibility
-        int mod1 = JavaNodeModifier.valueOf(node1);
-        int mod2 = JavaNodeModifier.valueOf(node2);
-        int result = compareModifiers(mod1, mod2);
+        int result = compareModifiers(key1, key2);
 
         if (result != 0)
         {
             return result;
         }
 
-        result = NodeComparator.compareTypes(node1, node2);
+        result = NodeComparator.compareTypes(key1, key2);
 
         if (result != 0)
         {
             return result;
         }
 
-        return NodeComparator.compareNames(node1, node2);
-    }
-
-    //~ Inner Classes --------------------------------------------------------------------
-
-    private static final class TreeSearcher
-        extends TreeWalker
-    {
-        static final int FOUND = 1;
-        String name;
-        int result;
-
-        public void reset()
-        {
-            super.reset();
-            this.result = 0;
-        }
-
-
-        public void visit(AST node)
-        {
-            if (this.name.equals(node.getText()))
-            {
-                this.result = FOUND;
-                stop();
-            }
-        }
+        return NodeComparator.compareNames(key1, key2);
     }
 }
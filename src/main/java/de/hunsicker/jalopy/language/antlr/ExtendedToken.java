@@ -29,9 +29,6 @@ public abstract class ExtendedToken
     /** The associated Javadoc comment. */
     Node comment;
 
-    /** Token text. */
-    String text;
-
     public int nlAfter = 0;
     /** True if attached to a node */
     public boolean attached = false;
@@ -253,16 +250,17 @@ public abstract class ExtendedToken
         hiddenBefore = t;
     }
     public void clear() {
-        this.endColumn = -1;
-        this.endLine = -1;
+        this.type = INVALID_TYPE;
+        this.endColumn = 0;
+        this.endLine = 0;
         this.comment=null;
         this.text = null;
         this.attached = false;
         this.hiddenBefore = null;
         this.hiddenAfter = null;
         this.nlAfter = 0;
-        this.line = -1;
-        this.col = -1;
+        this.line = 0;
+        this.col = 0;
     }
     
 }
@@ -15,6 +15,7 @@ import org.apache.log4j.Logger;
 import de.hunsicker.io.FileFormat;
 import de.hunsicker.jalopy.language.CompositeFactory;
 import de.hunsicker.jalopy.language.JavaParser;
+import de.hunsicker.jalopy.language.JavadocParserPool;
 import de.hunsicker.jalopy.language.Lexer;
 import de.hunsicker.jalopy.language.Parser;
 import de.hunsicker.jalopy.language.Recognizer;
@@ -28,6 +29,7 @@ import antlr.Token;
 import antlr.RecognitionException;
 import antlr.ANTLRHashString;
 import antlr.LexerSharedInputState;
+import antlr.TokenStreamException;
 import antlr.TokenStreamIOException;
 
 public class JavaLexer extends InternalJavaLexer implements Lexer
@@ -61,6 +63,9 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
     /** Should Javadoc comments be parsed or added AS IS? */
     public boolean parseJavadocComments;
 
+    /** Number of threads to parse Javadoc comments in the background. */
+    public int javadocParseThreads;
+
     /** Specifies the Java release version to be compatible with. */
     public int sourceVersion = JDK_1_4;
 
@@ -76,12 +81,24 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
     /** Should multi-line comments be ignored? */
     public boolean removeMLComments;
 
+    /** Should the input be tokenized by the hand-written scanner? */
+    public boolean fastScanner;
+
+    /** The hand-written scanner. */
+    private JavaScanner _scanner;
+
+    /** Is the hand-written scanner in charge of the current input? */
+    private boolean _scanning;
+
     /** The use Java parser. */
     private JavaParser _parser;
 
     /** The used Javadoc parser. */
     private JavadocParser _javadocParser;
 
+    /** Parses Javadoc comments in the background. */
+    private JavadocParserPool _javadocParserPool;
+
     private CompositeFactory _factory = null;;
     
     static class MyLexerSharedInputState extends LexerSharedInputState  {
@@ -164,6 +181,31 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
     {
         return _javadocParser;
     }
+
+
+    /**
+     * Returns the pool that parses Javadoc comments in the background. The pool is
+     * (re)created as needed to match the current number of threads.
+     *
+     * @return the pool or <code>null</code> if Javadoc comments are parsed on demand
+     *         only.
+     */
+    public JavadocParserPool getJavadocParserPool()
+    {
+        if (this.javadocParseThreads < 1)
+        {
+            _javadocParserPool = null;
+        }
+        else if ((_javadocParserPool == null)
+            || (_javadocParserPool.getMaximumThreads() != this.javadocParseThreads))
+        {
+            _javadocParserPool = new JavadocParserPool(this.javadocParseThreads);
+        }
+
+        _factory.setJavadocParserPool(_javadocParserPool);
+
+        return _javadocParserPool;
+    }
     
 
     /**
@@ -511,6 +553,8 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
      */
     public void setInputBuffer(InputBuffer buf)
     {
+        _scanning = false;
+
         if (this.inputState != null) {
             ((MyLexerSharedInputState)this.inputState).setInputBuffer(buf);
         }
@@ -523,7 +567,59 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
      */
     public void setInputBuffer(Reader in)
     {
-        setInputBuffer(new CharBuffer(in));
+        if (this.fastScanner)
+        {
+            if (_scanner == null)
+            {
+                _scanner = new JavaScanner(this, _factory.getExtendedTokenFactory());
+            }
+
+            _scanner.setInput(in);
+            _scanning = true;
+        }
+        else
+        {
+            setInputBuffer(new CharBuffer(in));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Token nextToken() throws TokenStreamException
+    {
+        if (_scanning)
+        {
+            return _scanner.nextToken();
+        }
+
+        return super.nextToken();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getLine()
+    {
+        if (_scanning)
+        {
+            return _scanner.getLine();
+        }
+
+        return super.getLine();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getColumn()
+    {
+        if (_scanning)
+        {
+            return _scanner.getColumn();
+        }
+
+        return super.getColumn();
     }
 
     /**
@@ -541,6 +637,12 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
             this.inputState.reset();
         }
 
+        if (_scanner != null)
+        {
+            _scanner.reset();
+        }
+
+        _scanning = false;
         setFilename(Recognizer.UNKNOWN_FILE);
     }
 
@@ -637,34 +739,23 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
                     //t = removeLeadingWhitespace(t, node.getColumn() -1, _lineSeparator);
                     node.setText(t);
                     
+                    // keep the raw text only, the comment is parsed on demand
+                    // by the printer (and only if it needs to be reformatted)
                     Node comment = (Node) _factory.getJavaNodeFactory().create(JAVADOC_COMMENT);
                     comment.setText(t);
+
+                    // the tree is parsed at the position of the comment token, the
+                    // printer asks for the same position (see JavadocPrinter)
+                    comment.setStartLine(node.getLine());
+                    comment.setStartColumn(node.getColumn());
+
+                    if (_javadocParserPool != null)
+                    {
+                        _javadocParserPool.submit(comment, node.getLine(), node.getColumn(), getFilename());
+                    }
+
                     node = _factory.getExtendedTokenFactory().create(JavaTokenTypes.JAVADOC_COMMENT, t);
                     ((ExtendedToken)node).comment = comment;
-//                    try
-//                    {
-//                        String t = node.getText();
-//                        _recognizer.setLine(node.getLine());
-//                        _recognizer.setColumn(node.getColumn());
-//                        _recognizer.parse(t, getFilename());
-//                        Node comment = (Node)_recognizer.getParseTree();
-//
-//                        // ignore empty comments
-//                        if (comment != JavadocParser.EMPTY_JAVADOC_COMMENT)
-//                        {
-//                            node = _factory.getExtendedTokenFactory().create(JavaTokenTypes.JAVADOC_COMMENT, t);
-//                            ((ExtendedToken)node).comment = comment;
-//                            comment.setText(t);
-//                            
-//                        }
-//                        else {
-//                            node.setType(Token.SKIP);
-//                        }
-//                    }
-//                    catch (IOException ex)
-//                    {
-//                        throw new TokenStreamIOException(ex);
-//                    }
                 }
                 else
                 {
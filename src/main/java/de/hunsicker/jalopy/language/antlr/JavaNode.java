@@ -392,6 +392,19 @@ public abstract class JavaNode
     }
 
 
+    /**
+     * Indicates whether annotations are attached to this node.
+     *
+     * @return <code>true</code> if annotations are attached to this node.
+     *
+     * @see #attachAnnotation
+     */
+    public boolean hasAnnotations()
+    {
+        return !_annotations.isEmpty();
+    }
+
+
     /**
      * Indicates whether comments appear before of this node.
      *
@@ -533,6 +546,10 @@ public abstract class JavaNode
     public void clear() {
         this.parent = null;
         this.prevSibling = null;
+        _annotations = Collections.EMPTY_LIST;
+        _position = null;
+        this.newLine = 0;
+        this.newColumn = 0;
         super.clear();
     }
 }
@@ -33,7 +33,7 @@ public class JavaNodeFactory
     private static final String EMPTY_STRING = "" /* NOI18N */.intern();
     private final CompositeFactory _compositeFactory;
     
-    private class JavaNodeImpl extends JavaNode {
+    private static class JavaNodeImpl extends JavaNode {
 
         public JavaNodeImpl() {
             super();
@@ -0,0 +1,1459 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language.antlr;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import antlr.CharScanner;
+import antlr.NoViableAltForCharException;
+import antlr.Token;
+import antlr.TokenStream;
+import antlr.TokenStreamException;
+import antlr.TokenStreamIOException;
+import antlr.TokenStreamRecognitionException;
+
+import de.hunsicker.jalopy.language.CompositeFactory.ExtendedTokenFactory;
+import de.hunsicker.util.StringHelper;
+
+
+/**
+ * Hand-written scanner for Java source files. Recognizes the exact same token
+ * language as the generated lexer of the <code>java15.g</code> grammar, but operates
+ * directly on a character array and recognizes keywords by means of a perfect hash
+ * table.
+ *
+ * <p>
+ * The scanner is driven by its owning {@link JavaLexer}: comment handling and the
+ * language compatibility settings are taken from the lexer, so both always produce
+ * the same token stream.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+final class JavaScanner
+    implements TokenStream
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The character returned when reading beyond the end of the input. */
+    private static final char EOF_CHAR = CharScanner.EOF_CHAR;
+
+    /** The empty input. */
+    private static final char[] EMPTY_BUFFER = new char[0];
+
+    /** The keywords of the Java language (and some more). */
+    private static final String[] KEYWORDS =
+    {
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char",
+        "class", "continue", "default", "do", "double", "else", "enum", "extends",
+        "false", "final", "finally", "float", "for", "if", "implements", "import",
+        "instanceof", "int", "interface", "long", "native", "new", "null", "package",
+        "private", "protected", "public", "return", "short", "static", "strictfp",
+        "super", "switch", "synchronized", "this", "threadsafe", "throw", "throws",
+        "transient", "true", "try", "void", "volatile", "while"
+    };
+
+    /** The token types of the keywords (in the same order). */
+    private static final int[] KEYWORD_TYPES =
+    {
+        JavaTokenTypes.ABSTRACT, JavaTokenTypes.LITERAL_assert,
+        JavaTokenTypes.LITERAL_boolean, JavaTokenTypes.LITERAL_break,
+        JavaTokenTypes.LITERAL_byte, JavaTokenTypes.LITERAL_case,
+        JavaTokenTypes.LITERAL_catch, JavaTokenTypes.LITERAL_char,
+        JavaTokenTypes.LITERAL_class, JavaTokenTypes.LITERAL_continue,
+        JavaTokenTypes.LITERAL_default, JavaTokenTypes.LITERAL_do,
+        JavaTokenTypes.LITERAL_double, JavaTokenTypes.LITERAL_else,
+        JavaTokenTypes.LITERAL_enum, JavaTokenTypes.LITERAL_extends,
+        JavaTokenTypes.LITERAL_false, JavaTokenTypes.FINAL,
+        JavaTokenTypes.LITERAL_finally, JavaTokenTypes.LITERAL_float,
+        JavaTokenTypes.LITERAL_for, JavaTokenTypes.LITERAL_if,
+        JavaTokenTypes.LITERAL_implements, JavaTokenTypes.LITERAL_import,
+        JavaTokenTypes.LITERAL_instanceof, JavaTokenTypes.LITERAL_int,
+        JavaTokenTypes.LITERAL_interface, JavaTokenTypes.LITERAL_long,
+        JavaTokenTypes.LITERAL_native, JavaTokenTypes.LITERAL_new,
+        JavaTokenTypes.LITERAL_null, JavaTokenTypes.LITERAL_package,
+        JavaTokenTypes.LITERAL_private, JavaTokenTypes.LITERAL_protected,
+        JavaTokenTypes.LITERAL_public, JavaTokenTypes.LITERAL_return,
+        JavaTokenTypes.LITERAL_short, JavaTokenTypes.LITERAL_static,
+        JavaTokenTypes.STRICTFP, JavaTokenTypes.LITERAL_super,
+        JavaTokenTypes.LITERAL_switch, JavaTokenTypes.LITERAL_synchronized,
+        JavaTokenTypes.LITERAL_this, JavaTokenTypes.LITERAL_threadsafe,
+        JavaTokenTypes.LITERAL_throw, JavaTokenTypes.LITERAL_throws,
+        JavaTokenTypes.LITERAL_transient, JavaTokenTypes.LITERAL_true,
+        JavaTokenTypes.LITERAL_try, JavaTokenTypes.LITERAL_void,
+        JavaTokenTypes.LITERAL_volatile, JavaTokenTypes.LITERAL_while
+    };
+
+    /** The size of the keyword table, must be a power of two. */
+    private static final int TABLE_SIZE = 128;
+
+    /** The multiplier of the keyword hash function. */
+    private static final int HASH_SEED = findSeed();
+
+    /** The keywords, indexed by their hash code. */
+    private static final String[] KEYWORD_TABLE = new String[TABLE_SIZE];
+
+    /** The keyword token types, indexed by the hash code of the keyword. */
+    private static final int[] KEYWORD_TYPE_TABLE = new int[TABLE_SIZE];
+
+    /** The size of the symbol table, must be a power of two. */
+    private static final int SYMBOL_TABLE_SIZE = 4096;
+
+    /** The maximal length of texts that are kept in the symbol table. */
+    private static final int MAX_SYMBOL_LENGTH = 64;
+
+    static
+    {
+        for (int i = 0; i < KEYWORDS.length; i++)
+        {
+            int index = hash(KEYWORDS[i], HASH_SEED);
+            KEYWORD_TABLE[index] = KEYWORDS[i];
+            KEYWORD_TYPE_TABLE[index] = KEYWORD_TYPES[i];
+        }
+    }
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The lexer we scan for. */
+    private final JavaLexer _lexer;
+
+    /** The factory to create tokens with. */
+    private final ExtendedTokenFactory _tokenFactory;
+
+    /** The reader to consume upon the first request, if any. */
+    private Reader _in;
+
+    /** The input. */
+    private char[] _buf = EMPTY_BUFFER;
+
+    /** The number of valid characters in the input. */
+    private int _length;
+
+    /** The position of the next character to consume. */
+    private int _pos;
+
+    /** The current line. */
+    private int _line = 1;
+
+    /** The current column. */
+    private int _column = 1;
+
+    /** The tab size to calculate columns with. */
+    private int _tabSize = 8;
+
+    /** The line of the token currently scanned. */
+    private int _tokenLine;
+
+    /** The column of the token currently scanned. */
+    private int _tokenColumn;
+
+    /**
+     * Recently scanned token texts, indexed by their hash code. Colliding texts
+     * replace each other, so the table never grows.
+     */
+    private final String[] _symbols = new String[SYMBOL_TABLE_SIZE];
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new JavaScanner object.
+     *
+     * @param lexer the lexer that drives the scanner.
+     * @param tokenFactory the factory to create tokens with.
+     */
+    JavaScanner(
+        JavaLexer            lexer,
+        ExtendedTokenFactory tokenFactory)
+    {
+        _lexer = lexer;
+        _tokenFactory = tokenFactory;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Returns the current column.
+     *
+     * @return current column offset (<code>&gt;= 1</code>).
+     */
+    public int getColumn()
+    {
+        return _column;
+    }
+
+
+    /**
+     * Returns the current line.
+     *
+     * @return current line number (<code>&gt;= 1</code>).
+     */
+    public int getLine()
+    {
+        return _line;
+    }
+
+
+    /**
+     * Sets the input to scan. The input will be read completely upon the first call to
+     * {@link #nextToken}.
+     *
+     * @param in reader to read from.
+     */
+    public void setInput(Reader in)
+    {
+        _in = in;
+        _buf = EMPTY_BUFFER;
+        _length = 0;
+        _pos = 0;
+        _line = 1;
+        _column = 1;
+        _tabSize = _lexer.getTabSize();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Token nextToken()
+      throws TokenStreamException
+    {
+        if (_in != null)
+        {
+            fill();
+        }
+
+        _tokenLine = _line;
+        _tokenColumn = _column;
+
+        if (_pos >= _length)
+        {
+            return makeToken(Token.EOF_TYPE, null);
+        }
+
+        char c = _buf[_pos];
+
+        switch (c)
+        {
+            case '?' :
+                return makeOperator(1, JavaTokenTypes.QUESTION, "?");
+
+            case '(' :
+                return makeOperator(1, JavaTokenTypes.LPAREN, "(");
+
+            case ')' :
+                return makeOperator(1, JavaTokenTypes.RPAREN, ")");
+
+            case '[' :
+                return makeOperator(1, JavaTokenTypes.LBRACK, "[");
+
+            case ']' :
+                return makeOperator(1, JavaTokenTypes.RBRACK, "]");
+
+            case '{' :
+                return makeOperator(1, JavaTokenTypes.LCURLY, "{");
+
+            case '}' :
+                return makeOperator(1, JavaTokenTypes.RCURLY, "}");
+
+            case ':' :
+                return makeOperator(1, JavaTokenTypes.COLON, ":");
+
+            case ',' :
+                return makeOperator(1, JavaTokenTypes.COMMA, ",");
+
+            case '~' :
+                return makeOperator(1, JavaTokenTypes.BNOT, "~");
+
+            case ';' :
+                return makeOperator(1, JavaTokenTypes.SEMI, ";");
+
+            case '@' :
+                return makeOperator(1, JavaTokenTypes.AT, "@");
+
+            case ' ' :
+            case '\t' :
+            case '\f' :
+            case '\r' :
+            case '\n' :
+                return scanWhitespace();
+
+            case '\'' :
+                return scanCharLiteral();
+
+            case '"' :
+                return scanStringLiteral();
+
+            case '.' :
+            case '0' :
+            case '1' :
+            case '2' :
+            case '3' :
+            case '4' :
+            case '5' :
+            case '6' :
+            case '7' :
+            case '8' :
+            case '9' :
+                return scanNumber();
+
+            case '=' :
+
+                if (la(1) == '=')
+                {
+                    return makeOperator(2, JavaTokenTypes.EQUAL, "==");
+                }
+
+                return makeOperator(1, JavaTokenTypes.ASSIGN, "=");
+
+            case '!' :
+
+                if (la(1) == '=')
+                {
+                    return makeOperator(2, JavaTokenTypes.NOT_EQUAL, "!=");
+                }
+
+                return makeOperator(1, JavaTokenTypes.LNOT, "!");
+
+            case '/' :
+
+                switch (la(1))
+                {
+                    case '=' :
+                        return makeOperator(2, JavaTokenTypes.DIV_ASSIGN, "/=");
+
+                    case '/' :
+                        return scanComment();
+
+                    case '*' :
+                        return scanMultiLineComment();
+
+                    default :
+                        return makeOperator(1, JavaTokenTypes.DIV, "/");
+                }
+
+            case '+' :
+
+                switch (la(1))
+                {
+                    case '=' :
+                        return makeOperator(2, JavaTokenTypes.PLUS_ASSIGN, "+=");
+
+                    case '+' :
+                        return makeOperator(2, JavaTokenTypes.INC, "++");
+
+                    default :
+                        return makeOperator(1, JavaTokenTypes.PLUS, "+");
+                }
+
+            case '-' :
+
+                switch (la(1))
+                {
+                    case '=' :
+                        return makeOperator(2, JavaTokenTypes.MINUS_ASSIGN, "-=");
+
+                    case '-' :
+                        return makeOperator(2, JavaTokenTypes.DEC, "--");
+
+                    default :
+                        return makeOperator(1, JavaTokenTypes.MINUS, "-");
+                }
+
+            case '*' :
+
+                if (la(1) == '=')
+                {
+                    return makeOperator(2, JavaTokenTypes.STAR_ASSIGN, "*=");
+                }
+
+                return makeOperator(1, JavaTokenTypes.STAR, "*");
+
+            case '%' :
+
+                if (la(1) == '=')
+                {
+                    return makeOperator(2, JavaTokenTypes.MOD_ASSIGN, "%=");
+                }
+
+                return makeOperator(1, JavaTokenTypes.MOD, "%");
+
+            case '>' :
+
+                switch (la(1))
+                {
+                    case '>' :
+
+                        switch (la(2))
+                        {
+                            case '>' :
+
+                                if (la(3) == '=')
+                                {
+                                    return makeOperator(
+                                        4, JavaTokenTypes.BSR_ASSIGN, ">>>=");
+                                }
+
+                                return makeOperator(3, JavaTokenTypes.BSR, ">>>");
+
+                            case '=' :
+                                return makeOperator(3, JavaTokenTypes.SR_ASSIGN, ">>=");
+
+                            default :
+                                return makeOperator(2, JavaTokenTypes.SR, ">>");
+                        }
+
+                    case '=' :
+                        return makeOperator(2, JavaTokenTypes.GE, ">=");
+
+                    default :
+                        return makeOperator(1, JavaTokenTypes.GT, ">");
+                }
+
+            case '<' :
+
+                switch (la(1))
+                {
+                    case '<' :
+
+                        if (la(2) == '=')
+                        {
+                            return makeOperator(3, JavaTokenTypes.SL_ASSIGN, "<<=");
+                        }
+
+                        return makeOperator(2, JavaTokenTypes.SL, "<<");
+
+                    case '=' :
+                        return makeOperator(2, JavaTokenTypes.LE, "<=");
+
+                    default :
+                        return makeOperator(1, JavaTokenTypes.LT, "<");
+                }
+
+            case '^' :
+
+                if (la(1) == '=')
+                {
+                    return makeOperator(2, JavaTokenTypes.BXOR_ASSIGN, "^=");
+                }
+
+                return makeOperator(1, JavaTokenTypes.BXOR, "^");
+
+            case '|' :
+
+                switch (la(1))
+                {
+                    case '=' :
+                        return makeOperator(2, JavaTokenTypes.BOR_ASSIGN, "|=");
+
+                    case '|' :
+                        return makeOperator(2, JavaTokenTypes.LOR, "||");
+
+                    default :
+                        return makeOperator(1, JavaTokenTypes.BOR, "|");
+                }
+
+            case '&' :
+
+                switch (la(1))
+                {
+                    case '=' :
+                        return makeOperator(2, JavaTokenTypes.BAND_ASSIGN, "&=");
+
+                    case '&' :
+                        return makeOperator(2, JavaTokenTypes.LAND, "&&");
+
+                    default :
+                        return makeOperator(1, JavaTokenTypes.BAND, "&");
+                }
+
+            default :
+
+                if (isIdentifierStart(c))
+                {
+                    return scanIdentifier();
+                }
+
+                throw error(c);
+        }
+    }
+
+
+    /**
+     * Releases the input.
+     */
+    public void reset()
+    {
+        _in = null;
+        _buf = EMPTY_BUFFER;
+        _length = 0;
+        _pos = 0;
+    }
+
+
+    /**
+     * Determines whether the given character may start an identifier.
+     *
+     * @param c a character.
+     *
+     * @return <code>true</code> if <em>c</em> may start an identifier.
+     */
+    private static boolean isIdentifierStart(char c)
+    {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || (c == '_')
+        || (c == '$');
+    }
+
+
+    /**
+     * Determines whether the given character may be part of an identifier.
+     *
+     * @param c a character.
+     *
+     * @return <code>true</code> if <em>c</em> may be part of an identifier.
+     */
+    private static boolean isIdentifierPart(char c)
+    {
+        return isIdentifierStart(c) || ((c >= '0') && (c <= '9'));
+    }
+
+
+    /**
+     * Determines whether the given character is a decimal digit.
+     *
+     * @param c a character.
+     *
+     * @return <code>true</code> if <em>c</em> is a decimal digit.
+     */
+    private static boolean isDigit(char c)
+    {
+        return (c >= '0') && (c <= '9');
+    }
+
+
+    /**
+     * Determines whether the given character is a hexadecimal digit.
+     *
+     * @param c a character.
+     *
+     * @return <code>true</code> if <em>c</em> is a hexadecimal digit.
+     */
+    private static boolean isHexDigit(char c)
+    {
+        return isDigit(c) || ((c >= 'a') && (c <= 'f')) || ((c >= 'A') && (c <= 'F'));
+    }
+
+
+    /**
+     * Determines whether the given character is a floating point suffix.
+     *
+     * @param c a character.
+     *
+     * @return <code>true</code> if <em>c</em> is a floating point suffix.
+     */
+    private static boolean isFloatSuffix(char c)
+    {
+        switch (c)
+        {
+            case 'f' :
+            case 'F' :
+            case 'd' :
+            case 'D' :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+
+    /**
+     * Calculates the keyword hash code for the given characters.
+     *
+     * @param first the first character.
+     * @param middle the character in the middle.
+     * @param last the last character.
+     * @param length the number of characters.
+     * @param seed the multiplier to use.
+     *
+     * @return the hash code (<code>&gt;= 0 &amp;&amp; &lt; TABLE_SIZE</code>).
+     */
+    private static int hash(
+        char first,
+        char middle,
+        char last,
+        int  length,
+        int  seed)
+    {
+        return ((((first << 16) ^ (last << 8) ^ (middle << 4) ^ length) * seed) >>> 16)
+        & (TABLE_SIZE - 1);
+    }
+
+
+    /**
+     * Calculates the keyword hash code for the given string.
+     *
+     * @param str a non-empty string.
+     * @param seed the multiplier to use.
+     *
+     * @return the hash code.
+     */
+    private static int hash(
+        String str,
+        int    seed)
+    {
+        int length = str.length();
+
+        return hash(
+            str.charAt(0), str.charAt(length >> 1), str.charAt(length - 1), length, seed);
+    }
+
+
+    /**
+     * Searches a multiplier that maps all keywords to distinct slots of the keyword
+     * table.
+     *
+     * @return the multiplier.
+     *
+     * @throws IllegalStateException if no suitable multiplier could be found.
+     */
+    private static int findSeed()
+    {
+        boolean[] used = new boolean[TABLE_SIZE];
+
+SEARCH:
+        for (int seed = 1; seed < (1 << 20); seed++)
+        {
+            for (int i = 0; i < used.length; i++)
+            {
+                used[i] = false;
+            }
+
+            for (int i = 0; i < KEYWORDS.length; i++)
+            {
+                int index = hash(KEYWORDS[i], seed);
+
+                if (used[index])
+                {
+                    continue SEARCH;
+                }
+
+                used[index] = true;
+            }
+
+            return seed;
+        }
+
+        throw new IllegalStateException("no perfect hash found for keywords");
+    }
+
+
+    /**
+     * Returns the character at the given offset from the current position.
+     *
+     * @param offset offset to the current position.
+     *
+     * @return the character or {@link #EOF_CHAR} if the offset lies beyond the end of
+     *         the input.
+     */
+    private char la(int offset)
+    {
+        int pos = _pos + offset;
+
+        return (pos < _length) ? _buf[pos]
+                               : EOF_CHAR;
+    }
+
+
+    /**
+     * Consumes the current character and updates the column.
+     */
+    private void consume()
+    {
+        if (_buf[_pos++] == '\t')
+        {
+            _column = (((_column - 1) / _tabSize) + 1) * _tabSize + 1;
+        }
+        else
+        {
+            _column++;
+        }
+    }
+
+
+    /**
+     * Consumes the given number of characters that are known not to contain tabs or
+     * line breaks.
+     *
+     * @param count number of characters to consume.
+     */
+    private void skip(int count)
+    {
+        _pos += count;
+        _column += count;
+    }
+
+
+    /**
+     * Consumes a line break starting at the current position, if any.
+     *
+     * @return <code>true</code> if a line break was consumed.
+     */
+    private boolean consumeNewline()
+    {
+        switch (la(0))
+        {
+            case '\r' :
+                _pos++;
+
+                if (la(0) == '\n')
+                {
+                    _pos++;
+                }
+
+                newline();
+
+                return true;
+
+            case '\n' :
+                _pos++;
+                newline();
+
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+
+    /**
+     * Advances to the next line.
+     */
+    private void newline()
+    {
+        _line++;
+        _column = 1;
+    }
+
+
+    /**
+     * Reads the pending input completely.
+     *
+     * @throws TokenStreamIOException if an I/O error occured.
+     */
+    private void fill()
+      throws TokenStreamIOException
+    {
+        Reader in = _in;
+        _in = null;
+
+        try
+        {
+            char[] buf = new char[8192];
+            int length = 0;
+
+            for (int read; (read = in.read(buf, length, buf.length - length)) > -1;)
+            {
+                length += read;
+
+                if (length == buf.length)
+                {
+                    char[] temp = new char[buf.length << 1];
+                    System.arraycopy(buf, 0, temp, 0, length);
+                    buf = temp;
+                }
+            }
+
+            _buf = buf;
+            _length = length;
+        }
+        catch (IOException ex)
+        {
+            throw new TokenStreamIOException(ex);
+        }
+    }
+
+
+    /**
+     * Creates a token of the given type that starts at the beginning of the current
+     * token and ends at the current position.
+     *
+     * @param type token type.
+     * @param text token text.
+     *
+     * @return the created token.
+     */
+    private ExtendedToken makeToken(
+        int    type,
+        String text)
+    {
+        ExtendedToken token = _tokenFactory.create(type, text);
+        token.setLine(_tokenLine);
+        token.setColumn(_tokenColumn);
+        token.endLine = _line;
+        token.endColumn = _column;
+
+        return token;
+    }
+
+
+    /**
+     * Consumes the given number of characters and creates a token with the given
+     * (shared) text.
+     *
+     * @param length the number of characters of the operator.
+     * @param type token type.
+     * @param text token text.
+     *
+     * @return the created token.
+     */
+    private Token makeOperator(
+        int    length,
+        int    type,
+        String text)
+    {
+        skip(length);
+
+        return makeToken(type, text);
+    }
+
+
+    /**
+     * Returns the text between the given position and the current position.
+     *
+     * @param start start position.
+     *
+     * @return the text.
+     */
+    private String text(int start)
+    {
+        return new String(_buf, start, _pos - start);
+    }
+
+
+    /**
+     * Returns the text between the given position and the current position. Short
+     * texts are shared by means of the symbol table, so recurring identifiers,
+     * literals and whitespace are only allocated once.
+     *
+     * @param start start position.
+     *
+     * @return the text.
+     */
+    private String symbol(int start)
+    {
+        int length = _pos - start;
+
+        if (length > MAX_SYMBOL_LENGTH)
+        {
+            return text(start);
+        }
+
+        char[] buf = _buf;
+        int hash = 0;
+
+        for (int i = start; i < _pos; i++)
+        {
+            hash = (31 * hash) + buf[i];
+        }
+
+        int index = (hash ^ (hash >>> 12)) & (SYMBOL_TABLE_SIZE - 1);
+        String symbol = _symbols[index];
+
+        if ((symbol != null) && (symbol.length() == length))
+        {
+            int i = 0;
+
+            while ((i < length) && (symbol.charAt(i) == buf[start + i]))
+            {
+                i++;
+            }
+
+            if (i == length)
+            {
+                return symbol;
+            }
+        }
+
+        symbol = new String(buf, start, length);
+        _symbols[index] = symbol;
+
+        return symbol;
+    }
+
+
+    /**
+     * Creates the exception to throw for the given unexpected character.
+     *
+     * @param c the unexpected character.
+     *
+     * @return the exception.
+     */
+    private TokenStreamRecognitionException error(char c)
+    {
+        return new TokenStreamRecognitionException(
+            new NoViableAltForCharException(c, _lexer.getFilename(), _line, _column));
+    }
+
+
+    /**
+     * Scans whitespace, including line breaks.
+     *
+     * @return the whitespace token.
+     */
+    private Token scanWhitespace()
+    {
+        int start = _pos;
+
+        for (;;)
+        {
+            switch (la(0))
+            {
+                case ' ' :
+                case '\f' :
+                    _pos++;
+                    _column++;
+
+                    break;
+
+                case '\t' :
+                    consume();
+
+                    break;
+
+                case '\r' :
+                case '\n' :
+                    consumeNewline();
+
+                    break;
+
+                default :
+                    return makeToken(JavaTokenTypes.WS, symbol(start));
+            }
+        }
+    }
+
+
+    /**
+     * Scans an identifier or keyword.
+     *
+     * @return the identifier or keyword token.
+     */
+    private Token scanIdentifier()
+    {
+        int start = _pos;
+        int pos = start + 1;
+
+        while ((pos < _length) && isIdentifierPart(_buf[pos]))
+        {
+            pos++;
+        }
+
+        int length = pos - start;
+        skip(length);
+
+        char[] buf = _buf;
+        int index =
+            hash(buf[start], buf[start + (length >> 1)], buf[pos - 1], length, HASH_SEED);
+        String keyword = KEYWORD_TABLE[index];
+
+        if ((keyword != null) && (keyword.length() == length))
+        {
+            int i = 0;
+
+            while ((i < length) && (keyword.charAt(i) == buf[start + i]))
+            {
+                i++;
+            }
+
+            if (i == length)
+            {
+                int type = KEYWORD_TYPE_TABLE[index];
+
+                if (
+                    (type == JavaTokenTypes.LITERAL_assert)
+                    && (_lexer.sourceVersion == JavaLexer.JDK_1_3))
+                {
+                    type = JavaTokenTypes.IDENT;
+                }
+
+                return makeToken(type, keyword);
+            }
+        }
+
+        return makeToken(JavaTokenTypes.IDENT, symbol(start));
+    }
+
+
+    /**
+     * Scans a number literal or a dot.
+     *
+     * @return the number, dot or triple dot token.
+     *
+     * @throws TokenStreamRecognitionException if the literal is malformed.
+     */
+    private Token scanNumber()
+      throws TokenStreamRecognitionException
+    {
+        int start = _pos;
+        int type = JavaTokenTypes.NUM_INT;
+        char c = la(0);
+
+        if (c == '.')
+        {
+            skip(1);
+            type = JavaTokenTypes.DOT;
+
+            if (isDigit(la(0)))
+            {
+                skipDigits();
+                type = scanFloatTail();
+            }
+            else if (la(0) == '.')
+            {
+                if (la(1) != '.')
+                {
+                    skip(1);
+
+                    throw error(la(0));
+                }
+
+                skip(2);
+                type = JavaTokenTypes.TRIPLE_DOT;
+            }
+
+            return makeToken(type, symbol(start));
+        }
+
+        if (c == '0')
+        {
+            skip(1);
+            c = la(0);
+
+            if ((c == 'x') || (c == 'X'))
+            {
+                skip(1);
+
+                if (!isHexDigit(la(0)))
+                {
+                    throw error(la(0));
+                }
+
+                while (isHexDigit(la(0)))
+                {
+                    skip(1);
+                }
+            }
+            else
+            {
+                // a leading zero denotes an octal literal, unless the digits turn out
+                // to be part of a floating point literal
+                int pos = _pos;
+
+                while ((pos < _length) && isDigit(_buf[pos]))
+                {
+                    pos++;
+                }
+
+                char next = (pos < _length) ? _buf[pos]
+                                            : EOF_CHAR;
+
+                if (
+                    (pos > _pos)
+                    && ((next == '.') || (next == 'e') || (next == 'E')
+                    || isFloatSuffix(next)))
+                {
+                    skip(pos - _pos);
+                }
+                else
+                {
+                    while ((la(0) >= '0') && (la(0) <= '7'))
+                    {
+                        skip(1);
+                    }
+                }
+            }
+        }
+        else
+        {
+            skipDigits();
+        }
+
+        c = la(0);
+
+        switch (c)
+        {
+            case 'l' :
+            case 'L' :
+                skip(1);
+                type = JavaTokenTypes.NUM_LONG;
+
+                break;
+
+            case '.' :
+                skip(1);
+
+                while (isDigit(la(0)))
+                {
+                    skip(1);
+                }
+
+                type = scanFloatTail();
+
+                break;
+
+            case 'e' :
+            case 'E' :
+            case 'f' :
+            case 'F' :
+            case 'd' :
+            case 'D' :
+                type = scanFloatTail();
+
+                break;
+        }
+
+        return makeToken(type, symbol(start));
+    }
+
+
+    /**
+     * Scans one or more decimal digits.
+     *
+     * @throws TokenStreamRecognitionException if no digit could be found.
+     */
+    private void skipDigits()
+      throws TokenStreamRecognitionException
+    {
+        if (!isDigit(la(0)))
+        {
+            throw error(la(0));
+        }
+
+        do
+        {
+            skip(1);
+        }
+        while (isDigit(la(0)));
+    }
+
+
+    /**
+     * Scans the optional exponent and type suffix of a floating point literal.
+     *
+     * @return the token type of the floating point literal.
+     *
+     * @throws TokenStreamRecognitionException if the exponent is malformed.
+     */
+    private int scanFloatTail()
+      throws TokenStreamRecognitionException
+    {
+        char c = la(0);
+
+        if ((c == 'e') || (c == 'E'))
+        {
+            skip(1);
+            c = la(0);
+
+            if ((c == '+') || (c == '-'))
+            {
+                skip(1);
+            }
+
+            skipDigits();
+            c = la(0);
+        }
+
+        if (isFloatSuffix(c))
+        {
+            skip(1);
+
+            if ((c == 'f') || (c == 'F'))
+            {
+                return JavaTokenTypes.NUM_FLOAT;
+            }
+        }
+
+        return JavaTokenTypes.NUM_DOUBLE;
+    }
+
+
+    /**
+     * Scans an escape sequence.
+     *
+     * @throws TokenStreamRecognitionException if the escape sequence is malformed.
+     */
+    private void scanEscape()
+      throws TokenStreamRecognitionException
+    {
+        skip(1);
+
+        char c = la(0);
+
+        switch (c)
+        {
+            case 'n' :
+            case 'r' :
+            case 't' :
+            case 'b' :
+            case 'f' :
+            case '"' :
+            case '\'' :
+            case '\\' :
+                skip(1);
+
+                break;
+
+            case 'u' :
+
+                do
+                {
+                    skip(1);
+                }
+                while (la(0) == 'u');
+
+                for (int i = 0; i < 4; i++)
+                {
+                    if (!isHexDigit(la(0)))
+                    {
+                        throw error(la(0));
+                    }
+
+                    skip(1);
+                }
+
+                break;
+
+            case '0' :
+            case '1' :
+            case '2' :
+            case '3' :
+                skip(1);
+
+                for (int i = 0; (i < 2) && (la(0) >= '0') && (la(0) <= '7'); i++)
+                {
+                    skip(1);
+                }
+
+                break;
+
+            case '4' :
+            case '5' :
+            case '6' :
+            case '7' :
+                skip(1);
+
+                if ((la(0) >= '0') && (la(0) <= '7'))
+                {
+                    skip(1);
+                }
+
+                break;
+
+            default :
+                throw error(c);
+        }
+    }
+
+
+    /**
+     * Scans a character literal.
+     *
+     * @return the character literal token.
+     *
+     * @throws TokenStreamRecognitionException if the literal is malformed.
+     */
+    private Token scanCharLiteral()
+      throws TokenStreamRecognitionException
+    {
+        int start = _pos;
+        skip(1);
+
+        char c = la(0);
+
+        switch (c)
+        {
+            case '\\' :
+                scanEscape();
+
+                break;
+
+            case '\'' :
+            case '\r' :
+            case '\n' :
+            case EOF_CHAR :
+                throw error(c);
+
+            default :
+                consume();
+
+                break;
+        }
+
+        if (la(0) != '\'')
+        {
+            throw error(la(0));
+        }
+
+        skip(1);
+
+        return makeToken(JavaTokenTypes.CHAR_LITERAL, symbol(start));
+    }
+
+
+    /**
+     * Scans a string literal.
+     *
+     * @return the string literal token.
+     *
+     * @throws TokenStreamRecognitionException if the literal is malformed.
+     */
+    private Token scanStringLiteral()
+      throws TokenStreamRecognitionException
+    {
+        int start = _pos;
+        skip(1);
+
+        for (;;)
+        {
+            char c = la(0);
+
+            switch (c)
+            {
+                case '"' :
+                    skip(1);
+
+                    return makeToken(JavaTokenTypes.STRING_LITERAL, symbol(start));
+
+                case '\\' :
+                    scanEscape();
+
+                    break;
+
+                case '\r' :
+                case '\n' :
+                case EOF_CHAR :
+                    throw error(c);
+
+                default :
+                    consume();
+
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Scans a single-line, separator or special comment.
+     *
+     * @return the comment token.
+     *
+     * @throws TokenStreamRecognitionException if a special comment is not terminated.
+     */
+    private Token scanComment()
+      throws TokenStreamRecognitionException
+    {
+        int start = _pos;
+
+        if ((la(2) == 'J') && (la(3) == '-'))
+        {
+            return scanSpecialComment();
+        }
+
+        int type =
+            (la(2) == '~') ? JavaTokenTypes.SEPARATOR_COMMENT
+                           : JavaTokenTypes.SL_COMMENT;
+        skip(2);
+
+        for (char c = la(0); (c != '\n') && (c != '\r') && (c != EOF_CHAR); c = la(0))
+        {
+            consume();
+        }
+
+        // the trailing line break is consumed, but not part of the comment text
+        String text = text(start);
+
+        if (!consumeNewline())
+        {
+            newline();
+        }
+
+        return makeToken(type, text);
+    }
+
+
+    /**
+     * Scans a special comment, i.e. a comment that is enclosed by
+     * <code>//J-</code> and <code>//J+</code> and should be printed as-is.
+     *
+     * @return the comment token.
+     *
+     * @throws TokenStreamRecognitionException if the comment is not terminated.
+     */
+    private Token scanSpecialComment()
+      throws TokenStreamRecognitionException
+    {
+        int start = _pos;
+        skip(4);
+
+        while (
+            !((la(0) == '/') && (la(1) == '/') && (la(2) == 'J') && (la(3) == '+')))
+        {
+            if (_pos >= _length)
+            {
+                throw error(EOF_CHAR);
+            }
+
+            if (!consumeNewline())
+            {
+                consume();
+            }
+        }
+
+        skip(4);
+
+        String text = text(start);
+
+        return makeToken(
+            JavaTokenTypes.SPECIAL_COMMENT,
+            StringHelper.leftPad(text, text.length() + _tokenColumn - 1));
+    }
+
+
+    /**
+     * Scans a multi-line or Javadoc comment.
+     *
+     * @return the comment token.
+     *
+     * @throws TokenStreamException if the comment is not terminated.
+     */
+    private Token scanMultiLineComment()
+      throws TokenStreamException
+    {
+        int start = _pos;
+        skip(2);
+
+        while (!((la(0) == '*') && (la(1) == '/')))
+        {
+            if (_pos >= _length)
+            {
+                throw error(EOF_CHAR);
+            }
+
+            if (!consumeNewline())
+            {
+                consume();
+            }
+        }
+
+        skip(2);
+
+        return _lexer.makeJavaDoc(makeToken(JavaTokenTypes.ML_COMMENT, null), text(start));
+    }
+}
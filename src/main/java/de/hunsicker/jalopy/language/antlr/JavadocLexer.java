@@ -93,11 +93,28 @@ public class JavadocLexer extends InternalJavadocLexer implements Lexer{
         return _parser;
     }
 
+    /**
+     * Counts a problem found by the lexer.
+     *
+     * @return <code>true</code> if the problem should be reported.
+     *
+     * @see JavadocParser#setQuiet
+     */
+    private boolean countProblem()
+    {
+        return (_parser == null) || _parser.countProblem();
+    }
+
     /**
      * Reports a fatal error.
      */
     public void panic()
     {
+        if (!countProblem())
+        {
+            return;
+        }
+
         if (this.inputState != null)
         {
             Object[] args = { getFilename(), new Integer(getLine()), new Integer(getColumn()), "JavadocLexer: panic" };
@@ -120,6 +137,11 @@ public class JavadocLexer extends InternalJavadocLexer implements Lexer{
     */
    public void panic(String message)
    {
+        if (!countProblem())
+        {
+            return;
+        }
+
         if (this.inputState != null)
         {
             Object[] args = { getFilename(), new Integer(getLine()), new Integer(getColumn()), message };
@@ -143,6 +165,11 @@ public class JavadocLexer extends InternalJavadocLexer implements Lexer{
     */
    public void reportError(RecognitionException ex)
    {
+      if (!countProblem())
+      {
+          return;
+      }
+
    	ex.printStackTrace();
        Integer line = new Integer((recognizer!=null?recognizer.getStartLine():0) +getLine());
        Integer column = new Integer((recognizer!=null?recognizer.getStartColumn():0) +getColumn());
@@ -157,6 +184,11 @@ public class JavadocLexer extends InternalJavadocLexer implements Lexer{
     */
    public void reportError(String message)
    {
+      if (!countProblem())
+      {
+          return;
+      }
+
        Integer line = new Integer((recognizer!=null?recognizer.getStartLine():0) +getLine());
        Integer column = new Integer((recognizer!=null?recognizer.getStartColumn():0) +getColumn());
       Object args[] = { getFilename(), line, column, message };
@@ -170,6 +202,11 @@ public class JavadocLexer extends InternalJavadocLexer implements Lexer{
     */
    public void reportWarning(String message)
    {
+      if (!countProblem())
+      {
+          return;
+      }
+
       Object args[]  = { getFilename(), new Integer(getLine()), new Integer(getColumn()), message };
       _logger.l7dlog(Level.WARN, "PARSER_ERROR", args, null);
    }
@@ -1,6 +1,7 @@
 package de.hunsicker.jalopy.language.antlr;
 
 import java.util.Collection;
+import java.util.Collections;
 
 import de.hunsicker.jalopy.language.Parser;
 import de.hunsicker.jalopy.language.Recognizer;
@@ -24,7 +25,7 @@ import java.util.Set;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Properties;
-import de.hunsicker.util.Lcs;
+import de.hunsicker.util.FuzzyMatcher;
 import java.io.FileInputStream;
 import java.io.File;
 import java.io.BufferedInputStream;
@@ -77,6 +78,12 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     /** Holds all valid inline tag names. */
     private Set _inlineTags = new HashSet(); // Set of <String>
 
+    /** Finds misspelled standard tag names, <code>null</code> if not yet indexed. */
+    private FuzzyMatcher _standardMatcher;
+
+    /** Finds misspelled inline tag names, <code>null</code> if not yet indexed. */
+    private FuzzyMatcher _inlineMatcher;
+
     /** The token types for the parser/lexer. */
     private Map _tokenTypes; // Map of <String>
 
@@ -89,6 +96,12 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     /** Starting column of the comment in the source file. */
     private int _startColumn;
 
+    /** The number of problems found since the last reset. */
+    private int _problems;
+
+    /** Indicates whether problems are only counted, but not reported. */
+    private boolean _quiet;
+
     /** The empty Javadoc comment. */
     public final static Node EMPTY_JAVADOC_COMMENT = new Node(JavadocTokenTypes.JAVADOC_COMMENT, "<JAVADOC_COMMENT>"){};
 
@@ -295,6 +308,26 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
         }
     }
 
+    /**
+     * Returns the Javadoc standard tags this parser recognizes.
+     *
+     * @return the standard tags, including the custom ones.
+     */
+    public Collection getStandardTags()
+    {
+        return Collections.unmodifiableSet(_standardTags);
+    }
+
+    /**
+     * Returns the Javadoc in-line tags this parser recognizes.
+     *
+     * @return the in-line tags, including the custom ones.
+     */
+    public Collection getInlineTags()
+    {
+        return Collections.unmodifiableSet(_inlineTags);
+    }
+
     /**
      * Sets the custom Javadoc standard tags to recognize.
      *
@@ -303,6 +336,7 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     public void setCustomStandardTags(Collection tags)
     {
         _standardTags.addAll(tags);
+        _standardMatcher = null;
     }
 
     /**
@@ -313,6 +347,7 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     public void setCustomInlineTags(Collection tags)
     {
         _inlineTags.addAll(tags);
+        _inlineMatcher = null;
     }
 
     /**
@@ -328,6 +363,9 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
             _inlineTags = new HashSet(8);
         }
 
+        _standardMatcher = null;
+        _inlineMatcher = null;
+
         loadStandardTagInfo(force);
         loadInlineTagInfo(force);
     }
@@ -345,6 +383,11 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
 
         if (name == null) // invalid tag
         {
+            if (!countProblem())
+            {
+                return;
+            }
+
             Object[] args = { getFilename(), new Integer(_lexer.getLine()), new Integer(_lexer.getColumn()), text };
             _logger.l7dlog(Level.ERROR, "TAG_INVALID", args, null);
         }
@@ -355,8 +398,11 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
                 // correct the tag name
                 tag.setText(name);
 
-                Object[] args = { getFilename(), new Integer(_lexer.getLine()), new Integer(_lexer.getColumn()), text, name};
-                _logger.l7dlog(Level.WARN, "TAG_MISSPELLED_NAME", args, null);
+                if (countProblem())
+                {
+                    Object[] args = { getFilename(), new Integer(_lexer.getLine()), new Integer(_lexer.getColumn()), text, name};
+                    _logger.l7dlog(Level.WARN, "TAG_MISSPELLED_NAME", args, null);
+                }
             }
 
             String t = (String)_tokenTypes.get(type +
@@ -399,37 +445,54 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     String getTag(String text, String type)
     {
         Set tags = null;
+        FuzzyMatcher matcher = null;
 
         if (type == TYPE_STANDARD)
+        {
             tags = _standardTags;
+
+            if (_standardMatcher == null)
+            {
+                _standardMatcher = createMatcher(tags);
+            }
+
+            matcher = _standardMatcher;
+        }
         else
+        {
             tags = _inlineTags;
 
+            if (_inlineMatcher == null)
+            {
+                _inlineMatcher = createMatcher(tags);
+            }
+
+            matcher = _inlineMatcher;
+        }
+
         if (tags.contains(text))
         {
             return text;
         }
 
-        Lcs lcs = new Lcs();
-
-        for (Iterator i = tags.iterator(); i.hasNext();)
-        {
-            String tag = (String)i.next();
-
-            lcs.init(text, tag);
-
-            double similarity = lcs.getPercentage();
+        // XXX evaluate whether this is appropriate
+        // a match means a mispelled tag, no match means an invalid tag
+        return matcher.getMatch(text);
+    }
 
-            // XXX evaluate whether this is appropriate
-            if (similarity > 70.0)
-            {
-                // mispelled tag found
-                return tag;
-            }
-        }
+    /**
+     * Creates a matcher to find the tag names similar to a misspelled one.
+     *
+     * @param tags the valid tag names.
+     *
+     * @return the matcher for the given tag names.
+     */
+    private FuzzyMatcher createMatcher(Set tags)
+    {
+        FuzzyMatcher matcher = new FuzzyMatcher(70);
+        matcher.setCandidates(tags);
 
-        // no match found means invalid tag
-        return null;
+        return matcher;
     }
 
     /**
@@ -444,6 +507,42 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
 
         setFilename(Recognizer.UNKNOWN_FILE);
         this.returnAST = null;
+        _problems = 0;
+    }
+
+    /**
+     * Sets whether problems should only be counted, but not reported.
+     *
+     * @param quiet if <code>true</code> no problems are reported.
+     *
+     * @see #getProblemCount
+     */
+    public void setQuiet(boolean quiet)
+    {
+        _quiet = quiet;
+    }
+
+    /**
+     * Returns the number of problems (errors and warnings) the parser and its lexer
+     * found since the last reset.
+     *
+     * @return the number of problems found.
+     */
+    public int getProblemCount()
+    {
+        return _problems;
+    }
+
+    /**
+     * Counts a problem found by the parser or its lexer.
+     *
+     * @return <code>true</code> if the problem should be reported.
+     */
+    boolean countProblem()
+    {
+        _problems++;
+
+        return !_quiet;
     }
 
     public AST getParseTree()
@@ -475,6 +574,11 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     */
    public void reportError(RecognitionException ex)
    {
+      if (!countProblem())
+      {
+          return;
+      }
+
        Integer line = new Integer((recognizer!=null?recognizer.getStartLine():0) +ex.getLine());
        Integer column = new Integer((recognizer!=null?recognizer.getStartColumn():0) +ex.getColumn());
       Object args[] = { getFilename(), line, column, ex.getMessage() };
@@ -488,6 +592,11 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     */
    public void reportError(String message)
    {
+      if (!countProblem())
+      {
+          return;
+      }
+
       Object args[]  = { getFilename(), new Integer(_lexer.getLine()), new Integer(_lexer.getColumn()), message };
       _logger.l7dlog(Level.ERROR, "PARSER_ERROR", args, null);
    }
@@ -499,6 +608,11 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     */
    public void reportWarning(String message)
    {
+      if (!countProblem())
+      {
+          return;
+      }
+
       Object args[]  = { getFilename(), new Integer(_lexer.getLine()), new Integer(_lexer.getColumn()), message };
       _logger.l7dlog(Level.WARN, message, args, null);
    }
@@ -522,7 +636,10 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
                     // missing closing </p> tag
                     case JavadocTokenTypes.CPARA:
 
-                        System.err.println("[WARN] ambigious missing </p> tag around line " + mtex.token.getLine() + " ");
+                        if (countProblem())
+                        {
+                            System.err.println("[WARN] ambigious missing </p> tag around line " + mtex.token.getLine() + " ");
+                        }
 
                         // we add the found token manually
                         ASTPair currentAST = new ASTPair();
@@ -6,7 +6,7 @@
  */
 package de.hunsicker.jalopy.language.antlr;
 
-import antlr.CommonASTWithHiddenTokens;
+import antlr.BaseAST;
 import antlr.CommonHiddenStreamToken;
 import antlr.Token;
 import antlr.collections.AST;
@@ -24,11 +24,17 @@ import java.lang.ClassCastException;
  * @version $Revision: 1.2 $
  */
 public abstract class Node
-    extends CommonASTWithHiddenTokens
+    extends BaseAST
     implements Comparable
 {
     //~ Instance variables ---------------------------------------------------------------
 
+    /** The first hidden token that appears after this node. */
+    protected CommonHiddenStreamToken hiddenAfter;
+
+    /** The first hidden token that appears before this node. */
+    protected CommonHiddenStreamToken hiddenBefore;
+
     /** Node text. */
     protected String text;
     public int nlAfter = 0;
@@ -188,6 +194,28 @@ public abstract class Node
     }
 
 
+    /**
+     * Returns the first hidden token that appears after this node.
+     *
+     * @return the first hidden token after this node or <code>null</code>.
+     */
+    public CommonHiddenStreamToken getHiddenAfter()
+    {
+        return this.hiddenAfter;
+    }
+
+
+    /**
+     * Returns the first hidden token that appears before this node.
+     *
+     * @return the first hidden token before this node or <code>null</code>.
+     */
+    public CommonHiddenStreamToken getHiddenBefore()
+    {
+        return this.hiddenBefore;
+    }
+
+
     /**
      * Sets the first hidden token that appears after this node.
      *
@@ -603,11 +631,11 @@ public abstract class Node
         this.hiddenAfter = null;
         this.hiddenBefore = null;     
         this.text = null;
-        this.startColumn = -1;
-        this.endColumn = -1;
-        this.startLine = -1;
-        this.endLine = -1;
-        this.type = -1;
+        this.startColumn = 0;
+        this.endColumn = 0;
+        this.startLine = 0;
+        this.endLine = 0;
+        this.type = 0;
         this.nlAfter = 0;
         
     }
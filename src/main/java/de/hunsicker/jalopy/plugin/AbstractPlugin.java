@@ -31,6 +31,7 @@ import javax.swing.WindowConstants;
 
 import de.hunsicker.io.FileFormat;
 import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.language.ImportResolutionCache;
 import de.hunsicker.jalopy.language.Position;
 import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
@@ -473,6 +474,9 @@ public abstract class AbstractPlugin
         newJalopy.setForce(
             settings.getBoolean(
                 ConventionKeys.FORCE_FORMATTING, ConventionDefaults.FORCE_FORMATTING));
+
+        // editors format the same files over and over again
+        newJalopy.setCacheMembers(true);
     }
 
 
@@ -614,7 +618,17 @@ public abstract class AbstractPlugin
         Collection files)
       throws IOException, InvocationTargetException
     {
-        formatSeveral(newJalopy, files, true);
+        // share the import resolution results between all files of the run
+        ImportResolutionCache.beginBatch();
+
+        try
+        {
+            formatSeveral(newJalopy, files, true);
+        }
+        finally
+        {
+            ImportResolutionCache.endBatch();
+        }
     }
 
 
@@ -1066,6 +1080,9 @@ public abstract class AbstractPlugin
             }
             finally
             {
+                // the thread's instance is gone with the thread, let others reuse it
+                jalopy.release();
+
                 synchronized (_lock)
                 {
                     _threadCount--;
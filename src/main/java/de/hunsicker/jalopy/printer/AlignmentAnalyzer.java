@@ -0,0 +1,835 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import antlr.collections.AST;
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+
+
+/**
+ * Determines the widths the alignment columns of variable identifiers, assignments and
+ * parameters are computed from.
+ *
+ * <p>
+ * Consecutive declarations or assignments that are aligned with each other form a
+ * chunk. The first time the width of a chunk is requested, the chunk is walked once
+ * from the given node to its end: every member is measured and the width of the
+ * remainder of the chunk is recorded for each member. Later requests for any member,
+ * be it from the printers or from the test writers used to measure enclosing nodes,
+ * only read the recorded widths. The analyzer is shared by a writer and all its test
+ * writers.
+ * </p>
+ *
+ * <p>
+ * The walk measures the members with a test writer from the cache. Test writers keep
+ * the type of the last printed token, a pending newline and the continuation
+ * indentation flag when they are reset, so the widths depend on the state the writer
+ * starts with. Like the lengths of {@link WriterCache#getLength}, the recorded members
+ * are therefore keyed by the state the walk had when it reached them, and only reused
+ * for requests that start with the same state. A recorded chunk still takes a test
+ * writer from the cache and leaves it in the state the walk left its writer in.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+final class AlignmentAnalyzer
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Marks a chunk member that is an assignment expression. */
+    private static final int EXPRESSION = -1;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /**
+     * The members of chunks of assignment expressions (of type <code>Member</code>,
+     * chained by starting state), keyed by EXPR node.
+     */
+    private final Map _assignments = new IdentityHashMap();
+
+    /** The members of chunks of assigned declarations, keyed by VARIABLE_DEF node. */
+    private final Map _declarations = new IdentityHashMap();
+
+    /** The widths of parameter lists, keyed by PARAMETERS node. */
+    private final Map _parameters = new IdentityHashMap();
+
+    /** The members of chunks of variable declarations, keyed by VARIABLE_DEF node. */
+    private final Map _variables = new IdentityHashMap();
+
+    /** Indicates whether the walked chunks are recorded. */
+    private boolean _cacheChunks = true;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new AlignmentAnalyzer object.
+     */
+    AlignmentAnalyzer()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Sets whether the walked chunks are recorded. Without recording, every request
+     * walks the remainder of the chunk again.
+     *
+     * @param enabled if <code>true</code> the walked chunks will be recorded.
+     */
+    void setCacheChunks(boolean enabled)
+    {
+        _cacheChunks = enabled;
+
+        if (!enabled)
+        {
+            _assignments.clear();
+            _declarations.clear();
+            _parameters.clear();
+            _variables.clear();
+        }
+    }
+
+
+    /**
+     * Indicates whether the walked chunks are recorded.
+     *
+     * @return <code>true</code> if the walked chunks are recorded.
+     */
+    boolean isCacheChunks()
+    {
+        return _cacheChunks;
+    }
+
+
+    /**
+     * Returns the width of the longest left-hand side of the assignment expressions of
+     * the chunk, starting with the given expression.
+     *
+     * @param expr an EXPR node that contains an assignment.
+     * @param out stream the chunk is printed to.
+     *
+     * @return the width of the longest left-hand side.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    int getAssignmentWidth(
+        AST        expr,
+        NodeWriter out)
+      throws IOException
+    {
+        TestNodeWriter tester = out.testers.get();
+
+        try
+        {
+            Member member = find(_assignments, expr, tester);
+
+            if (member == null)
+            {
+                member = analyzeAssignments(expr, tester, out);
+
+                if (member == null)
+                {
+                    // not an assignment, the chunk is empty
+                    return 0;
+                }
+            }
+            else
+            {
+                member.chunk.replay(tester);
+            }
+
+            return member.chunk.maxima[member.index];
+        }
+        finally
+        {
+            out.testers.release(tester);
+        }
+    }
+
+
+    /**
+     * Returns the width up to the assignment of the longest variable declaration or
+     * assignment expression of the chunk, starting with the given declaration.
+     *
+     * @param def a VARIABLE_DEF node with an assignment.
+     * @param alignVariables <code>true</code> if the identifiers of the declarations
+     *        are aligned.
+     * @param out stream the chunk is printed to.
+     *
+     * @return the width up to the longest assignment.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    int getDeclarationWidth(
+        AST        def,
+        boolean    alignVariables,
+        NodeWriter out)
+      throws IOException
+    {
+        TestNodeWriter tester = out.testers.get();
+        Member member = find(_declarations, def, tester);
+
+        try
+        {
+            if (member == null)
+            {
+                member = analyzeDeclarations(def, tester, out);
+            }
+            else
+            {
+                member.chunk.replay(tester);
+            }
+        }
+        finally
+        {
+            out.testers.release(tester);
+        }
+
+        Chunk chunk = member.chunk;
+        int offset = out.state.variableOffset;
+
+        // the identifiers are moved to the alignment column of the variables
+        boolean aligned =
+            alignVariables && (offset != VariableDeclarationPrinter.OFFSET_NONE);
+        int result = AssignmentPrinter.OFFSET_NONE;
+
+        for (int i = member.index; i < chunk.widths.length; i++)
+        {
+            int width = chunk.widths[i];
+
+            if (chunk.identifiers[i] != EXPRESSION)
+            {
+                if (aligned && (offset > width))
+                {
+                    width = offset - out.getIndentLength() - 1;
+                }
+
+                width += (chunk.identifiers[i] + 1); // space before identifier
+            }
+
+            if (width > result)
+            {
+                result = width;
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Returns the width of the modifiers and types of the given parameters.
+     *
+     * @param node a PARAMETERS node.
+     * @param out stream the parameters are printed to.
+     *
+     * @return the width of the longest modifiers and type, including the space before
+     *         the name.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    int getParameterWidth(
+        AST        node,
+        NodeWriter out)
+      throws IOException
+    {
+        TestNodeWriter tester = out.testers.get();
+
+        try
+        {
+            Member member = find(_parameters, node, tester);
+
+            if (member == null)
+            {
+                member = analyzeParameters(node, tester, out);
+            }
+            else
+            {
+                member.chunk.replay(tester);
+            }
+
+            return member.chunk.maxima[0];
+        }
+        finally
+        {
+            out.testers.release(tester);
+        }
+    }
+
+
+    /**
+     * Returns the width of the longest modifiers and type of the variable declarations
+     * of the chunk, starting with the given declaration.
+     *
+     * @param def a VARIABLE_DEF node.
+     * @param out stream the chunk is printed to.
+     *
+     * @return the width of the longest modifiers and type.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    int getVariableWidth(
+        AST        def,
+        NodeWriter out)
+      throws IOException
+    {
+        TestNodeWriter tester = out.testers.get();
+
+        try
+        {
+            Member member = find(_variables, def, tester);
+
+            if (member == null)
+            {
+                member = analyzeVariables(def, tester, out);
+            }
+            else
+            {
+                member.chunk.replay(tester);
+            }
+
+            return member.chunk.maxima[member.index];
+        }
+        finally
+        {
+            out.testers.release(tester);
+        }
+    }
+
+
+    /**
+     * Walks the chunk of assignment expressions starting with the given node.
+     *
+     * @param first the first EXPR node to analyze.
+     * @param tester the test writer to measure the members with.
+     * @param out stream the chunk is printed to.
+     *
+     * @return the member for <em>first</em>. Returns <code>null</code> if
+     *         <em>first</em> is no assignment.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private Member analyzeAssignments(
+        AST            first,
+        TestNodeWriter tester,
+        NodeWriter     out)
+      throws IOException
+    {
+        AssignmentPrinter printer = AssignmentPrinter.getInstance();
+        Chunk chunk = new Chunk(8);
+        Member result = null;
+SEARCH:
+        for (AST def = first; def != null; def = def.getNextSibling())
+        {
+            switch (def.getType())
+            {
+                case JavaTokenTypes.EXPR :
+
+                    if (printer.isAssignment(def))
+                    {
+                        Member member = add(_assignments, def, chunk, tester);
+
+                        if (result == null)
+                        {
+                            result = member;
+                        }
+
+                        chunk.add(measure(def, tester, out), EXPRESSION);
+
+                        AST next = def.getNextSibling();
+
+                        if (
+                            (next != null)
+                            && printer.isNewChunk(next, JavaTokenTypes.ASSIGN))
+                        {
+                            break SEARCH;
+                        }
+                    }
+                    else
+                    {
+                        break SEARCH;
+                    }
+
+                    break;
+            }
+        }
+
+        chunk.complete(0);
+        chunk.record(tester);
+
+        return result;
+    }
+
+
+    /**
+     * Walks the chunk of assigned declarations starting with the given node. The chunk
+     * may continue with assignment expressions.
+     *
+     * @param first the first VARIABLE_DEF node to analyze.
+     * @param tester the test writer to measure the members with.
+     * @param out stream the chunk is printed to.
+     *
+     * @return the member for <em>first</em>.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private Member analyzeDeclarations(
+        AST            first,
+        TestNodeWriter tester,
+        NodeWriter     out)
+      throws IOException
+    {
+        AssignmentPrinter printer = AssignmentPrinter.getInstance();
+        Chunk chunk = new Chunk(8);
+        Member result = null;
+SEARCH:
+        for (AST def = first; def != null; def = def.getNextSibling())
+        {
+            switch (def.getType())
+            {
+                case JavaTokenTypes.EXPR :
+
+                    if (printer.isAssignment(def))
+                    {
+                        chunk.add(measure(def, tester, out), EXPRESSION);
+
+                        if (printer.isNewChunk(def, JavaTokenTypes.ASSIGN))
+                        {
+                            break SEARCH;
+                        }
+                    }
+                    else
+                    {
+                        break SEARCH;
+                    }
+
+                    break;
+
+                case JavaTokenTypes.VARIABLE_DEF :
+
+                    Member member = add(_declarations, def, chunk, tester);
+
+                    if (result == null)
+                    {
+                        result = member;
+                    }
+
+                    tester.reset();
+
+                    AST modifiers = def.getFirstChild();
+                    PrinterFactory.create(modifiers, out).print(modifiers, tester);
+
+                    AST type = modifiers.getNextSibling();
+                    PrinterFactory.create(type, out).print(type, tester);
+
+                    int width = tester.length;
+                    AST identifier = type.getNextSibling();
+                    PrinterFactory.create(identifier, out).print(identifier, tester);
+
+                    chunk.add(width, tester.length - width);
+
+                    AST next = def.getNextSibling();
+
+                    if (
+                        (next != null)
+                        && printer.isNewChunk(next, JavaTokenTypes.VARIABLE_DEF))
+                    {
+                        break SEARCH;
+                    }
+
+                    break;
+
+                default :
+                    break SEARCH;
+            }
+        }
+
+        chunk.complete(AssignmentPrinter.OFFSET_NONE);
+        chunk.record(tester);
+
+        return result;
+    }
+
+
+    /**
+     * Measures the given parameters.
+     *
+     * @param node a PARAMETERS node.
+     * @param tester the test writer to measure the parameters with.
+     * @param out stream the parameters are printed to.
+     *
+     * @return the member for the measured parameters.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private Member analyzeParameters(
+        AST            node,
+        TestNodeWriter tester,
+        NodeWriter     out)
+      throws IOException
+    {
+        Chunk chunk = new Chunk(1);
+        Member member = add(_parameters, node, chunk, tester);
+        int result = 0;
+
+        for (AST param = node.getFirstChild(); param != null;
+            param = param.getNextSibling())
+        {
+            switch (param.getType())
+            {
+                case JavaTokenTypes.COMMA :
+                    break;
+
+                default :
+
+                    AST modifier = param.getFirstChild();
+                    PrinterFactory.create(modifier, out).print(modifier, tester);
+
+                    AST type = modifier.getNextSibling();
+                    PrinterFactory.create(type, out).print(type, tester);
+
+                    // +1 for the space between modifiers and name, and +3 for the
+                    // ellipsis of variable parameters
+                    int length =
+                        tester.length
+                        + ((param.getType() == JavaTokenTypes.VARIABLE_PARAMETER_DEF)
+                        ? 4
+                        : 1);
+
+                    if (length > result)
+                    {
+                        result = length;
+                    }
+
+                    tester.reset();
+
+                    break;
+            }
+        }
+
+        chunk.add(result, 0);
+        chunk.complete(0);
+        chunk.record(tester);
+
+        return member;
+    }
+
+
+    /**
+     * Walks the chunk of variable declarations starting with the given node.
+     *
+     * @param first the first VARIABLE_DEF node to analyze.
+     * @param tester the test writer to measure the members with.
+     * @param out stream the chunk is printed to.
+     *
+     * @return the member for <em>first</em>.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private Member analyzeVariables(
+        AST            first,
+        TestNodeWriter tester,
+        NodeWriter     out)
+      throws IOException
+    {
+        VariableDeclarationPrinter printer =
+            (VariableDeclarationPrinter) VariableDeclarationPrinter.getInstance();
+        Chunk chunk = new Chunk(8);
+        Member result = null;
+SEARCH:
+        for (AST def = first; def != null; def = def.getNextSibling())
+        {
+            switch (def.getType())
+            {
+                case JavaTokenTypes.VARIABLE_DEF :
+
+                    Member member = add(_variables, def, chunk, tester);
+
+                    if (result == null)
+                    {
+                        result = member;
+                    }
+
+                    tester.reset();
+
+                    AST modifiers = def.getFirstChild();
+                    PrinterFactory.create(modifiers, out).print(modifiers, tester);
+
+                    AST type = modifiers.getNextSibling();
+                    PrinterFactory.create(type, out).print(type, tester);
+
+                    chunk.add(tester.column - 1, 0);
+
+                    if (printer.isNewChunk(def.getNextSibling(), JavaTokenTypes.VARIABLE_DEF))
+                    {
+                        break SEARCH;
+                    }
+
+                    break;
+
+                default :
+                    break SEARCH;
+            }
+        }
+
+        chunk.complete(VariableDeclarationPrinter.OFFSET_NONE);
+        chunk.record(tester);
+
+        return result;
+    }
+
+
+    /**
+     * Adds a member to the given chunk, starting with the current state of the given
+     * test writer. The member is recorded if chunks are cached.
+     *
+     * @param members the members of the same kind.
+     * @param node the node of the member.
+     * @param chunk the chunk the member belongs to.
+     * @param tester the test writer the member is measured with.
+     *
+     * @return the new member.
+     */
+    private Member add(
+        Map            members,
+        AST            node,
+        Chunk          chunk,
+        TestNodeWriter tester)
+    {
+        Member member = new Member(chunk, chunk.size, tester);
+
+        if (_cacheChunks)
+        {
+            member.next = (Member) members.get(node);
+            members.put(node, member);
+        }
+
+        return member;
+    }
+
+
+    /**
+     * Returns the recorded member for the given node that started with the state of
+     * the given test writer.
+     *
+     * @param members the members of the same kind.
+     * @param node the node of the member.
+     * @param tester the test writer the member would be measured with.
+     *
+     * @return the recorded member or <code>null</code> if the node was not walked with
+     *         this state.
+     */
+    private Member find(
+        Map            members,
+        AST            node,
+        TestNodeWriter tester)
+    {
+        Member member = (Member) members.get(node);
+
+        while ((member != null) && !member.startsWith(tester))
+        {
+            member = member.next;
+        }
+
+        return member;
+    }
+
+
+    /**
+     * Measures the left-hand side of the given assignment expression.
+     *
+     * @param expr an EXPR node that contains an assignment.
+     * @param tester the test writer to measure with.
+     * @param out stream the expression is printed to.
+     *
+     * @return the width of the left-hand side.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private int measure(
+        AST            expr,
+        TestNodeWriter tester,
+        NodeWriter     out)
+      throws IOException
+    {
+        tester.reset();
+
+        AST lhs = expr.getFirstChild().getFirstChild();
+        PrinterFactory.create(lhs, out).print(lhs, tester);
+
+        return tester.length;
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * The measured members of a chunk.
+     */
+    private static final class Chunk
+    {
+        /** The widths of the identifiers, or EXPRESSION for assignment expressions. */
+        int[] identifiers;
+
+        /** The maximal width of the remainder of the chunk, per member. */
+        int[] maxima;
+
+        /** The measured widths of the members. */
+        int[] widths;
+
+        /** Was the continuation indentation enabled after the walk? */
+        boolean continuation;
+
+        /** Was the test writer at the beginning of a line after the walk? */
+        boolean newline;
+
+        /** The type of the last node the test writer printed during the walk. */
+        int last;
+
+        /** The number of members. */
+        int size;
+
+        public Chunk(int capacity)
+        {
+            this.widths = new int[capacity];
+            this.identifiers = new int[capacity];
+        }
+
+        /**
+         * Adds a member.
+         *
+         * @param width the width of the member.
+         * @param identifier the width of its identifier.
+         */
+        public void add(
+            int width,
+            int identifier)
+        {
+            if (this.size == this.widths.length)
+            {
+                int[] widths = new int[this.size * 2];
+                System.arraycopy(this.widths, 0, widths, 0, this.size);
+                this.widths = widths;
+
+                int[] identifiers = new int[this.size * 2];
+                System.arraycopy(this.identifiers, 0, identifiers, 0, this.size);
+                this.identifiers = identifiers;
+            }
+
+            this.widths[this.size] = width;
+            this.identifiers[this.size] = identifier;
+            this.size++;
+        }
+
+        /**
+         * Trims the chunk and computes the maximal widths of its remainders.
+         *
+         * @param initial the width of an empty remainder.
+         */
+        public void complete(int initial)
+        {
+            if (this.size < this.widths.length)
+            {
+                int[] widths = new int[this.size];
+                System.arraycopy(this.widths, 0, widths, 0, this.size);
+                this.widths = widths;
+
+                int[] identifiers = new int[this.size];
+                System.arraycopy(this.identifiers, 0, identifiers, 0, this.size);
+                this.identifiers = identifiers;
+            }
+
+            this.maxima = new int[this.size];
+
+            int max = initial;
+
+            for (int i = this.size - 1; i >= 0; i--)
+            {
+                if (this.widths[i] > max)
+                {
+                    max = this.widths[i];
+                }
+
+                this.maxima[i] = max;
+            }
+        }
+
+        /**
+         * Records the state of the given test writer after the walk.
+         *
+         * @param tester the test writer used for the walk.
+         */
+        public void record(TestNodeWriter tester)
+        {
+            this.last = tester.last;
+            this.newline = tester.newline;
+            this.continuation = tester.continuation;
+        }
+
+        /**
+         * Leaves the given test writer in the state recorded after the walk.
+         *
+         * @param tester the test writer that would have been used for the walk.
+         */
+        public void replay(TestNodeWriter tester)
+        {
+            tester.last = this.last;
+            tester.newline = this.newline;
+            tester.continuation = this.continuation;
+        }
+    }
+
+
+    /**
+     * A member of a chunk, along with the state of the test writer when the walk
+     * reached the member.
+     */
+    private static final class Member
+    {
+        /** The chunk. */
+        final Chunk chunk;
+
+        /** The member for the same node that started with another state. */
+        Member next;
+        final boolean startContinuation;
+        final boolean startNewline;
+
+        /** The position of the member within the chunk. */
+        final int index;
+        final int startLast;
+
+        public Member(
+            Chunk          chunk,
+            int            index,
+            TestNodeWriter tester)
+        {
+            this.chunk = chunk;
+            this.index = index;
+            this.startLast = tester.last;
+            this.startNewline = tester.newline;
+            this.startContinuation = tester.continuation;
+        }
+
+        /**
+         * Determines whether the walk reached this member with the state of the given
+         * writer.
+         *
+         * @param tester a test writer.
+         *
+         * @return <code>true</code> if the member was measured starting with the state
+         *         of <em>tester</em>.
+         */
+        public boolean startsWith(TestNodeWriter tester)
+        {
+            return (this.startLast == tester.last) && (this.startNewline == tester.newline)
+            && (this.startContinuation == tester.continuation);
+        }
+    }
+}
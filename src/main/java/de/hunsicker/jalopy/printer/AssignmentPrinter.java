@@ -419,7 +419,7 @@ final class AssignmentPrinter
      *
      * @return <code>true</code> if the given node denotes an assignment.
      */
-    private boolean isAssignment(AST node)
+    boolean isAssignment(AST node)
     {
         AST child = node.getFirstChild();
 
@@ -451,7 +451,7 @@ final class AssignmentPrinter
      *
      * @return <code>true</code> if the node marks a new chunk.
      */
-    private boolean isNewChunk(
+    boolean isNewChunk(
         AST node,
         int type)
     {
@@ -702,47 +702,7 @@ final class AssignmentPrinter
                         }
 
                         //boolean lastAssign = isNewChunk(next, JavaTokenTypes.ASSIGN); // last chunk
-                        int length = 0;
-                        TestNodeWriter tester = out.testers.get();
-SEARCH:
-                        for (AST def = parent; def != null; def = def.getNextSibling())
-                        {
-                            switch (def.getType())
-                            {
-                                case JavaTokenTypes.EXPR :
-
-                                    // if the next sibling is an assignment
-                                    if (isAssignment(def))
-                                    {
-                                        tester.reset();
-
-                                        AST rhs = def.getFirstChild().getFirstChild();
-                                        PrinterFactory.create(rhs, out).print(rhs, tester);
-
-                                        if (tester.length > length)
-                                        {
-                                            length = tester.length;
-                                        }
-
-                                        AST t = def.getNextSibling();
-
-                                        if (t != null)
-                                        {
-                                            if (isNewChunk(t, JavaTokenTypes.ASSIGN))
-                                            {
-                                                break SEARCH;
-                                            }
-                                        }
-                                    }
-                                    else
-                                    {
-                                        // no assignment found, quit
-                                        break SEARCH;
-                                    }
-
-                                    break;
-                            }
-                        }
+                        int length = out.alignments.getAssignmentWidth(parent, out);
 
                         out.state.assignOffset = length + out.getIndentLength() + 1;
 
@@ -756,7 +716,6 @@ SEARCH:
                         {
                             out.state.assignOffset = OFFSET_NONE;
                         }*/
-                        out.testers.release(tester);
 
                         break;
                     }
@@ -770,101 +729,14 @@ SEARCH:
                             break;
                         }
 
-                        int length = OFFSET_NONE;
-
-                        //boolean lastAssign = false;
-                        TestNodeWriter tester = out.testers.get();
                         boolean alignVariables =
                             AbstractPrinter.settings.getBoolean(
                                 ConventionKeys.ALIGN_VAR_IDENTS,
                                 ConventionDefaults.ALIGN_VAR_IDENTS);
-SEARCH:
 
                         // determine the longest VARIABLE_DEF or ASSIGN
-                        for (AST def = parent; def != null; def = def.getNextSibling())
-                        {
-                            switch (def.getType())
-                            {
-                                case JavaTokenTypes.EXPR :
-
-                                    // if the next sibling is an assignment
-                                    if (isAssignment(def))
-                                    {
-                                        tester.reset();
-
-                                        AST rhs = def.getFirstChild().getFirstChild();
-                                        PrinterFactory.create(rhs, out).print(rhs, tester);
-
-                                        if (tester.length > length)
-                                        {
-                                            length = tester.length;
-                                        }
-
-                                        if (isNewChunk(def, JavaTokenTypes.ASSIGN))
-                                        {
-                                            break SEARCH;
-                                        }
-                                    }
-                                    else
-                                    {
-                                        // no assignment found, quit
-                                        break SEARCH;
-                                    }
-
-                                    break;
-
-                                case JavaTokenTypes.VARIABLE_DEF :
-                                    tester.reset();
-
-                                    AST defModifier = def.getFirstChild();
-                                    PrinterFactory.create(defModifier, out).print(
-                                        defModifier, tester);
-
-                                    AST defType = defModifier.getNextSibling();
-                                    PrinterFactory.create(defType, out).print(defType, tester);
-
-                                    // we have to adjust the length in case
-                                    // variable alignment is performed
-                                    if (
-                                        alignVariables
-                                        && (out.state.variableOffset != VariableDeclarationPrinter.OFFSET_NONE))
-                                    {
-                                        if (out.state.variableOffset > tester.length)
-                                        {
-                                            tester.length =
-                                                out.state.variableOffset
-                                                - out.getIndentLength() - 1;
-                                        }
-                                    }
-
-                                    AST defIdent = defType.getNextSibling();
-                                    PrinterFactory.create(defIdent, out).print(
-                                        defIdent, tester);
-                                    tester.length++; // space before identifier
-
-                                    if (tester.length > length)
-                                    {
-                                        length = tester.length;
-                                    }
-
-                                    AST n = def.getNextSibling();
-
-                                    if (n != null)
-                                    {
-                                        if (isNewChunk(n, JavaTokenTypes.VARIABLE_DEF))
-                                        {
-                                            break SEARCH;
-                                        }
-                                    }
-
-                                    break;
-
-                                default :
-                                    break SEARCH;
-                            }
-                        }
-
-                        out.testers.release(tester);
+                        int length =
+                            out.alignments.getDeclarationWidth(parent, alignVariables, out);
 
                         out.state.assignOffset = length + out.getIndentLength() + 1;
 
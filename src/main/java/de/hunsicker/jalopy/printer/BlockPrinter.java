@@ -395,11 +395,18 @@ class BlockPrinter
         JavaNode rcurly = null;
         int enumCounter = 1;
         int currentLine = out.line;
+        AST first = node.getFirstChild();
+
+        // the members of large class bodies may be printed in parallel
+        if (brace && !newLineAfter && (wrapLineCount == Integer.MAX_VALUE))
+        {
+            first = ParallelMemberPrinter.print(node, out);
+        }
 
 LOOP:
 
         // print everything despite the closing curly brace
-        for (AST child = node.getFirstChild(); child != null;
+        for (AST child = first; child != null;
             child = child.getNextSibling())
         {
             switch (child.getType())
@@ -430,7 +437,12 @@ LOOP:
                     }
                     currentLine = out.line;
                     out.nextNewline = newLineAfter;
-                    PrinterFactory.create(child, out).print(child, out);
+
+                    if ((out.memberCache == null) || !out.memberCache.print(child, out))
+                    {
+                        PrinterFactory.create(child, out).print(child, out);
+                    }
+
                     if (currentLine == out.line) {
                         AST nextNode = child.getNextSibling();
                         if (newLineAfter && nextNode!=null && nextNode.getType()!=JavaTokenTypes.COMMA) {
@@ -102,7 +102,6 @@ abstract class BlockStatementPrinter
         PrinterFactory.create(lparen, out).print(lparen, out);
 
         Marker marker = out.state.markers.add();
-        TestNodeWriter tester = null;
         AST expr = lparen.getNextSibling();
 
         boolean wrapped = false; // was line wrapping performed?
@@ -126,10 +125,7 @@ abstract class BlockStatementPrinter
             {
                 if (!out.newline)
                 {
-                    tester = out.testers.get();
-                    PrinterFactory.create(expr, out).print(expr, tester);
-
-                    if ((out.column + tester.length) > lineLength)
+                    if ((out.column + out.testers.getLength(expr)) > lineLength)
                     {
                         out.printNewline();
                         printIndentation(out);
@@ -143,8 +139,6 @@ abstract class BlockStatementPrinter
                             scope.wrap = true;
                         }
                     }
-
-                    out.testers.release(tester);
                 }
                 else
                 {
@@ -159,18 +153,9 @@ abstract class BlockStatementPrinter
                         scope.wrap = true;
                     }
                 }
-
-                tester = out.testers.get();
-                PrinterFactory.create(expr, out).print(expr, tester);
             }
 
-            if (tester == null)
-            {
-                tester = out.testers.get();
-                PrinterFactory.create(expr, out).print(expr, tester);
-            }
-
-            if (!wrapped && ((tester.length + out.column) > lineLength))
+            if (!wrapped && ((out.testers.getLength(expr) + out.column) > lineLength))
             {
                 if (
                     AbstractPrinter.settings.getBoolean(
@@ -182,8 +167,6 @@ abstract class BlockStatementPrinter
 
                 wrapped = true;
             }
-
-            out.testers.release(tester);
         }
 
         // use continuation indentation within the parentheses?
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+/**
+ * A node of the document algebra the {@link DocumentPrinter} lays out. A document is
+ * either a piece of text, a line break, or a combination of documents:
+ *
+ * <ul>
+ * <li>
+ * <em>text</em> is printed as is;
+ * </li>
+ * <li>
+ * a <em>line</em> is either printed as its flat text or as a line break followed by
+ * the current indentation;
+ * </li>
+ * <li>
+ * a <em>group</em> prints all lines it directly contains either flat or broken, flat
+ * if the whole group fits into the line;
+ * </li>
+ * <li>
+ * a <em>fill</em> decides for each line it directly contains separately and only
+ * breaks the line if the item that follows does not fit into the line;
+ * </li>
+ * <li>
+ * a <em>nest</em> indents the broken lines it contains relative to the line it starts
+ * on;
+ * </li>
+ * <li>
+ * a <em>concatenation</em> prints the documents it contains one after another.
+ * </li>
+ * </ul>
+ *
+ * <p>
+ * The flat width of a document and the width of its text up to the first line that
+ * would break are computed once and cached, which keeps the lookahead of the printer
+ * independent of the size of the document.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+final class Document
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** A piece of text. */
+    static final int TEXT = 1;
+
+    /** A line that is either printed flat or broken. */
+    static final int LINE = 2;
+
+    /** A group whose lines are either all printed flat or all broken. */
+    static final int GROUP = 3;
+
+    /** A group whose lines are broken one by one as necessary. */
+    static final int FILL = 4;
+
+    /** Increased indentation. */
+    static final int NEST = 5;
+
+    /** A sequence of documents. */
+    static final int CONCAT = 6;
+
+    /** Indicates a width that has not been computed yet. */
+    private static final int UNKNOWN = -1;
+
+    private static final Document[] EMPTY_DOCUMENT_ARRAY = new Document[0];
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The contained documents. */
+    Document[] children = EMPTY_DOCUMENT_ARRAY;
+
+    /** The text to print, the flat text for lines. */
+    final String text;
+
+    /** The kind of the document. */
+    final int kind;
+
+    /** The additional indentation of a nest. */
+    final int indent;
+
+    /** The token type the text is printed with. */
+    final int type;
+
+    /** The number of contained documents. */
+    int count;
+
+    /** Does the document contain a line that breaks when printed in break mode? */
+    private boolean _breaks;
+
+    /** The width up to the first line that breaks when printed in break mode. */
+    private int _head = UNKNOWN;
+
+    /** The width when printed flat. */
+    private int _width = UNKNOWN;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new Document object.
+     *
+     * @param kind the kind of the document.
+     * @param text the text, if any.
+     * @param type the token type of the text.
+     * @param indent the additional indentation of a nest.
+     */
+    private Document(
+        int    kind,
+        String text,
+        int    type,
+        int    indent)
+    {
+        this.kind = kind;
+        this.text = text;
+        this.type = type;
+        this.indent = indent;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Creates an empty concatenation.
+     *
+     * @return a new concatenation.
+     */
+    static Document concat()
+    {
+        return new Document(CONCAT, null, 0, 0);
+    }
+
+
+    /**
+     * Creates an empty fill.
+     *
+     * @return a new fill.
+     */
+    static Document fill()
+    {
+        return new Document(FILL, null, 0, 0);
+    }
+
+
+    /**
+     * Creates a group.
+     *
+     * @param doc the grouped document.
+     *
+     * @return a new group.
+     */
+    static Document group(Document doc)
+    {
+        return new Document(GROUP, null, 0, 0).add(doc);
+    }
+
+
+    /**
+     * Creates a line.
+     *
+     * @param flat the text to print if the line is not broken.
+     *
+     * @return a new line.
+     */
+    static Document line(String flat)
+    {
+        return new Document(LINE, flat, 0, 0);
+    }
+
+
+    /**
+     * Creates a nest.
+     *
+     * @param indent the additional indentation.
+     * @param doc the nested document.
+     *
+     * @return a new nest.
+     */
+    static Document nest(
+        int      indent,
+        Document doc)
+    {
+        return new Document(NEST, null, 0, indent).add(doc);
+    }
+
+
+    /**
+     * Creates a piece of text.
+     *
+     * @param text the text.
+     * @param type the token type to print the text with.
+     *
+     * @return a new text.
+     */
+    static Document text(
+        String text,
+        int    type)
+    {
+        return new Document(TEXT, text, type, 0);
+    }
+
+
+    /**
+     * Determines whether the document contains a line that is broken when the document
+     * is printed in break mode, i.e. a line not contained in a group.
+     *
+     * @return <code>true</code> if the document contains such a line.
+     */
+    boolean breaks()
+    {
+        getHead();
+
+        return _breaks;
+    }
+
+
+    /**
+     * Returns the width of the document when printed in break mode up to the first line
+     * that is broken, or the flat width if no line is broken.
+     *
+     * @return the width up to the first line break.
+     */
+    int getHead()
+    {
+        if (_head == UNKNOWN)
+        {
+            switch (this.kind)
+            {
+                case LINE :
+                    _head = 0;
+                    _breaks = true;
+
+                    break;
+
+                case GROUP :
+                    _head = getWidth();
+
+                    break;
+
+                case TEXT :
+                    _head = this.text.length();
+
+                    break;
+
+                default :
+
+                    int head = 0;
+
+                    for (int i = 0; i < this.count; i++)
+                    {
+                        Document child = this.children[i];
+                        head += child.getHead();
+
+                        if (child.breaks())
+                        {
+                            _breaks = true;
+
+                            break;
+                        }
+                    }
+
+                    _head = head;
+
+                    break;
+            }
+        }
+
+        return _head;
+    }
+
+
+    /**
+     * Returns the width of the document when printed flat.
+     *
+     * @return the flat width.
+     */
+    int getWidth()
+    {
+        if (_width == UNKNOWN)
+        {
+            switch (this.kind)
+            {
+                case TEXT :
+                case LINE :
+                    _width = this.text.length();
+
+                    break;
+
+                default :
+
+                    int width = 0;
+
+                    for (int i = 0; i < this.count; i++)
+                    {
+                        width += this.children[i].getWidth();
+                    }
+
+                    _width = width;
+
+                    break;
+            }
+        }
+
+        return _width;
+    }
+
+
+    /**
+     * Appends the given document to this concatenation, fill, group or nest.
+     *
+     * @param doc the document to append.
+     *
+     * @return this document.
+     */
+    Document add(Document doc)
+    {
+        if (this.count == this.children.length)
+        {
+            Document[] children = new Document[(this.count * 2) + 2];
+            System.arraycopy(this.children, 0, children, 0, this.count);
+            this.children = children;
+        }
+
+        this.children[this.count++] = doc;
+
+        return this;
+    }
+
+
+    /**
+     * Appends the given text to this concatenation.
+     *
+     * @param text the text to append.
+     * @param type the token type to print the text with.
+     *
+     * @return this document.
+     */
+    Document add(
+        String text,
+        int    type)
+    {
+        return add(text(text, type));
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        StringBuffer buf = new StringBuffer(getWidth() + 16);
+        toString(buf);
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Appends a textual representation of the document to the given buffer.
+     *
+     * @param buf buffer to append to.
+     */
+    private void toString(StringBuffer buf)
+    {
+        switch (this.kind)
+        {
+            case TEXT :
+                buf.append('"').append(this.text).append('"');
+
+                break;
+
+            case LINE :
+                buf.append("line(\"").append(this.text).append("\")");
+
+                break;
+
+            default :
+
+                switch (this.kind)
+                {
+                    case GROUP :
+                        buf.append("group(");
+
+                        break;
+
+                    case FILL :
+                        buf.append("fill(");
+
+                        break;
+
+                    case NEST :
+                        buf.append("nest(").append(this.indent).append(", ");
+
+                        break;
+
+                    default :
+                        buf.append('(');
+
+                        break;
+                }
+
+                for (int i = 0; i < this.count; i++)
+                {
+                    if (i > 0)
+                    {
+                        buf.append(' ');
+                    }
+
+                    this.children[i].toString(buf);
+                }
+
+                buf.append(')');
+
+                break;
+        }
+    }
+}
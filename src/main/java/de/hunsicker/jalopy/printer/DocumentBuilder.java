@@ -0,0 +1,1216 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import antlr.collections.AST;
+import de.hunsicker.jalopy.language.antlr.JavaNode;
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionDefaults;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+
+
+/**
+ * Lowers expressions into {@link Document documents} for the {@link DocumentPrinter}.
+ * When printed flat, a document yields the very same text as the legacy printers
+ * would; the possible line breaks are:
+ *
+ * <ul>
+ * <li>
+ * between the operands of binary operators, before or after the operator depending on
+ * {@link ConventionKeys#LINE_WRAP_BEFORE_OPERATOR}. Operands of a chain of the same
+ * operator are filled into the lines;
+ * </li>
+ * <li>
+ * between the arguments of method calls and creators, which are filled into the
+ * lines, after the left parenthesis if {@link
+ * ConventionKeys#LINE_WRAP_AFTER_LEFT_PAREN} is enabled and before the right
+ * parenthesis if {@link ConventionKeys#LINE_WRAP_BEFORE_RIGHT_PAREN} is enabled;
+ * </li>
+ * <li>
+ * before the dots of chained method calls;
+ * </li>
+ * <li>
+ * before the question mark and the colon of ternary expressions;
+ * </li>
+ * <li>
+ * after the assignment operator if {@link ConventionKeys#LINE_WRAP_AFTER_ASSIGN} is
+ * enabled.
+ * </li>
+ * </ul>
+ *
+ * <p>
+ * Expressions the builder does not know how to lower are left to the legacy printers:
+ * expressions with comments, anonymous inner classes, array creators and initializers,
+ * type arguments, and all expressions if any of the conventions that force line
+ * wrapping or alignment for the constructs above is enabled.
+ * </p>
+ *
+ * @author Jalopy contributors
+ *
+ * @see DocumentPrinter
+ */
+final class DocumentBuilder
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    private static final String EMPTY_STRING = "" /* NOI18N */;
+    private static final String SPACE = " " /* NOI18N */;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The text of a left parenthesis. */
+    private final String _leftParen;
+
+    /** The text of a right parenthesis. */
+    private final String _rightParen;
+
+    /** Insert parentheses to make the operator precedence obvious? */
+    private final boolean _insertParentheses;
+
+    /** Pad assignment operators? */
+    private final boolean _paddingAssign;
+
+    /** Pad bitwise operators? */
+    private final boolean _paddingBitwise;
+
+    /** Pad brackets? */
+    private final boolean _paddingBrackets;
+
+    /** Pad type casts? */
+    private final boolean _paddingCast;
+
+    /** Pad logical operators? */
+    private final boolean _paddingLogical;
+
+    /** Pad mathematical operators? */
+    private final boolean _paddingMath;
+
+    /** Pad relational operators? */
+    private final boolean _paddingRelational;
+
+    /** Pad shift operators? */
+    private final boolean _paddingShift;
+
+    /** Print a space after type casts? */
+    private final boolean _spaceAfterCast;
+
+    /** Print a space after commas? */
+    private final boolean _spaceAfterComma;
+
+    /** Print a space before brackets? */
+    private final boolean _spaceBeforeBrackets;
+
+    /** Print a space after the logical and bitwise not operators? */
+    private final boolean _spaceBeforeLogicalNot;
+
+    /** Print a space before the parentheses of method calls? */
+    private final boolean _spaceBeforeParen;
+
+    /** May lines break after assignment operators? */
+    private final boolean _wrapAfterAssign;
+
+    /** May lines break after the left parentheses of arguments? */
+    private final boolean _wrapAfterLeftParen;
+
+    /** Break lines before or after operators? */
+    private final boolean _wrapBeforeOperator;
+
+    /** May lines break before the right parentheses of arguments? */
+    private final boolean _wrapBeforeRightParen;
+
+    /** Is the builder able to honour the current conventions? */
+    private final boolean _enabled;
+
+    /** The indentation of broken lines. */
+    private final int _indent;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new DocumentBuilder object for the current conventions.
+     *
+     * @param indent the indentation of broken lines.
+     */
+    DocumentBuilder(int indent)
+    {
+        Convention settings = AbstractPrinter.settings;
+
+        _indent = indent;
+
+        _enabled =
+            !(settings.getBoolean(
+                ConventionKeys.ALIGN_TERNARY_EXPRESSION,
+                ConventionDefaults.ALIGN_TERNARY_EXPRESSION)
+            || settings.getBoolean(
+                ConventionKeys.ALIGN_TERNARY_VALUES,
+                ConventionDefaults.ALIGN_TERNARY_VALUES)
+            || settings.getBoolean(
+                ConventionKeys.ALIGN_VAR_ASSIGNS, ConventionDefaults.ALIGN_VAR_ASSIGNS)
+            || settings.getBoolean(
+                ConventionKeys.LINE_WRAP_AFTER_CHAINED_METHOD_CALL,
+                ConventionDefaults.LINE_WRAP_AFTER_CHAINED_METHOD_CALL)
+            || settings.getBoolean(
+                ConventionKeys.LINE_WRAP_AFTER_PARAMS_METHOD_CALL,
+                ConventionDefaults.LINE_WRAP_AFTER_PARAMS_METHOD_CALL)
+            || settings.getBoolean(
+                ConventionKeys.LINE_WRAP_AFTER_PARAMS_METHOD_CALL_IF_NESTED,
+                ConventionDefaults.LINE_WRAP_AFTER_PARAMS_METHOD_CALL_IF_NESTED)
+            || settings.getBoolean(
+                ConventionKeys.LINE_WRAP_PAREN_GROUPING,
+                ConventionDefaults.LINE_WRAP_PAREN_GROUPING));
+
+        _insertParentheses =
+            settings.getBoolean(
+                ConventionKeys.INSERT_EXPRESSION_PARENTHESIS,
+                ConventionDefaults.INSERT_EXPRESSION_PARENTHESIS);
+        _paddingAssign =
+            settings.getBoolean(
+                ConventionKeys.PADDING_ASSIGNMENT_OPERATORS,
+                ConventionDefaults.PADDING_ASSIGNMENT_OPERATORS);
+        _paddingBitwise =
+            settings.getBoolean(
+                ConventionKeys.PADDING_BITWISE_OPERATORS,
+                ConventionDefaults.PADDING_BITWISE_OPERATORS);
+        _paddingBrackets =
+            settings.getBoolean(
+                ConventionKeys.PADDING_BRACKETS, ConventionDefaults.PADDING_BRACKETS);
+        _paddingCast =
+            settings.getBoolean(ConventionKeys.PADDING_CAST, ConventionDefaults.PADDING_CAST);
+        _paddingLogical =
+            settings.getBoolean(
+                ConventionKeys.PADDING_LOGICAL_OPERATORS,
+                ConventionDefaults.PADDING_LOGICAL_OPERATORS);
+        _paddingMath =
+            settings.getBoolean(
+                ConventionKeys.PADDING_MATH_OPERATORS,
+                ConventionDefaults.PADDING_MATH_OPERATORS);
+        _paddingRelational =
+            settings.getBoolean(
+                ConventionKeys.PADDING_RELATIONAL_OPERATORS,
+                ConventionDefaults.PADDING_RELATIONAL_OPERATORS);
+        _paddingShift =
+            settings.getBoolean(
+                ConventionKeys.PADDING_SHIFT_OPERATORS,
+                ConventionDefaults.PADDING_SHIFT_OPERATORS);
+        _spaceAfterCast =
+            settings.getBoolean(
+                ConventionKeys.SPACE_AFTER_CAST, ConventionDefaults.SPACE_AFTER_CAST);
+        _spaceAfterComma =
+            settings.getBoolean(
+                ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA);
+        _spaceBeforeBrackets =
+            settings.getBoolean(
+                ConventionKeys.SPACE_BEFORE_BRACKETS,
+                ConventionDefaults.SPACE_BEFORE_BRACKETS);
+        _spaceBeforeLogicalNot =
+            settings.getBoolean(
+                ConventionKeys.SPACE_BEFORE_LOGICAL_NOT,
+                ConventionDefaults.SPACE_BEFORE_LOGICAL_NOT);
+        _spaceBeforeParen =
+            settings.getBoolean(
+                ConventionKeys.SPACE_BEFORE_METHOD_CALL_PAREN,
+                ConventionDefaults.SPACE_BEFORE_METHOD_CALL_PAREN);
+        _wrapAfterAssign =
+            settings.getBoolean(
+                ConventionKeys.LINE_WRAP_AFTER_ASSIGN,
+                ConventionDefaults.LINE_WRAP_AFTER_ASSIGN);
+        _wrapAfterLeftParen =
+            settings.getBoolean(
+                ConventionKeys.LINE_WRAP_AFTER_LEFT_PAREN,
+                ConventionDefaults.LINE_WRAP_AFTER_LEFT_PAREN);
+        _wrapBeforeOperator =
+            settings.getBoolean(
+                ConventionKeys.LINE_WRAP_BEFORE_OPERATOR,
+                ConventionDefaults.LINE_WRAP_BEFORE_OPERATOR);
+        _wrapBeforeRightParen =
+            settings.getBoolean(
+                ConventionKeys.LINE_WRAP_BEFORE_RIGHT_PAREN,
+                ConventionDefaults.LINE_WRAP_BEFORE_RIGHT_PAREN);
+
+        if (
+            settings.getBoolean(ConventionKeys.PADDING_PAREN, ConventionDefaults.PADDING_PAREN))
+        {
+            _leftParen = "( " /* NOI18N */;
+            _rightParen = " )" /* NOI18N */;
+        }
+        else
+        {
+            _leftParen = "(" /* NOI18N */;
+            _rightParen = ")" /* NOI18N */;
+        }
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Lowers the given expression. The trailing semicolon of an expression statement is
+     * not part of the document.
+     *
+     * @param expr an EXPR node.
+     *
+     * @return the document for the expression, <code>null</code> if the expression
+     *         cannot be lowered.
+     */
+    public Document build(AST expr)
+    {
+        if (!_enabled || !isSupported(expr))
+        {
+            return null;
+        }
+
+        return Document.nest(_indent, lowerRun(expr.getFirstChild(), null));
+    }
+
+
+    /**
+     * Determines whether the given node is an atom that is printed by its text alone.
+     *
+     * @param node a node.
+     *
+     * @return <code>true</code> if the node is an atom.
+     */
+    private static boolean isAtom(AST node)
+    {
+        switch (node.getType())
+        {
+            case JavaTokenTypes.IDENT :
+            case JavaTokenTypes.LITERAL_void :
+            case JavaTokenTypes.LITERAL_boolean :
+            case JavaTokenTypes.LITERAL_byte :
+            case JavaTokenTypes.LITERAL_char :
+            case JavaTokenTypes.LITERAL_short :
+            case JavaTokenTypes.LITERAL_int :
+            case JavaTokenTypes.LITERAL_float :
+            case JavaTokenTypes.LITERAL_long :
+            case JavaTokenTypes.LITERAL_double :
+            case JavaTokenTypes.NUM_INT :
+            case JavaTokenTypes.NUM_LONG :
+            case JavaTokenTypes.NUM_FLOAT :
+            case JavaTokenTypes.NUM_DOUBLE :
+            case JavaTokenTypes.CHAR_LITERAL :
+            case JavaTokenTypes.STRING_LITERAL :
+            case JavaTokenTypes.LITERAL_this :
+            case JavaTokenTypes.LITERAL_super :
+            case JavaTokenTypes.LITERAL_true :
+            case JavaTokenTypes.LITERAL_false :
+            case JavaTokenTypes.LITERAL_null :
+            case JavaTokenTypes.LITERAL_class :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+
+    /**
+     * Returns the operand of the given run of nodes, i.e. the first node that is no
+     * left parenthesis.
+     *
+     * @param first the first node of the run.
+     *
+     * @return the operand.
+     */
+    private static AST getOperand(AST first)
+    {
+        AST operand = first;
+
+        while (operand.getType() == JavaTokenTypes.LPAREN)
+        {
+            operand = operand.getNextSibling();
+        }
+
+        return operand;
+    }
+
+
+    /**
+     * Returns the node that follows the operand that starts with the given node,
+     * including all enclosing parentheses.
+     *
+     * @param first the first node of the operand, either the operand itself or the
+     *        outermost left parenthesis.
+     *
+     * @return the node after the operand, <code>null</code> if the operand is the last
+     *         node.
+     */
+    private static AST getOperandEnd(AST first)
+    {
+        int count = 0;
+
+        for (AST child = first; child != null; child = child.getNextSibling())
+        {
+            switch (child.getType())
+            {
+                case JavaTokenTypes.LPAREN :
+                    count++;
+
+                    break;
+
+                case JavaTokenTypes.RPAREN :
+                    count--;
+
+                    if (count == 0)
+                    {
+                        return child.getNextSibling();
+                    }
+
+                    break;
+
+                default :
+
+                    if (count == 0)
+                    {
+                        return child.getNextSibling();
+                    }
+
+                    break;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Determines whether the given operator is a binary operator the builder handles.
+     *
+     * @param node a node.
+     *
+     * @return <code>true</code> if the node is a binary operator.
+     */
+    private static boolean isBinaryOperator(AST node)
+    {
+        switch (node.getType())
+        {
+            case JavaTokenTypes.PLUS :
+            case JavaTokenTypes.MINUS :
+            case JavaTokenTypes.STAR :
+            case JavaTokenTypes.DIV :
+            case JavaTokenTypes.MOD :
+            case JavaTokenTypes.LOR :
+            case JavaTokenTypes.LAND :
+            case JavaTokenTypes.BOR :
+            case JavaTokenTypes.BXOR :
+            case JavaTokenTypes.BAND :
+            case JavaTokenTypes.EQUAL :
+            case JavaTokenTypes.NOT_EQUAL :
+            case JavaTokenTypes.LT :
+            case JavaTokenTypes.GT :
+            case JavaTokenTypes.LE :
+            case JavaTokenTypes.GE :
+            case JavaTokenTypes.LITERAL_instanceof :
+            case JavaTokenTypes.SL :
+            case JavaTokenTypes.SR :
+            case JavaTokenTypes.BSR :
+            case JavaTokenTypes.PLUS_ASSIGN :
+            case JavaTokenTypes.MINUS_ASSIGN :
+            case JavaTokenTypes.STAR_ASSIGN :
+            case JavaTokenTypes.DIV_ASSIGN :
+            case JavaTokenTypes.MOD_ASSIGN :
+            case JavaTokenTypes.BAND_ASSIGN :
+            case JavaTokenTypes.BOR_ASSIGN :
+            case JavaTokenTypes.BXOR_ASSIGN :
+            case JavaTokenTypes.SL_ASSIGN :
+            case JavaTokenTypes.SR_ASSIGN :
+            case JavaTokenTypes.BSR_ASSIGN :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+
+    /**
+     * Determines whether the given operator is padded with whitespace.
+     *
+     * @param operator a binary operator.
+     *
+     * @return <code>true</code> if the operator is padded.
+     */
+    private boolean isPadded(AST operator)
+    {
+        switch (operator.getType())
+        {
+            case JavaTokenTypes.PLUS :
+            case JavaTokenTypes.MINUS :
+            case JavaTokenTypes.STAR :
+            case JavaTokenTypes.DIV :
+            case JavaTokenTypes.MOD :
+                return _paddingMath;
+
+            case JavaTokenTypes.LOR :
+            case JavaTokenTypes.LAND :
+                return _paddingLogical;
+
+            case JavaTokenTypes.BOR :
+            case JavaTokenTypes.BXOR :
+            case JavaTokenTypes.BAND :
+                return _paddingBitwise;
+
+            case JavaTokenTypes.EQUAL :
+            case JavaTokenTypes.NOT_EQUAL :
+            case JavaTokenTypes.LT :
+            case JavaTokenTypes.GT :
+            case JavaTokenTypes.LE :
+            case JavaTokenTypes.GE :
+                return _paddingRelational;
+
+            case JavaTokenTypes.LITERAL_instanceof :
+                return true;
+
+            case JavaTokenTypes.SL :
+            case JavaTokenTypes.SR :
+            case JavaTokenTypes.BSR :
+                return _paddingShift;
+
+            default :
+                return _paddingAssign;
+        }
+    }
+
+
+    /**
+     * Determines whether the given node and all its descendants can be lowered.
+     *
+     * @param node a node.
+     *
+     * @return <code>true</code> if the node can be lowered.
+     */
+    private boolean isSupported(AST node)
+    {
+        // the semicolon of an expression statement is printed by its own printer
+        if (node.getType() == JavaTokenTypes.SEMI)
+        {
+            return true;
+        }
+
+        JavaNode n = (JavaNode) node;
+
+        if (n.hasCommentsBefore() || n.hasCommentsAfter())
+        {
+            return false;
+        }
+
+        AST first = node.getFirstChild();
+
+        switch (node.getType())
+        {
+            case JavaTokenTypes.EXPR :
+            case JavaTokenTypes.ELIST :
+            case JavaTokenTypes.LPAREN :
+            case JavaTokenTypes.RPAREN :
+            case JavaTokenTypes.RBRACK :
+            case JavaTokenTypes.COMMA :
+            case JavaTokenTypes.COLON :
+            case JavaTokenTypes.QUESTION :
+            case JavaTokenTypes.INC :
+            case JavaTokenTypes.DEC :
+            case JavaTokenTypes.LNOT :
+            case JavaTokenTypes.BNOT :
+            case JavaTokenTypes.UNARY_MINUS :
+            case JavaTokenTypes.UNARY_PLUS :
+            case JavaTokenTypes.POST_INC :
+            case JavaTokenTypes.POST_DEC :
+                break;
+
+            case JavaTokenTypes.ASSIGN :
+
+                // only plain assignment expressions, initializers are handled by
+                // the declaration printers
+                if (n.getParent().getType() != JavaTokenTypes.EXPR)
+                {
+                    return false;
+                }
+
+                break;
+
+            case JavaTokenTypes.DOT :
+
+                if (
+                    (first == null) || (first.getNextSibling() == null)
+                    || (first.getNextSibling().getNextSibling() != null))
+                {
+                    return false;
+                }
+
+                switch (first.getNextSibling().getType())
+                {
+                    case JavaTokenTypes.IDENT :
+                    case JavaTokenTypes.LITERAL_class :
+                    case JavaTokenTypes.LITERAL_this :
+                    case JavaTokenTypes.LITERAL_super :
+                        break;
+
+                    default :
+                        return false;
+                }
+
+                break;
+
+            case JavaTokenTypes.METHOD_CALL :
+
+                if (
+                    (first == null) || (first.getNextSibling() == null)
+                    || (first.getNextSibling().getType() != JavaTokenTypes.ELIST))
+                {
+                    return false;
+                }
+
+                switch (first.getType())
+                {
+                    case JavaTokenTypes.IDENT :
+                    case JavaTokenTypes.DOT :
+                        break;
+
+                    default :
+                        return false;
+                }
+
+                break;
+
+            case JavaTokenTypes.LITERAL_new :
+
+                // plain instance creation without type arguments or class body
+                if (
+                    (first == null) || (first.getNextSibling() == null)
+                    || (first.getNextSibling().getType() != JavaTokenTypes.LPAREN))
+                {
+                    return false;
+                }
+
+                switch (first.getType())
+                {
+                    case JavaTokenTypes.IDENT :
+                    case JavaTokenTypes.DOT :
+                        break;
+
+                    default :
+                        return false;
+                }
+
+                AST elist = first.getNextSibling().getNextSibling();
+
+                if (
+                    (elist == null) || (elist.getType() != JavaTokenTypes.ELIST)
+                    || (elist.getNextSibling() == null)
+                    || (elist.getNextSibling().getNextSibling() != null))
+                {
+                    return false;
+                }
+
+                break;
+
+            case JavaTokenTypes.TYPECAST :
+            case JavaTokenTypes.LITERAL_instanceof :
+
+                AST type =
+                    (node.getType() == JavaTokenTypes.TYPECAST) ? first
+                                                                : getOperandEnd(first);
+
+                if (
+                    (type == null) || (type.getType() != JavaTokenTypes.TYPE)
+                    || (type.getFirstChild().getType() == JavaTokenTypes.ARRAY_DECLARATOR)
+                    || (type.getFirstChild().getNextSibling() != null))
+                {
+                    return false;
+                }
+
+                break;
+
+            case JavaTokenTypes.TYPE :
+                break;
+
+            case JavaTokenTypes.INDEX_OP :
+
+                if (first.getType() == JavaTokenTypes.LPAREN)
+                {
+                    return false;
+                }
+
+                break;
+
+            default :
+
+                if (isBinaryOperator(node))
+                {
+                    break;
+                }
+
+                return isAtom(node) && (first == null);
+        }
+
+        for (AST child = first; child != null; child = child.getNextSibling())
+        {
+            if (!isSupported(child))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Lowers the arguments of a method call or creator, including the enclosing
+     * parentheses.
+     *
+     * @param elist the ELIST node.
+     *
+     * @return the document for the arguments.
+     */
+    private Document lowerArguments(AST elist)
+    {
+        Document doc = Document.concat();
+        doc.add(_leftParen, JavaTokenTypes.LPAREN);
+
+        AST arg = elist.getFirstChild();
+
+        if (arg == null)
+        {
+            return doc.add(_rightParen, JavaTokenTypes.RPAREN);
+        }
+
+        Document args = Document.fill();
+
+        // the first argument may move to the next line if it does not fit, unless
+        // the line after the parenthesis is always broken along with the group
+        if (!_wrapAfterLeftParen)
+        {
+            args.add(Document.line(EMPTY_STRING));
+        }
+
+        String separator = _spaceAfterComma ? SPACE
+                                            : EMPTY_STRING;
+
+        for (; arg != null; arg = arg.getNextSibling())
+        {
+            if (arg.getType() == JavaTokenTypes.COMMA)
+            {
+                continue;
+            }
+
+            Document item = lowerRun(arg.getFirstChild(), null);
+
+            if (arg.getNextSibling() != null)
+            {
+                item = Document.concat().add(item).add(",", JavaTokenTypes.COMMA);
+                args.add(item).add(Document.line(separator));
+            }
+            else
+            {
+                args.add(item);
+            }
+        }
+
+        Document body = Document.concat();
+
+        if (_wrapAfterLeftParen)
+        {
+            body.add(Document.line(EMPTY_STRING));
+        }
+
+        body.add(args);
+        doc.add(Document.nest(_indent, body));
+
+        if (_wrapBeforeRightParen)
+        {
+            doc.add(Document.line(EMPTY_STRING));
+        }
+
+        doc.add(_rightParen, JavaTokenTypes.RPAREN);
+
+        return Document.group(doc);
+    }
+
+
+    /**
+     * Lowers a binary operator. Left-nested chains of the same operator are lowered
+     * into one fill.
+     *
+     * @param node the operator node.
+     *
+     * @return the document for the operator and its operands.
+     */
+    private Document lowerBinary(AST node)
+    {
+        List operators = new ArrayList();
+        AST lhs = node;
+
+        // collect the chain: a + b + c is (a + b) + c
+        for (;;)
+        {
+            operators.add(lhs);
+
+            AST first = lhs.getFirstChild();
+
+            if (first.getType() == lhs.getType())
+            {
+                lhs = first;
+            }
+            else
+            {
+                break;
+            }
+        }
+
+        boolean padded = isPadded(node);
+        String space = padded ? SPACE
+                              : EMPTY_STRING;
+        Document fill = Document.fill();
+        Document item = Document.concat();
+
+        for (int i = operators.size() - 1; i >= 0; i--)
+        {
+            AST operator = (AST) operators.get(i);
+            AST lhsFirst = operator.getFirstChild();
+            AST rhsFirst = getOperandEnd(lhsFirst);
+            boolean parentheses =
+                (lhsFirst.getType() == JavaTokenTypes.LPAREN)
+                && (rhsFirst.getType() == JavaTokenTypes.LPAREN);
+
+            if (i == (operators.size() - 1))
+            {
+                item.add(lowerOperand(lhsFirst, rhsFirst, operator, !parentheses));
+            }
+
+            if (_wrapBeforeOperator)
+            {
+                fill.add(item).add(Document.line(space));
+                item = Document.concat();
+                item.add(operator.getText(), operator.getType());
+                item.add(space, JavaTokenTypes.WS);
+            }
+            else
+            {
+                item.add(space, JavaTokenTypes.WS);
+                item.add(operator.getText(), operator.getType());
+                fill.add(item).add(Document.line(space));
+                item = Document.concat();
+            }
+
+            item.add(lowerOperand(rhsFirst, null, operator, !parentheses));
+        }
+
+        return fill.add(item);
+    }
+
+
+    /**
+     * Lowers a method call. Chains of method calls may break before the dots.
+     *
+     * @param node the METHOD_CALL node.
+     *
+     * @return the document for the method call.
+     */
+    private Document lowerCall(AST node)
+    {
+        List links = new ArrayList();
+        AST receiver = node;
+
+        while (
+            (receiver.getType() == JavaTokenTypes.METHOD_CALL)
+            && (receiver.getFirstChild().getType() == JavaTokenTypes.DOT))
+        {
+            links.add(receiver);
+            receiver = receiver.getFirstChild().getFirstChild();
+        }
+
+        boolean chained =
+            !links.isEmpty() && (receiver.getType() == JavaTokenTypes.METHOD_CALL);
+
+        if (!chained && (links.size() < 2))
+        {
+            return lowerCallLink(node, true);
+        }
+
+        Document head = Document.concat();
+        head.add(lower(receiver));
+
+        int last = links.size() - 1;
+
+        if (!chained)
+        {
+            // keep the first call with its receiver: a.b().c() breaks before .c()
+            head.add(lowerCallLink((AST) links.get(last), false));
+            last--;
+        }
+
+        Document tail = Document.concat();
+
+        for (int i = last; i >= 0; i--)
+        {
+            tail.add(Document.line(EMPTY_STRING));
+            tail.add(lowerCallLink((AST) links.get(i), false));
+        }
+
+        return Document.group(head.add(Document.nest(_indent, tail)));
+    }
+
+
+    /**
+     * Lowers a single method call.
+     *
+     * @param node the METHOD_CALL node.
+     * @param callee if <code>true</code> the whole callee is lowered, otherwise only the
+     *        dot and the method name.
+     *
+     * @return the document for the method call.
+     */
+    private Document lowerCallLink(
+        AST     node,
+        boolean callee)
+    {
+        Document doc = Document.concat();
+        AST first = node.getFirstChild();
+
+        if (callee)
+        {
+            doc.add(lower(first));
+        }
+        else
+        {
+            AST name = first.getFirstChild().getNextSibling();
+            doc.add(".", JavaTokenTypes.DOT);
+            doc.add(name.getText(), name.getType());
+        }
+
+        if (_spaceBeforeParen)
+        {
+            doc.add(SPACE, JavaTokenTypes.WS);
+        }
+
+        return doc.add(lowerArguments(first.getNextSibling()));
+    }
+
+
+    /**
+     * Lowers the operand that starts with the given node.
+     *
+     * @param first the first node of the operand, either the operand itself or the
+     *        outermost left parenthesis.
+     * @param end the node after the operand, <code>null</code> if the operand is the
+     *        last node.
+     * @param operator the binary operator the operand belongs to.
+     * @param insertParentheses if <code>true</code> parentheses are added if
+     *        necessary to make the precedence obvious.
+     *
+     * @return the document for the operand.
+     */
+    private Document lowerOperand(
+        AST     first,
+        AST     end,
+        AST     operator,
+        boolean insertParentheses)
+    {
+        if (
+            _insertParentheses && insertParentheses
+            && (first.getType() != JavaTokenTypes.LPAREN)
+            && (OperatorPrinter.getPrecedence(first) > OperatorPrinter.getPrecedence(
+                operator)))
+        {
+            Document doc = Document.concat();
+            doc.add(_leftParen, JavaTokenTypes.LPAREN);
+            doc.add(lower(first));
+
+            return doc.add(_rightParen, JavaTokenTypes.RPAREN);
+        }
+
+        return lowerRun(first, end);
+    }
+
+
+    /**
+     * Lowers the given run of sibling nodes.
+     *
+     * @param first the first node of the run.
+     * @param end the node after the run, <code>null</code> to lower all siblings. A
+     *        semicolon always ends the run.
+     *
+     * @return the document for the nodes.
+     */
+    private Document lowerRun(
+        AST first,
+        AST end)
+    {
+        Document doc = Document.concat();
+
+        for (AST child = first; (child != end) && (child != null);
+            child = child.getNextSibling())
+        {
+            switch (child.getType())
+            {
+                case JavaTokenTypes.LPAREN :
+                    doc.add(_leftParen, JavaTokenTypes.LPAREN);
+
+                    break;
+
+                case JavaTokenTypes.RPAREN :
+                    doc.add(_rightParen, JavaTokenTypes.RPAREN);
+
+                    break;
+
+                case JavaTokenTypes.SEMI :
+                    return doc;
+
+                default :
+                    doc.add(lower(child));
+
+                    break;
+            }
+        }
+
+        return doc;
+    }
+
+
+    /**
+     * Lowers a ternary expression.
+     *
+     * @param node the QUESTION node.
+     *
+     * @return the document for the expression.
+     */
+    private Document lowerTernary(AST node)
+    {
+        AST first = node.getFirstChild();
+        AST second = getOperandEnd(first);
+        AST colon = getOperandEnd(second);
+        AST third = colon.getNextSibling();
+
+        Document tail = Document.concat();
+        tail.add(Document.line(SPACE));
+        tail.add("?", JavaTokenTypes.QUESTION);
+        tail.add(SPACE, JavaTokenTypes.WS);
+        tail.add(lowerTernaryOperand(second, colon));
+        tail.add(Document.line(SPACE));
+        tail.add(":", JavaTokenTypes.COLON);
+        tail.add(SPACE, JavaTokenTypes.WS);
+        tail.add(lowerTernaryOperand(third, null));
+
+        Document doc = Document.concat();
+        doc.add(lowerTernaryOperand(first, second));
+        doc.add(Document.nest(_indent, tail));
+
+        return Document.group(doc);
+    }
+
+
+    /**
+     * Lowers an operand of a ternary expression.
+     *
+     * @param first the first node of the operand.
+     * @param end the node after the operand.
+     *
+     * @return the document for the operand.
+     */
+    private Document lowerTernaryOperand(
+        AST first,
+        AST end)
+    {
+        if (
+            _insertParentheses && (first.getType() != JavaTokenTypes.LPAREN)
+            && TernaryIfElsePrinter.needParentheses((JavaNode) first))
+        {
+            Document doc = Document.concat();
+            doc.add(_leftParen, JavaTokenTypes.LPAREN);
+            doc.add(lower(first));
+
+            return doc.add(_rightParen, JavaTokenTypes.RPAREN);
+        }
+
+        return lowerRun(first, end);
+    }
+
+
+    /**
+     * Lowers the given node.
+     *
+     * @param node a node that has been found to be {@link #isSupported supported}.
+     *
+     * @return the document for the node.
+     */
+    private Document lower(AST node)
+    {
+        AST first = node.getFirstChild();
+
+        switch (node.getType())
+        {
+            case JavaTokenTypes.EXPR :
+            case JavaTokenTypes.TYPE :
+                return lowerRun(first, null);
+
+            case JavaTokenTypes.ASSIGN :
+            {
+                AST rhs = getOperandEnd(first);
+                Document doc = Document.concat();
+                doc.add(lowerRun(first, rhs));
+
+                if (_paddingAssign)
+                {
+                    doc.add(" =", JavaTokenTypes.ASSIGN);
+                }
+                else
+                {
+                    doc.add("=", JavaTokenTypes.ASSIGN);
+                }
+
+                String space = _paddingAssign ? SPACE
+                                              : EMPTY_STRING;
+                Document value = Document.concat();
+
+                if (_wrapAfterAssign)
+                {
+                    value.add(Document.line(space));
+                }
+                else
+                {
+                    value.add(space, JavaTokenTypes.WS);
+                }
+
+                value.add(lowerRun(rhs, null));
+
+                return doc.add(Document.group(Document.nest(_indent, value)));
+            }
+
+            case JavaTokenTypes.DOT :
+            {
+                AST name = first.getNextSibling();
+                Document doc = Document.concat();
+                doc.add(lower(first));
+                doc.add(".", JavaTokenTypes.DOT);
+
+                return doc.add(name.getText(), name.getType());
+            }
+
+            case JavaTokenTypes.METHOD_CALL :
+                return lowerCall(node);
+
+            case JavaTokenTypes.LITERAL_new :
+            {
+                Document doc = Document.concat();
+                doc.add("new ", JavaTokenTypes.LITERAL_new);
+                doc.add(lower(first));
+
+                return doc.add(lowerArguments(first.getNextSibling().getNextSibling()));
+            }
+
+            case JavaTokenTypes.TYPECAST :
+            {
+                Document doc = Document.concat();
+
+                if (_paddingCast)
+                {
+                    doc.add("( ", JavaTokenTypes.LPAREN);
+                    doc.add(lower(first));
+                    doc.add(" )", JavaTokenTypes.RPAREN);
+                }
+                else
+                {
+                    doc.add("(", JavaTokenTypes.LPAREN);
+                    doc.add(lower(first));
+                    doc.add(")", JavaTokenTypes.RPAREN);
+                }
+
+                if (_spaceAfterCast)
+                {
+                    doc.add(SPACE, JavaTokenTypes.WS);
+                }
+
+                return doc.add(lowerRun(first.getNextSibling(), null));
+            }
+
+            case JavaTokenTypes.INDEX_OP :
+            {
+                AST index = first.getNextSibling();
+                Document doc = Document.concat();
+                doc.add(lower(first));
+
+                if (_spaceBeforeBrackets)
+                {
+                    doc.add(SPACE, JavaTokenTypes.WS);
+                }
+
+                if (_paddingBrackets)
+                {
+                    doc.add("[ ", JavaTokenTypes.LBRACK);
+                    doc.add(lower(index));
+                    doc.add(" ]", JavaTokenTypes.RBRACK);
+                }
+                else
+                {
+                    doc.add("[", JavaTokenTypes.LBRACK);
+                    doc.add(lower(index));
+                    doc.add("]", JavaTokenTypes.RBRACK);
+                }
+
+                return doc;
+            }
+
+            case JavaTokenTypes.QUESTION :
+                return lowerTernary(node);
+
+            case JavaTokenTypes.INC :
+            case JavaTokenTypes.DEC :
+            case JavaTokenTypes.UNARY_MINUS :
+            case JavaTokenTypes.UNARY_PLUS :
+            case JavaTokenTypes.LNOT :
+            case JavaTokenTypes.BNOT :
+            {
+                Document doc = Document.concat();
+                doc.add(node.getText(), node.getType());
+
+                if (
+                    _spaceBeforeLogicalNot
+                    && ((node.getType() == JavaTokenTypes.LNOT)
+                    || (node.getType() == JavaTokenTypes.BNOT)))
+                {
+                    doc.add(SPACE, JavaTokenTypes.WS);
+                }
+
+                return doc.add(lowerRun(first, null));
+            }
+
+            case JavaTokenTypes.POST_INC :
+            case JavaTokenTypes.POST_DEC :
+            {
+                Document doc = Document.concat();
+                doc.add(lowerRun(first, null));
+
+                return doc.add(node.getText(), node.getType());
+            }
+
+            case JavaTokenTypes.NUM_LONG :
+            {
+                String text = node.getText();
+                int index = text.indexOf('l');
+
+                if (index > -1)
+                {
+                    text = text.substring(0, index) + 'L';
+                }
+
+                return Document.text(text, JavaTokenTypes.NUM_LONG);
+            }
+
+            default :
+
+                if (isBinaryOperator(node))
+                {
+                    return lowerBinary(node);
+                }
+
+                return Document.text(node.getText(), node.getType());
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.IOException;
+
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+
+
+/**
+ * Lays out {@link Document documents} with the line breaking algorithm of Oppen as
+ * reformulated by Wadler and Lindig: the document is printed from left to right and
+ * every group is printed flat if it fits into the remainder of the line together with
+ * everything that follows up to the next possible line break, otherwise its lines are
+ * broken.
+ *
+ * <p>
+ * The decision for a group needs the widths of the group and the text following it.
+ * Both are taken from the document nodes, where they are computed once, and the text
+ * that follows is only examined until the line is exhausted. The time needed is
+ * therefore linear in the size of the document for a given line length.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jalopy contributors
+ *
+ * @see DocumentBuilder
+ */
+final class DocumentPrinter
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Print the lines of a document flat. */
+    private static final int MODE_FLAT = 0;
+
+    /** Break the lines of a document. */
+    private static final int MODE_BREAK = 1;
+
+    /** Break the lines of a fill one by one as necessary. */
+    private static final int MODE_FILL = 2;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The documents yet to print, the top of the stack is printed next. */
+    private Document[] _docs = new Document[32];
+
+    /** The indentation of the documents yet to print. */
+    private int[] _indents = new int[32];
+
+    /** The modes of the documents yet to print. */
+    private int[] _modes = new int[32];
+
+    /** The number of documents yet to print. */
+    private int _size;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new DocumentPrinter object.
+     */
+    private DocumentPrinter()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Prints the given document, starting at the current position of the given writer.
+     * The lines broken within a nest are indented relative to the indentation of the
+     * line the nest starts on, so nests that start on the same line do not add up.
+     *
+     * @param doc the document to print.
+     * @param trailing the number of characters that are printed right after the
+     *        document and have to fit into the line, too.
+     * @param lineLength the maximal number of characters of a line.
+     * @param out stream to write to.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public static void print(
+        Document   doc,
+        int        trailing,
+        int        lineLength,
+        NodeWriter out)
+      throws IOException
+    {
+        new DocumentPrinter().layout(doc, trailing, lineLength, out);
+    }
+
+
+    /**
+     * Returns the indentation of the lines of the given writer.
+     *
+     * @param out a writer.
+     *
+     * @return the number of whitespace characters the writer prints at the beginning
+     *         of a line.
+     */
+    private static int getIndentation(NodeWriter out)
+    {
+        int indentation = out.leadingIndentSize + out.getIndentLength();
+
+        if (out.continuation)
+        {
+            indentation += out.continuationIndentSize;
+        }
+
+        return indentation;
+    }
+
+
+    /**
+     * Determines whether the given document fits flat into the remainder of the line,
+     * together with everything that follows up to the next line that may be broken.
+     *
+     * @param remaining the number of characters left in the line.
+     * @param doc the document to print flat.
+     * @param next the index of the stack element printed after the document.
+     * @param trailing the number of characters printed after the last document.
+     *
+     * @return <code>true</code> if the document fits.
+     */
+    private boolean fits(
+        int      remaining,
+        Document doc,
+        int      next,
+        int      trailing)
+    {
+        remaining -= doc.getWidth();
+
+        for (int i = next; (i >= 0) && (remaining >= 0); i--)
+        {
+            Document following = _docs[i];
+
+            if (_modes[i] == MODE_FLAT)
+            {
+                remaining -= following.getWidth();
+            }
+            else
+            {
+                remaining -= following.getHead();
+
+                if (following.breaks())
+                {
+                    return remaining >= 0;
+                }
+            }
+        }
+
+        return (remaining - trailing) >= 0;
+    }
+
+
+    /**
+     * Prints the given document.
+     *
+     * @param doc the document to print.
+     * @param trailing the number of characters that are printed right after the
+     *        document.
+     * @param lineLength the maximal number of characters of a line.
+     * @param out stream to write to.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void layout(
+        Document   doc,
+        int        trailing,
+        int        lineLength,
+        NodeWriter out)
+      throws IOException
+    {
+        int indentation = getIndentation(out);
+        int column = out.newline ? indentation
+                                 : (out.column - 1);
+
+        // the indentation of the current line
+        int line = indentation;
+
+        push(doc, indentation, MODE_BREAK);
+
+        while (_size > 0)
+        {
+            _size--;
+
+            Document current = _docs[_size];
+            int indent = _indents[_size];
+            int mode = _modes[_size];
+            _docs[_size] = null;
+
+            switch (current.kind)
+            {
+                case Document.TEXT :
+
+                    if (current.text.length() > 0)
+                    {
+                        out.print(current.text, current.type);
+                        column += current.text.length();
+                    }
+
+                    break;
+
+                case Document.LINE :
+
+                    if (
+                        (mode == MODE_BREAK)
+                        || ((mode == MODE_FILL) && (_size > 0)
+                        && !fits(
+                            lineLength - column - current.getWidth(), _docs[_size - 1],
+                            _size - 2, trailing)))
+                    {
+                        out.printNewline();
+
+                        if (indent > indentation)
+                        {
+                            out.print(
+                                out.getString(indent - indentation), JavaTokenTypes.WS);
+                        }
+
+                        column = Math.max(indent, indentation);
+                        line = column;
+                    }
+                    else if (current.text.length() > 0)
+                    {
+                        out.print(current.text, JavaTokenTypes.WS);
+                        column += current.text.length();
+                    }
+
+                    break;
+
+                case Document.GROUP :
+
+                    if (
+                        (mode != MODE_FLAT)
+                        && !fits(lineLength - column, current, _size - 1, trailing))
+                    {
+                        mode = MODE_BREAK;
+                    }
+                    else
+                    {
+                        mode = MODE_FLAT;
+                    }
+
+                    pushChildren(current, indent, mode);
+
+                    break;
+
+                case Document.FILL :
+
+                    if (
+                        (mode != MODE_FLAT)
+                        && !fits(lineLength - column, current, _size - 1, trailing))
+                    {
+                        mode = MODE_FILL;
+                    }
+                    else
+                    {
+                        mode = MODE_FLAT;
+                    }
+
+                    pushChildren(current, indent, mode);
+
+                    break;
+
+                case Document.NEST :
+                    pushChildren(
+                        current, line + current.indent,
+                        (mode == MODE_FILL) ? MODE_BREAK
+                                            : mode);
+
+                    break;
+
+                default :
+                    pushChildren(
+                        current, indent,
+                        (mode == MODE_FILL) ? MODE_BREAK
+                                            : mode);
+
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Pushes the given document onto the stack.
+     *
+     * @param doc the document to print.
+     * @param indent the indentation of its lines.
+     * @param mode the mode to print it in.
+     */
+    private void push(
+        Document doc,
+        int      indent,
+        int      mode)
+    {
+        if (_size == _docs.length)
+        {
+            int capacity = _size * 2;
+            Document[] docs = new Document[capacity];
+            System.arraycopy(_docs, 0, docs, 0, _size);
+            _docs = docs;
+
+            int[] indents = new int[capacity];
+            System.arraycopy(_indents, 0, indents, 0, _size);
+            _indents = indents;
+
+            int[] modes = new int[capacity];
+            System.arraycopy(_modes, 0, modes, 0, _size);
+            _modes = modes;
+        }
+
+        _docs[_size] = doc;
+        _indents[_size] = indent;
+        _modes[_size] = mode;
+        _size++;
+    }
+
+
+    /**
+     * Pushes the documents contained in the given document onto the stack, the first
+     * one on top.
+     *
+     * @param doc the document whose children should be printed.
+     * @param indent the indentation of their lines.
+     * @param mode the mode to print them in.
+     */
+    private void pushChildren(
+        Document doc,
+        int      indent,
+        int      mode)
+    {
+        for (int i = doc.count - 1; i >= 0; i--)
+        {
+            push(doc.children[i], indent, mode);
+        }
+    }
+}
@@ -11,6 +11,8 @@ import java.io.IOException;
 import antlr.collections.AST;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.ConventionDefaults;
+import de.hunsicker.jalopy.storage.ConventionKeys;
 
 
 /**
@@ -59,6 +61,11 @@ final class ExpressionPrinter
     {
         printBlankLinesBefore((JavaNode) node, out);
 
+        if (printDocument(node, out))
+        {
+            return;
+        }
+
         for (AST child = node.getFirstChild(); child != null;
             child = child.getNextSibling())
         {
@@ -96,4 +103,84 @@ final class ExpressionPrinter
                 break;
         }
     }
+
+
+    /**
+     * Prints the given expression with the optimal line breaking printer if enabled.
+     * Only the expressions of statements and declarations are printed this way, nested
+     * expressions are part of their documents.
+     *
+     * @param node an EXPR node.
+     * @param out stream to write to.
+     *
+     * @return <code>true</code> if the expression was printed, <code>false</code> if it
+     *         has to be printed by the individual printers.
+     *
+     * @throws IOException if an I/O error occured.
+     *
+     * @see DocumentBuilder
+     * @see DocumentPrinter
+     */
+    private boolean printDocument(
+        AST        node,
+        NodeWriter out)
+      throws IOException
+    {
+        if (
+            (out.mode != NodeWriter.MODE_DEFAULT) || out.tracking
+            || !out.issues.isEmpty()
+            || !AbstractPrinter.settings.getBoolean(
+                ConventionKeys.LINE_WRAP_OPTIMAL, ConventionDefaults.LINE_WRAP_OPTIMAL)
+            || !AbstractPrinter.settings.getBoolean(
+                ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP))
+        {
+            return false;
+        }
+
+        JavaNode parent = ((JavaNode) node).getParent();
+
+        switch (parent.getType())
+        {
+            case JavaTokenTypes.SLIST :
+            case JavaTokenTypes.LITERAL_return :
+            case JavaTokenTypes.LITERAL_throw :
+                break;
+
+            case JavaTokenTypes.ASSIGN :
+
+                if (parent.getParent().getType() != JavaTokenTypes.VARIABLE_DEF)
+                {
+                    return false;
+                }
+
+                break;
+
+            default :
+                return false;
+        }
+
+        Document doc = new DocumentBuilder(out.continuationIndentSize).build(node);
+
+        if (doc == null)
+        {
+            return false;
+        }
+
+        // all statements and declarations end with a semicolon or comma
+        DocumentPrinter.print(
+            doc, 1,
+            AbstractPrinter.settings.getInt(
+                ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH), out);
+
+        for (AST child = node.getFirstChild(); child != null;
+            child = child.getNextSibling())
+        {
+            if (child.getType() == JavaTokenTypes.SEMI)
+            {
+                PrinterFactory.create(child, out).print(child, out);
+            }
+        }
+
+        return true;
+    }
 }
@@ -8,7 +8,9 @@ package de.hunsicker.jalopy.printer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import antlr.CommonHiddenStreamToken;
@@ -22,6 +24,7 @@ import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
 import de.hunsicker.jalopy.storage.Environment;
 import de.hunsicker.jalopy.storage.History;
+import de.hunsicker.util.MultiStringMatcher;
 import de.hunsicker.util.StringHelper;
 
 
@@ -43,6 +46,14 @@ final class JavaPrinter
     private static final Printer INSTANCE = new JavaPrinter();
     private static final String DELIMETER = "|" /* NOI18N */;
 
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The matchers for the header and footer keys. */
+    private final Map _keyMatchers = new HashMap(4); // Map of <Convention.Key:MultiStringMatcher>
+
+    /** The modification count of the code convention the matchers were compiled for. */
+    private int _keyMatchersModCount = -1;
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -154,6 +165,39 @@ final class JavaPrinter
     }
 
 
+    /**
+     * Returns the matcher for the identify keys stored under the given key. The matchers
+     * are compiled once and shared until the code convention changes.
+     *
+     * @param key code convention key.
+     *
+     * @return matcher for the identify keys.
+     */
+    private MultiStringMatcher getKeyMatcher(Convention.Key key)
+    {
+        synchronized (_keyMatchers)
+        {
+            int modCount = AbstractPrinter.settings.getModificationCount();
+
+            if (modCount != _keyMatchersModCount)
+            {
+                _keyMatchers.clear();
+                _keyMatchersModCount = modCount;
+            }
+
+            MultiStringMatcher matcher = (MultiStringMatcher) _keyMatchers.get(key);
+
+            if (matcher == null)
+            {
+                matcher = new MultiStringMatcher(getConventionKeys(key));
+                _keyMatchers.put(key, matcher);
+            }
+
+            return matcher;
+        }
+    }
+
+
     /**
      * Returns the last node of the Java AST.
      *
@@ -333,7 +377,7 @@ final class JavaPrinter
 
         if (eofNode.hasCommentsBefore())
         {
-            String[] keys = getConventionKeys(ConventionKeys.FOOTER_KEYS);
+            MultiStringMatcher keys = getKeyMatcher(ConventionKeys.FOOTER_KEYS);
             int count = 0;
             int smartModeLines =
                 AbstractPrinter.settings.getInt(ConventionKeys.FOOTER_SMART_MODE_LINES, 0);
@@ -360,12 +404,9 @@ final class JavaPrinter
 
                     default :
 
-                        for (int j = 0; j < keys.length; j++)
+                        if (keys.isContainedIn(comment.getText()))
                         {
-                            if (comment.getText().indexOf(keys[j]) > -1)
-                            {
-                                removeFooterComment(comment, eofNode);
-                            }
+                            removeFooterComment(comment, eofNode);
                         }
 
                         break;
@@ -457,7 +498,7 @@ final class JavaPrinter
     private void removeHeader(AST node, boolean useCommentHistory)
     {
         JavaNode first = (JavaNode) node.getFirstChild();
-        String[] keys = getConventionKeys(ConventionKeys.HEADER_KEYS);
+        MultiStringMatcher keys = getKeyMatcher(ConventionKeys.HEADER_KEYS);
         int smartModeLines =
             AbstractPrinter.settings.getInt(
                 ConventionKeys.HEADER_SMART_MODE_LINES,
@@ -482,12 +523,9 @@ final class JavaPrinter
                         case JavaTokenTypes.ML_COMMENT :
                         case JavaTokenTypes.JAVADOC_COMMENT :
 
-                            for (int j = 0; j < keys.length; j++)
+                            if (keys.isContainedIn(comment.getText()))
                             {
-                                if (comment.getText().indexOf(keys[j]) > -1)
-                                {
-                                    removeHeaderComment(comment, first);
-                                }
+                                removeHeaderComment(comment, first);
                             }
 
                             break;
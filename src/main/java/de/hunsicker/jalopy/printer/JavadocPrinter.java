@@ -13,8 +13,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.log4j.Level;
 
@@ -23,6 +21,7 @@ import antlr.Token;
 import antlr.collections.AST;
 
 import de.hunsicker.jalopy.language.JavaNodeHelper;
+import de.hunsicker.jalopy.language.JavadocParserPool;
 import de.hunsicker.jalopy.language.Recognizer;
 import de.hunsicker.jalopy.language.TreeWalker;
 import de.hunsicker.jalopy.language.antlr.ExtendedToken;
@@ -36,7 +35,7 @@ import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
 import de.hunsicker.jalopy.storage.Environment;
 import de.hunsicker.jalopy.storage.Loggers;
-import de.hunsicker.util.Lcs;
+import de.hunsicker.util.FuzzyMatcher;
 import de.hunsicker.util.StringHelper;
 
 /**
@@ -61,9 +60,6 @@ final class JavadocPrinter extends AbstractPrinter {
     /** Indicates that the description section was printed last. */
     private static final int DESCRIPTION = 1;
 
-    /** The empty String array. */
-    private static final String[] EMPTY_STRING_ARRAY = new String[0];
-
     /** The remove tag obsolete key */
     private static final String KEY_TAG_REMOVE_OBSOLETE = "TAG_REMOVE_OBSOLETE" /* NOI18N */;
 
@@ -80,10 +76,6 @@ final class JavadocPrinter extends AbstractPrinter {
     /** The close paragraph key */
     private static final String TAG_CPARA = "</p>" /* NOI18N */;
 
-    /** The pattern for keys */
-    protected static Pattern _pattern = Pattern.compile(
-        "(?: )*([a-zA-z0-9_.]*)\\s*(.*)" /* NOI18N */);
-
     /** The break iterator to use for realigning the comment texts. */
     private ThreadLocal _stringBreaker = new ThreadLocal() {
         protected Object initialValue() {
@@ -92,8 +84,17 @@ final class JavadocPrinter extends AbstractPrinter {
     } // end new
     ;
 
+    /** The matcher to use for correcting misspelled parameter names. */
+    private ThreadLocal _matcher = new ThreadLocal() {
+        protected Object initialValue() {
+            return new FuzzyMatcher(75);
+        } // end initialValue()
+    } // end new
+    ;
+
     /**
-     * The break iterator
+     * The break iterator. Remembers the positions of the next tab and break tags found
+     * so the text is scanned only once, no matter how many boundaries are requested.
      *
      * @version 1.0
      */
@@ -107,6 +108,9 @@ final class JavadocPrinter extends AbstractPrinter {
         /** TODO DOCUMENT ME! */
         public static final int DONE = -10;
 
+        /** Indicates that a position has not been searched for yet. */
+        private static final int UNKNOWN = -2;
+
         /** TODO DOCUMENT ME! */
         private static final String TAG_BREAK = "<br>" /* NOI18N */;
 
@@ -125,6 +129,18 @@ final class JavadocPrinter extends AbstractPrinter {
         /** TODO DOCUMENT ME! */
         private int _pos = -1;
 
+        /** Position of the next blank. */
+        private int _blank = UNKNOWN;
+
+        /** Position of the next tab. */
+        private int _tab = UNKNOWN;
+
+        /** Position of the next &lt;br&gt; tag. */
+        private int _break = UNKNOWN;
+
+        /** Position of the next &lt;br/&gt; tag. */
+        private int _breakWell = UNKNOWN;
+
         /**
          * TODO Creates a new BreakIterator object.
          */
@@ -146,20 +162,22 @@ final class JavadocPrinter extends AbstractPrinter {
          * @return DOCUMENT ME!
          */
         public int next() {
+            int start = _end + 1;
+
             _type = WHITESPACE;
-            _pos = _text.indexOf(' ', _end + 1);
+            _pos = _blank = indexOf(_blank, ' ', start);
 
             if (_pos > -1) {
-                int tab = _text.indexOf('\t', _end + 1);
+                int tab = _tab = indexOf(_tab, '\t', start);
 
                 if ((tab > -1) && (tab < _pos)) {
                     _pos = tab;
                 } // end if
 
-                int br = _text.indexOf(TAG_BREAK, _end + 1);
+                int br = _break = indexOf(_break, TAG_BREAK, start);
 
                 if (br == -1) {
-                    br = _text.indexOf(TAG_BREAK_WELL, _end + 1);
+                    br = _breakWell = indexOf(_breakWell, TAG_BREAK_WELL, start);
                 } // end if
 
                 if ((br > -1) && (br < _pos)) {
@@ -184,6 +202,10 @@ final class JavadocPrinter extends AbstractPrinter {
             _text = null;
             _end = -1;
             _pos = -1;
+            _blank = UNKNOWN;
+            _tab = UNKNOWN;
+            _break = UNKNOWN;
+            _breakWell = UNKNOWN;
         } // end reset()
 
         /**
@@ -194,6 +216,44 @@ final class JavadocPrinter extends AbstractPrinter {
         public void setText(String text) {
             _text = text;
         } // end setText()
+
+        /**
+         * Returns the position of the given character at or after the given offset.
+         *
+         * @param cached the position found by the last search.
+         * @param character the character to search for.
+         * @param offset the offset to start the search at.
+         *
+         * @return the position of the character, <code>-1</code> if there is none.
+         */
+        private int indexOf(int  cached,
+                            char character,
+                            int  offset) {
+            if ((cached == -1) || (cached >= offset)) {
+                return cached;
+            } // end if
+
+            return _text.indexOf(character, offset);
+        } // end indexOf()
+
+        /**
+         * Returns the position of the given string at or after the given offset.
+         *
+         * @param cached the position found by the last search.
+         * @param str the string to search for.
+         * @param offset the offset to start the search at.
+         *
+         * @return the position of the string, <code>-1</code> if there is none.
+         */
+        private int indexOf(int    cached,
+                            String str,
+                            int    offset) {
+            if ((cached == -1) || (cached >= offset)) {
+                return cached;
+            } // end if
+
+            return _text.indexOf(str, offset);
+        } // end indexOf()
     } // end BreakIterator
 
     /**
@@ -297,41 +357,44 @@ final class JavadocPrinter extends AbstractPrinter {
 
         // output Javadoc comment as multi-comment
         else if (!formatJavadoc) {
-            String[] lines = StringHelper.split(comment.getText(), out.originalLineSeparator);
+            String text      = comment.getText();
+            String separator = out.originalLineSeparator;
+
+            for (int start = 0;;) {
+                int end  = text.indexOf(separator, start);
+                int last = (end == -1) ? text.length() : end;
+                int off  = start;
+
+                while ((off < last) && (text.charAt(off) <= ' ')) {
+                    off++;
+                } // end while
 
-            for (int i = 0; i < lines.length; i++) {
-                if (lines[i].trim().startsWith("*")) {
-                    out.print(" " + lines[i].trim(), JavadocTokenTypes.JAVADOC_COMMENT);
+                if ((off < last) && (text.charAt(off) == '*')) {
+                    while (text.charAt(last - 1) <= ' ') {
+                        last--;
+                    } // end while
+
+                    out.print(" " + text.substring(off, last),
+                              JavadocTokenTypes.JAVADOC_COMMENT);
                 } // end if
                 else {
-                    out.print(lines[i], JavadocTokenTypes.JAVADOC_COMMENT);
+                    out.print(text.substring(start, last),
+                              JavadocTokenTypes.JAVADOC_COMMENT);
                 } // end else
-                if ((i + 1) != lines.length) {
-                    out.printNewline();
-                }
+
+                if (end == -1) {
+                    break;
+                } // end if
+
+                out.printNewline();
+                start = end + separator.length();
             } // end for
         } // end else if
         else {
-            // The javadoc hasnt been parsed so...
-            Recognizer _recognizer = out.getCompositeFactory().getRecognizer();
-            String     t           = comment.getText();
-
-            _recognizer.setLine(node.getLine());
-            _recognizer.setColumn(node.getColumn());
-            _recognizer.parse(t, out.filename);
-            comment = _recognizer.getParseTree();
-
-//                        // ignore empty comments
-//                        if (comment != JavadocParser.EMPTY_JAVADOC_COMMENT)
-//                        {
-//                            node = _factory.getExtendedTokenFactory().create(JavaTokenTypes.JAVADOC_COMMENT, t);
-//                            ((ExtendedToken)node).comment = comment;
-//                            comment.setText(t);
-//                            
-//                        }
-//                        else {
-//                            return; //node.setType(Token.SKIP);
-//                        }
+            String t = comment.getText();
+
+            comment = getParseTree(comment, out);
+
             out.print(getTopString(node.getType()), JavadocTokenTypes.JAVADOC_COMMENT);
 
             String bottomText = getBottomString(node.getType());
@@ -394,6 +457,55 @@ final class JavadocPrinter extends AbstractPrinter {
         } // end else
     } // end print()
 
+    /**
+     * Returns the parse tree of the given Javadoc comment. The lexer keeps Javadoc
+     * comments as raw text, the tree is only built when a comment actually needs to be
+     * reformatted. Once built, the tree is attached to the comment so subsequent
+     * requests for the same comment don't parse it again.
+     *
+     * @param comment the raw Javadoc comment.
+     * @param out stream the comment will be printed to.
+     *
+     * @return the parse tree of the comment.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private AST getParseTree(AST        comment,
+                             NodeWriter out)
+                      throws IOException {
+        AST tree = comment.getFirstChild();
+
+        if (tree != null) {
+            return tree;
+        } // end if
+
+        // the lexer records the position of the comment token
+        int line = ((Node)comment).getStartLine();
+        int column = ((Node)comment).getStartColumn();
+        JavadocParserPool pool = out.getCompositeFactory().getJavadocParserPool();
+
+        if (pool != null) {
+            tree = pool.get(comment, line, column);
+        } // end if
+
+        // not parsed in the background, so do it now
+        if (tree == null) {
+            Recognizer recognizer = out.getCompositeFactory().getRecognizer();
+
+            recognizer.setLine(line);
+            recognizer.setColumn(column);
+            recognizer.parse(comment.getText(), out.filename);
+            tree = recognizer.getParseTree();
+        } // end if
+
+        // the empty comment marker is shared and must not be attached
+        if (tree != JavadocParser.EMPTY_JAVADOC_COMMENT) {
+            comment.setFirstChild(tree);
+        } // end if
+
+        return tree;
+    } // end getParseTree()
+
     /**
      * Returns all valid type names for the given node found as a sibling of the given
      * node (i.e. all exception or parameter types depending on the node).
@@ -752,10 +864,11 @@ LOOP:
 
                 AST tag = (AST)wrongOrObsolete.get(i);
 
-                // if the tag name was mispelled, it has been corrected, so add
-                // it to the list
-                correctTagName(tag, validNames, next, asterix, last, out);
-                result.set(next, tag);
+                // if the tag name was mispelled, add a corrected copy to the
+                // list
+                result.set(
+                    next,
+                    correctTagName(tag, validNames, next, asterix, last, out));
             } // end for
 
             int emptySlots = validNames.size() - getEmptySlotCount(result);
@@ -840,8 +953,7 @@ LOOP:
                 if ((tag == null) || (tag.getFirstChild() == null)) {
                     AST wrongTag = (AST)wrongOrObsolete.remove(0);
 
-                    correctTagName(wrongTag, validNames, i, asterix, last, out);
-                    tag = wrongTag;
+                    tag = correctTagName(wrongTag, validNames, i, asterix, last, out);
                 } // end if
 
                 // make sure the tag is at the correct position
@@ -888,7 +1000,9 @@ LOOP:
     } // end checkTags()
 
     /**
-     * Corrects the tag name of the given Javadoc standard tag.
+     * Corrects the tag name of the given Javadoc standard tag. The parse tree of a
+     * comment is kept and printed again (e.g. when measuring), so the tag itself is left
+     * untouched and a corrected copy is returned.
      *
      * @param wrongTag the tag node to correct.
      * @param validNames list with all valid tag names for the method/ctor.
@@ -897,15 +1011,16 @@ LOOP:
      * @param last type of tag that was printed last.
      * @param out stream to write to.
      *
-     * @return index of the corrected tag in the list with valid names.
+     * @return the corrected copy of the tag.
      */
-    private int correctTagName(AST        wrongTag,
+    private AST correctTagName(AST        wrongTag,
                                List       validNames,
                                int        index,
                                String     asterix,
                                int        last,
                                NodeWriter out) {
-        AST child = wrongTag.getFirstChild();
+        AST child  = wrongTag.getFirstChild();
+        AST result = out.getCompositeFactory().getNodeFactory().create(wrongTag);
 
         if (child != null) {
             // get the whole description text
@@ -947,8 +1062,11 @@ LOOP:
                 out.state.args,
                 null);
 
-            text = SPACE + newName + text.substring(offset);
-            child.setText(text);
+            AST description = out.getCompositeFactory().getNodeFactory().create(child);
+
+            description.setText(SPACE + newName + text.substring(offset));
+            description.setNextSibling(child.getNextSibling());
+            result.setFirstChild(description);
         } // end if
         else {
             String newName = (String)validNames.get(index);
@@ -956,10 +1074,10 @@ LOOP:
             Node   c       = (Node)out.getJavaNodeFactory()
                                       .create(JavadocTokenTypes.PCDATA, text);
 
-            wrongTag.setFirstChild(c);
+            result.setFirstChild(c);
         } // end else
 
-        return index;
+        return result;
     } // end correctTagName()
 
     /**
@@ -1130,7 +1248,7 @@ LOOP:
             } // end if
         } // end if
 
-        String[] lines = split(text, maxwidth, out.column, true);
+        int columnStart = out.column;
 
         // Print the forced new line
         if (newLine) {
@@ -1141,21 +1259,8 @@ LOOP:
             } // end if
         } // end if
 
-        if (lines.length > 1) {
-            for (int x = 0; x < lines.length; x++) {
-                out.print(lines[x], nodeType);
-                if ((x + 1) < lines.length) {
-                    out.printNewline();
-                    out.print(asterix, JavadocTokenTypes.JAVADOC_COMMENT);
-                    if (length > 0) {
-                        out.print(out.getString(length + 1), JavaTokenTypes.WS);
-                    } // end if
-                } // end if
-            } // end for
-        } // end if
-        else if (lines.length == 1) {
-            out.print(lines[0], nodeType);
-        } // end else if
+        printWrapped(text, maxwidth, columnStart, nodeType, asterix,
+                     (length > 0) ? out.getString(length + 1) : null, out);
 
         if (newLineAfter) {
             out.printNewline();
@@ -1284,24 +1389,12 @@ LOOP:
             return string;
         } // end if
 
-        Lcs lcs = new Lcs();
-
-        for (int i = 0, size = list.size(); i < size; i++) {
-            String tag = (String)list.get(i);
-
-            lcs.init(string, tag);
-
-            double similarity = lcs.getPercentage();
+        FuzzyMatcher matcher = (FuzzyMatcher)_matcher.get();
 
 /**
-             * @todo evaluate whether this is appropriate
-             */
-            if (similarity > 75.0) {
-                return tag;
-            } // end if
-        } // end for
-
-        return null;
+         * @todo evaluate whether this is appropriate
+         */
+        return matcher.getMatch(string, list);
     } // end getMatch()
 
     /**
@@ -1709,61 +1802,44 @@ LOOP:
     } // end printComment()
 
     /**
-     * Prints the given lines. Prepends a leading asterix in front of each line.
-     *
-     * @param lines lines to print.
-     * @param asterix the leading asterix.
-     * @param out stream to write to.
-     *
-     * @throws IOException if an I/O error occured.
-     */
-    private void printCommentLines(String[]   lines,
-                                   String     asterix,
-                                   NodeWriter out)
-                            throws IOException {
-        printCommentLines(lines, asterix, out, false);
-    } // end printCommentLines()
-
-    /**
-     * Prints the individual comment lines.
-     *
-     * @param lines the comment lines.
-     * @param asterix asterix to prepend before each line.
+     * Prints the given region of a comment text as one comment line. Whitespace before a
+     * leading asterix is removed together with the asterix. If the line does not fit
+     * into the current line, a newline and the given asterix are printed first.
+     *
+     * @param text the comment text.
+     * @param start the start offset of the line (inclusive).
+     * @param end the end offset of the line (exclusive).
+     * @param asterix the leading asterix, may be <code>null</code>.
+     * @param maxColumn the maximal column.
      * @param out stream to write to.
-     * @param trim if <code>true</code> each line will be trimmed.
      *
      * @throws IOException if an I/O error occured.
      */
-    private void printCommentLines(String[]   lines,
-                                   String     asterix,
-                                   NodeWriter out,
-                                   boolean    trim)
-                            throws IOException {
-        int maxColumn = AbstractPrinter.settings.getInt(
-            ConventionKeys.LINE_LENGTH,
-            ConventionDefaults.LINE_LENGTH);
-
-        if (trim) {
-            for (int i = 0; i < lines.length; i++) {
-                if ((asterix != null) && ((out.column + lines[i].length()) > maxColumn)) {
-                    out.printNewline();
-                    out.print(asterix, JavadocTokenTypes.PCDATA);
-                } // end if
+    private void printCommentLine(String     text,
+                                  int        start,
+                                  int        end,
+                                  String     asterix,
+                                  int        maxColumn,
+                                  NodeWriter out)
+                           throws IOException {
+        int offset = start;
+
+        while ((offset < end) &&
+               ((text.charAt(offset) == ' ') || (text.charAt(offset) == '\t'))) {
+            offset++;
+        } // end while
+
+        if ((offset < end) && (text.charAt(offset) == '*')) {
+            start = offset + 1;
+        } // end if
 
-                out.print(lines[i].trim(), JavadocTokenTypes.PCDATA);
-            } // end for
+        if ((asterix != null) && ((out.column + end - start) > maxColumn)) {
+            out.printNewline();
+            out.print(asterix, JavadocTokenTypes.PCDATA);
         } // end if
-        else {
-            for (int i = 0; i < lines.length; i++) {
-                if ((asterix != null) && ((out.column + lines[i].length()) > maxColumn)) {
-                    out.printNewline();
-                    out.print(asterix, JavadocTokenTypes.PCDATA);
-                } // end if
 
-                out.print(lines[i], JavadocTokenTypes.PCDATA);
-            } // end for
-        } // end else
-    } // end printCommentLines()
+        out.print(text.substring(start, end), JavadocTokenTypes.PCDATA);
+    } // end printCommentLine()
 
     /**
      * Prints the content of the description section.
@@ -2196,9 +2272,24 @@ SELECTION:
                                    String     asterix,
                                    NodeWriter out)
                             throws IOException {
-        String[] lines = split(node.getText(), out.originalLineSeparator, '*');
+        String text      = node.getText();
+        String separator = out.originalLineSeparator;
+        int    maxColumn = AbstractPrinter.settings.getInt(
+            ConventionKeys.LINE_LENGTH,
+            ConventionDefaults.LINE_LENGTH);
+
+        for (int start = 0;;) {
+            int end = text.indexOf(separator, start);
+
+            if (end == -1) {
+                printCommentLine(text, start, text.length(), asterix, maxColumn, out);
+                break;
+            } // end if
+
+            printCommentLine(text, start, end, asterix, maxColumn, out);
+            start = end + separator.length();
+        } // end for
 
-        printCommentLines(lines, asterix, out);
         out.last = JavadocTokenTypes.PRE;
     } // end printPreformatted()
 
@@ -2550,32 +2641,14 @@ SELECTION:
 
             // normalize the description if this is not an auto-generated tag
             if (normalize && (description.charAt(0) != '@')) {
-                Matcher matcher = _pattern.matcher(description);
-
-                if (matcher.matches()) {
-                    if (matcher.group(1) != null) {
-                        StringBuffer buf = new StringBuffer(description.length());
-
-                        buf.append(matcher.group(1));
-                        buf.append(SPACE);
-                        buf.append(matcher.group(2));
-
-                        description = buf.toString();
-                    } // end if
-                } // end if
+                description = normalizeDescription(description);
             } // end if
 
-            int      length = name.length();
-            String[] lines  = split(description.trim(), maxwidth - length - 1, 0, true);
+            int length = name.length();
 
-            for (int i = 0, size = lines.length - 1; i < size; i++) {
-                out.print(lines[i], JavadocTokenTypes.JAVADOC_COMMENT);
-                out.printNewline();
-                out.print(asterix, JavadocTokenTypes.JAVADOC_COMMENT);
-                out.print(out.getString(length + 1), JavaTokenTypes.WS);
-            } // end for
-
-            out.print(lines[lines.length - 1], JavadocTokenTypes.JAVADOC_COMMENT);
+            printWrapped(description, maxwidth - length - 1, 0,
+                         JavadocTokenTypes.JAVADOC_COMMENT, asterix,
+                         out.getString(length + 1), out);
         } // end if
 
 /**
@@ -2583,6 +2656,74 @@ SELECTION:
          */
     } // end printTagDescription()
 
+    /**
+     * Strips the leading blanks of the given tag description and any whitespace between
+     * its first word and the remaining text. A description with a line break after the
+     * first word and its trailing whitespace is returned unchanged.
+     *
+     * @param description the description of a tag.
+     *
+     * @return the normalized description.
+     */
+    private String normalizeDescription(String description) {
+        int length = description.length();
+        int start  = 0;
+
+        while ((start < length) && (description.charAt(start) == ' ')) {
+            start++;
+        } // end while
+
+        int end = start;
+
+        while (end < length) {
+            char c = description.charAt(end);
+
+            if (((c >= 'A') && (c <= 'z')) || ((c >= '0') && (c <= '9')) || (c == '.')) {
+                end++;
+            } // end if
+            else {
+                break;
+            } // end else
+        } // end while
+
+        int rest = end;
+
+SKIP_WHITESPACE: 
+        while (rest < length) {
+            switch (description.charAt(rest)) {
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\u000b':
+                case '\f':
+                case '\r':
+                    rest++;
+                    break;
+                default:
+                    break SKIP_WHITESPACE;
+            } // end switch
+        } // end while
+
+        for (int i = rest; i < length; i++) {
+            switch (description.charAt(i)) {
+                case '\n':
+                case '\r':
+                case '\u0085':
+                case '\u2028':
+                case '\u2029':
+                    return description;
+            } // end switch
+        } // end for
+
+        StringBuffer buf = new StringBuffer(length);
+
+        buf.append(description.substring(start, end));
+        buf.append(SPACE);
+        buf.append(description.substring(rest));
+
+        return buf.toString();
+    } // end normalizeDescription()
+
     /**
      * Prints all tags of the given comment.
      *
@@ -3090,69 +3231,35 @@ LOOP:
     } // end shouldHaveNewlineBefore()
 
     /**
-     * Splits the given string into tokens.
+     * Prints the given text wrapped into multiple lines. The lines are printed directly
+     * from the text, without splitting it first.
      *
-     * @param str string to split into tokens.
-     * @param delim the delimeter to use for splitting.
-     * @param character if <code>character > -1</code> all leading whitespace before the
-     *        character will be removed.
-     *
-     * @return 1.0b8
-     */
-    private String[] split(String str,
-                           String delim,
-                           char   character) {
-        if (character > -1) {
-            int  startOffset = 0;
-            int  endOffset   = -1;
-            int  sepLength   = delim.length();
-            List lines       = new ArrayList(15);
-
-            while ((endOffset = str.indexOf(delim, startOffset)) > -1) {
-                String line = str.substring(startOffset, endOffset);
-
-                lines.add(trimLeadingWhitespace(line, character));
-                startOffset = endOffset + sepLength;
-            } // end while
-
-            if (startOffset > 0) {
-                String line = trimLeadingWhitespace(str.substring(startOffset), character);
-
-                lines.add(line);
-            } // end if
-            else {
-                lines.add(trimLeadingWhitespace(str, character));
-            } // end else
-
-            return (String[])lines.toArray(EMPTY_STRING_ARRAY);
-        } // end if
-        return StringHelper.split(str, delim);
-    } // end split()
-
-    /**
-     * Splits the given string into multiple lines.
-     *
-     * @param str the string to split.
+     * @param text the text to print.
      * @param width the maximum width of each line.
-     * @param columnStart DOCUMENT ME!
-     * @param trim if <code>true</code> the individual lines will be trimmed.
+     * @param columnStart the column the first line starts at.
+     * @param type the type to print the lines with.
+     * @param asterix the leading asterix to print before each successive line.
+     * @param indent the indentation to print after the leading asterix, may be
+     *        <code>null</code>.
+     * @param out stream to write to.
      *
-     * @return array with the splitted lines.
+     * @throws IOException if an I/O error occured.
      *
      * @since 1.0b8
      */
-    private String[] split(String  str,
-                           int     width,
-                           int     columnStart,
-                           boolean trim) {
-        List lines = new ArrayList();
-
-        if (trim) {
-            str = str.trim();
-        } // end if
+    private void printWrapped(String     text,
+                              int        width,
+                              int        columnStart,
+                              int        type,
+                              String     asterix,
+                              String     indent,
+                              NodeWriter out)
+                       throws IOException {
+        String str    = text.trim();
+        int    length = str.length();
 
-        if ((str.length() + columnStart) < width) {
-            lines.add(str);
+        if ((length + columnStart) < width) {
+            out.print(str, type);
         } // end if
         else {
             BreakIterator iterator = (BreakIterator)_stringBreaker.get();
@@ -3160,9 +3267,10 @@ LOOP:
             try {
                 iterator.setText(str);
 
-                int lineStart = 0;
-                int nextStart = iterator.next();
-                int prevStart = 0;
+                int     lineStart = 0;
+                int     nextStart = iterator.next();
+                int     prevStart = 0;
+                boolean first     = true;
 
                 do {
 MOVE_FORWARD: 
@@ -3185,72 +3293,84 @@ MOVE_FORWARD:
                     if (nextStart == BreakIterator.DONE) {
                         // if the text before and after the last space fits
                         // into the max width, just print it on one line
-                        if (((prevStart - lineStart) + (str.length() - prevStart) +
+                        if (((prevStart - lineStart) + (length - prevStart) +
                             columnStart) < width) {
-                            lines.add(str.substring(lineStart, str.length()).trim());
+                            printLine(str, lineStart, length, first, type, asterix,
+                                      indent, out);
                         } // end if
+                        else if ((prevStart > 0) && (prevStart != BreakIterator.DONE)) {
+                            printLine(str, lineStart, prevStart, first, type, asterix,
+                                      indent, out);
+                            printLine(str, prevStart, length, false, type, asterix,
+                                      indent, out);
+                        } // end else if
                         else {
-                            if ((prevStart > 0) && (prevStart != BreakIterator.DONE)) {
-                                if (trim) {
-                                    lines.add(str.substring(lineStart, prevStart).trim());
-                                    lines.add(str.substring(prevStart).trim());
-                                } // end if
-                                else {
-                                    lines.add(str.substring(lineStart, prevStart));
-                                    lines.add(str.substring(prevStart));
-                                } // end else
-                            } // end if
-                            else {
-                                if (trim) {
-                                    lines.add(str.substring(lineStart).trim());
-                                } // end if
-                                else {
-                                    lines.add(str.substring(lineStart));
-                                } // end else
-                            } // end else
+                            printLine(str, lineStart, length, first, type, asterix,
+                                      indent, out);
                         } // end else
 
-                        prevStart = str.length();
+                        prevStart = length;
                     } // end if
                     else {
-                        if (trim) {
-                            lines.add(str.substring(lineStart, prevStart).trim());
-                        } // end if
-                        else {
-                            lines.add(str.substring(lineStart, prevStart));
-                        } // end else
+                        printLine(str, lineStart, prevStart, first, type, asterix,
+                                  indent, out);
                     } // end else
 
                     lineStart = prevStart;
                     prevStart = 0;
                     columnStart = 0;
+                    first = false;
                 } // end do
-                while (lineStart < str.length());
+                while (lineStart < length);
             } // end try
             finally {
                 iterator.reset();
             } // end finally
         } // end else
-
-        return (String[])lines.toArray(EMPTY_STRING_ARRAY);
-    } // end split()
+    } // end printWrapped()
 
     /**
-     * TODO DOCUMENT ME!
-     *
-     * @param str DOCUMENT ME!
-     * @param character DOCUMENT ME!
+     * Prints the trimmed region of the given text as one line of a wrapped text.
+     *
+     * @param text the wrapped text.
+     * @param start the start offset of the line (inclusive).
+     * @param end the end offset of the line (exclusive).
+     * @param first if <code>true</code> the line is the first line of the text,
+     *        otherwise a newline, the leading asterix and the indentation are printed
+     *        before.
+     * @param type the type to print the line with.
+     * @param asterix the leading asterix.
+     * @param indent the indentation to print after the leading asterix, may be
+     *        <code>null</code>.
+     * @param out stream to write to.
      *
-     * @return DOCUMENT ME!
+     * @throws IOException if an I/O error occured.
      */
-    private String trimLeadingWhitespace(String str,
-                                         char   character) {
-        int off = StringHelper.indexOfNonWhitespace(str);
+    private void printLine(String     text,
+                           int        start,
+                           int        end,
+                           boolean    first,
+                           int        type,
+                           String     asterix,
+                           String     indent,
+                           NodeWriter out)
+                    throws IOException {
+        while ((start < end) && (text.charAt(start) <= ' ')) {
+            start++;
+        } // end while
+
+        while ((end > start) && (text.charAt(end - 1) <= ' ')) {
+            end--;
+        } // end while
 
-        if ((off > -1) && (str.charAt(off) == character)) {
-            return str.substring(off + 1);
+        if (!first) {
+            out.printNewline();
+            out.print(asterix, JavadocTokenTypes.JAVADOC_COMMENT);
+            if (indent != null) {
+                out.print(indent, JavaTokenTypes.WS);
+            } // end if
         } // end if
 
-        return str;
-    } // end trimLeadingWhitespace()
+        out.print(text.substring(start, end), type);
+    } // end printLine()
 } // end JavadocPrinter
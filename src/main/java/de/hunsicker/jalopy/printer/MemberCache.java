@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import antlr.CommonHiddenStreamToken;
+import antlr.collections.AST;
+import de.hunsicker.jalopy.language.JavaNodeHelper;
+import de.hunsicker.jalopy.language.antlr.JavaNode;
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.Convention;
+
+
+/**
+ * Keeps the printed methods and constructors of a file between formatting runs, so
+ * members that did not change need not be printed again.
+ *
+ * <p>
+ * A member is looked up by the signature of its subtree, which records the comments,
+ * the relative positions of its nodes, the member before and the enclosing types, and
+ * by the state of the writer (indent level, pending newlines and the like) before the
+ * member. A hash of the signature finds the entry, the signature itself is compared on
+ * every hit, so colliding hashes never take over the wrong text. The cache is dropped
+ * whenever the code convention changes. Members that contain nodes whose positions are
+ * tracked are always printed.
+ * </p>
+ *
+ * <p>
+ * Only the members printed or taken over in the last run are kept. Messages logged
+ * while a member was printed are not logged again when it is taken over, and
+ * environment variables that change between runs, like the date, keep the value they
+ * had when the member was printed.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+public final class MemberCache
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The offset basis of the 64-bit FNV-1a hash. */
+    private static final long FNV_BASIS = 0xcbf29ce484222325L;
+
+    /** The prime of the 64-bit FNV-1a hash. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** If <code>true</code> all signatures hash to the same value (for the tests). */
+    static boolean collide;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The members printed or taken over in the current run. */
+    private Map _current = new HashMap(); // Map of <Key:Entry>
+
+    /** The members printed or taken over in the former run. */
+    private Map _former = new HashMap(); // Map of <Key:Entry>
+
+    /** The modification count of the code convention the members were printed with. */
+    private int _modCount = -1;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new MemberCache object.
+     */
+    public MemberCache()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Prepares the cache for printing the file again.
+     */
+    public void begin()
+    {
+        int modCount = Convention.getInstance().getModificationCount();
+
+        if (modCount == _modCount)
+        {
+            _former = _current;
+        }
+        else
+        {
+            _former = new HashMap();
+            _modCount = modCount;
+        }
+
+        _current = new HashMap(_former.size() * 2);
+    }
+
+
+    /**
+     * Prints the given member of a class body, or takes it over from the former run if
+     * neither the member nor the state of the writer changed.
+     *
+     * @param member a member of a class body.
+     * @param out stream to write to.
+     *
+     * @return <code>true</code> if the member was printed, <code>false</code> if it
+     *         cannot be cached and is still to be printed.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    boolean print(
+        AST        member,
+        NodeWriter out)
+      throws IOException
+    {
+        if (!isApplicable((JavaNode) member, out))
+        {
+            return false;
+        }
+
+        MemberState start = new MemberState(out);
+
+        if (!start.quiet || !start.isDetachable())
+        {
+            return false;
+        }
+
+        String signature = signature((JavaNode) member);
+        Key key = new Key(hash(signature), start);
+        Entry entry = (Entry) _former.get(key);
+
+        if ((entry != null) && entry.signature.equals(signature))
+        {
+            out.write(entry.text, 0, entry.text.length);
+
+            int line = out.line;
+            entry.end.restore(out);
+            out.line = line + entry.lines;
+            _current.put(key, entry);
+
+            return true;
+        }
+
+        CharArrayWriter buffer = new CharArrayWriter(1024);
+        Writer target = out.redirect(buffer);
+
+        try
+        {
+            PrinterFactory.create(member, out).print(member, out);
+        }
+        finally
+        {
+            out.redirect(target);
+        }
+
+        char[] text = buffer.toCharArray();
+        out.write(text, 0, text.length);
+
+        MemberState end = new MemberState(out);
+
+        if (end.quiet && end.isDetachable())
+        {
+            _current.put(
+                new Key(key.hash, start.detach()),
+                new Entry(signature, text, end.detach(), out.line - start.line));
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Determines whether the given member may be taken over from the former run.
+     *
+     * @param member a member of a class body.
+     * @param out stream to write to.
+     *
+     * @return <code>true</code> if the member may be taken over.
+     */
+    private static boolean isApplicable(
+        JavaNode   member,
+        NodeWriter out)
+    {
+        if (out.mode != NodeWriter.MODE_DEFAULT)
+        {
+            return false;
+        }
+
+        switch (member.getType())
+        {
+            case JavaTokenTypes.METHOD_DEF :
+            case JavaTokenTypes.CTOR_DEF :
+                break;
+
+            default :
+                return false;
+        }
+
+        switch (member.getParent().getParent().getType())
+        {
+            case JavaTokenTypes.CLASS_DEF :
+            case JavaTokenTypes.INTERFACE_DEF :
+                break;
+
+            default :
+                return false;
+        }
+
+        // the code inspector reports the issues at the line the nodes were printed
+        if ((out.issues != null) && !out.issues.isEmpty())
+        {
+            return false;
+        }
+
+        return !out.tracking || !isTracked(member);
+    }
+
+
+    /**
+     * Determines whether the given node or one of its descendants needs its position
+     * tracked.
+     *
+     * @param node a node.
+     *
+     * @return <code>true</code> if a node needs its position tracked.
+     */
+    private static boolean isTracked(JavaNode node)
+    {
+        if ((node.getPosition() != null) || node.hasAnnotations())
+        {
+            return true;
+        }
+
+        for (
+            JavaNode child = (JavaNode) node.getFirstChild(); child != null;
+            child = (JavaNode) child.getNextSibling())
+        {
+            if (isTracked(child))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Returns the signature of the given member.
+     *
+     * @param member a member of a class body.
+     *
+     * @return the signature of the member.
+     */
+    private static String signature(JavaNode member)
+    {
+        int base = member.getStartLine();
+        StringBuffer buf = new StringBuffer(512);
+
+        // the blank lines before the member depend on the member before
+        JavaNode previous = member.getPreviousSibling();
+
+        if (previous != null)
+        {
+            append(buf, previous.getType());
+            append(buf, previous.getEndLine() - base);
+        }
+
+        // generated comments depend on the enclosing types
+        for (JavaNode parent = member.getParent(); parent != null;
+            parent = parent.getParent())
+        {
+            append(buf, parent.getType());
+
+            switch (parent.getType())
+            {
+                case JavaTokenTypes.CLASS_DEF :
+                case JavaTokenTypes.INTERFACE_DEF :
+
+                    AST identifier =
+                        JavaNodeHelper.getFirstChild(parent, JavaTokenTypes.IDENT);
+
+                    if (identifier != null)
+                    {
+                        append(buf, identifier.getText());
+                    }
+
+                    break;
+            }
+        }
+
+        append(buf, member, base);
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Adds the given node and its descendants to the given signature.
+     *
+     * @param buf the signature so far.
+     * @param node a node.
+     * @param base the line positions are taken relative to.
+     */
+    private static void append(
+        StringBuffer buf,
+        JavaNode     node,
+        int          base)
+    {
+        append(buf, node.getType());
+        append(buf, node.getText());
+        append(buf, node.getStartLine() - base);
+        append(buf, node.getStartColumn());
+        append(buf, node.nlAfter);
+
+        for (
+            CommonHiddenStreamToken t = node.getHiddenBefore(); t != null;
+            t = t.getHiddenBefore())
+        {
+            append(buf, t, base);
+        }
+
+        // separates the comments before from the comments after
+        append(buf, -1);
+
+        for (
+            CommonHiddenStreamToken t = node.getHiddenAfter(); t != null;
+            t = t.getHiddenAfter())
+        {
+            append(buf, t, base);
+        }
+
+        append(buf, -1);
+
+        for (
+            JavaNode child = (JavaNode) node.getFirstChild(); child != null;
+            child = (JavaNode) child.getNextSibling())
+        {
+            append(buf, child, base);
+        }
+
+        // marks the end of the children
+        append(buf, -1);
+    }
+
+
+    /**
+     * Adds the given hidden token to the given signature.
+     *
+     * @param buf the signature so far.
+     * @param token a hidden token.
+     * @param base the line positions are taken relative to.
+     */
+    private static void append(
+        StringBuffer            buf,
+        CommonHiddenStreamToken token,
+        int                     base)
+    {
+        append(buf, token.getType());
+        append(buf, token.getText());
+        append(buf, token.getLine() - base);
+        append(buf, token.getColumn());
+    }
+
+
+    /**
+     * Adds the given string to the given signature, preceded by its length.
+     *
+     * @param buf the signature so far.
+     * @param str a string, may be <code>null</code>.
+     */
+    private static void append(
+        StringBuffer buf,
+        String       str)
+    {
+        if (str == null)
+        {
+            append(buf, -1);
+        }
+        else
+        {
+            append(buf, str.length());
+            buf.append(str);
+        }
+    }
+
+
+    /**
+     * Adds the given value to the given signature.
+     *
+     * @param buf the signature so far.
+     * @param value a value.
+     */
+    private static void append(
+        StringBuffer buf,
+        int          value)
+    {
+        buf.append((char) (value >>> 16)).append((char) value);
+    }
+
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the given signature.
+     *
+     * @param signature the signature of a member.
+     *
+     * @return the hash of the signature.
+     */
+    private static long hash(String signature)
+    {
+        if (collide)
+        {
+            return FNV_BASIS;
+        }
+
+        long hash = FNV_BASIS;
+
+        for (int i = 0, length = signature.length(); i < length; i++)
+        {
+            hash = (hash ^ signature.charAt(i)) * FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * A printed member.
+     */
+    private static final class Entry
+    {
+        /** The state the member left the writer in. */
+        final MemberState end;
+
+        /** The signature of the member. */
+        final String signature;
+
+        /** The printed member. */
+        final char[] text;
+
+        /** The number of lines printed. */
+        final int lines;
+
+        Entry(
+            String      signature,
+            char[]      text,
+            MemberState end,
+            int         lines)
+        {
+            this.signature = signature;
+            this.text = text;
+            this.end = end;
+            this.lines = lines;
+        }
+    }
+
+
+    /**
+     * Identifies a printed member.
+     */
+    private static final class Key
+    {
+        /** The state of the writer before the member. */
+        final MemberState start;
+
+        /** The hash of the signature of the member. */
+        final long hash;
+
+        Key(
+            long        hash,
+            MemberState start)
+        {
+            this.hash = hash;
+            this.start = start;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key) o;
+
+            return (this.hash == other.hash) && this.start.equals(other.start);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode()
+        {
+            return ((int) (this.hash ^ (this.hash >>> 32)) * 31) + this.start.hashCode();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+
+import de.hunsicker.jalopy.language.CompositeFactory;
+import de.hunsicker.jalopy.language.antlr.JavadocParser;
+
+
+/**
+ * The threads and node factories that print the members of large class bodies in
+ * parallel (see {@link ParallelMemberPrinter}). One pool serves the writers of one
+ * formatter, so the workers and their factories are reused for all class bodies and
+ * files it prints.
+ *
+ * <p>
+ * Workers are started on demand and terminate after they have been idle for some time.
+ * Every worker has its own factory that was forked from the factory of the writers,
+ * the calling thread uses one more. The nodes these factories create end up in the
+ * printed tree, so they are recycled once the file has been processed and {@link
+ * #clear} was called.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+public final class MemberPrinterPool
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Time in milliseconds an idle worker waits for new class bodies before it quits. */
+    private static final long KEEP_ALIVE = 5000;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The factory of the writers. */
+    private final CompositeFactory _factory;
+
+    /** The class bodies to help printing, once per requested worker. */
+    private final LinkedList _queue = new LinkedList(); // List of <ParallelMemberPrinter>
+
+    /** The factory of the calling thread, <code>null</code> if not yet created. */
+    private CompositeFactory _own;
+
+    /** The custom standard tags the Javadoc recognizer of the writers knows. */
+    private Collection _standardTags = Collections.EMPTY_SET;
+
+    /** The custom in-line tags the Javadoc recognizer of the writers knows. */
+    private Collection _inlineTags = Collections.EMPTY_SET;
+
+    /** The number of running workers. */
+    private int _threads;
+
+    /** The number of workers waiting for class bodies. */
+    private int _idle;
+
+    /** The current generation, incremented for every processed file. */
+    private int _generation;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new MemberPrinterPool object.
+     *
+     * @param factory the factory of the writers that use the pool.
+     */
+    public MemberPrinterPool(CompositeFactory factory)
+    {
+        _factory = factory;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Lets the factories recycle the nodes they have created so far. Must only be
+     * called after the tree of the current file has been processed.
+     */
+    public synchronized void clear()
+    {
+        _queue.clear();
+        _generation++;
+
+        if (_own != null)
+        {
+            _own.clear();
+        }
+    }
+
+
+    /**
+     * Returns the factory the calling thread prints members with. Must only be called
+     * by the thread that prints the file.
+     *
+     * @return the factory of the calling thread.
+     */
+    CompositeFactory getFactory()
+    {
+        updateTags();
+
+        if (_own == null)
+        {
+            _own = _factory.fork();
+        }
+        else
+        {
+            copyTags(_own, _standardTags, _inlineTags);
+        }
+
+        return _own;
+    }
+
+
+    /**
+     * Requests workers to help printing the given class body.
+     *
+     * @param printer the printer of a class body.
+     * @param workers the number of workers to request.
+     */
+    synchronized void submit(
+        ParallelMemberPrinter printer,
+        int                   workers)
+    {
+        updateTags();
+
+        for (int i = 0; i < workers; i++)
+        {
+            _queue.add(printer);
+        }
+
+        for (int i = _idle; i < _queue.size(); i++)
+        {
+            _threads++;
+
+            Worker worker = new Worker();
+            worker.start();
+        }
+
+        notifyAll();
+    }
+
+
+    /**
+     * Withdraws the requests to help printing the given class body, after all its
+     * members have been taken.
+     *
+     * @param printer the printer of a class body.
+     */
+    synchronized void withdraw(ParallelMemberPrinter printer)
+    {
+        _queue.removeAll(Collections.singleton(printer));
+    }
+
+
+    /**
+     * Returns the next class body to help printing. Waits until one becomes available.
+     *
+     * @return the next class body or <code>null</code> if the calling worker should
+     *         quit.
+     */
+    synchronized ParallelMemberPrinter take()
+    {
+        if (_queue.isEmpty())
+        {
+            _idle++;
+
+            try
+            {
+                wait(KEEP_ALIVE);
+            }
+            catch (InterruptedException ex)
+            {
+                ;
+            }
+            finally
+            {
+                _idle--;
+            }
+
+            if (_queue.isEmpty())
+            {
+                _threads--;
+
+                return null;
+            }
+        }
+
+        return (ParallelMemberPrinter) _queue.removeFirst();
+    }
+
+
+    /**
+     * Takes over the custom tags the Javadoc recognizer of the writers knows. Must only
+     * be called by the thread that prints the file.
+     */
+    private synchronized void updateTags()
+    {
+        if (_factory.getRecognizer() == null)
+        {
+            return;
+        }
+
+        JavadocParser parser = (JavadocParser) _factory.getRecognizer().getParser();
+        Collection standardTags = parser.getStandardTags();
+        Collection inlineTags = parser.getInlineTags();
+
+        if (!_standardTags.equals(standardTags))
+        {
+            _standardTags = Collections.unmodifiableSet(new HashSet(standardTags));
+        }
+
+        if (!_inlineTags.equals(inlineTags))
+        {
+            _inlineTags = Collections.unmodifiableSet(new HashSet(inlineTags));
+        }
+    }
+
+
+    /**
+     * Makes the given tags known to the Javadoc recognizer of the given factory. The
+     * tags of the recognizers only ever grow.
+     *
+     * @param factory a factory forked from the factory of the writers.
+     * @param standardTags the custom standard tags.
+     * @param inlineTags the custom in-line tags.
+     */
+    private static void copyTags(
+        CompositeFactory factory,
+        Collection       standardTags,
+        Collection       inlineTags)
+    {
+        JavadocParser parser = (JavadocParser) factory.getRecognizer().getParser();
+
+        if (!parser.getStandardTags().containsAll(standardTags))
+        {
+            parser.setCustomStandardTags(standardTags);
+        }
+
+        if (!parser.getInlineTags().containsAll(inlineTags))
+        {
+            parser.setCustomInlineTags(inlineTags);
+        }
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * Helps printing class bodies until it has been idle for some time.
+     */
+    private final class Worker
+        extends Thread
+    {
+        /** The factory to create nodes with. */
+        private final CompositeFactory _forked;
+
+        /** The generation of the last class body. */
+        private int _lastGeneration;
+
+        public Worker()
+        {
+            super("Member printer" /* NOI18N */);
+            setDaemon(true);
+            _forked = _factory.fork();
+            _lastGeneration = _generation;
+        }
+
+        public void run()
+        {
+            for (ParallelMemberPrinter printer; (printer = take()) != null;)
+            {
+                Collection standardTags;
+                Collection inlineTags;
+
+                synchronized (MemberPrinterPool.this)
+                {
+                    // the trees of former files are gone, so recycle their nodes
+                    if (_generation != _lastGeneration)
+                    {
+                        _forked.clear();
+                        _lastGeneration = _generation;
+                    }
+
+                    standardTags = _standardTags;
+                    inlineTags = _inlineTags;
+                }
+
+                copyTags(_forked, standardTags, inlineTags);
+                printer.printSegments(_forked);
+            }
+        }
+    }
+}
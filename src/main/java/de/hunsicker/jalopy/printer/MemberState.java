@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.util.Arrays;
+
+import antlr.CommonHiddenStreamToken;
+import de.hunsicker.jalopy.language.antlr.JavaNode;
+
+
+/**
+ * The state of a writer and its cached test writers between two members of a class
+ * body. Printing a member only depends on the member itself and on this state, so the
+ * output of a member can be taken over from another writer that printed it in an equal
+ * state.
+ *
+ * @author Jalopy contributors
+ */
+final class MemberState
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Stands in for the last EXPR node printed in detached states. */
+    private static final JavaNode DETACHED = new JavaNode() {};
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The state the writer shares with its test writers. */
+    final Residue writer;
+
+    /** The states of the cached test writers, in the order they are handed out. */
+    final Residue[] testers;
+
+    /** Indicates whether no markers or parentheses are pending. */
+    final boolean quiet;
+    final boolean anonymousInnerClass;
+    final boolean expressionList;
+    final boolean extendsWrappedBefore;
+    final boolean innerClass;
+    final boolean newlineBeforeLeftBrace;
+    final boolean paramList;
+    final boolean parametersWrapped;
+    final boolean smallIndent;
+    final boolean wrap;
+    final int arrayBrackets;
+    final int assignOffset;
+    final int column;
+    final int indentLevel;
+    final int line;
+    final int paramLevel;
+    final int paramOffset;
+    final int variableOffset;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new MemberState object with the state of the given writer.
+     *
+     * @param out a writer.
+     */
+    MemberState(NodeWriter out)
+    {
+        PrinterState state = out.state;
+        ParenthesesScope scope = (ParenthesesScope) state.parenScope.getFirst();
+        TestNodeWriter[] testers = out.testers.getWriters();
+
+        this.writer = new Residue(out);
+        this.testers = new Residue[testers.length];
+
+        for (int i = 0; i < testers.length; i++)
+        {
+            this.testers[i] = new Residue(testers[i]);
+        }
+
+        this.quiet =
+            (state.markers.count == 0) && (state.parenScope.size() == 1)
+            && state.parentheses.isEmpty() && (scope.level == 0)
+            && (scope.chainCall == null) && !scope.wrap && (scope.chainOffset == 0);
+        this.column = out.column;
+        this.indentLevel = out.indentLevel;
+        this.line = out.line;
+        this.anonymousInnerClass = state.anonymousInnerClass;
+        this.expressionList = state.expressionList;
+        this.extendsWrappedBefore = state.extendsWrappedBefore;
+        this.innerClass = state.innerClass;
+        this.newlineBeforeLeftBrace = state.newlineBeforeLeftBrace;
+        this.paramList = state.paramList;
+        this.parametersWrapped = state.parametersWrapped;
+        this.smallIndent = state.smallIndent;
+        this.wrap = state.wrap;
+        this.arrayBrackets = state.arrayBrackets;
+        this.assignOffset = state.assignOffset;
+        this.paramLevel = state.paramLevel;
+        this.paramOffset = state.paramOffset;
+        this.variableOffset = state.variableOffset;
+    }
+
+
+    /**
+     * Creates a copy of the given state, but for the given states of the writer and its
+     * test writers.
+     *
+     * @param state state to copy.
+     * @param writer the state the writer shares with its test writers.
+     * @param testers the states of the cached test writers.
+     */
+    private MemberState(
+        MemberState state,
+        Residue     writer,
+        Residue[]   testers)
+    {
+        this.writer = writer;
+        this.testers = testers;
+        this.quiet = state.quiet;
+        this.column = state.column;
+        this.indentLevel = state.indentLevel;
+        this.line = state.line;
+        this.anonymousInnerClass = state.anonymousInnerClass;
+        this.expressionList = state.expressionList;
+        this.extendsWrappedBefore = state.extendsWrappedBefore;
+        this.innerClass = state.innerClass;
+        this.newlineBeforeLeftBrace = state.newlineBeforeLeftBrace;
+        this.paramList = state.paramList;
+        this.parametersWrapped = state.parametersWrapped;
+        this.smallIndent = state.smallIndent;
+        this.wrap = state.wrap;
+        this.arrayBrackets = state.arrayBrackets;
+        this.assignOffset = state.assignOffset;
+        this.paramLevel = state.paramLevel;
+        this.paramOffset = state.paramOffset;
+        this.variableOffset = state.variableOffset;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Determines whether this state can be detached from the tree it was taken from:
+     * no comments are pending.
+     *
+     * @return <code>true</code> if this state can be detached.
+     *
+     * @see #detach
+     */
+    boolean isDetachable()
+    {
+        if (this.writer.pendingComment != null)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < this.testers.length; i++)
+        {
+            if (this.testers[i].pendingComment != null)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns a state a writer is expected to be in after the given member, if it was
+     * in this state before the first member of the class body. The member stands in
+     * for the last EXPR node printed, it never contains the nodes that follow.
+     *
+     * @param member a method or constructor.
+     *
+     * @return the expected state.
+     */
+    MemberState after(JavaNode member)
+    {
+        return new MemberState(
+            this, new Residue(this.writer, member.getType(), member), this.testers);
+    }
+
+
+    /**
+     * Returns a copy of this state that does not refer to the nodes of the tree it was
+     * taken from. The copy equals this state.
+     *
+     * @return a detached copy of this state.
+     *
+     * @see #isDetachable
+     */
+    MemberState detach()
+    {
+        Residue[] testers = new Residue[this.testers.length];
+
+        for (int i = 0; i < testers.length; i++)
+        {
+            testers[i] = this.testers[i].detach();
+        }
+
+        return new MemberState(this, this.writer.detach(), testers);
+    }
+
+
+    /**
+     * Sets the given writer and its test writers to this state. The line number is left
+     * untouched.
+     *
+     * @param out a writer.
+     */
+    void restore(NodeWriter out)
+    {
+        PrinterState state = out.state;
+
+        this.writer.restore(out);
+        out.column = this.column;
+        out.indentLevel = this.indentLevel;
+        state.anonymousInnerClass = this.anonymousInnerClass;
+        state.expressionList = this.expressionList;
+        state.extendsWrappedBefore = this.extendsWrappedBefore;
+        state.innerClass = this.innerClass;
+        state.newlineBeforeLeftBrace = this.newlineBeforeLeftBrace;
+        state.paramList = this.paramList;
+        state.parametersWrapped = this.parametersWrapped;
+        state.smallIndent = this.smallIndent;
+        state.wrap = this.wrap;
+        state.arrayBrackets = this.arrayBrackets;
+        state.assignOffset = this.assignOffset;
+        state.paramLevel = this.paramLevel;
+        state.paramOffset = this.paramOffset;
+        state.variableOffset = this.variableOffset;
+        out.testers.setSize(this.testers.length);
+
+        TestNodeWriter[] testers = out.testers.getWriters();
+
+        for (int i = 0; i < testers.length; i++)
+        {
+            this.testers[i].restore(testers[i]);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc} The line number is not compared.
+     */
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof MemberState))
+        {
+            return false;
+        }
+
+        MemberState other = (MemberState) o;
+
+        return this.quiet && other.quiet && this.writer.equals(other.writer)
+        && (this.column == other.column) && (this.indentLevel == other.indentLevel)
+        && (this.anonymousInnerClass == other.anonymousInnerClass)
+        && (this.expressionList == other.expressionList)
+        && (this.extendsWrappedBefore == other.extendsWrappedBefore)
+        && (this.innerClass == other.innerClass)
+        && (this.newlineBeforeLeftBrace == other.newlineBeforeLeftBrace)
+        && (this.paramList == other.paramList)
+        && (this.parametersWrapped == other.parametersWrapped)
+        && (this.smallIndent == other.smallIndent) && (this.wrap == other.wrap)
+        && (this.arrayBrackets == other.arrayBrackets)
+        && (this.assignOffset == other.assignOffset)
+        && (this.paramLevel == other.paramLevel)
+        && (this.paramOffset == other.paramOffset)
+        && (this.variableOffset == other.variableOffset)
+        && Arrays.equals(this.testers, other.testers);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hashCode()
+    {
+        return (this.writer.hashCode() * 31) + (this.indentLevel * 7) + this.column;
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * The part of the state of a writer that test writers keep when they are released.
+     */
+    private static final class Residue
+    {
+        /** The token to print before the next comment. */
+        final CommonHiddenStreamToken pendingComment;
+
+        /** The last EXPR node printed. */
+        final JavaNode expression;
+        final boolean continuation;
+        final boolean newline;
+        final boolean nextNewline;
+        final int blankLines;
+        final int javadocIndent;
+        final int last;
+
+        /**
+         * Creates a new Residue object with the state of the given writer.
+         *
+         * @param out a writer.
+         */
+        Residue(NodeWriter out)
+        {
+            this.last = out.last;
+            this.expression = out.expression;
+            this.pendingComment = out.pendingComment;
+            this.continuation = out.continuation;
+            this.newline = out.newline;
+            this.nextNewline = out.nextNewline;
+            this.blankLines = out.blankLines;
+            this.javadocIndent = out.javadocIndent;
+        }
+
+
+        /**
+         * Creates a copy of the given state, but for the given last printed node.
+         *
+         * @param residue state to copy.
+         * @param last the type of the last printed token.
+         * @param expression the last EXPR node printed.
+         */
+        Residue(
+            Residue  residue,
+            int      last,
+            JavaNode expression)
+        {
+            this.last = last;
+            this.expression = expression;
+            this.pendingComment = residue.pendingComment;
+            this.continuation = residue.continuation;
+            this.newline = residue.newline;
+            this.nextNewline = residue.nextNewline;
+            this.blankLines = residue.blankLines;
+            this.javadocIndent = residue.javadocIndent;
+        }
+
+        /**
+         * Returns a copy of this state that does not refer to the last EXPR node
+         * printed.
+         *
+         * @return a detached copy of this state.
+         */
+        Residue detach()
+        {
+            return new Residue(
+                this, this.last, (this.expression != null) ? DETACHED
+                                                           : null);
+        }
+
+
+        /**
+         * Sets the given writer to this state.
+         *
+         * @param out a writer.
+         */
+        void restore(NodeWriter out)
+        {
+            out.last = this.last;
+            out.expression = this.expression;
+            out.pendingComment = this.pendingComment;
+            out.continuation = this.continuation;
+            out.newline = this.newline;
+            out.nextNewline = this.nextNewline;
+            out.blankLines = this.blankLines;
+            out.javadocIndent = this.javadocIndent;
+        }
+
+
+        /**
+         * {@inheritDoc} The last EXPR nodes are only compared for their existence: the
+         * node printed before a member never contains the nodes of the member. The
+         * number of blank lines is not compared, it is set before it is used.
+         */
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Residue))
+            {
+                return false;
+            }
+
+            Residue other = (Residue) o;
+
+            return (this.last == other.last)
+            && ((this.expression == null) == (other.expression == null))
+            && (this.pendingComment == other.pendingComment)
+            && (this.continuation == other.continuation)
+            && (this.newline == other.newline) && (this.nextNewline == other.nextNewline)
+            && (this.javadocIndent == other.javadocIndent);
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode()
+        {
+            return this.last;
+        }
+    }
+}
@@ -20,7 +20,6 @@ import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
 import de.hunsicker.jalopy.storage.Environment;
-import de.hunsicker.util.StringHelper;
 
 
 /**
@@ -58,9 +57,11 @@ public class NodeWriter
     private static final String LCURLY = "{" /* NOI18N */.intern();
     private static final String RCURLY = "}" /* NOI18N */.intern();
     // TODO private static final String SEMI = ";" /* NOI18N */.intern();
-    private static final String TAB = "\t" /* NOI18N */.intern();
     private static final String EMPTY_STRING = "" /* NOI18N */.intern();
 
+    /** The number of characters buffered before they are written to the stream. */
+    private static final int BUFFER_SIZE = 8192;
+
     //~ Instance variables ---------------------------------------------------------------
 
     /** The code convention settings that controls the output style. */
@@ -125,6 +126,9 @@ public class NodeWriter
     protected int mode = MODE_DEFAULT;
     CommonHiddenStreamToken pendingComment;
 
+    /** The alignment widths, shared with the test writers. */
+    AlignmentAnalyzer alignments;
+
     /** The last EXPR node printed. */
     JavaNode expression;
 
@@ -141,6 +145,15 @@ public class NodeWriter
     /** Indicates whether a tree contains annotations. */
     boolean tracking;
 
+    /** Indicates whether the writer prints members on behalf of another writer. */
+    boolean segment;
+
+    /** The printed members of an earlier run, <code>null</code> if not cached. */
+    MemberCache memberCache;
+
+    /** The workers to print large class bodies with, <code>null</code> if none. */
+    MemberPrinterPool memberPrinters;
+
     //boolean groupingParentheses;
 
     /** The number of blank lines that were printed before the last EXPR node. */
@@ -152,17 +165,27 @@ public class NodeWriter
     /** Number of spaces to use for leading indentation. */
     int leadingIndentSize;
 
-    /** Whitespace to prepend every line. */
-    private String _leadingIndentSizeString;
-
     /** Our right brace. */
     private String _rightBrace;
 
     /** Target output stream. */
     private Writer _out;
 
-    /** Used to generate the indent string. */
-    private char[] _indentChars;
+    /** Holds the output until it is written to the stream in large chunks. */
+    private char[] _buffer;
+
+    /** The number of characters in the buffer. */
+    private int _count;
+
+    /**
+     * The whitespace printed at the beginning of a line, indexed by continuation
+     * (<code>0</code> for no continuation indentation, <code>1</code> otherwise) and
+     * indentation level. Includes the leading indentation.
+     */
+    private char[][][] _prefixes = new char[2][16][];
+
+    /** Strings only comprised of spaces, indexed by length. */
+    private String[] _strings = new String[150];
     
     private CompositeFactory _factory = null;
 
@@ -194,8 +217,10 @@ public class NodeWriter
         this.issues = issues;
         this.lineSeparator = lineSeparator;
         this.originalLineSeparator = originalLineSeparator;
+        this.alignments = new AlignmentAnalyzer();
         this.testers = new WriterCache(factory,this);
         _out = out;
+        _buffer = new char[BUFFER_SIZE];
     }
     
     public CompositeFactory getCompositeFactory() {
@@ -245,24 +270,6 @@ public class NodeWriter
                 ConventionDefaults.INDENT_WITH_TABS_ONLY_LEADING);
         this.footer =
             AbstractPrinter.settings.getBoolean(ConventionKeys.FOOTER, ConventionDefaults.FOOTER);
-        _indentChars = new char[150];
-
-        for (int i = 0; i < _indentChars.length; i++)
-        {
-            _indentChars[i] = ' ';
-        }
-
-        if (this.leadingIndentSize > 0)
-        {
-            _leadingIndentSizeString = getString(this.leadingIndentSize);
-
-            if (this.useTabs)
-            {
-                _leadingIndentSizeString =
-                    StringHelper.replace(
-                        _leadingIndentSizeString, getString(this.indentSize), TAB);
-            }
-        }
     }
 
     //~ Methods --------------------------------------------------------------------------
@@ -425,7 +432,110 @@ public class NodeWriter
      */
     public String getString(int length)
     {
-        return generateIndentString(length);
+        if (length == 0)
+        {
+            return EMPTY_STRING;
+        }
+
+        if (length >= _strings.length)
+        {
+            String[] strings = new String[length + (length >> 1)];
+            System.arraycopy(_strings, 0, strings, 0, _strings.length);
+            _strings = strings;
+        }
+
+        String result = _strings[length];
+
+        if (result == null)
+        {
+            char[] chars = new char[length];
+
+            for (int i = 0; i < length; i++)
+            {
+                chars[i] = ' ';
+            }
+
+            result = new String(chars);
+            _strings[length] = result;
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Sets whether the lengths of the nodes measured during a print pass are cached.
+     * Defaults to <code>true</code>.
+     *
+     * @param enabled if <code>true</code> every node is measured only once per print
+     *        pass.
+     */
+    public void setCacheMeasures(boolean enabled)
+    {
+        this.testers.setCacheMeasures(enabled);
+    }
+
+
+    /**
+     * Indicates whether the lengths of the nodes measured during a print pass are
+     * cached.
+     *
+     * @return <code>true</code> if every node is measured only once per print pass.
+     */
+    public boolean isCacheMeasures()
+    {
+        return this.testers.isCacheMeasures();
+    }
+
+
+    /**
+     * Sets whether the widths of the alignment chunks are recorded during a print pass.
+     * Defaults to <code>true</code>.
+     *
+     * @param enabled if <code>true</code> every chunk is walked only once per print
+     *        pass and starting state.
+     */
+    public void setCacheAlignments(boolean enabled)
+    {
+        this.alignments.setCacheChunks(enabled);
+    }
+
+
+    /**
+     * Indicates whether the widths of the alignment chunks are recorded during a print
+     * pass.
+     *
+     * @return <code>true</code> if every chunk is walked only once per print pass and
+     *         starting state.
+     */
+    public boolean isCacheAlignments()
+    {
+        return this.alignments.isCacheChunks();
+    }
+
+
+    /**
+     * Sets the cache to take the printed members from, if they did not change since
+     * they were printed into it.
+     *
+     * @param cache the cache of the printed file, <code>null</code> to print all
+     *        members.
+     */
+    public void setMemberCache(MemberCache cache)
+    {
+        this.memberCache = cache;
+    }
+
+
+    /**
+     * Sets the workers to print the members of large class bodies with in parallel.
+     *
+     * @param pool the workers of the formatter, <code>null</code> to print all members
+     *        sequentially.
+     */
+    public void setMemberPrinterPool(MemberPrinterPool pool)
+    {
+        this.memberPrinters = pool;
     }
 
 
@@ -455,6 +565,28 @@ public class NodeWriter
     }
 
 
+    /**
+     * Writes the buffered characters to the underlying writer and sets the writer to
+     * write to from now on.
+     *
+     * @param out writer to write to.
+     *
+     * @return the writer written to so far.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    Writer redirect(Writer out)
+      throws IOException
+    {
+        flushBuffer();
+
+        Writer result = _out;
+        _out = out;
+
+        return result;
+    }
+
+
     /**
      * Closes the stream, flushing it first.
      *
@@ -467,7 +599,12 @@ public class NodeWriter
         this.issues = null;
         this.state.dispose();
         this.state = null;
-        _out.close();
+
+        if (_out != null)
+        {
+            flushBuffer();
+            _out.close();
+        }
     }
 
 
@@ -479,7 +616,11 @@ public class NodeWriter
     public void flush()
       throws IOException
     {
-        _out.flush();
+        if (_out != null)
+        {
+            flushBuffer();
+            _out.flush();
+        }
     }
 
 
@@ -511,12 +652,6 @@ public class NodeWriter
 
         if (this.newline)
         {
-            if (leadingIndentSize > 0)
-            {
-                _out.write(_leadingIndentSizeString);
-                this.column += leadingIndentSize;
-            }
-
             int length = this.indentLevel * this.indentSize;
 
             if (continuation) // use continuation indentation
@@ -528,32 +663,28 @@ public class NodeWriter
             {
                 case JavaTokenTypes.WS :
                 {
+                    putWhitespace(this.leadingIndentSize);
+                    this.column += this.leadingIndentSize;
+
                     if (!useTabs)
                     {
-                        String s = generateIndentString(length + string.length());
-                        this.column += s.length();
-                        _out.write(s);
+                        putSpaces(length + string.length());
+                        this.column += (length + string.length());
                     }
                     else
                     {
                         if (!this.useLeadingTabs)
                         {
-                            String s = generateIndentString(length + string.length());
-                            this.column += s.length();
-                            s = StringHelper.replace(
-                                    s, generateIndentString(this.indentSize), TAB);
-                            _out.write(s);
+                            putWhitespace(length + string.length());
+                            this.column += (length + string.length());
                         }
                         else
                         {
-                            String s = generateIndentString(length);
+                            putWhitespace(length);
                             this.column += length;
-                            s = StringHelper.replace(
-                                    s, generateIndentString(this.indentSize), TAB);
-                            _out.write(s);
 
                             this.column += string.length();
-                            _out.write(string);
+                            put(string);
                         }
                     }
 
@@ -562,18 +693,11 @@ public class NodeWriter
 
                 default :
                 {
-                    String s = generateIndentString(length);
+                    char[] prefix = getPrefix(this.indentLevel, this.continuation);
+                    write(prefix, 0, prefix.length);
                     offset += length;
-                    this.column += (length + string.length());
-
-                    if (this.useTabs)
-                    {
-                        s = StringHelper.replace(
-                                s, generateIndentString(this.indentSize), TAB);
-                    }
-
-                    _out.write(s);
-                    _out.write(string);
+                    this.column += (this.leadingIndentSize + length + string.length());
+                    put(string);
 
                     break;
                 }
@@ -597,25 +721,17 @@ public class NodeWriter
 
                         if (spacesCount == 0)
                         {
-                            string =
-                                StringHelper.replace(
-                                    string, generateIndentString(this.indentSize), TAB);
-                            _out.write(string);
+                            putTabbed(string, 0);
                         }
                         else
                         {
                             if (spacesCount < 0)
                             {
-                                _out.write(TAB);
+                                put('\t');
                             }
 
-                            _out.write(TAB);
-
-                            string =
-                                StringHelper.replace(
-                                    string.substring(this.indentSize - spacesCount),
-                                    generateIndentString(this.indentSize), TAB);
-                            _out.write(string);
+                            put('\t');
+                            putTabbed(string, this.indentSize - spacesCount);
                         }
 
                         break;
@@ -625,7 +741,7 @@ public class NodeWriter
                 default :
                     offset = this.column;
                     this.column += string.length();
-                    _out.write(string);
+                    put(string);
 
                     break;
             }
@@ -716,7 +832,7 @@ public class NodeWriter
 
         if (indent && (this.leftBraceIndent > 0))
         {
-            print(generateIndentString(this.leftBraceIndent), JavaTokenTypes.WS);
+            print(getString(this.leftBraceIndent), JavaTokenTypes.WS);
         }
 
         int offset = print(LCURLY, JavaTokenTypes.LCURLY);
@@ -740,7 +856,7 @@ public class NodeWriter
     public void printNewline()
       throws IOException
     {
-        _out.write(this.lineSeparator);
+        put(this.lineSeparator);
         this.newline = true;
         this.column = 1;
         this.line++;
@@ -866,7 +982,20 @@ public class NodeWriter
         int    len)
       throws IOException
     {
-        _out.write(cbuf, off, len);
+        if ((_count + len) > _buffer.length)
+        {
+            flushBuffer();
+
+            if (len > _buffer.length)
+            {
+                _out.write(cbuf, off, len);
+
+                return;
+            }
+        }
+
+        System.arraycopy(cbuf, off, _buffer, _count, len);
+        _count += len;
     }
 
 
@@ -882,7 +1011,7 @@ public class NodeWriter
         {
             StringBuffer buf = new StringBuffer(getIndentSize() + 1);
             buf.append(
-                generateIndentString(
+                getString(
                     AbstractPrinter.settings.getInt(
                         ConventionKeys.INDENT_SIZE_BRACE_RIGHT,
                         ConventionDefaults.INDENT_SIZE_BRACE_RIGHT)));
@@ -896,43 +1025,222 @@ public class NodeWriter
 
 
     /**
-     * Generates a string only comprimised of spaces, with the given length.
+     * Returns the whitespace to print at the beginning of a line.
      *
-     * @param length length of the string to create.
+     * @param level the indentation level.
+     * @param continuation if <code>true</code> continuation indentation is added.
      *
-     * @return a string of the given length.
+     * @return the whitespace for the leading indentation and the given indentation.
      */
-    private String generateIndentString(int length)
+    private char[] getPrefix(
+        int     level,
+        boolean continuation)
     {
-        if (length == 0)
+        char[][] prefixes = _prefixes[continuation ? 1
+                                                   : 0];
+
+        if (level >= prefixes.length)
         {
-            return EMPTY_STRING;
+            char[][] grown = new char[level + (level >> 1) + 1][];
+            System.arraycopy(prefixes, 0, grown, 0, prefixes.length);
+            prefixes = grown;
+            _prefixes[continuation ? 1
+                                   : 0] = prefixes;
         }
 
-        // make sure the char buffer is big enough
-        if (length > _indentChars.length)
+        char[] prefix = prefixes[level];
+
+        if (prefix == null)
         {
-            char[] buf = new char[(int) (1.4 * length)];
+            int length = level * this.indentSize;
 
-            for (int i = 0;; i++)
+            if (continuation)
             {
-                int offset = i * _indentChars.length;
+                length += this.continuationIndentSize;
+            }
+
+            // the leading indentation is converted to tabs on its own
+            StringBuffer buf = new StringBuffer(this.leadingIndentSize + length);
+            appendWhitespace(buf, this.leadingIndentSize);
+            appendWhitespace(buf, length);
+            prefix = new char[buf.length()];
+            buf.getChars(0, prefix.length, prefix, 0);
+            prefixes[level] = prefix;
+        }
 
-                if ((offset + _indentChars.length) <= buf.length)
+        return prefix;
+    }
+
+
+    /**
+     * Appends whitespace of the given length to the given buffer, using tabs if
+     * enabled.
+     *
+     * @param buf buffer to append to.
+     * @param length the number of columns the whitespace should take.
+     */
+    private void appendWhitespace(
+        StringBuffer buf,
+        int          length)
+    {
+        if (this.useTabs && (this.indentSize > 0))
+        {
+            for (int i = length / this.indentSize; i > 0; i--)
+            {
+                buf.append('\t');
+            }
+
+            length %= this.indentSize;
+        }
+
+        for (; length > 0; length--)
+        {
+            buf.append(' ');
+        }
+    }
+
+
+    /**
+     * Writes the buffered characters to the underlying stream.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void flushBuffer()
+      throws IOException
+    {
+        if (_count > 0)
+        {
+            _out.write(_buffer, 0, _count);
+            _count = 0;
+        }
+    }
+
+
+    /**
+     * Writes the given character.
+     *
+     * @param c character to write.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void put(char c)
+      throws IOException
+    {
+        if (_count == _buffer.length)
+        {
+            flushBuffer();
+        }
+
+        _buffer[_count++] = c;
+    }
+
+
+    /**
+     * Writes the given string.
+     *
+     * @param string string to write.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void put(String string)
+      throws IOException
+    {
+        int length = string.length();
+
+        if ((_count + length) > _buffer.length)
+        {
+            flushBuffer();
+
+            if (length > _buffer.length)
+            {
+                _out.write(string);
+
+                return;
+            }
+        }
+
+        string.getChars(0, length, _buffer, _count);
+        _count += length;
+    }
+
+
+    /**
+     * Writes the given number of spaces.
+     *
+     * @param length number of spaces to write.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void putSpaces(int length)
+      throws IOException
+    {
+        for (; length > 0; length--)
+        {
+            put(' ');
+        }
+    }
+
+
+    /**
+     * Writes the given string, replacing every run of spaces of the indentation size
+     * with a tab.
+     *
+     * @param string string to write.
+     * @param start index of the first character to write.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void putTabbed(
+        String string,
+        int    start)
+      throws IOException
+    {
+        int spaces = 0;
+
+        for (int i = start, size = string.length(); i < size; i++)
+        {
+            char c = string.charAt(i);
+
+            if (c == ' ')
+            {
+                if (++spaces == this.indentSize)
                 {
-                    System.arraycopy(_indentChars, 0, buf, offset, _indentChars.length);
+                    put('\t');
+                    spaces = 0;
                 }
-                else
-                {
-                    System.arraycopy(_indentChars, 0, buf, offset, buf.length - offset);
+            }
+            else
+            {
+                putSpaces(spaces);
+                spaces = 0;
+                put(c);
+            }
+        }
 
-                    break;
-                }
+        putSpaces(spaces);
+    }
+
+
+    /**
+     * Writes whitespace of the given length, using tabs if enabled.
+     *
+     * @param length the number of columns the whitespace should take.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void putWhitespace(int length)
+      throws IOException
+    {
+        if (this.useTabs && (this.indentSize > 0))
+        {
+            for (int i = length / this.indentSize; i > 0; i--)
+            {
+                put('\t');
             }
 
-            _indentChars = buf;
+            length %= this.indentSize;
         }
 
-        return new String(_indentChars, 0, length).intern();
+        putSpaces(length);
     }
 }
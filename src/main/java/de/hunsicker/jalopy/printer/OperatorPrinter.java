@@ -179,7 +179,7 @@ abstract class OperatorPrinter
      *
      * @since 1.0b9
      */
-    int getPrecedence(AST node)
+    static int getPrecedence(AST node)
     {
         int result = 0;
 
@@ -460,19 +460,33 @@ abstract class OperatorPrinter
         JavaNode parent = operand.getParent();
         JavaNode lparen = (JavaNode) out.getJavaNodeFactory().create(JavaTokenTypes.LPAREN, LPAREN);
         JavaNode rparen = (JavaNode) out.getJavaNodeFactory().create(JavaTokenTypes.RPAREN, RPAREN);
+        JavaNode next = (JavaNode) operand.getNextSibling();
 
         if (parent.getFirstChild() == operand)
         {
             parent.setFirstChild(lparen);
             lparen.setPreviousSibling(parent);
         }
+        else
+        {
+            // keep the siblings linked both ways, so the operand is found enclosed
+            // when the node is printed again
+            JavaNode previous = operand.getPreviousSibling();
+            previous.setNextSibling(lparen);
+            lparen.setPreviousSibling(previous);
+        }
+
+        if (next != null)
+        {
+            next.setPreviousSibling(rparen);
+        }
 
         lparen.setParent(parent);
         lparen.setNextSibling(operand);
 
         rparen.setParent(parent);
         rparen.setPreviousSibling(operand);
-        rparen.setNextSibling(operand.getNextSibling());
+        rparen.setNextSibling(next);
 
         operand.setPreviousSibling(lparen);
         operand.setNextSibling(rparen);
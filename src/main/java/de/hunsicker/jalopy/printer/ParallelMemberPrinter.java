@@ -0,0 +1,734 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import antlr.CommonHiddenStreamToken;
+import antlr.collections.AST;
+import de.hunsicker.jalopy.language.CompositeFactory;
+import de.hunsicker.jalopy.language.antlr.ExtendedToken;
+import de.hunsicker.jalopy.language.antlr.JavaNode;
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.language.antlr.Node;
+import de.hunsicker.jalopy.storage.ConventionDefaults;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+import de.hunsicker.jalopy.storage.Environment;
+import de.hunsicker.util.concurrent.FutureResult;
+
+
+/**
+ * Prints the members of large class bodies in parallel.
+ *
+ * <p>
+ * The members are split into segments that are printed concurrently by the workers of
+ * the {@link MemberPrinterPool} of the writer, each into the buffer of a writer of its
+ * own, with its own printer state, test writers, environment and node factory. A
+ * segment only starts after a method or constructor, where the state of the writer is
+ * expected to be the state it had before the first member, but for the type of the
+ * last printed node. The blank lines and comments before the first member of a
+ * segment are handled by the member printers as usual.
+ * </p>
+ *
+ * <p>
+ * The segments are stitched together in order. A segment is only taken over if the
+ * state the former segment actually left the writer in, including the state its cached
+ * test writers were left in, matches the state the segment was started with. Otherwise
+ * its members are printed again, sequentially, until the state of the writer after a
+ * method or constructor matches the state the segment had at that point, and the rest
+ * of the segment is taken over. The output is therefore always the same as if all
+ * members were printed sequentially.
+ * </p>
+ *
+ * <p>
+ * Printing a member changes its tree: parentheses and generated comments are inserted,
+ * for example. The members of a segment are therefore restored to the tree they had
+ * before the segment was printed, when they are printed again. Members are only printed
+ * again once all segments have been printed, so no worker changes the tree meanwhile.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+final class ParallelMemberPrinter
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The minimal number of members of a segment. */
+    private static final int MIN_SEGMENT_SIZE = 8;
+
+    /** The number of segments per thread, more segments balance the load better. */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The members of the class body. */
+    private final AST[] _members;
+
+    /** The index of the first member of each segment, followed by the number of members. */
+    private final int[] _bounds;
+
+    /** The segments. */
+    private final Segment[] _segments;
+
+    /** The writer of the class body. */
+    private final NodeWriter _out;
+
+    /** The index of the next segment to print. */
+    private int _next;
+
+    /** Indicates whether all segments have been printed. */
+    private boolean _printed;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new ParallelMemberPrinter object.
+     *
+     * @param members the members of the class body.
+     * @param bounds the index of the first member of each segment, followed by the
+     *        number of members.
+     * @param start the state of the writer before the first member.
+     * @param out the writer of the class body.
+     */
+    private ParallelMemberPrinter(
+        AST[]      members,
+        int[]      bounds,
+        MemberState      start,
+        NodeWriter out)
+    {
+        _members = members;
+        _bounds = bounds;
+        _out = out;
+        _segments = new Segment[bounds.length - 1];
+
+        for (int i = 0; i < _segments.length; i++)
+        {
+            _segments[i] =
+                new Segment(
+                    (i == 0) ? start
+                             : start.after((JavaNode) members[bounds[i] - 1]),
+                    out.environment.copy(), bounds[i + 1] - bounds[i]);
+        }
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Prints the members of the given class body in parallel, if enabled and the body
+     * is large enough.
+     *
+     * @param block an OBJBLOCK node.
+     * @param out stream to write to.
+     *
+     * @return the first child of the block that has not been printed: the closing
+     *         curly brace if the members have been printed, the first child otherwise.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    static AST print(
+        AST        block,
+        NodeWriter out)
+      throws IOException
+    {
+        AST first = block.getFirstChild();
+        int threads =
+            AbstractPrinter.settings.getInt(
+                ConventionKeys.PRINT_MEMBERS_THREADS,
+                ConventionDefaults.PRINT_MEMBERS_THREADS);
+
+        if ((threads < 2) || !isApplicable(block, out))
+        {
+            return first;
+        }
+
+        int count = 0;
+        AST rcurly = first;
+
+        for (; (rcurly != null) && (rcurly.getType() != JavaTokenTypes.RCURLY);
+            rcurly = rcurly.getNextSibling())
+        {
+            count++;
+        }
+
+        int minimum =
+            AbstractPrinter.settings.getInt(
+                ConventionKeys.PRINT_MEMBERS_MINIMUM,
+                ConventionDefaults.PRINT_MEMBERS_MINIMUM);
+
+        if ((rcurly == null) || (count < Math.max(minimum, 2 * MIN_SEGMENT_SIZE)))
+        {
+            return first;
+        }
+
+        AST[] members = new AST[count];
+        AST child = first;
+
+        for (int i = 0; i < count; i++, child = child.getNextSibling())
+        {
+            members[i] = child;
+        }
+
+        int[] bounds = split(members, threads);
+
+        if (bounds.length < 3)
+        {
+            return first;
+        }
+
+        ParallelMemberPrinter printer =
+            new ParallelMemberPrinter(members, bounds, new MemberState(out), out);
+        printer.print(Math.min(threads, bounds.length - 1));
+
+        return rcurly;
+    }
+
+
+    /**
+     * Determines whether the members of the given class body may be printed in
+     * parallel.
+     *
+     * @param block an OBJBLOCK node.
+     * @param out stream to write to.
+     *
+     * @return <code>true</code> if the members may be printed in parallel.
+     */
+    private static boolean isApplicable(
+        AST        block,
+        NodeWriter out)
+    {
+        if (
+            (out.mode != NodeWriter.MODE_DEFAULT) || out.segment || out.tracking
+            || (out.memberCache != null) || (out.memberPrinters == null))
+        {
+            return false;
+        }
+
+        switch (((JavaNode) block).getParent().getType())
+        {
+            case JavaTokenTypes.CLASS_DEF :
+            case JavaTokenTypes.INTERFACE_DEF :
+                break;
+
+            default :
+                return false;
+        }
+
+        // the code inspector reports the issues at the line the nodes were printed
+        if (
+            AbstractPrinter.settings.getBoolean(
+                ConventionKeys.INSPECTOR, ConventionDefaults.INSPECTOR))
+        {
+            return false;
+        }
+
+        return new MemberState(out).quiet;
+    }
+
+
+    /**
+     * Determines whether a segment may start after the given member.
+     *
+     * @param member a member of a class body.
+     *
+     * @return <code>true</code> if the member is a method or constructor.
+     */
+    private static boolean isBoundary(AST member)
+    {
+        switch (member.getType())
+        {
+            case JavaTokenTypes.METHOD_DEF :
+            case JavaTokenTypes.CTOR_DEF :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+
+    /**
+     * Splits the given members into segments. A segment only starts after a method or
+     * constructor.
+     *
+     * @param members the members of a class body.
+     * @param threads the number of threads to print the members with.
+     *
+     * @return the index of the first member of each segment, followed by the number of
+     *         members.
+     */
+    private static int[] split(
+        AST[] members,
+        int   threads)
+    {
+        int size =
+            Math.max(MIN_SEGMENT_SIZE, members.length / (threads * SEGMENTS_PER_THREAD));
+        int[] bounds = new int[(members.length / size) + 2];
+        int count = 1;
+
+        for (int i = 1, start = 0; i < members.length; i++)
+        {
+            if (((i - start) >= size) && isBoundary(members[i - 1]))
+            {
+                bounds[count++] = i;
+                start = i;
+            }
+        }
+
+        bounds[count++] = members.length;
+
+        int[] result = new int[count];
+        System.arraycopy(bounds, 0, result, 0, count);
+
+        return result;
+    }
+
+
+    /**
+     * Prints the given member the way the block printer does.
+     *
+     * @param member a member of a class body.
+     * @param out stream to write to.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void printMember(
+        AST        member,
+        NodeWriter out)
+      throws IOException
+    {
+        out.nextNewline = false;
+        PrinterFactory.create(member, out).print(member, out);
+        out.nextNewline = false;
+    }
+
+
+    /**
+     * Returns the index of the next segment to print.
+     *
+     * @return the index of the next segment, <code>-1</code> if all segments have been
+     *         taken.
+     */
+    private synchronized int take()
+    {
+        return (_next < _segments.length) ? _next++
+                                          : (-1);
+    }
+
+
+    /**
+     * Prints the segments in parallel and writes them to the writer of the class body.
+     *
+     * @param threads the number of threads to use, including the current one.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void print(int threads)
+      throws IOException
+    {
+        // the factories copy the Javadoc tags of the recognizer of the writer, so they
+        // are updated before anyone else uses it
+        MemberPrinterPool pool = _out.memberPrinters;
+        pool.submit(this, threads - 1);
+        printSegments(pool.getFactory());
+        pool.withdraw(this);
+
+        for (int i = 0; i < _segments.length; i++)
+        {
+            stitch(i);
+        }
+    }
+
+
+    /**
+     * Writes the segment with the given index to the writer of the class body. Members
+     * are printed again, sequentially, until the writer is in a state the segment was
+     * in, too.
+     *
+     * @param index index of the segment.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void stitch(int index)
+      throws IOException
+    {
+        Segment segment = _segments[index];
+        MemberState end = segment.getEnd();
+        int next = _bounds[index];
+
+        if (end != null)
+        {
+            for (int i = 0, size = segment.checkpoints.size(); i < size; i++)
+            {
+                Checkpoint checkpoint = (Checkpoint) segment.checkpoints.get(i);
+
+                for (; next < checkpoint.index; next++)
+                {
+                    reprintMember(index, next);
+                }
+
+                if (checkpoint.state.equals(new MemberState(_out)))
+                {
+                    char[] chars = segment.buffer.toCharArray();
+                    _out.write(
+                        chars, checkpoint.offset, chars.length - checkpoint.offset);
+
+                    int line = _out.line;
+                    end.restore(_out);
+                    _out.line = line + (end.line - checkpoint.state.line);
+
+                    if (_out.issues != null)
+                    {
+                        _out.issues.putAll(segment.issues);
+                    }
+
+                    return;
+                }
+            }
+        }
+
+        for (; next < _bounds[index + 1]; next++)
+        {
+            reprintMember(index, next);
+        }
+    }
+
+
+    /**
+     * Prints the given member of the given segment to the writer of the class body. The
+     * member is restored to the tree it had before the segment was printed first.
+     *
+     * @param index index of the segment.
+     * @param member index of the member.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void reprintMember(
+        int index,
+        int member)
+      throws IOException
+    {
+        if (!_printed)
+        {
+            for (int i = 0; i < _segments.length; i++)
+            {
+                _segments[i].getEnd();
+            }
+
+            _printed = true;
+        }
+
+        Snapshot snapshot = _segments[index].snapshots[member - _bounds[index]];
+
+        if (snapshot != null)
+        {
+            snapshot.restore();
+        }
+
+        printMember(_members[member], _out);
+    }
+
+
+    /**
+     * Prints segments until all segments have been taken.
+     *
+     * @param factory the factory to create nodes with.
+     */
+    void printSegments(CompositeFactory factory)
+    {
+        for (int index; (index = take()) > -1;)
+        {
+            try
+            {
+                _segments[index].result.set(printSegment(index, factory));
+            }
+            catch (Throwable ex)
+            {
+                _segments[index].result.setException(ex);
+            }
+        }
+    }
+
+
+    /**
+     * Prints the segment with the given index into its buffer.
+     *
+     * @param index index of the segment.
+     * @param factory the factory to create nodes with.
+     *
+     * @return the state the segment left its writer in.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private MemberState printSegment(
+        int              index,
+        CompositeFactory factory)
+      throws IOException
+    {
+        Segment segment = _segments[index];
+        NodeWriter out =
+            new NodeWriter(
+                segment.buffer, factory, _out.filename, segment.issues,
+                _out.lineSeparator, _out.originalLineSeparator);
+        out.setEnvironment(segment.environment);
+        out.setCacheMeasures(_out.isCacheMeasures());
+        out.setCacheAlignments(_out.isCacheAlignments());
+        out.segment = true;
+        segment.start.restore(out);
+        out.line = segment.start.line;
+        segment.checkpoints.add(new Checkpoint(_bounds[index], 0, segment.start));
+
+        for (int i = _bounds[index], last = _bounds[index + 1] - 1; i <= last; i++)
+        {
+            segment.snapshots[i - _bounds[index]] = new Snapshot((JavaNode) _members[i]);
+            printMember(_members[i], out);
+
+            if ((i < last) && isBoundary(_members[i]))
+            {
+                out.flush();
+                segment.checkpoints.add(
+                    new Checkpoint(i + 1, segment.buffer.size(), new MemberState(out)));
+            }
+        }
+
+        out.flush();
+
+        return new MemberState(out);
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * A point between two members of a segment the segment may be taken over from.
+     */
+    private static final class Checkpoint
+    {
+        /** The state of the writer. */
+        final MemberState state;
+
+        /** The index of the member that follows. */
+        final int index;
+
+        /** The number of characters printed before the member that follows. */
+        final int offset;
+
+        Checkpoint(
+            int   index,
+            int   offset,
+            MemberState state)
+        {
+            this.index = index;
+            this.offset = offset;
+            this.state = state;
+        }
+    }
+
+
+    /**
+     * A number of consecutive members printed by one thread.
+     */
+    private static final class Segment
+    {
+        /** The printed members. */
+        final CharArrayWriter buffer = new CharArrayWriter(8192);
+
+        /** The state the segment left its writer in. */
+        final FutureResult result = new FutureResult();
+
+        /** The environment of the writer. */
+        final Environment environment;
+
+        /** The points the segment may be taken over from (of type <code>Checkpoint</code>). */
+        final List checkpoints = new ArrayList();
+
+        /** The issues found. */
+        final Map issues = new HashMap();
+
+        /** The trees of the members before they were printed. */
+        final Snapshot[] snapshots;
+
+        /** The state the writer is expected to be in before the first member. */
+        final MemberState start;
+
+        Segment(
+            MemberState start,
+            Environment environment,
+            int         members)
+        {
+            this.start = start;
+            this.environment = environment;
+            this.snapshots = new Snapshot[members];
+        }
+
+        /**
+         * Waits until the segment has been printed.
+         *
+         * @return the state the segment left its writer in, <code>null</code> if the
+         *         segment could not be printed.
+         */
+        MemberState getEnd()
+        {
+            boolean interrupted = false;
+
+            try
+            {
+                for (;;)
+                {
+                    try
+                    {
+                        return (MemberState) this.result.get();
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        // the worker still needs the members, so wait for it anyway
+                        interrupted = true;
+                    }
+                    catch (InvocationTargetException ex)
+                    {
+                        return null;
+                    }
+                }
+            }
+            finally
+            {
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The tree of a member before it was printed. Covers the links and texts of the
+     * nodes, the hidden tokens attached to them and the parse trees of their Javadoc
+     * comments.
+     */
+    private static final class Snapshot
+    {
+        /** The nodes, each followed by its links and text. */
+        private final List _nodes = new ArrayList();
+
+        /** The hidden tokens, each followed by its links, text and comment. */
+        private final List _tokens = new ArrayList();
+
+        /** The hidden tokens already taken (of type <code>ExtendedToken</code>). */
+        private final Map _seen = new IdentityHashMap();
+
+        Snapshot(JavaNode member)
+        {
+            take(member);
+        }
+
+        /**
+         * Restores the tree of the member.
+         */
+        void restore()
+        {
+            for (int i = 0, size = _nodes.size(); i < size; i += 8)
+            {
+                Node node = (Node) _nodes.get(i);
+                node.setFirstChild((AST) _nodes.get(i + 1));
+                node.setNextSibling((AST) _nodes.get(i + 2));
+                node.setHiddenBefore((CommonHiddenStreamToken) _nodes.get(i + 5));
+                node.setHiddenAfter((CommonHiddenStreamToken) _nodes.get(i + 6));
+                node.setText((String) _nodes.get(i + 7));
+
+                if (node instanceof JavaNode)
+                {
+                    ((JavaNode) node).setPreviousSibling((JavaNode) _nodes.get(i + 3));
+                    ((JavaNode) node).setParent((JavaNode) _nodes.get(i + 4));
+                }
+            }
+
+            for (int i = 0, size = _tokens.size(); i < size; i += 6)
+            {
+                ExtendedToken token = (ExtendedToken) _tokens.get(i);
+                token.setHiddenBefore((CommonHiddenStreamToken) _tokens.get(i + 1));
+                token.setHiddenAfter((CommonHiddenStreamToken) _tokens.get(i + 2));
+                token.setText((String) _tokens.get(i + 3));
+                token.setComment((Node) _tokens.get(i + 4));
+
+                // the parse tree is only dropped again, the empty marker is shared
+                if (
+                    (token.getComment() != null)
+                    && (token.getComment().getFirstChild() != _tokens.get(i + 5)))
+                {
+                    token.getComment().setFirstChild((AST) _tokens.get(i + 5));
+                }
+            }
+        }
+
+
+        /**
+         * Takes the given node and its children.
+         *
+         * @param node a node of the member.
+         */
+        private void take(Node node)
+        {
+            _nodes.add(node);
+            _nodes.add(node.getFirstChild());
+            _nodes.add(node.getNextSibling());
+
+            if (node instanceof JavaNode)
+            {
+                _nodes.add(((JavaNode) node).getPreviousSibling());
+                _nodes.add(((JavaNode) node).getParent());
+            }
+            else
+            {
+                _nodes.add(null);
+                _nodes.add(null);
+            }
+
+            _nodes.add(node.getHiddenBefore());
+            _nodes.add(node.getHiddenAfter());
+            _nodes.add(node.getText());
+            take(node.getHiddenBefore());
+            take(node.getHiddenAfter());
+
+            for (AST child = node.getFirstChild(); child != null;
+                child = child.getNextSibling())
+            {
+                take((Node) child);
+            }
+        }
+
+
+        /**
+         * Takes the hidden tokens linked with the given token.
+         *
+         * @param token a hidden token, may be <code>null</code>.
+         */
+        private void take(CommonHiddenStreamToken token)
+        {
+            if (!(token instanceof ExtendedToken) || _seen.containsKey(token))
+            {
+                return;
+            }
+
+            ExtendedToken t = (ExtendedToken) token;
+            _seen.put(t, t);
+            _tokens.add(t);
+            _tokens.add(t.getHiddenBefore());
+            _tokens.add(t.getHiddenAfter());
+            _tokens.add(t.getText());
+            _tokens.add(t.getComment());
+            _tokens.add((t.getComment() != null) ? t.getComment().getFirstChild() : null);
+            take(t.getHiddenBefore());
+            take(t.getHiddenAfter());
+        }
+    }
+}
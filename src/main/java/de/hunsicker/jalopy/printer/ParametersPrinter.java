@@ -89,20 +89,14 @@ final class ParametersPrinter extends AbstractPrinter {
                             AST expr = node.getFirstChild();
 
                             if (expr != null) {
-                                TestNodeWriter tester = out.testers.get();
-
-                                PrinterFactory.create(expr, out).print(expr, tester);
-
                                 int lineLength = AbstractPrinter.settings.getInt(
                                     ConventionKeys.LINE_LENGTH,
                                     ConventionDefaults.LINE_LENGTH);
 
                                 // ... or necessary
-                                if ((out.column + tester.length) > lineLength) {
+                                if ((out.column + out.testers.getLength(expr)) > lineLength) {
                                     setAlignOffset(node, out);
                                 } // end if
-
-                                out.testers.release(tester);
                             } // end if
                         } // end else
                     } // end if
@@ -465,50 +459,41 @@ SEARCH:
                                     if (preferWrapAfterLeftParen &&
                                         (paramIndex == FIRST_PARAM) &&
                                         (out.mode != NodeWriter.MODE_TEST)) {
-                                        TestNodeWriter tester = out.testers.get();
-
                                         // determine the exact space all
                                         // parameters would need
-                                        PrinterFactory.create(node, out).print(node, tester);
-
-                                        // +1 for the right parenthesis
-                                        if ((out.column + tester.length + 1) > lineLength) {
+                                        // (+1 for the right parenthesis)
+                                        if ((out.column + out.testers.getLength(node) + 1) > lineLength) {
                                             firstWrapped = true;
                                         } // end if
-
-                                        out.testers.release(tester);
                                     } // end if
                                 } // end if
                                 else if (wrapLines && (out.mode != NodeWriter.MODE_TEST)) {
-                                    TestNodeWriter tester = out.testers.get();
+                                    int paramLength;
 
                                     if (preferWrapAfterLeftParen && (paramIndex == FIRST_PARAM)) {
                                         // determine the exact space all
                                         // parameters would need
-                                        PrinterFactory.create(node, out).print(node, tester);
-
                                         // (+1 for the right parenthesis)
-                                        tester.length += 1;
+                                        paramLength = out.testers.getLength(node) + 1;
                                     } // end if
                                     else {
                                         // determine the exact space this
                                         // parameter would need
-                                        PrinterFactory.create(parameter, out)
-                                                      .print(parameter, tester);
+                                        paramLength = out.testers.getLength(parameter);
                                     } // end else
 
                                     if (!preferWrapAfterLeftParen && (next != null)) {
                                         if (spaceAfterComma) {
-                                            tester.length += 2;
+                                            paramLength += 2;
                                         } // end if
                                         else {
-                                            tester.length += 1;
+                                            paramLength += 1;
                                         } // end else
                                     } // end if
 
                                     // space exceeds the line length but we
                                     // have to apply further checks
-                                    if ((out.column + tester.length) > lineLength) {
+                                    if ((out.column + paramLength) > lineLength) {
                                         // for the first parameter we need to determine
                                         // whether we should print it directly after
                                         // parenthesis or wrap and indent
@@ -556,12 +541,7 @@ SEARCH:
                                                             parameter);
 
                                                         if (first != null) {
-                                                            tester.reset();
-                                                            PrinterFactory.create(first, out).print(
-                                                                first,
-                                                                tester);
-
-                                                            if ((out.column + tester.length) > lineLength) {
+                                                            if ((out.column + out.testers.getLength(first)) > lineLength) {
                                                                 result = wrapFirst(
                                                                     type,
                                                                     true,
@@ -666,8 +646,6 @@ SEARCH:
                                     else if (spaceAfterComma && (paramIndex != FIRST_PARAM)) {
                                         out.print(SPACE, JavaTokenTypes.WS);
                                     } // end else if
-
-                                    out.testers.release(tester);
                                 } // end else if
                                 else if (spaceAfterComma && (paramIndex != FIRST_PARAM)) {
                                     out.print(SPACE, JavaTokenTypes.WS);
@@ -689,14 +667,8 @@ SEARCH:
                                     } // end if
                                     else if (preferWrapAfterLeftParen || (!indentDeep)) {
                                         if (next == null) {
-                                            TestNodeWriter tester = out.testers.get();
-
-                                            PrinterFactory.create(parameter, out).print(
-                                                parameter,
-                                                tester);
-
                                             // +1 for the right parenthesis
-                                            if ((out.column + tester.length + 1) > lineLength) {
+                                            if ((out.column + out.testers.getLength(parameter) + 1) > lineLength) {
                                                 result = wrapFirst(
                                                     type,
                                                     true,
@@ -704,8 +676,6 @@ SEARCH:
                                                     out);
                                                 firstWrapped = true;
                                             } // end if
-
-                                            out.testers.release(tester);
                                         } // end if
                                         else {
                                             result = wrapFirst(
@@ -765,56 +735,7 @@ SEARCH:
     private void setAlignOffset(AST        node,
                                 NodeWriter out)
                          throws IOException {
-        int            result = 0;
-        TestNodeWriter tester = out.testers.get();
-        AST modifier = null;
-        AST type = null;
-
-        for (AST param = node.getFirstChild(); param != null; param = param.getNextSibling()) {
-            switch (param.getType()) {
-                case JavaTokenTypes.COMMA:
-                    break;
-                case JavaTokenTypes.VARIABLE_PARAMETER_DEF:
-                    modifier = param.getFirstChild();
-
-                    PrinterFactory.create(modifier, out).print(modifier, tester);
-
-                    type = modifier.getNextSibling();
-
-                    PrinterFactory.create(type, out).print(type, tester);
-
-                    // +3 for ... and +1 for the space between modifiers and name 
-                    if ((tester.length + 4) > result) {
-                        result = tester.length + 4;
-                    } // end if
-
-                    tester.reset();
-                    break;
-                    
-                default:
-
-                    modifier = param.getFirstChild();
-
-                    PrinterFactory.create(modifier, out).print(modifier, tester);
-
-                    type = modifier.getNextSibling();
-
-                    PrinterFactory.create(type, out).print(type, tester);
-
-                    // +1 for the space between modifiers and name
-                    int length = tester.length + 1;
-
-                    if (length > result) {
-                        result = length;
-                    } // end if
-
-                    tester.reset();
-
-                    break;
-            } // end switch
-        } // end for
-
-        out.testers.release(tester);
+        int result = out.alignments.getParameterWidth(node, out);
 
         out.state.paramOffset = out.column + result;
     } // end setAlignOffset()
@@ -1073,18 +994,10 @@ SEARCH:
                     switch (first.getType()) {
                         case JavaTokenTypes.STRING_LITERAL:
 
-                            TestNodeWriter tester = out.testers.get();
-
-                            PrinterFactory.create(first, out).print(first, tester);
-
-                            if ((out.column + tester.length) > lineLength) {
-                                out.testers.release(tester);
-
+                            if ((out.column + out.testers.getLength(first)) > lineLength) {
                                 return false;
                             } // end if
 
-                            out.testers.release(tester);
-
                             break;
                     } // end switch
 
@@ -7,6 +7,7 @@
 package de.hunsicker.jalopy.printer;
 
 import antlr.collections.AST;
+import de.hunsicker.jalopy.language.antlr.InternalJavaParser;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
 
@@ -19,8 +20,25 @@ import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
  */
 public final class PrinterFactory
 {
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /**
+     * The printers, indexed by node type. The printers are stateless and query the code
+     * convention while printing, so the table is built only once.
+     */
+    private static final Printer[] PRINTERS =
+        new Printer[InternalJavaParser._tokenNames.length];
+
+    static
+    {
+        for (int type = 0; type < PRINTERS.length; type++)
+        {
+            PRINTERS[type] = lookup(type);
+        }
+    }
+
     //~ Constructors ---------------------------------------------------------------------
-public static AST lastChild = null;
+
     /**
      * Creates a new PrinterFactory object.
      */
@@ -45,12 +63,38 @@ public static AST lastChild = null;
     {
         int type = node.getType();
         Printer result = null;
-        lastChild = node;
+
         if (out.mode == NodeWriter.MODE_DEFAULT && node instanceof JavaNode ) {
             ((JavaNode)node).newLine = out.line;
             ((JavaNode)node).newColumn = out.column;
         }
 
+        if ((type >= 0) && (type < PRINTERS.length))
+        {
+            result = PRINTERS[type];
+        }
+
+        if (result == null)
+        {
+            throw new IllegalArgumentException("no viable printer for -- " + node);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Returns the printer for the given node type.
+     *
+     * @param type a node type.
+     *
+     * @return the printer for nodes of the given type, <code>null</code> if no viable
+     *         printer is known by the factory.
+     */
+    private static Printer lookup(int type)
+    {
+        Printer result = null;
+
         switch (type)
         {
             case JavaTokenTypes.COMMA :
@@ -489,8 +533,7 @@ public static AST lastChild = null;
                 
 
             default :
-                System.out.println("Bad !" +node.toString() + "," +node.getType());
-                throw new IllegalArgumentException("no viable printer for -- " + node);
+                break;
         }
 
         return result;
@@ -118,7 +118,7 @@ final class TernaryIfElsePrinter
      *
      * @since 1.0b8
      */
-    private boolean needParentheses(JavaNode node)
+    static boolean needParentheses(JavaNode node)
     {
         switch (node.getType())
         {
@@ -214,14 +214,12 @@ final class TernaryIfElsePrinter
         }
         else if (wrapLines) // check whether wrap/align necessary
         {
-            TestNodeWriter tester = out.testers.get();
-
             AST thirdOp = getNextOperand(colon.getNextSibling());
-            PrinterFactory.create(thirdOp, out).print(thirdOp, tester);
+            int length = out.testers.getLength(thirdOp);
 
             // only wrap and align if necessary
             if (
-                (tester.length + out.column) > AbstractPrinter.settings.getInt(
+                (length + out.column) > AbstractPrinter.settings.getInt(
                     ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH))
             {
                 out.printNewline();
@@ -239,8 +237,6 @@ final class TernaryIfElsePrinter
             {
                 out.print(SPACE, out.last);
             }
-
-            out.testers.release(tester);
         }
         else // line wrapping disabled
         {
@@ -408,15 +404,13 @@ final class TernaryIfElsePrinter
         }
         else if (wrapLines) // check whether wrap/align necessary
         {
-            TestNodeWriter tester = out.testers.get();
-
             AST secondOp = getNextOperand(secondOperand);
-            PrinterFactory.create(secondOp, out).print(secondOp, tester);
+            int length = out.testers.getLength(secondOp);
 
             // wrap and align if necessary (+3 for the colon between the
             // second and third operator)
             if (
-                (tester.length + out.column + 3) > AbstractPrinter.settings.getInt(
+                (length + out.column + 3) > AbstractPrinter.settings.getInt(
                     ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH))
             {
                 out.printNewline();
@@ -426,8 +420,6 @@ final class TernaryIfElsePrinter
             {
                 out.print(SPACE, out.last);
             }
-
-            out.testers.release(tester);
         }
         else // line wrapping disabled
         {
@@ -40,6 +40,7 @@ final class TestNodeWriter
         super(factory);
         this.mode = MODE_TEST;
         this.testers = writer;
+        this.alignments = source.alignments;
         this.filename = source.filename;
         
     }
@@ -150,6 +151,10 @@ final class TestNodeWriter
     public void reset(NodeWriter out,boolean newline1)
     {
         this.reset();
+
+        // a newline left pending by an earlier test run would add the indentation
+        // of the synchronized writer to the next token
+        this.newline = false;
         this.indentLevel = out.indentLevel;
         this.column=this.maxColumn=this.length=out.column;
         if (out.state.markers.isMarked()) {
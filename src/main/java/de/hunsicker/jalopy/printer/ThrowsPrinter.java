@@ -152,23 +152,12 @@ final class ThrowsPrinter
                 ConventionDefaults.LINE_WRAP_AFTER_TYPES_THROWS_EXCEED)
             && (out.mode == NodeWriter.MODE_DEFAULT);
 
-        TestNodeWriter tester = null;
-
-        if (wrapLines || wrapAll)
-        {
-            tester = out.testers.get();
-        }
-
         if (!forceWrapping && wrapAll)
         {
-            PrinterFactory.create(node, out).print(node, tester);
-
-            if ((tester.length - 7 + out.column) > lineLength)
+            if ((out.testers.getLength(node) - 7 + out.column) > lineLength)
             {
                 forceWrapping = true;
             }
-
-            tester.reset();
         }
 
         boolean newline = false;
@@ -215,9 +204,7 @@ final class ThrowsPrinter
 
                         if (next != null)
                         {
-                            PrinterFactory.create(next, out).print(next, tester);
-
-                            if ((tester.length + out.column) > lineLength)
+                            if ((out.testers.getLength(next) + out.column) > lineLength)
                             {
                                 out.printNewline();
                                 newline = true;
@@ -246,8 +233,6 @@ final class ThrowsPrinter
                                     out.state.newlineBeforeLeftBrace = true;
                                 }*/
                             }
-
-                            tester.reset();
                         }
                     }
                     if (spaceAfterComma && !newline)
@@ -265,11 +250,6 @@ final class ThrowsPrinter
             }
         }
 
-        if (tester != null)
-        {
-            out.testers.release(tester);
-        }
-
         if (!indentDeep)
         {
             if (!indentCustom && wrappedBefore)
@@ -317,23 +297,16 @@ final class ThrowsPrinter
         NodeWriter out)
       throws IOException
     {
-        TestNodeWriter tester = out.testers.get();
-        PrinterFactory.create(node, out).print(node, tester);
-
         Marker marker = out.state.markers.getLast();
 
         if (
             ((marker.column - 7) < deepIndent)
-            && ((marker.column + tester.length) < lineLength)
+            && ((marker.column + out.testers.getLength(node)) < lineLength)
             && ((marker.column - out.getIndentLength() - 7) > 0))
         {
-            out.testers.release(tester);
-
             return true;
         }
 
-        out.testers.release(tester);
-
         return false;
     }
 
@@ -367,31 +340,16 @@ final class ThrowsPrinter
             return true;
         }
 
-        TestNodeWriter tester = out.testers.get();
-
-        try
+        if ((out.column + out.testers.getLength(node)) > lineLength)
         {
-            PrinterFactory.create(node, out).print(node, tester);
-
-            if ((out.column + tester.length) > lineLength)
-            {
-                return true;
-            }
-
-            tester.reset();
-
-            PrinterFactory.create(firstType, out).print(firstType, tester);
-
-            if ((out.column + 7 + tester.length) > lineLength)
-            {
-                return true;
-            }
-
-            return false;
+            return true;
         }
-        finally
+
+        if ((out.column + 7 + out.testers.getLength(firstType)) > lineLength)
         {
-            out.testers.release(tester);
+            return true;
         }
+
+        return false;
     }
 }
@@ -331,51 +331,8 @@ LOOP:
                     {
                         case JavaTokenTypes.VARIABLE_DEF :
 
-                            TestNodeWriter tester = out.testers.get();
-                            int length = OFFSET_NONE;
-SEARCH: 
-
                             // determine the longest VARIABLE_DEF
-                            for (AST def = node; def != null;
-                                def = def.getNextSibling())
-                            {
-                                switch (def.getType())
-                                {
-                                    case JavaTokenTypes.VARIABLE_DEF :
-                                        tester.reset();
-
-                                        AST defModifier = def.getFirstChild();
-                                        AST defType = defModifier.getNextSibling();
-                                        PrinterFactory.create(defModifier, out).print(
-                                            defModifier, tester);
-                                        PrinterFactory.create(defType, out).print(
-                                            defType, tester);
-                                        
-                                        
-
-                                        /**
-                                         * @todo add new max. length setting
-                                         */
-                                        if((tester.column - 1) > length) { 
-                                            length = tester.column -1; 
-                                        }
-
-                                        if (
-                                            isNewChunk(
-                                                def.getNextSibling(),
-                                                JavaTokenTypes.VARIABLE_DEF))
-                                        {
-                                            break SEARCH;
-                                        }
-
-                                        break;
-
-                                    default :
-                                        break SEARCH;
-                                }
-                            }
-
-                            out.testers.release(tester);
+                            int length = out.alignments.getVariableWidth(node, out);
 
                             // set the state variable, now the following
                             // VARIABLE_DEFs can be aligned
@@ -6,9 +6,13 @@
  */
 package de.hunsicker.jalopy.printer;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+import antlr.collections.AST;
 import de.hunsicker.jalopy.language.CompositeFactory;
 import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
 
@@ -17,6 +21,12 @@ import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
  * A simple cache to avoid continually creating and destroying new TestNodeWriter
  * objects.
  *
+ * <p>
+ * Also caches the lengths of the nodes measured with {@link #getLength}. As the cache
+ * is shared by the writer it was created for and all its test writers, every node is
+ * measured only once per print pass, no matter how many enclosing levels ask for it.
+ * </p>
+ *
  * @since 1.0b9
  */
 final class WriterCache
@@ -25,8 +35,17 @@ final class WriterCache
 
     /** The cached writers. */
     private final List _writers = new ArrayList();
+
+    /**
+     * The measured nodes (of type <code>Measure</code>, chained by starting state), keyed
+     * by node identity.
+     */
+    private final Map _measures = new IdentityHashMap();
     private final String _originalLineSeparator;
 
+    /** Indicates whether measured lengths are cached. */
+    private boolean _cacheMeasures = true;
+
     //~ Constructors ---------------------------------------------------------------------
     NodeWriter nodeWriter = null;
     CompositeFactory _factory = null;
@@ -70,6 +89,136 @@ final class WriterCache
     }
 
 
+    /**
+     * Sets whether the measured lengths are cached. Without the cache every node is
+     * measured again whenever its length is requested.
+     *
+     * @param enabled if <code>true</code> the measured lengths will be cached.
+     */
+    void setCacheMeasures(boolean enabled)
+    {
+        _cacheMeasures = enabled;
+
+        if (!enabled)
+        {
+            _measures.clear();
+        }
+    }
+
+
+    /**
+     * Indicates whether the measured lengths are cached.
+     *
+     * @return <code>true</code> if the measured lengths are cached.
+     */
+    boolean isCacheMeasures()
+    {
+        return _cacheMeasures;
+    }
+
+
+    /**
+     * Returns the cached writers in the order they are handed out. Test writers keep
+     * part of their state when they are released (see {@link #getLength}), so the
+     * printed output depends on the state of the cached writers, too.
+     *
+     * @return the cached writers.
+     */
+    synchronized TestNodeWriter[] getWriters()
+    {
+        return (TestNodeWriter[]) _writers.toArray(new TestNodeWriter[_writers.size()]);
+    }
+
+
+    /**
+     * Sets the number of cached writers. Writers are removed from or added to the end
+     * of the cache.
+     *
+     * @param size the number of cached writers.
+     */
+    synchronized void setSize(int size)
+    {
+        while (_writers.size() > size)
+        {
+            _writers.remove(_writers.size() - 1);
+        }
+
+        while (_writers.size() < size)
+        {
+            TestNodeWriter tester = new TestNodeWriter(this,_factory,nodeWriter);
+            tester.originalLineSeparator = _originalLineSeparator;
+            _writers.add(tester);
+        }
+    }
+
+
+    /**
+     * Returns the length of the given node when printed into a test writer. The length
+     * only depends on the node itself and the state the test writer starts with, and is
+     * therefore cached.
+     *
+     * <p>
+     * Test writers keep the type of the last printed token, a pending newline and the
+     * continuation indentation flag when they are reset, and later measurements pick
+     * up where the earlier ones left off. The cached measurements are therefore keyed
+     * by that starting state, too. A cached measurement still takes a writer from the
+     * cache and leaves it in the state the measurement would have left it in.
+     * </p>
+     *
+     * @param node node to measure.
+     *
+     * @return the printed length of the node.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public int getLength(AST node)
+      throws IOException
+    {
+        TestNodeWriter tester = get();
+
+        try
+        {
+            Measure first = (Measure) _measures.get(node);
+            Measure measure = first;
+
+            while ((measure != null) && !measure.startsWith(tester))
+            {
+                measure = measure.next;
+            }
+
+            if (measure == null)
+            {
+                int last = tester.last;
+                boolean newline = tester.newline;
+                boolean continuation = tester.continuation;
+                PrinterFactory.create(node, tester).print(node, tester);
+                measure =
+                    new Measure(
+                        last, newline, continuation, tester.length, tester.last,
+                        tester.newline, tester.continuation);
+
+                if (_cacheMeasures)
+                {
+                    measure.next = first;
+                    _measures.put(node, measure);
+                }
+            }
+            else
+            {
+                tester.last = measure.last;
+                tester.newline = measure.newline;
+                tester.continuation = measure.continuation;
+            }
+
+            return measure.length;
+        }
+        finally
+        {
+            release(tester);
+        }
+    }
+
+
     /**
      * Releases the given writer and adds it to the cache.
      *
@@ -80,4 +229,56 @@ final class WriterCache
         writer.reset();
         _writers.add(writer);
     }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * The result of measuring a node: the state of the test writer before, its length
+     * and the state of the test writer afterwards.
+     */
+    private static final class Measure
+    {
+        /** The measurement of the same node that started with another state. */
+        Measure next;
+        final boolean continuation;
+        final boolean newline;
+        final boolean startContinuation;
+        final boolean startNewline;
+        final int last;
+        final int length;
+        final int startLast;
+
+        public Measure(
+            int     startLast,
+            boolean startNewline,
+            boolean startContinuation,
+            int     length,
+            int     last,
+            boolean newline,
+            boolean continuation)
+        {
+            this.startLast = startLast;
+            this.startNewline = startNewline;
+            this.startContinuation = startContinuation;
+            this.length = length;
+            this.last = last;
+            this.newline = newline;
+            this.continuation = continuation;
+        }
+
+        /**
+         * Determines whether this measurement started with the state of the given
+         * writer.
+         *
+         * @param tester a test writer.
+         *
+         * @return <code>true</code> if the measurement started with the state of
+         *         <em>tester</em>.
+         */
+        public boolean startsWith(TestNodeWriter tester)
+        {
+            return (this.startLast == tester.last) && (this.startNewline == tester.newline)
+            && (this.startContinuation == tester.continuation);
+        }
+    }
 }
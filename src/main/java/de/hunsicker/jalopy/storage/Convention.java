@@ -307,6 +307,9 @@ public final class Convention
     /** The map which holds the actual values. */
     private Map _values = EMPTY_MAP; // Map of <Convention.Key>:<String>
 
+    /** The number of modifications, lets clients detect changed settings. */
+    private volatile int _modCount;
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -577,6 +580,7 @@ public final class Convention
         {
             INSTANCE._values = (Map) IoHelper.deserialize(in);
             synchronize(INSTANCE);
+            INSTANCE._modCount++;
         }
         else if (EXTENSION_XML.equals(extension))
         {
@@ -594,6 +598,7 @@ public final class Convention
                 INSTANCE._values = new HashMap();
                 convertXmlToMap(INSTANCE._values, doc.getDocumentElement());
                 synchronize(INSTANCE);
+                INSTANCE._modCount++;
             }
             catch (SAXException ex)
             {
@@ -818,6 +823,19 @@ public final class Convention
     }
 
 
+    /**
+     * Returns the number of modifications of this code convention. Whenever a setting
+     * changes, the number changes as well, so clients which derive state from the
+     * settings can cheaply check whether the state is still up-to-date.
+     *
+     * @return the number of modifications.
+     */
+    public int getModificationCount()
+    {
+        return _modCount;
+    }
+
+
     /**
      * Returns the int value represented by the string associated with the specified key
      * in this preference node. The string is converted to an integer as by {@link
@@ -1053,6 +1071,7 @@ public final class Convention
         }
 
         _values.put(key, value);
+        _modCount++;
     }
 
 
@@ -1114,6 +1133,7 @@ public final class Convention
                 _values.clear();
                 _values.putAll(_snapshot);
                 _snapshot = null;
+                _modCount++;
             }
         }
     }
@@ -225,6 +225,9 @@ public final class ConventionDefaults
     /** The default value for the key with the same name ("{@value}"). */
     public static final boolean COMMENT_JAVADOC_PARSE = false;
 
+    /** The default value for the key with the same name ("{@value}"). */
+    public static final int COMMENT_JAVADOC_PARSE_THREADS = 0;
+
     /** The default value for the key with the same name ("{@value}"). */
     public static final boolean COMMENT_JAVADOC_REMOVE = false;
 
@@ -477,6 +480,9 @@ public final class ConventionDefaults
     /** The default value for the key with the same name ("{@value}"). */
     public static final boolean LINE_WRAP_BEFORE_OPERATOR = false;
 
+    /** The default value for the key with the same name ("{@value}"). */
+    public static final boolean LINE_WRAP_OPTIMAL = false;
+
     /** The default value for the key with the same name ("{@value}"). */
     public static final boolean LINE_WRAP_BEFORE_THROWS = false;
 
@@ -621,6 +627,9 @@ public final class ConventionDefaults
     /** The default value for the key with the same name ("{@value}"). */
     public static final boolean STRIP_QUALIFICATION = false;
 
+    /** The default value for the key with the same name ("{@value}"). */
+    public static final boolean FAST_SCANNER = true;
+
     /** The default value for the key with the same name ("{@value}"). */
     public static final String CONVENTION_DESCRIPTION =
         "Sun Java Coding Convention" /* NOI18N */;
@@ -631,6 +640,12 @@ public final class ConventionDefaults
     /** The default value for the key with the same name ("{@value}"). */
     public static final int THREAD_COUNT = 1;
 
+    /** The default value for the key with the same name ("{@value}"). */
+    public static final int PRINT_MEMBERS_THREADS = 0;
+
+    /** The default value for the key with the same name ("{@value}"). */
+    public static final int PRINT_MEMBERS_MINIMUM = 64;
+
     /** The default value for the key with the same name ("{@value}"). */
     public static final boolean INSPECTOR = false;
 
@@ -624,6 +624,20 @@ public final class ConventionKeys
     public static final Convention.Key THREAD_COUNT =
         new Convention.Key("misc/threadCount");
 
+    /**
+     * Number of threads to print the members of large classes in parallel, 0 to print
+     * them sequentially (<em>int</em>)
+     */
+    public static final Convention.Key PRINT_MEMBERS_THREADS =
+        new Convention.Key("printer/general/memberThreads");
+
+    /**
+     * Minimal number of members a class must have to print them in parallel
+     * (<em>int</em>)
+     */
+    public static final Convention.Key PRINT_MEMBERS_MINIMUM =
+        new Convention.Key("printer/general/memberMinimum");
+
     /**
      * Specifies whether method declaration parameters should be aligned
      * (<em>boolean</em>).
@@ -978,6 +992,13 @@ public final class ConventionKeys
     public static final Convention.Key COMMENT_JAVADOC_PARSE =
         new Convention.Key("printer/comments/javadoc/parseComments");
 
+    /**
+     * Number of threads to parse Javadoc comments in the background, 0 to parse them
+     * on demand (<em>int</em>)
+     */
+    public static final Convention.Key COMMENT_JAVADOC_PARSE_THREADS =
+        new Convention.Key("printer/comments/javadoc/parseThreads");
+
     /** Remove Javadoc comments? (<em>boolean</em>) */
     public static final Convention.Key COMMENT_JAVADOC_REMOVE =
         new Convention.Key("printer/comments/remove/javadoc");
@@ -1379,6 +1400,10 @@ public final class ConventionKeys
     public static final Convention.Key STRIP_QUALIFICATION =
         new Convention.Key("printer/parser/stripQualification");
 
+    /** Use the hand-written scanner to tokenize source files? (<em>boolean</em>) */
+    public static final Convention.Key FAST_SCANNER =
+        new Convention.Key("printer/parser/fastScanner");
+
     /**
      * The fill character to use for the separator comments (<em>String</em>).
      *
@@ -1524,6 +1549,13 @@ public final class ConventionKeys
     public static final Convention.Key LINE_WRAP_BEFORE_RIGHT_PAREN =
         new Convention.Key("printer/wrapping/ondemand/before/rightParenthesis");
 
+    /**
+     * Lay out the expressions of statements with the optimal line breaking printer
+     * instead of the greedy wrapping of the individual printers? (<em>boolean</em>)
+     */
+    public static final Convention.Key LINE_WRAP_OPTIMAL =
+        new Convention.Key("printer/wrapping/general/optimal");
+
     /** Should line wrapping be performed before or after operators? (<em>boolean</em>) */
     public static final Convention.Key LINE_WRAP_BEFORE_OPERATOR =
         new Convention.Key("printer/wrapping/general/beforeOperator");
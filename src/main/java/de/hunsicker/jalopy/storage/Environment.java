@@ -7,12 +7,11 @@
 package de.hunsicker.jalopy.storage;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Provides access to global and local environment variables (key/value pairs).
@@ -33,25 +32,21 @@ public final class Environment
     /** Delimeter for the encoded variables string. */
     private static final String DELIMETER = "|";
 
-    /** The compiler to create pattern objects. */
-    //private static final PatternCompiler REGEXP_COMPILER = new Perl5Compiler();
+    /** The maximal number of compiled templates to keep. */
+    private static final int MAX_TEMPLATES = 64;
 
-    /** The pattern to search for variables . */
-    private static Pattern _variablesPattern;
+    /** The compiled templates. */
+    private static final Map _templates = new HashMap(); // Map of <String:Template>
 
-    static
-    {
-            _variablesPattern = 
-                Pattern.compile(
-                    "\\$([a-zA-Z_][a-zA-Z0-9_.]+):?(.*?)\\$");
-    }
+    /** The modification count of the code convention the templates were compiled for. */
+    private static int _templatesModCount = -1;
 
     private static final Environment INSTANCE = new Environment(true);
 
     //~ Instance variables ---------------------------------------------------------------
 
-    /** The pattern matcher. */
-    private final Matcher _matcher = _variablesPattern.matcher("");
+    /** The environment this environment overlays, <code>null</code> for the global one. */
+    private Environment _parent;
 
     /** The current environment variables. */
     private Map _variables; // Map of <String:String>
@@ -90,6 +85,18 @@ public final class Environment
         }
     }
 
+
+    /**
+     * Creates a new Environment object that overlays the given environment.
+     *
+     * @param parent the environment to overlay.
+     */
+    private Environment(Environment parent)
+    {
+        _parent = parent;
+        _variables = new HashMap(16);
+    }
+
     //~ Methods --------------------------------------------------------------------------
 
     /**
@@ -105,16 +112,22 @@ public final class Environment
 
 
     /**
-     * Returns a copy of this object.
+     * Returns a copy of this object. The copy does not copy the global variables, but
+     * overlays them: variables set or unset on the copy are only visible in the copy.
+     * The local variables of a copy are copied as well.
      *
      * @return a copy of this object.
      */
     public Environment copy()
     {
-        Environment environment = new Environment(false);
-        environment._variables = new HashMap(INSTANCE._variables);
+        Environment result = new Environment(INSTANCE);
 
-        return environment;
+        if (_parent != null)
+        {
+            result._variables.putAll(_variables);
+        }
+
+        return result;
     }
 
 
@@ -132,45 +145,7 @@ public final class Environment
      */
     public String interpolate(String str)
     {
-        Map keys = new HashMap(10);
-        
-        _matcher.reset(str);
-
-        // map all found variable expressions with their environment variable
-        while (_matcher.find()) 
-        {
-            String result = _matcher.group(1);
-            String pattern = _matcher.group(2);
-            String value = null; 
-            Variable variable = (Variable) variableMap.get(result);
-            if (variable!=null) {
-                value = variable.format(_variables.get(result),pattern);
-            }
-            else{
-                value = (String) _variables.get(result);
-            }
-                
-
-            // the value has to be set in order to be substituted
-            if ((value != null) && (value.length() > 0))
-            {
-                keys.put("\\$" + result + (pattern.length() == 0 ? "" : ":" + pattern)  + "\\$", value);
-            }
-        }
-        
-        // and finally interpolate them
-        for (Iterator i = keys.entrySet().iterator(); i.hasNext();)
-        {
-            Map.Entry entry = (Map.Entry) i.next();
-
-            String key = (String) entry.getKey();
-            String value = (String) entry.getValue();
-            
-            str = str.replaceAll(key,value);
-            
-        }
-        
-    return str;
+        return getTemplate(str).interpolate(this);
     }
 
     /**
@@ -198,7 +173,15 @@ public final class Environment
      */
     public String toString()
     {
-        return _variables.toString();
+        if (_parent == null)
+        {
+            return _variables.toString();
+        }
+
+        Map variables = new HashMap(_parent._variables);
+        variables.putAll(_variables);
+
+        return variables.toString();
     }
 
 
@@ -211,9 +194,95 @@ public final class Environment
      */
     public void unset(String variable)
     {
-        _variables.remove(variable);
+        if ((_parent != null) && _parent._variables.containsKey(variable))
+        {
+            // hide the global variable
+            _variables.put(variable, null);
+        }
+        else
+        {
+            _variables.remove(variable);
+        }
     }
-    
+
+
+    /**
+     * Returns the value of the given variable.
+     *
+     * @param variable variable name.
+     *
+     * @return the value of the variable, <code>null</code> if the variable is not set.
+     */
+    private Object get(String variable)
+    {
+        Object value = _variables.get(variable);
+
+        if ((value != null) || (_parent == null) || _variables.containsKey(variable))
+        {
+            return value;
+        }
+
+        return _parent._variables.get(variable);
+    }
+
+
+    /**
+     * Returns the value of the given variable, formatted with the given pattern.
+     *
+     * @param variable variable name.
+     * @param pattern the format pattern, may be empty.
+     *
+     * @return the value of the variable, <code>null</code> if the variable is not set.
+     */
+    private String format(
+        String variable,
+        String pattern)
+    {
+        Variable local = (Variable) variableMap.get(variable);
+
+        if (local != null)
+        {
+            return local.format(get(variable), pattern);
+        }
+
+        return (String) get(variable);
+    }
+
+
+    /**
+     * Returns the compiled template for the given string. Templates are compiled once
+     * and shared until the code convention changes.
+     *
+     * @param str a template string.
+     *
+     * @return the compiled template.
+     */
+    private static Template getTemplate(String str)
+    {
+        int modCount = Convention.getInstance().getModificationCount();
+
+        synchronized (_templates)
+        {
+            // most templates are taken from the code convention, but some are
+            // assembled per declaration, so keep the cache from growing
+            if ((modCount != _templatesModCount) || (_templates.size() >= MAX_TEMPLATES))
+            {
+                _templates.clear();
+                _templatesModCount = modCount;
+            }
+
+            Template template = (Template) _templates.get(str);
+
+            if (template == null)
+            {
+                template = new Template(str);
+                _templates.put(str, template);
+            }
+
+            return template;
+        }
+    }
+
     private static final Map variableMap = getVariableMap();
     
     private static Map getVariableMap() {
@@ -338,4 +407,183 @@ public final class Environment
         }
     }
 
+
+    /**
+     * A template compiled into literal text and variable expressions.
+     */
+    private static final class Template
+    {
+        /** The template text. */
+        private final String _text;
+
+        /** The literal text before each variable expression and after the last one. */
+        private final String[] _literals;
+
+        /** The variable names. */
+        private final String[] _names;
+
+        /** The format patterns of the variables. */
+        private final String[] _patterns;
+
+        /** The variable expressions, kept if a variable has no value. */
+        private final String[] _expressions;
+
+        /**
+         * Creates a new Template object.
+         *
+         * @param text the template text.
+         */
+        Template(String text)
+        {
+            List literals = new ArrayList(4);
+            List names = new ArrayList(4);
+            List patterns = new ArrayList(4);
+            List expressions = new ArrayList(4);
+            int literalStart = 0;
+
+            for (int start = text.indexOf('$'); start > -1;)
+            {
+                int nameEnd = getNameEnd(text, start + 1);
+                int end = (nameEnd > -1) ? indexOfDelimeter(text, nameEnd)
+                                         : -1;
+
+                if (end == -1)
+                {
+                    start = text.indexOf('$', start + 1);
+
+                    continue;
+                }
+
+                boolean colon = text.charAt(nameEnd) == ':';
+                String pattern = text.substring(colon ? (nameEnd + 1)
+                                                      : nameEnd, end);
+
+                // only $name$ and $name:pattern$ are valid expressions
+                if (colon == (pattern.length() > 0))
+                {
+                    literals.add(text.substring(literalStart, start));
+                    names.add(text.substring(start + 1, nameEnd));
+                    patterns.add(pattern);
+                    expressions.add(text.substring(start, end + 1));
+                    literalStart = end + 1;
+                }
+
+                start = text.indexOf('$', end + 1);
+            }
+
+            literals.add(text.substring(literalStart));
+
+            _text = text;
+            _literals = (String[]) literals.toArray(new String[literals.size()]);
+            _names = (String[]) names.toArray(new String[names.size()]);
+            _patterns = (String[]) patterns.toArray(new String[patterns.size()]);
+            _expressions = (String[]) expressions.toArray(new String[expressions.size()]);
+        }
+
+        /**
+         * Returns the template text with all variables of the given environment
+         * interpolated.
+         *
+         * @param environment the environment to take the variable values from.
+         *
+         * @return the interpolated text.
+         */
+        String interpolate(Environment environment)
+        {
+            if (_names.length == 0)
+            {
+                return _text;
+            }
+
+            StringBuffer buf = new StringBuffer(_text.length() + 64);
+
+            for (int i = 0; i < _names.length; i++)
+            {
+                buf.append(_literals[i]);
+
+                String value = environment.format(_names[i], _patterns[i]);
+
+                // the value has to be set in order to be substituted
+                if ((value != null) && (value.length() > 0))
+                {
+                    buf.append(value);
+                }
+                else
+                {
+                    buf.append(_expressions[i]);
+                }
+            }
+
+            buf.append(_literals[_names.length]);
+
+            return buf.toString();
+        }
+
+
+        /**
+         * Returns the end offset of the variable name that starts at the given offset.
+         *
+         * @param text the template text.
+         * @param start the start offset of the name.
+         *
+         * @return the end offset of the name (exclusive), <code>-1</code> if there is no
+         *         valid name of at least two characters.
+         */
+        private static int getNameEnd(
+            String text,
+            int    start)
+        {
+            int end = start;
+
+            for (int length = text.length(); end < length; end++)
+            {
+                char c = text.charAt(end);
+
+                if (
+                    ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'))
+                    || (c == '_') || ((end > start) && (((c >= '0') && (c <= '9')) || (c == '.'))))
+                {
+                    continue;
+                }
+
+                break;
+            }
+
+            return ((end - start) > 1) ? end
+                                       : -1;
+        }
+
+
+        /**
+         * Returns the offset of the next variable delimeter in the current line.
+         *
+         * @param text the template text.
+         * @param start the offset to start searching at.
+         *
+         * @return the offset of the delimeter, <code>-1</code> if the line contains no
+         *         delimeter.
+         */
+        private static int indexOfDelimeter(
+            String text,
+            int    start)
+        {
+            for (int i = start, length = text.length(); i < length; i++)
+            {
+                switch (text.charAt(i))
+                {
+                    case '$' :
+                        return i;
+
+                    case '\n' :
+                    case '\r' :
+                    case '\u0085' :
+                    case '\u2028' :
+                    case '\u2029' :
+                        return -1;
+                }
+            }
+
+            return -1;
+        }
+    }
 }
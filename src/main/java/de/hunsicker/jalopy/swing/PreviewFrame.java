@@ -44,6 +44,7 @@ import javax.swing.tree.TreePath;
 
 import de.hunsicker.io.IoHelper;
 import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.language.antlr.Node;
 import de.hunsicker.jalopy.printer.PrinterFactory;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -55,7 +56,6 @@ import de.hunsicker.util.ResourceBundleFactory;
 
 import org.apache.log4j.Level;
 
-import antlr.CommonASTWithHiddenTokens;
 import antlr.collections.AST;
 import antlr.debug.misc.JTreeASTModel;
 import antlr.debug.misc.JTreeASTPanel;
@@ -456,11 +456,11 @@ final class PreviewFrame
 		            
 		            TreePath path = event.getPath();
 		            System.out.println("Selected: " +"," +
-		                               ((CommonASTWithHiddenTokens) path.getLastPathComponent()).getLine() + ","+
-		                               ((CommonASTWithHiddenTokens) path.getLastPathComponent()).getColumn()
+		                               ((Node) path.getLastPathComponent()).getLine() + ","+
+		                               ((Node) path.getLastPathComponent()).getColumn()
 		                               +"\n\r"+
-		            ((CommonASTWithHiddenTokens) path.getLastPathComponent()).getHiddenBefore()+"\n\r"+
-		            ((CommonASTWithHiddenTokens) path.getLastPathComponent()).getHiddenAfter());
+		            ((Node) path.getLastPathComponent()).getHiddenBefore()+"\n\r"+
+		            ((Node) path.getLastPathComponent()).getHiddenAfter());
 		            Object elements[] = path.getPath();
 		            for (int i = 0; i < elements.length; i++) {
 		                System.out.print("->" + elements[i].getClass());
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * Finds strings similar to a given string. Two strings are considered similar if their
+ * {@link Lcs#getPercentage similarity} as determined by the <em>Longest Common
+ * Subsequence</em> exceeds a given threshold.
+ *
+ * <p>
+ * Unlike {@link Lcs}, the matcher does not allocate anything while matching: the
+ * subsequence length is computed with a single row of integers that is reused for all
+ * comparisons. Candidates are indexed up front by their length and character set, so
+ * most dissimilar candidates are ruled out without computing the subsequence at all.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Jalopy contributors
+ *
+ * @see Lcs
+ */
+public final class FuzzyMatcher
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    private static final long[] EMPTY_LONG_ARRAY = new long[0];
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The indexed candidates, in iteration order. */
+    private String[] _candidates = EMPTY_STRING_ARRAY;
+
+    /** The character sets of the indexed candidates. */
+    private long[] _masks = EMPTY_LONG_ARRAY;
+
+    /** The row of the processing table, reused for all comparisons. */
+    private int[] _row = new int[32];
+
+    /** The similarity (in percent) a candidate has to exceed. */
+    private final int _threshold;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new FuzzyMatcher object.
+     *
+     * @param threshold the similarity (in percent) a candidate has to exceed in order to
+     *        match.
+     */
+    public FuzzyMatcher(int threshold)
+    {
+        _threshold = threshold;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Sets the candidates to match against.
+     *
+     * @param candidates the candidates (of type <code>String</code>). Matches are
+     *        searched for in iteration order.
+     */
+    public void setCandidates(Collection candidates)
+    {
+        _candidates = new String[candidates.size()];
+        _masks = new long[_candidates.length];
+
+        int j = 0;
+
+        for (Iterator i = candidates.iterator(); i.hasNext(); j++)
+        {
+            _candidates[j] = (String) i.next();
+            _masks[j] = getMask(_candidates[j]);
+        }
+    }
+
+
+    /**
+     * Returns the first candidate similar to the given string.
+     *
+     * @param string the string to match.
+     *
+     * @return the first similar candidate. Returns <code>null</code> if no candidate
+     *         is similar enough.
+     *
+     * @see #setCandidates
+     */
+    public String getMatch(String string)
+    {
+        long mask = getMask(string);
+
+        for (int i = 0; i < _candidates.length; i++)
+        {
+            if (isSimilar(string, mask, _candidates[i], _masks[i]))
+            {
+                return _candidates[i];
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Returns the first string of the given list similar to the given string. The list
+     * is not indexed, use this method for candidates that change between calls.
+     *
+     * @param string the string to match.
+     * @param candidates the candidates (of type <code>String</code>).
+     *
+     * @return the first similar candidate. Returns <code>null</code> if no candidate
+     *         is similar enough.
+     */
+    public String getMatch(
+        String string,
+        List   candidates)
+    {
+        long mask = getMask(string);
+
+        for (int i = 0, size = candidates.size(); i < size; i++)
+        {
+            String candidate = (String) candidates.get(i);
+
+            if (isSimilar(string, mask, candidate, getMask(candidate)))
+            {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Returns the similarity of the given strings in percent. Yields the same value as
+     * {@link Lcs#getPercentage}.
+     *
+     * @param s1 first string.
+     * @param s2 second string.
+     *
+     * @return the similarity of the strings in percent.
+     */
+    public int getPercentage(
+        String s1,
+        String s2)
+    {
+        int total = s1.length() + s2.length();
+
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        return (getLength(s1, s2) * 200) / total;
+    }
+
+
+    /**
+     * Returns the character set of the given string. Every character is mapped onto
+     * one of 64 bits.
+     *
+     * @param string a string.
+     *
+     * @return the character set.
+     */
+    private static long getMask(String string)
+    {
+        long mask = 0L;
+
+        for (int i = 0, length = string.length(); i < length; i++)
+        {
+            mask |= 1L << (string.charAt(i) & 63);
+        }
+
+        return mask;
+    }
+
+
+    /**
+     * Determines whether the given strings are similar enough.
+     *
+     * @param s1 first string.
+     * @param mask1 the character set of the first string.
+     * @param s2 second string.
+     * @param mask2 the character set of the second string.
+     *
+     * @return <code>true</code> if the similarity exceeds the threshold.
+     */
+    private boolean isSimilar(
+        String s1,
+        long   mask1,
+        String s2,
+        long   mask2)
+    {
+        int length1 = s1.length();
+        int length2 = s2.length();
+
+        // the similarity is truncated to an integer, so it exceeds the threshold if the
+        // subsequence has at least this length
+        int minimum = (((_threshold + 1) * (length1 + length2)) + 199) / 200;
+
+        if ((minimum == 0) || (Math.min(length1, length2) < minimum))
+        {
+            return false;
+        }
+
+        // only characters both strings may share can be part of the subsequence
+        String shorter = (length1 < length2) ? s1
+                                             : s2;
+        long other = (length1 < length2) ? mask2
+                                         : mask1;
+        int common = 0;
+
+        for (int i = 0, length = shorter.length(); i < length; i++)
+        {
+            if ((other & (1L << (shorter.charAt(i) & 63))) != 0)
+            {
+                common++;
+            }
+        }
+
+        if (common < minimum)
+        {
+            return false;
+        }
+
+        return getLength(s1, s2) >= minimum;
+    }
+
+
+    /**
+     * Returns the length of the longest common subsequence of the given strings.
+     *
+     * @param s1 first string.
+     * @param s2 second string.
+     *
+     * @return the length of the longest common subsequence.
+     */
+    private int getLength(
+        String s1,
+        String s2)
+    {
+        int columns = s2.length();
+
+        if (_row.length <= columns)
+        {
+            _row = new int[columns + 1];
+        }
+
+        int[] row = _row;
+
+        for (int j = 0; j <= columns; j++)
+        {
+            row[j] = 0;
+        }
+
+        for (int i = 0, rows = s1.length(); i < rows; i++)
+        {
+            char c = s1.charAt(i);
+            int diagonal = 0;
+
+            for (int j = 1; j <= columns; j++)
+            {
+                int above = row[j];
+
+                if (c == s2.charAt(j - 1))
+                {
+                    row[j] = diagonal + 1;
+                }
+                else if (row[j - 1] > above)
+                {
+                    row[j] = row[j - 1];
+                }
+
+                diagonal = above;
+            }
+        }
+
+        return row[columns];
+    }
+}
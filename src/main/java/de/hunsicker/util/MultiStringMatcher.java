@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.util;
+
+/**
+ * Finds occurrences of a set of strings in a text. The strings are compiled into an
+ * <em>Aho-Corasick</em> automaton, so a text is scanned only once, no matter how many
+ * strings are searched for.
+ *
+ * <p>
+ * This class is thread-safe: the automaton is not modified after it has been built.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+public final class MultiStringMatcher
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The initial state. */
+    private static final int ROOT = 0;
+
+    /** Indicates a missing transition. */
+    private static final int NONE = -1;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The sorted characters of the transitions of each state. */
+    private final char[][] _labels;
+
+    /** The target states of the transitions of each state. */
+    private final int[][] _targets;
+
+    /** The state to continue with if a state has no transition for a character. */
+    private final int[] _failures;
+
+    /** Indicates for each state whether one of the strings ends there. */
+    private final boolean[] _accepting;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new MultiStringMatcher object.
+     *
+     * @param strings the strings to search for.
+     */
+    public MultiStringMatcher(String[] strings)
+    {
+        int capacity = 1;
+
+        for (int i = 0; i < strings.length; i++)
+        {
+            capacity += strings[i].length();
+        }
+
+        char[][] labels = new char[capacity][];
+        int[][] targets = new int[capacity][];
+        int[] sizes = new int[capacity];
+        boolean[] accepting = new boolean[capacity];
+        int count = 1;
+
+        labels[ROOT] = new char[0];
+        targets[ROOT] = new int[0];
+
+        // build the trie of the strings
+        for (int i = 0; i < strings.length; i++)
+        {
+            int state = ROOT;
+
+            for (int j = 0, length = strings[i].length(); j < length; j++)
+            {
+                char c = strings[i].charAt(j);
+                int index = indexOf(labels[state], sizes[state], c);
+
+                if (index > -1)
+                {
+                    state = targets[state][index];
+
+                    continue;
+                }
+
+                index = -(index + 1);
+
+                if (sizes[state] == labels[state].length)
+                {
+                    int size = (sizes[state] * 2) + 1;
+                    char[] l = new char[size];
+                    int[] t = new int[size];
+                    System.arraycopy(labels[state], 0, l, 0, sizes[state]);
+                    System.arraycopy(targets[state], 0, t, 0, sizes[state]);
+                    labels[state] = l;
+                    targets[state] = t;
+                }
+
+                System.arraycopy(
+                    labels[state], index, labels[state], index + 1, sizes[state] - index);
+                System.arraycopy(
+                    targets[state], index, targets[state], index + 1, sizes[state] - index);
+                labels[state][index] = c;
+                targets[state][index] = count;
+                sizes[state]++;
+
+                labels[count] = new char[0];
+                targets[count] = new int[0];
+                state = count++;
+            }
+
+            accepting[state] = true;
+        }
+
+        _labels = new char[count][];
+        _targets = new int[count][];
+        _failures = new int[count];
+        _accepting = new boolean[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            _labels[i] = new char[sizes[i]];
+            _targets[i] = new int[sizes[i]];
+            System.arraycopy(labels[i], 0, _labels[i], 0, sizes[i]);
+            System.arraycopy(targets[i], 0, _targets[i], 0, sizes[i]);
+            _accepting[i] = accepting[i];
+        }
+
+        // compute the failure transitions breadth-first, so the failure state of a
+        // state is always known before the state itself is processed
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+
+        while (head < tail)
+        {
+            int state = queue[head++];
+
+            for (int i = 0; i < _labels[state].length; i++)
+            {
+                int target = _targets[state][i];
+
+                if (state == ROOT)
+                {
+                    _failures[target] = ROOT;
+                }
+                else
+                {
+                    int failure = getTarget(_failures[state], _labels[state][i]);
+                    _failures[target] = (failure == NONE) ? ROOT
+                                                          : failure;
+                }
+
+                _accepting[target] |= _accepting[_failures[target]];
+                queue[tail++] = target;
+            }
+        }
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Determines whether the given text contains at least one of the strings.
+     *
+     * @param text text to search.
+     *
+     * @return <code>true</code> if one of the strings occurs in the given text.
+     */
+    public boolean isContainedIn(String text)
+    {
+        if (_accepting[ROOT])
+        {
+            return true;
+        }
+
+        int state = ROOT;
+
+        for (int i = 0, length = text.length(); i < length; i++)
+        {
+            state = getTarget(state, text.charAt(i));
+
+            if (state == NONE)
+            {
+                state = ROOT;
+            }
+            else if (_accepting[state])
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Returns the state reached from the given state for the given character, following
+     * the failure transitions as necessary.
+     *
+     * @param state the current state.
+     * @param c the next character.
+     *
+     * @return the next state, {@link #NONE} if not even the initial state has a
+     *         transition for the character.
+     */
+    private int getTarget(
+        int  state,
+        char c)
+    {
+        for (;;)
+        {
+            int index = indexOf(_labels[state], _labels[state].length, c);
+
+            if (index > -1)
+            {
+                return _targets[state][index];
+            }
+
+            if (state == ROOT)
+            {
+                return NONE;
+            }
+
+            state = _failures[state];
+        }
+    }
+
+
+    /**
+     * Searches the given sorted characters for the given character.
+     *
+     * @param labels sorted characters.
+     * @param size number of characters to search.
+     * @param c the character to search for.
+     *
+     * @return index of the character, if it is found; otherwise
+     *         <code>(-(insertion point) - 1)</code>.
+     */
+    private static int indexOf(
+        char[] labels,
+        int    size,
+        char   c)
+    {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if (labels[mid] < c)
+            {
+                low = mid + 1;
+            }
+            else if (labels[mid] > c)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+
+        return -(low + 1);
+    }
+}
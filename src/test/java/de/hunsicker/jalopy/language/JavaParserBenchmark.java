@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import java.io.StringReader;
+
+import antlr.TokenBuffer;
+import antlr.TokenStreamHiddenTokenFilter;
+
+import de.hunsicker.jalopy.language.antlr.JavaLexer;
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+
+
+/**
+ * Parser benchmark for sources that make the syntactic predicates of the Java grammar
+ * guess the same token ranges again and again: chains of (generic) casts, generic method
+ * calls and nested anonymous classes. Every sample is parsed with and without the
+ * memoization of guessed productions and the best times are printed. Nothing is
+ * asserted, {@link JavaParserMemoizationTest} checks that both parses yield the same
+ * trees.
+ *
+ * <p>
+ * Without memoization the parse time grows exponentially with the nesting depth, so
+ * the plain parser only parses samples up to <code>-Dbenchmark.plainDepth=&lt;n&gt;</code>
+ * (defaults to 8). Run it with <code>-Dbenchmark.rounds=&lt;n&gt;</code> to get stable
+ * timings. The class is no test case and therefore not run with the tests.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+public final class JavaParserBenchmark
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The nesting depths to benchmark. */
+    private static final int[] DEPTHS = { 2, 4, 6, 8, 16, 32 };
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The lexer to use. */
+    private final JavaLexer _lexer;
+
+    /** The factory of the lexer and parser. */
+    private final CompositeFactory _factory;
+
+    /** The number of times every sample is parsed. */
+    private final int _rounds;
+
+    /** The deepest nesting the plain parser parses. */
+    private final int _plainDepth;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new JavaParserBenchmark object.
+     *
+     * @param rounds the number of times every sample is parsed.
+     * @param plainDepth the deepest nesting the plain parser parses.
+     */
+    private JavaParserBenchmark(
+        int rounds,
+        int plainDepth)
+    {
+        _factory = new CompositeFactory();
+        _lexer = new JavaLexer(_factory);
+        _rounds = rounds;
+        _plainDepth = plainDepth;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param argv command line arguments, ignored.
+     *
+     * @throws Exception if a sample could not be parsed.
+     */
+    public static void main(String[] argv)
+      throws Exception
+    {
+        JavaParserBenchmark benchmark =
+            new JavaParserBenchmark(
+                Integer.getInteger("benchmark.rounds", 1).intValue(),
+                Integer.getInteger("benchmark.plainDepth", 8).intValue());
+
+        for (int i = 0; i < DEPTHS.length; i++)
+        {
+            benchmark.run("generic casts", DEPTHS[i], getGenericCasts(DEPTHS[i]));
+        }
+
+        for (int i = 0; i < DEPTHS.length; i++)
+        {
+            benchmark.run("generic calls", DEPTHS[i], getGenericCalls(DEPTHS[i]));
+        }
+
+        for (int i = 0; i < DEPTHS.length; i++)
+        {
+            benchmark.run(
+                "anonymous classes", DEPTHS[i], getAnonymousClasses(DEPTHS[i]));
+        }
+    }
+
+
+    /**
+     * Returns a chain of generic casts.
+     *
+     * @param depth the number of casts.
+     *
+     * @return the source.
+     */
+    private static String getGenericCasts(int depth)
+    {
+        StringBuffer buf = new StringBuffer(1000);
+        buf.append("class Casts {\n    Object f(Object x) {\n        return ");
+
+        for (int j = 0; j < depth; j++)
+        {
+            buf.append("(Map<String, List<? extends T").append(j).append(">>) ");
+        }
+
+        buf.append("x;\n    }\n}\n");
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Returns parenthesized generic method calls mixed with casts.
+     *
+     * @param depth the nesting depth of the calls.
+     *
+     * @return the source.
+     */
+    private static String getGenericCalls(int depth)
+    {
+        StringBuffer buf = new StringBuffer(1000);
+        buf.append("class Calls {\n    <T> T f(Object x) {\n        return ");
+
+        for (int j = 0; j < depth; j++)
+        {
+            buf.append("(List<T>) Collections.<T>singletonList((T) ");
+        }
+
+        buf.append('x');
+
+        for (int j = 0; j < depth; j++)
+        {
+            buf.append(')');
+        }
+
+        buf.append(";\n    }\n}\n");
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Returns nested anonymous classes with generic declarations.
+     *
+     * @param depth the nesting depth of the classes.
+     *
+     * @return the source.
+     */
+    private static String getAnonymousClasses(int depth)
+    {
+        String body = "Map<String, List<Integer>> m = null;";
+
+        for (int j = 0; j < depth; j++)
+        {
+            body =
+                "Comparator<List<T>> c" + j
+                + " = new Comparator<List<T>>() { public int compare(List<T> a, "
+                + "List<T> b) { " + body + " return 0; } };";
+        }
+
+        return "class Anonymous<T> {\n    void f() {\n        " + body + "\n    }\n}\n";
+    }
+
+
+    /**
+     * Parses the given sample with and without memoization and prints the best times.
+     *
+     * @param name name of the sample.
+     * @param depth the nesting depth of the sample.
+     * @param source the source to parse.
+     *
+     * @throws Exception if the source could not be parsed.
+     */
+    private void run(
+        String name,
+        int    depth,
+        String source)
+      throws Exception
+    {
+        long memoized = time(source, true);
+        String plain =
+            (depth <= _plainDepth) ? (time(source, false) + " ms")
+                                   : "skipped";
+
+        System.out.println(
+            name + ", depth " + depth + ": memoized " + memoized + " ms, plain " + plain);
+    }
+
+
+    /**
+     * Parses the given source and returns the best time.
+     *
+     * @param source the source to parse.
+     * @param memoize should guessed productions be memoized?
+     *
+     * @return the best time of all rounds (in ms).
+     *
+     * @throws Exception if the source could not be parsed.
+     */
+    private long time(
+        String  source,
+        boolean memoize)
+      throws Exception
+    {
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < _rounds; i++)
+        {
+            JavaParser parser = (JavaParser) _lexer.getParser();
+            long start = System.currentTimeMillis();
+            _lexer.setInputBuffer(new StringReader(source));
+
+            TokenStreamHiddenTokenFilter filter = new TokenStreamHiddenTokenFilter(_lexer);
+            filter.discard(JavaTokenTypes.WS);
+            parser.setTokenBuffer(new TokenBuffer(filter));
+            parser.setMemoize(memoize);
+            parser.parse();
+
+            best = Math.min(best, System.currentTimeMillis() - start);
+            _lexer.reset();
+            parser.reset();
+            _factory.clear();
+        }
+
+        return best;
+    }
+}
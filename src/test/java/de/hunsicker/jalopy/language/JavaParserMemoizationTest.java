@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import antlr.CommonHiddenStreamToken;
+import antlr.TokenBuffer;
+import antlr.TokenStreamHiddenTokenFilter;
+import antlr.collections.AST;
+
+import de.hunsicker.jalopy.language.antlr.JavaLexer;
+import de.hunsicker.jalopy.language.antlr.JavaNode;
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import junit.framework.TestCase;
+
+
+/**
+ * Differential test for the memoization of guessed productions in the Java parser: the
+ * memoizing parser has to build the very same tree as the parser that guesses every
+ * production again. The samples make the syntactic predicates of the grammar guess the
+ * same token ranges again and again: chains of (generic) casts and nested anonymous
+ * classes. As the parse time grows exponentially with the nesting depth without
+ * memoization, the depths are kept small.
+ *
+ * @author Jalopy contributors
+ */
+public class JavaParserMemoizationTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The nesting depths to compare. */
+    private static final int[] DEPTHS = { 1, 2, 4, 6 };
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The lexer to use. */
+    private JavaLexer _lexer;
+
+    /** The factory of the lexer and parser. */
+    private CompositeFactory _factory;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new JavaParserMemoizationTest object.
+     *
+     * @param name name of the test case.
+     */
+    public JavaParserMemoizationTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compares the trees of chains of generic casts.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testGenericCasts()
+      throws Exception
+    {
+        for (int i = 0; i < DEPTHS.length; i++)
+        {
+            StringBuffer buf = new StringBuffer(1000);
+            buf.append("class Casts {\n    Object f(Object x) {\n        return ");
+
+            for (int j = 0; j < DEPTHS[i]; j++)
+            {
+                buf.append("(Map<String, List<? extends T").append(j).append(">>) ");
+            }
+
+            buf.append("x;\n    }\n}\n");
+            compare("generic casts, depth " + DEPTHS[i], buf.toString());
+        }
+    }
+
+
+    /**
+     * Compares the trees of parenthesized generic method calls mixed with casts.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testGenericCalls()
+      throws Exception
+    {
+        for (int i = 0; i < DEPTHS.length; i++)
+        {
+            StringBuffer buf = new StringBuffer(1000);
+            buf.append("class Calls {\n    <T> T f(Object x) {\n        return ");
+
+            for (int j = 0; j < DEPTHS[i]; j++)
+            {
+                buf.append("(List<T>) Collections.<T>singletonList((T) ");
+            }
+
+            buf.append('x');
+
+            for (int j = 0; j < DEPTHS[i]; j++)
+            {
+                buf.append(')');
+            }
+
+            buf.append(";\n    }\n}\n");
+            compare("generic calls, depth " + DEPTHS[i], buf.toString());
+        }
+    }
+
+
+    /**
+     * Compares the trees of nested anonymous classes with generic declarations.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testAnonymousClasses()
+      throws Exception
+    {
+        for (int i = 0; i < DEPTHS.length; i++)
+        {
+            String body = "Map<String, List<Integer>> m = null;";
+
+            for (int j = 0; j < DEPTHS[i]; j++)
+            {
+                body =
+                    "Comparator<List<T>> c" + j
+                    + " = new Comparator<List<T>>() { public int compare(List<T> a, "
+                    + "List<T> b) { " + body + " return 0; } };";
+            }
+
+            compare(
+                "anonymous classes, depth " + DEPTHS[i],
+                "class Anonymous<T> {\n    void f() {\n        " + body + "\n    }\n}\n");
+        }
+    }
+
+
+    /**
+     * Compares the trees of the sources of this project.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testSources()
+      throws Exception
+    {
+        List files = new ArrayList(500);
+        collect(new File(System.getProperty("basedir", "."), "src/main/java"), files);
+        assertFalse("no sources found", files.isEmpty());
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            compare(file.getPath(), read(file));
+        }
+    }
+
+
+    /**
+     * Sets up the lexer and parser.
+     */
+    protected void setUp()
+    {
+        _factory = new CompositeFactory();
+        _lexer = new JavaLexer(_factory);
+    }
+
+
+    /**
+     * Parses the given source with and without memoization and compares the trees.
+     *
+     * @param name name of the source.
+     * @param source the source to parse.
+     *
+     * @throws Exception if the source could not be parsed.
+     */
+    private void compare(
+        String name,
+        String source)
+      throws Exception
+    {
+        AST expected = parse(source, false);
+
+        // the nodes of the second tree must not recycle the nodes of the first
+        CompositeFactory factory = _factory;
+        setUp();
+
+        AST actual = parse(source, true);
+        assertNotNull(name, expected);
+        assertNotNull(name, expected.getFirstChild());
+        compare(name, expected, actual);
+        factory.clear();
+        _factory.clear();
+    }
+
+
+    /**
+     * Parses the given source.
+     *
+     * @param source the source to parse.
+     * @param memoize should guessed productions be memoized?
+     *
+     * @return the parse tree.
+     *
+     * @throws Exception if the source could not be parsed.
+     */
+    private AST parse(
+        String  source,
+        boolean memoize)
+      throws Exception
+    {
+        JavaParser parser = (JavaParser) _lexer.getParser();
+        _lexer.setInputBuffer(new StringReader(source));
+
+        TokenStreamHiddenTokenFilter filter = new TokenStreamHiddenTokenFilter(_lexer);
+        filter.discard(JavaTokenTypes.WS);
+        filter.discard(JavaTokenTypes.SEPARATOR_COMMENT);
+        filter.hide(JavaTokenTypes.JAVADOC_COMMENT);
+        filter.hide(JavaTokenTypes.ML_COMMENT);
+        filter.hide(JavaTokenTypes.SPECIAL_COMMENT);
+        filter.hide(JavaTokenTypes.SL_COMMENT);
+        parser.setTokenBuffer(new TokenBuffer(filter));
+        parser.setMemoize(memoize);
+        parser.parse();
+
+        return parser.getParseTree();
+    }
+
+
+    /**
+     * Compares the given trees.
+     *
+     * @param where description of the compared trees.
+     * @param expected the expected tree.
+     * @param actual the actual tree.
+     */
+    private void compare(
+        String where,
+        AST    expected,
+        AST    actual)
+    {
+        for (; expected != null;
+            expected = expected.getNextSibling(), actual = actual.getNextSibling())
+        {
+            assertNotNull(where + " (" + expected + ")", actual);
+
+            JavaNode e = (JavaNode) expected;
+            JavaNode a = (JavaNode) actual;
+            String node = where + " (" + e + ")";
+
+            assertEquals(node, e.getType(), a.getType());
+            assertEquals(node, e.getText(), a.getText());
+            assertEquals(node, e.getStartLine(), a.getStartLine());
+            assertEquals(node, e.getStartColumn(), a.getStartColumn());
+            assertEquals(node, e.getEndLine(), a.getEndLine());
+            assertEquals(node, e.getEndColumn(), a.getEndColumn());
+            assertEquals(node, text(e.getHiddenBefore()), text(a.getHiddenBefore()));
+            assertEquals(node, text(e.getHiddenAfter()), text(a.getHiddenAfter()));
+
+            compare(where, expected.getFirstChild(), actual.getFirstChild());
+        }
+
+        assertNull(where, actual);
+    }
+
+
+    /**
+     * Returns the text of the given hidden token.
+     *
+     * @param token a hidden token, may be <code>null</code>.
+     *
+     * @return the text of the token or <code>null</code>.
+     */
+    private String text(CommonHiddenStreamToken token)
+    {
+        return (token != null) ? token.getText()
+                               : null;
+    }
+
+
+    /**
+     * Collects all Java source files below the given directory.
+     *
+     * @param directory a directory.
+     * @param files list to add the found files to.
+     */
+    private void collect(
+        File directory,
+        List files)
+    {
+        File[] children = directory.listFiles();
+
+        if (children == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < children.length; i++)
+        {
+            if (children[i].isDirectory())
+            {
+                collect(children[i], files);
+            }
+            else if (children[i].getName().endsWith(".java"))
+            {
+                files.add(children[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Reads the contents of the given file.
+     *
+     * @param file a file.
+     *
+     * @return the file contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private String read(File file)
+      throws IOException
+    {
+        Reader in = new FileReader(file);
+
+        try
+        {
+            StringBuffer buf = new StringBuffer((int) file.length());
+            char[] chars = new char[8192];
+
+            for (int count; (count = in.read(chars)) > -1;)
+            {
+                buf.append(chars, 0, count);
+            }
+
+            return buf.toString();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
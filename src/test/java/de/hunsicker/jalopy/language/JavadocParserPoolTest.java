@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import antlr.Token;
+import antlr.collections.AST;
+
+import de.hunsicker.jalopy.language.antlr.ExtendedToken;
+import de.hunsicker.jalopy.language.antlr.JavaLexer;
+import de.hunsicker.jalopy.language.antlr.JavadocParser;
+import de.hunsicker.jalopy.language.antlr.Node;
+import junit.framework.TestCase;
+
+
+/**
+ * Differential test for {@link JavadocParserPool}: a tree parsed in the background has
+ * to be the very same tree the printer would parse on demand.
+ *
+ * @author Jalopy contributors
+ */
+public class JavadocParserPoolTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** A comment the Javadoc parser reports problems for (from java.io.DataInput). */
+    private static final String PROBLEMS =
+        "/**\n * <blockquote>\n *   <table border=\"1\" cellspacing=\"0\" cellpadding=\"8\"\n"
+        + " *          summary=\"Bit values and bytes\">\n *     <tr>\n"
+        + " *       <th colspan=\"9\"><span style=\"font-weight:normal\">\n"
+        + " *         All characters in the range {@code '\\u0001'} to\n"
+        + " *         {@code '\\u007F'} are represented by a single byte:</span></th>\n"
+        + " *     </tr>\n *   </table>\n * </blockquote>\n * <pre>\n"
+        + " *     (char)(((a &amp; 0x1F) &lt;&lt; 6) | (b &amp; 0x3F))\n * </pre>\n */";
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new JavadocParserPoolTest object.
+     *
+     * @param name name of the test case.
+     */
+    public JavadocParserPoolTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compares the trees of the Javadoc comments with preformatted text in the sources
+     * of this project.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testSources()
+      throws Exception
+    {
+        List files = new ArrayList(500);
+        collect(new File(System.getProperty("basedir", "."), "src/main/java"), files);
+        assertFalse("no sources found", files.isEmpty());
+
+        int compared = 0;
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            compared += compare(file.getPath(), read(file), "<pre");
+        }
+
+        assertTrue("no comments compared", compared > 0);
+    }
+
+
+    /**
+     * Checks that clearing a forked factory does not discard the comments parsed in the
+     * background for the file that is being printed.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testFork()
+      throws Exception
+    {
+        CompositeFactory factory = new CompositeFactory();
+        JavaLexer lexer = new JavaLexer(factory);
+        lexer.parseJavadocComments = true;
+        lexer.javadocParseThreads = 2;
+        lexer.setInputBuffer(
+            new StringReader("/**\n * A class.\n *\n * @author me\n */\nclass Forked {}"));
+
+        JavadocParserPool pool = lexer.getJavadocParserPool();
+        Node comment = null;
+
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF_TYPE;
+            token = lexer.nextToken())
+        {
+            if (((ExtendedToken) token).getComment() != null)
+            {
+                comment = ((ExtendedToken) token).getComment();
+            }
+        }
+
+        assertNotNull(comment);
+
+        while (pool.getPendingCount() > 0)
+        {
+            Thread.sleep(10);
+        }
+
+        factory.fork().clear();
+        assertNotNull(pool.get(comment, comment.getStartLine(), comment.getStartColumn()));
+    }
+
+
+    /**
+     * Checks that a comment with problems is handed back to be parsed on demand.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testProblems()
+      throws Exception
+    {
+        assertEquals(0, compare("DataInput", PROBLEMS + "\ninterface DataInput {}", "/**"));
+    }
+
+
+    /**
+     * Compares the background and on-demand trees of the Javadoc comments of the given
+     * input that contain the given text.
+     *
+     * @param name name of the input.
+     * @param input the input.
+     * @param contained text the compared comments contain.
+     *
+     * @return the number of comments parsed in the background.
+     *
+     * @throws Exception if an error occured.
+     */
+    private int compare(
+        String name,
+        String input,
+        String contained)
+      throws Exception
+    {
+        CompositeFactory factory = new CompositeFactory();
+        JavaLexer lexer = new JavaLexer(factory);
+        lexer.parseJavadocComments = true;
+        lexer.javadocParseThreads = 2;
+        lexer.setInputBuffer(new StringReader(input));
+
+        JavadocParserPool pool = lexer.getJavadocParserPool();
+        List comments = new ArrayList();
+
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF_TYPE;
+            token = lexer.nextToken())
+        {
+            Node comment = ((ExtendedToken) token).getComment();
+
+            if ((comment != null) && (comment.getText().indexOf(contained) > -1))
+            {
+                comments.add(comment);
+            }
+        }
+
+        // let the workers pick up all comments
+        while (pool.getPendingCount() > 0)
+        {
+            Thread.sleep(10);
+        }
+
+        Recognizer recognizer = factory.getRecognizer();
+        JavadocParser parser = (JavadocParser) recognizer.getParser();
+        int result = 0;
+
+        for (int i = 0, size = comments.size(); i < size; i++)
+        {
+            Node comment = (Node) comments.get(i);
+            AST actual =
+                pool.get(comment, comment.getStartLine(), comment.getStartColumn());
+
+            recognizer.reset();
+            recognizer.setLine(comment.getStartLine());
+            recognizer.setColumn(comment.getStartColumn());
+            recognizer.parse(comment.getText(), name);
+
+            String where = name + ", comment " + i;
+
+            // the lexer records the position of the comment token
+            assertTrue(where, comment.getStartLine() > 0);
+
+            if (parser.getProblemCount() > 0)
+            {
+                assertNull(where, actual);
+            }
+            else
+            {
+                assertNotNull(where, actual);
+                compare(where, recognizer.getParseTree(), actual);
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Compares the given trees.
+     *
+     * @param where description of the compared trees.
+     * @param expected the expected tree.
+     * @param actual the actual tree.
+     */
+    private void compare(
+        String where,
+        AST    expected,
+        AST    actual)
+    {
+        for (; expected != null;
+            expected = expected.getNextSibling(), actual = actual.getNextSibling())
+        {
+            assertNotNull(where + " (" + expected + ")", actual);
+
+            Node e = (Node) expected;
+            Node a = (Node) actual;
+            String node = where + " (" + e + ")";
+
+            assertEquals(node, e.getType(), a.getType());
+            assertEquals(node, e.getText(), a.getText());
+            assertEquals(node, e.getStartLine(), a.getStartLine());
+            assertEquals(node, e.getStartColumn(), a.getStartColumn());
+            assertEquals(node, e.getEndLine(), a.getEndLine());
+            assertEquals(node, e.getEndColumn(), a.getEndColumn());
+
+            compare(where, expected.getFirstChild(), actual.getFirstChild());
+        }
+
+        assertNull(where, actual);
+    }
+
+
+    /**
+     * Collects all Java source files below the given directory.
+     *
+     * @param directory a directory.
+     * @param files list to add the found files to.
+     */
+    private void collect(
+        File directory,
+        List files)
+    {
+        File[] children = directory.listFiles();
+
+        if (children == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < children.length; i++)
+        {
+            if (children[i].isDirectory())
+            {
+                collect(children[i], files);
+            }
+            else if (children[i].getName().endsWith(".java"))
+            {
+                files.add(children[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Reads the contents of the given file.
+     *
+     * @param file a file.
+     *
+     * @return the file contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private String read(File file)
+      throws IOException
+    {
+        Reader in = new FileReader(file);
+
+        try
+        {
+            StringBuffer buf = new StringBuffer((int) file.length());
+            char[] chars = new char[8192];
+
+            for (int count; (count = in.read(chars)) > -1;)
+            {
+                buf.append(chars, 0, count);
+            }
+
+            return buf.toString();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language;
+
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Compares the serial version UIDs computed from the class files with the values of the
+ * serialization runtime. The samples are the nested classes of this test, so the
+ * values do not depend on the classes of a particular runtime.
+ *
+ * @author Jalopy contributors
+ */
+public class SerialVersionCalculatorTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** An anonymous class. */
+    static final Serializable ANONYMOUS =
+        new Serializable()
+        {
+            private int _count;
+
+            public String toString()
+            {
+                return "anonymous" + _count;
+            }
+        };
+
+    /** The classes to compare. */
+    private static final Class[] CLASSES =
+    {
+        Color.class, Shape.class, Inner.class, ANONYMOUS.getClass(), Initialized.class,
+        Declared.class, Computed.class, Plain.class, Marker.class
+    };
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new SerialVersionCalculatorTest object.
+     *
+     * @param name name of the test case.
+     */
+    public SerialVersionCalculatorTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compares the computed values with the values of {@link ObjectStreamClass}.
+     *
+     * @throws Exception if a class could not be found.
+     */
+    public void testRuntimeValues()
+      throws Exception
+    {
+        for (int i = 0; i < CLASSES.length; i++)
+        {
+            String name = CLASSES[i].getName();
+            long expected = ObjectStreamClass.lookup(CLASSES[i]).getSerialVersionUID();
+
+            assertEquals(
+                name, expected, SerialVersionCalculator.getSerialVersionUID(name, this));
+        }
+    }
+
+
+    /**
+     * Checks that the value of an unchanged class file is answered from the cache.
+     *
+     * @throws Exception if a class could not be found.
+     */
+    public void testCache()
+      throws Exception
+    {
+        for (int i = 0; i < CLASSES.length; i++)
+        {
+            String name = CLASSES[i].getName();
+            long expected = SerialVersionCalculator.getSerialVersionUID(name, this);
+            int hits = SerialVersionCalculator.hits;
+
+            assertEquals(
+                name, expected, SerialVersionCalculator.getSerialVersionUID(name, this));
+            assertEquals(name, hits + 1, SerialVersionCalculator.hits);
+        }
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * An enum, always has the value 0L.
+     */
+    enum Color
+    {
+        RED, GREEN;
+    }
+
+    /**
+     * An enum that declares a value, which is ignored.
+     */
+    enum Shape
+    {
+        CIRCLE
+        {
+            int getCorners()
+            {
+                return 0;
+            }
+        },
+        SQUARE;
+
+        private static final long serialVersionUID = 42L;
+
+        int getCorners()
+        {
+            return 4;
+        }
+    }
+
+    /**
+     * An inner class.
+     */
+    class Inner
+        implements Serializable
+    {
+        protected int value;
+
+        Inner(int value)
+        {
+            this.value = value;
+        }
+
+        public int getValue()
+        {
+            return this.value;
+        }
+    }
+
+    /**
+     * A class with a static initializer.
+     */
+    static class Initialized
+        implements Serializable
+    {
+        static final List NAMES = new ArrayList();
+
+        static
+        {
+            NAMES.add("first");
+        }
+
+        transient Object cache;
+        String name;
+    }
+
+    /**
+     * A class that declares a constant value.
+     */
+    static final class Declared
+        implements Serializable
+    {
+        private static final long serialVersionUID = -4711L;
+        int value;
+    }
+
+    /**
+     * A class that declares a value that is no compile-time constant.
+     */
+    static final class Computed
+        implements Serializable
+    {
+        private static final long serialVersionUID = Long.parseLong("4711");
+    }
+
+    /**
+     * A class with fields, constructors and methods of all kinds.
+     */
+    public abstract static class Plain
+        implements Serializable, Comparable
+    {
+        public static final int CONSTANT = 1;
+        private static int _counter;
+        protected volatile long stamp;
+        private final String _name;
+
+        protected Plain()
+        {
+            this("plain");
+        }
+
+        Plain(String name)
+        {
+            _name = name;
+        }
+
+        public int compareTo(Object o)
+        {
+            return _name.compareTo(((Plain) o)._name);
+        }
+
+        public abstract void run()
+          throws Exception;
+
+        static synchronized int next()
+        {
+            return _counter++;
+        }
+
+        private String getName()
+        {
+            return _name;
+        }
+    }
+
+    /**
+     * An interface.
+     */
+    interface Marker
+        extends Serializable
+    {
+        String NAME = "marker";
+
+        void mark();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.language.antlr;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import antlr.Token;
+import antlr.TokenStreamException;
+
+import de.hunsicker.jalopy.language.CompositeFactory;
+import junit.framework.TestCase;
+
+
+/**
+ * Differential test for {@link JavaScanner}: the hand-written scanner has to produce
+ * the very same tokens as the generated lexer.
+ *
+ * @author Jalopy contributors
+ */
+public class JavaScannerTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Inputs that exercise the corners of the token language. */
+    private static final String[] SAMPLES =
+    {
+        "", " ", "a", "\n", "\r\n\r\n", "\r\r\n\t \f",
+        "package a.b; import java.util.*; public class A$_1 extends B implements C {}",
+        "int i = 0, j = 07, k = 0x1fL, l = 09.5, m = 0e1, n = 1.e3f, o = .5D, p = 3L;",
+        "x = 1.5e+10 + 2E-3d - 0.0f * 1f / .1 % 0XaBcD;",
+        "a >>>= b >>= c >>> d >> e >= f > g <<= h << i <= j < k;",
+        "a += b -= c *= d /= e %= f ^= g |= h &= i; a++ + b-- - ~c ! d != e == f;",
+        "a || b && c | d & e ^ f ? g : h; @Foo(x = {1, 2}) void f(String... s) {}",
+        "char a = 'a', b = '\\n', c = '\\'', d = '\\u0041', e = '\\uu0041', f = '\\7',"
+        + " g = '\\377', h = '\\47', i = '\\\\', j = '\t';",
+        "String s = \"\", t = \"a\\\"b\\tc\\u00e4\\0\\12\\123\\4567\\\\\";",
+        "assert x; enum E { A, B } threadsafe strictfp assertion enumeration",
+        "// single\n//~ separator\r\n// at end",
+        "a /* ml */ b /* multi\n * line\r\n *  with ** stars */ c /***/ d /**/",
+        "/**\n * Javadoc.\n *\n * @param a the a.\n */\nvoid f(int a) {}",
+        "\t/**\n\t * Tabbed Javadoc.\n\t */\n\tvoid f() {}\n",
+        "  //J-\n  int[] a = { 1,\n\t2 }; // keep\r\n  //J+\n  int b;",
+        "\ta\tbb\tccc\t\td", "x.y...z"
+    };
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new JavaScannerTest object.
+     *
+     * @param name name of the test case.
+     */
+    public JavaScannerTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compares both lexers on the samples.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testSamples()
+      throws Exception
+    {
+        for (int i = 0; i < SAMPLES.length; i++)
+        {
+            compare("sample " + i, SAMPLES[i]);
+        }
+    }
+
+
+    /**
+     * Compares both lexers on the sources of this project.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testSources()
+      throws Exception
+    {
+        List files = new ArrayList(500);
+        collect(new File(System.getProperty("basedir", "."), "src/main/java"), files);
+        assertFalse("no sources found", files.isEmpty());
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            compare(file.getPath(), read(file));
+        }
+    }
+
+
+    /**
+     * Compares both lexers on the given input with several lexer configurations.
+     *
+     * @param name name of the input.
+     * @param input the input.
+     *
+     * @throws TokenStreamException if the input could not be tokenized.
+     */
+    private void compare(
+        String name,
+        String input)
+      throws TokenStreamException
+    {
+        compare(name, input, false, false, JavaLexer.JDK_1_4, 8);
+        compare(name, input, true, true, JavaLexer.JDK_1_3, 4);
+        compare(name, input, false, true, JavaLexer.JDK_1_4, 3);
+    }
+
+
+    /**
+     * Compares both lexers on the given input.
+     *
+     * @param name name of the input.
+     * @param input the input.
+     * @param parseJavadoc should Javadoc comments be parsed?
+     * @param formatComments should multi-line comments be formatted?
+     * @param sourceVersion the source compatibility version.
+     * @param tabSize the tab size.
+     *
+     * @throws TokenStreamException if the input could not be tokenized.
+     */
+    private void compare(
+        String  name,
+        String  input,
+        boolean parseJavadoc,
+        boolean formatComments,
+        int     sourceVersion,
+        int     tabSize)
+      throws TokenStreamException
+    {
+        JavaLexer expected =
+            createLexer(
+                input, false, parseJavadoc, formatComments, sourceVersion, tabSize);
+        JavaLexer actual =
+            createLexer(input, true, parseJavadoc, formatComments, sourceVersion, tabSize);
+
+        for (int i = 0;; i++)
+        {
+            ExtendedToken e = (ExtendedToken) expected.nextToken();
+            ExtendedToken a = (ExtendedToken) actual.nextToken();
+            String where = name + ", token " + i + " (" + e + ")";
+
+            assertEquals(where, e.getType(), a.getType());
+            assertEquals(where, e.getText(), a.getText());
+            assertEquals(where, e.getLine(), a.getLine());
+            assertEquals(where, e.getColumn(), a.getColumn());
+            assertEquals(where, e.getEndLine(), a.getEndLine());
+            assertEquals(where, e.getEndColumn(), a.getEndColumn());
+            assertEquals(where, e.getComment() == null, a.getComment() == null);
+
+            if (e.getType() == Token.EOF_TYPE)
+            {
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Creates a lexer for the given input.
+     *
+     * @param input the input.
+     * @param fastScanner should the hand-written scanner be used?
+     * @param parseJavadoc should Javadoc comments be parsed?
+     * @param formatComments should multi-line comments be formatted?
+     * @param sourceVersion the source compatibility version.
+     * @param tabSize the tab size.
+     *
+     * @return the lexer.
+     */
+    private JavaLexer createLexer(
+        String  input,
+        boolean fastScanner,
+        boolean parseJavadoc,
+        boolean formatComments,
+        int     sourceVersion,
+        int     tabSize)
+    {
+        JavaLexer lexer = new JavaLexer(new CompositeFactory());
+        lexer.fastScanner = fastScanner;
+        lexer.parseJavadocComments = parseJavadoc;
+        lexer.formatMLComments = formatComments;
+        lexer.sourceVersion = sourceVersion;
+        lexer.setTabSize(tabSize);
+        lexer.setInputBuffer(new StringReader(input));
+
+        return lexer;
+    }
+
+
+    /**
+     * Collects all Java source files below the given directory.
+     *
+     * @param directory a directory.
+     * @param files list to add the found files to.
+     */
+    private void collect(
+        File directory,
+        List files)
+    {
+        File[] children = directory.listFiles();
+
+        if (children == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < children.length; i++)
+        {
+            if (children[i].isDirectory())
+            {
+                collect(children[i], files);
+            }
+            else if (children[i].getName().endsWith(".java"))
+            {
+                files.add(children[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Reads the contents of the given file.
+     *
+     * @param file a file.
+     *
+     * @return the file contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private String read(File file)
+      throws IOException
+    {
+        Reader in = new FileReader(file);
+
+        try
+        {
+            StringBuffer buf = new StringBuffer((int) file.length());
+            char[] chars = new char[4096];
+
+            for (int read; (read = in.read(chars)) > -1;)
+            {
+                buf.append(chars, 0, read);
+            }
+
+            return buf.toString();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+import junit.framework.TestCase;
+
+
+/**
+ * Checks that recording the alignment chunks does not change the output: formatting
+ * with the recorded widths must yield the same results as walking the remainder of a
+ * chunk for every member again. The samples are the sources of the printer package and
+ * a class with chunks of declarations, assignments and parameters, formatted with
+ * aligned declarations, assignments and parameters.
+ *
+ * @author Jalopy contributors
+ */
+public class AlignmentAnalyzerTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Chunks of declarations and assignments, some of them measured by enclosing nodes. */
+    private static final String CHUNKS =
+        "public class Sample {\n" + "    private static final int a = 1;\n"
+        + "    protected java.util.Map<String, java.util.List<Integer>> map = null;\n"
+        + "    String s;\n" + "    int[] values;\n\n"
+        + "    void method(final int first, String second, Object... rest) {\n"
+        + "        int x = 0;\n" + "        long longer = 1L;\n" + "        x = 2;\n"
+        + "        longer = x + 3;\n" + "        Runnable r = new Runnable() {\n"
+        + "            public void run() {\n" + "                int y = 4;\n"
+        + "                String z = \"z\";\n" + "                y = y + 1;\n"
+        + "            }\n" + "        };\n"
+        + "        if (x > 0 && longer > 0) { int i = 0; double d = 1.0; i = 1; }\n"
+        + "        call(new Object() { int u = 0; String v = null; });\n" + "    }\n"
+        + "}\n";
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The formatter to use. */
+    private Jalopy _jalopy;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new AlignmentAnalyzerTest object.
+     *
+     * @param name name of the test case.
+     */
+    public AlignmentAnalyzerTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compares the output with aligned declarations, assignments and parameters.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testAligned()
+      throws Exception
+    {
+        setAligned();
+        compare();
+    }
+
+
+    /**
+     * Compares the output with a short line length and tabs, which makes the printers
+     * measure chunks from within enclosing nodes.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testWrapped()
+      throws Exception
+    {
+        setAligned();
+
+        Convention settings = Convention.getInstance();
+        settings.putInt(ConventionKeys.LINE_LENGTH, 60);
+        settings.putBoolean(ConventionKeys.INDENT_WITH_TABS, true);
+        compare();
+    }
+
+
+    /**
+     * Sets up the formatter and takes a snapshot of the code convention.
+     */
+    protected void setUp()
+    {
+        Convention.getInstance().snapshot();
+        _jalopy = new Jalopy();
+    }
+
+
+    /**
+     * Restores the code convention.
+     */
+    protected void tearDown()
+    {
+        Convention.getInstance().revert();
+    }
+
+
+    /**
+     * Formats all samples with and without recording the chunks and compares the
+     * results.
+     *
+     * @throws Exception if a source could not be read.
+     */
+    private void compare()
+      throws Exception
+    {
+        List names = new ArrayList();
+        List sources = new ArrayList();
+        List files = PrinterSources.getFiles();
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            names.add(file.getName());
+            sources.add(PrinterSources.read(file));
+        }
+
+        names.add("Sample.java");
+        sources.add(CHUNKS);
+
+        List recorded = new ArrayList(names.size());
+
+        for (int i = 0, size = names.size(); i < size; i++)
+        {
+            recorded.add(
+                PrinterSources.format(
+                    _jalopy, (String) names.get(i), (String) sources.get(i)));
+        }
+
+        _jalopy.setCacheAlignments(false);
+
+        for (int i = 0, size = names.size(); i < size; i++)
+        {
+            String name = (String) names.get(i);
+            assertEquals(
+                name, recorded.get(i),
+                PrinterSources.format(_jalopy, name, (String) sources.get(i)));
+        }
+    }
+
+
+    /**
+     * Aligns declarations, assignments and parameters.
+     */
+    private void setAligned()
+    {
+        Convention settings = Convention.getInstance();
+        settings.putBoolean(ConventionKeys.ALIGN_VAR_ASSIGNS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_VAR_DECL_ASSIGNS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_VAR_IDENTS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_PARAMS_METHOD_DEF, true);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+
+
+/**
+ * Benchmark for statements that are hard on line breaking: long string concatenations,
+ * long chains of method calls and deeply nested method calls. Every statement is
+ * formatted with the greedy and the optimal line breaking printer and the best times
+ * are printed. Nothing is asserted, {@link DocumentPrinterConformanceTest} checks that
+ * both printers yield the same tokens.
+ *
+ * <p>
+ * Run it with <code>-Dbenchmark.rounds=&lt;n&gt;</code> to get stable timings. The
+ * class is no test case and therefore not run with the tests.
+ * </p>
+ *
+ * @author Jalopy contributors
+ */
+public final class DocumentPrinterBenchmark
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The sizes to benchmark. */
+    private static final int[] SIZES = { 16, 64, 256 };
+
+    /** The nesting depths to benchmark, deeper nestings overflow the stack of the parser. */
+    private static final int[] DEPTHS = { 4, 16, 64 };
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The formatter to use. */
+    private final Jalopy _jalopy = new Jalopy();
+
+    /** The number of times every statement is formatted. */
+    private final int _rounds;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new DocumentPrinterBenchmark object.
+     *
+     * @param rounds the number of times every statement is formatted.
+     */
+    private DocumentPrinterBenchmark(int rounds)
+    {
+        _rounds = rounds;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param argv command line arguments, ignored.
+     */
+    public static void main(String[] argv)
+    {
+        DocumentPrinterBenchmark benchmark =
+            new DocumentPrinterBenchmark(
+                Integer.getInteger("benchmark.rounds", 1).intValue());
+        Convention settings = Convention.getInstance();
+        settings.snapshot();
+
+        try
+        {
+            for (int i = 0; i < SIZES.length; i++)
+            {
+                benchmark.run(
+                    "concatenation, size " + SIZES[i], getConcatenation(SIZES[i]));
+            }
+
+            for (int i = 0; i < SIZES.length; i++)
+            {
+                benchmark.run(
+                    "chained calls, size " + SIZES[i], getChainedCalls(SIZES[i]));
+            }
+
+            for (int i = 0; i < DEPTHS.length; i++)
+            {
+                benchmark.run(
+                    "nested calls, depth " + DEPTHS[i], getNestedCalls(DEPTHS[i]));
+            }
+        }
+        finally
+        {
+            settings.revert();
+        }
+    }
+
+
+    /**
+     * Returns a long string concatenation.
+     *
+     * @param size the number of concatenated values.
+     *
+     * @return the statement.
+     */
+    private static String getConcatenation(int size)
+    {
+        StringBuffer buf = new StringBuffer(size * 16);
+        buf.append("String s = \"start\"");
+
+        for (int j = 0; j < size; j++)
+        {
+            buf.append(" + value").append(j).append(" + \", \"");
+        }
+
+        return buf.append(';').toString();
+    }
+
+
+    /**
+     * Returns a long chain of method calls.
+     *
+     * @param size the number of chained calls.
+     *
+     * @return the statement.
+     */
+    private static String getChainedCalls(int size)
+    {
+        StringBuffer buf = new StringBuffer(size * 16);
+        buf.append("return buffer");
+
+        for (int j = 0; j < size; j++)
+        {
+            buf.append(".append(value").append(j).append(')');
+        }
+
+        return buf.append(';').toString();
+    }
+
+
+    /**
+     * Returns deeply nested method calls.
+     *
+     * @param depth the nesting depth of the calls.
+     *
+     * @return the statement.
+     */
+    private static String getNestedCalls(int depth)
+    {
+        StringBuffer buf = new StringBuffer(depth * 16);
+        buf.append("result = ");
+
+        for (int j = 0; j < depth; j++)
+        {
+            buf.append("call").append(j).append("(argument, ");
+        }
+
+        buf.append("argument");
+
+        for (int j = 0; j < depth; j++)
+        {
+            buf.append(')');
+        }
+
+        return buf.append(';').toString();
+    }
+
+
+    /**
+     * Formats the given statement with both printers and prints the best times.
+     *
+     * @param name name of the statement.
+     * @param statement the statement to format.
+     */
+    private void run(
+        String name,
+        String statement)
+    {
+        String source =
+            "class Sample {\n    Object method() {\n        " + statement + "\n    }\n}\n";
+        long greedy = time(name, source, false);
+        long optimal = time(name, source, true);
+
+        System.out.println(name + ": greedy " + greedy + " ms, optimal " + optimal + " ms");
+    }
+
+
+    /**
+     * Formats the given source and returns the best time.
+     *
+     * @param name name of the source.
+     * @param source the source to format.
+     * @param optimal if <code>true</code> the optimal line breaking printer is used.
+     *
+     * @return the best time of all rounds (in ms).
+     *
+     * @throws IllegalStateException if the source could not be formatted.
+     */
+    private long time(
+        String  name,
+        String  source,
+        boolean optimal)
+    {
+        Convention.getInstance().putBoolean(ConventionKeys.LINE_WRAP_OPTIMAL, optimal);
+
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < _rounds; i++)
+        {
+            StringBuffer buf = new StringBuffer(source.length() * 2);
+            long start = System.currentTimeMillis();
+            _jalopy.setInput(source, name + ".java");
+            _jalopy.setOutput(buf);
+            _jalopy.format();
+            best = Math.min(best, System.currentTimeMillis() - start);
+
+            if (_jalopy.getState() == Jalopy.State.ERROR)
+            {
+                throw new IllegalStateException("could not format " + name);
+            }
+        }
+
+        return best;
+    }
+}
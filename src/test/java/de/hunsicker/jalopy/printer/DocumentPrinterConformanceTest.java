@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionDefaults;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+import junit.framework.TestCase;
+
+
+/**
+ * Checks that the optimal line breaking printer only changes where lines are broken:
+ * formatting with and without it must yield the same output when nothing needs to be
+ * wrapped, and the same tokens otherwise. The samples are the sources of the printer
+ * package, a few statements that are hard to wrap and large generated statements that
+ * need many line breaks.
+ *
+ * @author Jalopy contributors
+ */
+public class DocumentPrinterConformanceTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Statements that need to be wrapped. */
+    private static final String[] STATEMENTS =
+    {
+        "String s = \"aaaaaaaaaa\" + bbbbbbbbbb + \"cccccccccc\" + dddddddddd + "
+        + "\"eeeeeeeeee\" + ffffffffff + \"gggggggggg\" + hhhhhhhhhh;",
+        "result = first.second(argument1, argument2).third(argument3).fourth()"
+        + ".fifth(argument4, argument5, argument6);",
+        "return new StringBuffer(capacity).append(prefix).append(separator)"
+        + ".append(value).append(suffix).toString();",
+        "throw new IllegalArgumentException(\"the value specified is not valid -- \" "
+        + "+ value);",
+        "int x = (aaaaaaaaaa + bbbbbbbbbb) * (cccccccccc - dddddddddd) / "
+        + "(eeeeeeeeee % ffffffffff) + gggggggggg;",
+        "boolean b = (aaaaaaaaaa != null) && (bbbbbbbbbb > 0) || (cccccccccc < 0) "
+        + "&& !dddddddddd.isEmpty();",
+        "Object o = (condition != null) ? someObject.someMethod(argument1) : "
+        + "otherObject.otherMethod(argument2);",
+        "call(first(a, b), second(c, d), third(e, f), fourth(g, h), fifth(i, j), "
+        + "sixth(k, l));"
+    };
+
+    /** The sizes of the generated statements. */
+    private static final int[] SIZES = { 16, 64, 256 };
+
+    /** The nesting depths of the generated calls, deeper nestings overflow the parser. */
+    private static final int[] DEPTHS = { 4, 16, 64 };
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The formatter to use. */
+    private Jalopy _jalopy;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new DocumentPrinterConformanceTest object.
+     *
+     * @param name name of the test case.
+     */
+    public DocumentPrinterConformanceTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Checks that both printers yield identical output if no line has to be wrapped.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testFlat()
+      throws Exception
+    {
+        Convention.getInstance().putInt(ConventionKeys.LINE_LENGTH, 10000);
+
+        List sources = getSources();
+
+        for (int i = 0, size = sources.size(); i < size; i += 2)
+        {
+            String name = (String) sources.get(i);
+            String source = (String) sources.get(i + 1);
+
+            assertEquals(name, format(name, source, false), format(name, source, true));
+        }
+    }
+
+
+    /**
+     * Checks that both printers yield the same tokens if lines have to be wrapped, and
+     * that the optimal printer does not wrap worse than the greedy one.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testWrapped()
+      throws Exception
+    {
+        int lineLength = 60;
+        Convention.getInstance().putInt(ConventionKeys.LINE_LENGTH, lineLength);
+
+        List sources = getSources();
+        int greedyOverflows = 0;
+        int optimalOverflows = 0;
+
+        for (int i = 0, size = sources.size(); i < size; i += 2)
+        {
+            String name = (String) sources.get(i);
+            String source = (String) sources.get(i + 1);
+            String greedy = format(name, source, false);
+            String optimal = format(name, source, true);
+
+            assertEquals(name, strip(greedy), strip(optimal));
+            greedyOverflows += countOverflows(greedy, lineLength);
+            optimalOverflows += countOverflows(optimal, lineLength);
+        }
+
+        assertTrue(
+            "optimal " + optimalOverflows + " > greedy " + greedyOverflows,
+            optimalOverflows <= greedyOverflows);
+    }
+
+
+    /**
+     * Checks that statements that can be wrapped are wrapped to fit into the line.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testFits()
+      throws Exception
+    {
+        int lineLength = 80;
+        Convention.getInstance().putInt(ConventionKeys.LINE_LENGTH, lineLength);
+
+        for (int i = 0; i < STATEMENTS.length; i++)
+        {
+            String source = wrap(STATEMENTS[i]);
+            String optimal = format("Statement" + i, source, true);
+
+            assertEquals(STATEMENTS[i], 0, countOverflows(optimal, lineLength));
+            assertEquals(
+                STATEMENTS[i], strip(format("Statement" + i, source, false)),
+                strip(optimal));
+        }
+    }
+
+
+    /**
+     * Checks that large statements that need many line breaks yield the same tokens with
+     * both printers: long string concatenations, long chains of method calls and deeply
+     * nested method calls. The concatenations and chains have to fit into the line.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testLarge()
+      throws Exception
+    {
+        for (int i = 0; i < SIZES.length; i++)
+        {
+            StringBuffer buf = new StringBuffer(SIZES[i] * 16);
+            buf.append("String s = \"start\"");
+
+            for (int j = 0; j < SIZES[i]; j++)
+            {
+                buf.append(" + value").append(j).append(" + \", \"");
+            }
+
+            buf.append(';');
+            assertEquals(buf.toString(), 0, compare("Concatenation" + SIZES[i], buf));
+
+            buf.setLength(0);
+            buf.append("return buffer");
+
+            for (int j = 0; j < SIZES[i]; j++)
+            {
+                buf.append(".append(value").append(j).append(')');
+            }
+
+            buf.append(';');
+            assertEquals(buf.toString(), 0, compare("ChainedCalls" + SIZES[i], buf));
+        }
+
+        for (int i = 0; i < DEPTHS.length; i++)
+        {
+            StringBuffer buf = new StringBuffer(DEPTHS[i] * 16);
+            buf.append("result = ");
+
+            for (int j = 0; j < DEPTHS[i]; j++)
+            {
+                buf.append("call").append(j).append("(argument, ");
+            }
+
+            buf.append("argument");
+
+            for (int j = 0; j < DEPTHS[i]; j++)
+            {
+                buf.append(')');
+            }
+
+            buf.append(';');
+
+            // the indentation of deep nestings exceeds the line length with both printers
+            compare("NestedCalls" + DEPTHS[i], buf);
+        }
+    }
+
+
+    /**
+     * Sets up the formatter and takes a snapshot of the code convention.
+     */
+    protected void setUp()
+    {
+        Convention.getInstance().snapshot();
+        _jalopy = new Jalopy();
+    }
+
+
+    /**
+     * Restores the code convention.
+     */
+    protected void tearDown()
+    {
+        Convention.getInstance().revert();
+    }
+
+
+    /**
+     * Returns the sources to format.
+     *
+     * @return list with the names and contents of the sources, alternating.
+     *
+     * @throws IOException if a source could not be read.
+     */
+    private List getSources()
+      throws IOException
+    {
+        List sources = new ArrayList();
+        List files = PrinterSources.getFiles();
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            sources.add(file.getName());
+            sources.add(PrinterSources.read(file));
+        }
+
+        for (int i = 0; i < STATEMENTS.length; i++)
+        {
+            sources.add("Statement" + i);
+            sources.add(wrap(STATEMENTS[i]));
+        }
+
+        return sources;
+    }
+
+
+    /**
+     * Formats the given statement with both printers and compares the tokens.
+     *
+     * @param name the name of the statement.
+     * @param statement the statement to format.
+     *
+     * @return the number of lines the optimal printer could not fit into the line.
+     */
+    private int compare(
+        String       name,
+        StringBuffer statement)
+    {
+        String source = wrap(statement.toString());
+        String optimal = format(name, source, true);
+
+        assertEquals(name, strip(format(name, source, false)), strip(optimal));
+
+        return countOverflows(
+            optimal,
+            Convention.getInstance().getInt(
+                ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH));
+    }
+
+
+    /**
+     * Returns the number of lines of the given text that exceed the given length.
+     *
+     * @param text a text.
+     * @param lineLength the maximal length of a line.
+     *
+     * @return the number of lines longer than <em>lineLength</em>.
+     */
+    private static int countOverflows(
+        String text,
+        int    lineLength)
+    {
+        int count = 0;
+        int start = 0;
+
+        for (int end = text.indexOf('\n'); end > -1; end = text.indexOf('\n', start))
+        {
+            if ((end - start) > lineLength)
+            {
+                count++;
+            }
+
+            start = end + 1;
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Formats the given source.
+     *
+     * @param name the name of the source.
+     * @param source the source to format.
+     * @param optimal if <code>true</code> the optimal line breaking printer is used.
+     *
+     * @return the formatted source.
+     */
+    private String format(
+        String  name,
+        String  source,
+        boolean optimal)
+    {
+        Convention.getInstance().putBoolean(ConventionKeys.LINE_WRAP_OPTIMAL, optimal);
+
+        return PrinterSources.format(_jalopy, name + ".java", source);
+    }
+
+
+    /**
+     * Removes all whitespace from the given text.
+     *
+     * @param text a text.
+     *
+     * @return the text without whitespace.
+     */
+    private static String strip(String text)
+    {
+        StringBuffer buf = new StringBuffer(text.length());
+
+        for (int i = 0, size = text.length(); i < size; i++)
+        {
+            char c = text.charAt(i);
+
+            if (!Character.isWhitespace(c))
+            {
+                buf.append(c);
+            }
+        }
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Wraps the given statement into a compilation unit.
+     *
+     * @param statement a statement.
+     *
+     * @return the compilation unit.
+     */
+    private static String wrap(String statement)
+    {
+        return "class Sample {\n    Object method() {\n        " + statement
+        + "\n    }\n}\n";
+    }
+}
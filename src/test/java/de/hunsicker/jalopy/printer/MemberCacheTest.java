@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.File;
+import java.util.List;
+
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.storage.Convention;
+import junit.framework.TestCase;
+
+
+/**
+ * Checks that taking over printed members from a former run does not change the
+ * output: formatting a file again, unchanged or with some members changed, must yield
+ * the same result as formatting it without the cache. The samples are the sources of
+ * the printer package.
+ *
+ * @author Jalopy contributors
+ */
+public class MemberCacheTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Members that start with the same state of the writer. */
+    private static final String MEMBERS =
+        "public class Sample {\n" + "    public Sample() { this(0); }\n"
+        + "    void first() { call(\"first\"); }\n"
+        + "    void second() { call(\"second\", null); }\n"
+        + "    int third(int value) { return value * 3; }\n" + "}\n";
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The formatter that caches the printed members. */
+    private Jalopy _cached;
+
+    /** The formatter that prints all members. */
+    private Jalopy _plain;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new MemberCacheTest object.
+     *
+     * @param name name of the test case.
+     */
+    public MemberCacheTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Formats every source three times with the cache, the second time unchanged and
+     * the third time with some members changed, and compares the results with the
+     * output without the cache.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testRuns()
+      throws Exception
+    {
+        List files = PrinterSources.getFiles();
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            String name = file.getPath();
+            String source = PrinterSources.read(file);
+            String expected = PrinterSources.format(_plain, name, source);
+
+            assertEquals(name, expected, PrinterSources.format(_cached, name, source));
+            assertEquals(name, expected, PrinterSources.format(_cached, name, source));
+
+            // only changes the members that contain the literal
+            source = replace(source, "null", "nil");
+            assertEquals(
+                name, PrinterSources.format(_plain, name, source),
+                PrinterSources.format(_cached, name, source));
+        }
+    }
+
+
+    /**
+     * Formats a class with members that start with the same state of the writer while
+     * all signatures hash to the same value, so the members share one key. Every run,
+     * unchanged or with a member changed, must print each member with its own text.
+     */
+    public void testCollisions()
+    {
+        String name = "Sample.java";
+        String source = MEMBERS;
+        String expected = PrinterSources.format(_plain, name, source);
+        MemberCache.collide = true;
+
+        try
+        {
+            assertEquals(expected, PrinterSources.format(_cached, name, source));
+            assertEquals(expected, PrinterSources.format(_cached, name, source));
+
+            source = replace(source, "null", "nil");
+            assertEquals(
+                PrinterSources.format(_plain, name, source),
+                PrinterSources.format(_cached, name, source));
+        }
+        finally
+        {
+            MemberCache.collide = false;
+        }
+    }
+
+
+    /**
+     * Sets up the formatters and takes a snapshot of the code convention.
+     */
+    protected void setUp()
+    {
+        Convention.getInstance().snapshot();
+        _plain = new Jalopy();
+        _cached = new Jalopy();
+        _cached.setCacheMembers(true);
+    }
+
+
+    /**
+     * Restores the code convention.
+     */
+    protected void tearDown()
+    {
+        Convention.getInstance().revert();
+    }
+
+
+    /**
+     * Replaces all occurences of the given string.
+     *
+     * @param str the string to replace in.
+     * @param search the string to replace.
+     * @param replacement the replacement.
+     *
+     * @return the string with all occurences replaced.
+     */
+    private static String replace(
+        String str,
+        String search,
+        String replacement)
+    {
+        StringBuffer buf = new StringBuffer(str.length());
+        int start = 0;
+
+        for (int end = str.indexOf(search); end > -1; end = str.indexOf(search, start))
+        {
+            buf.append(str.substring(start, end)).append(replacement);
+            start = end + search.length();
+        }
+
+        return buf.append(str.substring(start)).toString();
+    }
+}
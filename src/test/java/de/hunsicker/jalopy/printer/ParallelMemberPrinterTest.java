@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+import junit.framework.TestCase;
+
+
+/**
+ * Checks that printing the members of class bodies in parallel does not change the
+ * output: formatting with and without threads must yield identical results. The
+ * samples are the sources of the printer package and a class body whose segments are
+ * not taken over, so its members are printed a second time.
+ *
+ * @author Jalopy contributors
+ */
+public class ParallelMemberPrinterTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /**
+     * Printing the conditional in <code>compareTo</code> inserts parentheses. The
+     * segment is printed again, which used to wrap the conditional differently.
+     */
+    private static final String COMPARE_TO =
+        "public class Sample\n" + "{\n"
+        + "    private static final Calendar first =\n"
+        + "                                Calendar.getInstance();\n"
+        + "    private static Calendar second;\n" + "    /**\n" + "     */\n"
+        + "    public int getDay() {\n" + "    }\n" + "    /**\n" + "     */\n"
+        + "    public int getHours() {\n" + "    }\n" + "    /**\n" + "     */\n"
+        + "    public void setHours(int hours) {\n" + "    }\n" + "    /**\n"
+        + "     */\n" + "    public int getMinutes() {\n" + "    }\n" + "    /**\n"
+        + "     */\n" + "    public void setMinutes(int minutes) {\n" + "    }\n"
+        + "    /**\n" + "     */\n" + "    public int getSeconds() {\n" + "    }\n"
+        + "    /**\n" + "     */\n" + "    public void setSeconds(int seconds) {\n"
+        + "        getCalendar().setSeconds(seconds);\n" + "    }\n" + "    /**\n"
+        + "     */\n" + "    public long getTime() {\n" + "    }\n" + "    /**\n"
+        + "     */\n" + "    public boolean after(Sample when) {\n" + "    }\n"
+        + "    /**\n" + "     */\n" + "    public boolean equals(Object obj) {\n"
+        + "    }\n" + "    static final long getMillisOf(Sample sample) {\n"
+        + "        if (sample.date == null || sample.date.isNormalized()) {\n"
+        + "        }\n" + "    }\n" + "    /**\n" + "     */\n"
+        + "    public int compareTo(Sample another) {\n"
+        + "        return (thisTime<anotherTime ? -1 : (thisTime==anotherTime ? 0 : 1));\n"
+        + "    }\n" + "    /**\n" + "     */\n" + "    public int hashCode() {\n"
+        + "    }\n" + "    /**\n" + "     */\n" + "    public String toString() {\n"
+        + "        if (zone != null) {\n" + "        }\n" + "    }\n" + "}\n";
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The formatter to use. */
+    private Jalopy _jalopy;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new ParallelMemberPrinterTest object.
+     *
+     * @param name name of the test case.
+     */
+    public ParallelMemberPrinterTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compares the output for the sources of the printer package.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testSources()
+      throws Exception
+    {
+        List files = PrinterSources.getFiles();
+        List sources = new ArrayList(files.size());
+        List sequential = new ArrayList(files.size());
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            sources.add(PrinterSources.read(file));
+            sequential.add(format(file.getName(), (String) sources.get(i)));
+        }
+
+        setThreads();
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            String name = ((File) files.get(i)).getName();
+            assertEquals(name, sequential.get(i), format(name, (String) sources.get(i)));
+        }
+    }
+
+
+    /**
+     * Compares the output for a class body whose members are printed twice.
+     */
+    public void testCompareTo()
+    {
+        String sequential = format("Sample.java", COMPARE_TO);
+        setThreads();
+        assertEquals(sequential, format("Sample.java", COMPARE_TO));
+
+        // the formatter prints the next file with the same workers
+        assertEquals(sequential, format("Sample.java", COMPARE_TO));
+    }
+
+
+    /**
+     * Sets up the formatter and takes a snapshot of the code convention.
+     */
+    protected void setUp()
+    {
+        Convention.getInstance().snapshot();
+        _jalopy = new Jalopy();
+    }
+
+
+    /**
+     * Restores the code convention.
+     */
+    protected void tearDown()
+    {
+        Convention.getInstance().revert();
+    }
+
+
+    /**
+     * Lets the formatter print even small class bodies with several threads.
+     */
+    private void setThreads()
+    {
+        Convention settings = Convention.getInstance();
+        settings.putInt(ConventionKeys.PRINT_MEMBERS_THREADS, 4);
+        settings.putInt(ConventionKeys.PRINT_MEMBERS_MINIMUM, 2);
+    }
+
+
+    /**
+     * Formats the given source.
+     *
+     * @param name the file name of the source.
+     * @param source the source to format.
+     *
+     * @return the formatted source.
+     */
+    private String format(
+        String name,
+        String source)
+    {
+        return PrinterSources.format(_jalopy, name, source);
+    }
+}
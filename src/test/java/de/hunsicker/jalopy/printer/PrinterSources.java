@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.hunsicker.jalopy.Jalopy;
+import junit.framework.Assert;
+
+
+/**
+ * Provides the sources of the printer package, which the printer tests format as
+ * samples, and formats sources.
+ *
+ * @author Jalopy contributors
+ */
+final class PrinterSources
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The directory with the sources. */
+    private static final String SOURCE_DIRECTORY =
+        "src/main/java/de/hunsicker/jalopy/printer" /* NOI18N */;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new PrinterSources object.
+     */
+    private PrinterSources()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Returns the source files of the printer package.
+     *
+     * @return the source files, sorted by name.
+     */
+    static List getFiles()
+    {
+        File directory = new File(System.getProperty("basedir", "."), SOURCE_DIRECTORY);
+        File[] files = directory.listFiles();
+
+        Assert.assertNotNull(directory.getPath(), files);
+
+        List result = new ArrayList(files.length);
+
+        for (int i = 0; i < files.length; i++)
+        {
+            if (files[i].getName().endsWith(".java"))
+            {
+                result.add(files[i]);
+            }
+        }
+
+        Collections.sort(result);
+
+        return result;
+    }
+
+
+    /**
+     * Formats the given source.
+     *
+     * @param jalopy the formatter to use.
+     * @param name the file name of the source.
+     * @param source the source to format.
+     *
+     * @return the formatted source.
+     */
+    static String format(
+        Jalopy jalopy,
+        String name,
+        String source)
+    {
+        StringBuffer buf = new StringBuffer(source.length());
+        jalopy.setInput(source, name);
+        jalopy.setOutput(buf);
+        jalopy.format();
+
+        Assert.assertTrue(name, jalopy.getState() != Jalopy.State.ERROR);
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Reads the given file.
+     *
+     * @param file the file to read.
+     *
+     * @return the contents of the file.
+     *
+     * @throws IOException if the file could not be read.
+     */
+    static String read(File file)
+      throws IOException
+    {
+        StringBuffer buf = new StringBuffer((int) file.length());
+        Reader in = new InputStreamReader(new FileInputStream(file), "UTF-8");
+
+        try
+        {
+            char[] chars = new char[4096];
+
+            for (int read = in.read(chars); read > -1; read = in.read(chars))
+            {
+                buf.append(chars, 0, read);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return buf.toString();
+    }
+}
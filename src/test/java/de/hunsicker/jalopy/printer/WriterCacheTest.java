@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2026, the Jalopy contributors. All rights reserved.
+ *
+ * This software is distributable under the BSD license. See the terms of the
+ * BSD license in the documentation provided with this software.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+import junit.framework.TestCase;
+
+
+/**
+ * Checks that caching the measured lengths of nodes does not change the output:
+ * formatting with and without the cache must yield identical results. The samples are
+ * the sources of the printer package, formatted with the default settings and with a
+ * short line length, tabs and aligned declarations, which make the printers measure a
+ * lot. Also checks that measurements do not depend on the state earlier measurements
+ * left the test writers in.
+ *
+ * @author Jalopy contributors
+ */
+public class WriterCacheTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /**
+     * The chained call in the last method fits into the line, but used to be wrapped
+     * as the methods before left a newline pending in the test writer that measured it.
+     */
+    private static final String CHAINED_CALL =
+        "public abstract class Sample {\n" + "    /**\n" + "     */\n"
+        + "    public void setEncoding(String encoding) throws java.io.IOException {\n"
+        + "        if (encoding != null) {\n" + "            try {\n"
+        + "                if (!java.nio.charset.Charset.isSupported(encoding)) {\n"
+        + "                }\n" + "            } finally {\n" + "            }\n"
+        + "        }\n" + "    }\n" + "    /**\n" + "     */\n"
+        + "    public void setFilter(Filter filter) throws SecurityException {\n"
+        + "    }\n" + "    /**\n" + "     */\n"
+        + "    public void setErrorManager(ErrorManager manager) {\n"
+        + "        if (manager == null) {\n" + "        }\n" + "    }\n" + "    /**\n"
+        + "     */\n" + "    public ErrorManager getErrorManager() {\n" + "    }\n"
+        + "    /**\n" + "     */\n" + "    public boolean isLoggable(LogRecord record) {\n"
+        + "        final int levelValue = getLevel().intValue();\n"
+        + "        if (record.getLevel().intValue() < levelValue || levelValue == offValue) {\n"
+        + "        }\n" + "    }\n" + "}\n";
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The formatter to use. */
+    private Jalopy _jalopy;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new WriterCacheTest object.
+     *
+     * @param name name of the test case.
+     */
+    public WriterCacheTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compares the output with the default settings.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testDefault()
+      throws Exception
+    {
+        compare();
+    }
+
+
+    /**
+     * Compares the output with a short line length, tabs and aligned declarations.
+     *
+     * @throws Exception if an error occured.
+     */
+    public void testAligned()
+      throws Exception
+    {
+        Convention settings = Convention.getInstance();
+        settings.putInt(ConventionKeys.LINE_LENGTH, 60);
+        settings.putBoolean(ConventionKeys.INDENT_WITH_TABS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_VAR_ASSIGNS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_VAR_IDENTS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_PARAMS_METHOD_DEF, true);
+        compare();
+    }
+
+
+    /**
+     * Checks that a chained call that fits into the line is not wrapped.
+     */
+    public void testChainedCall()
+    {
+        Convention settings = Convention.getInstance();
+        settings.putInt(ConventionKeys.LINE_LENGTH, 60);
+        settings.putBoolean(ConventionKeys.INDENT_WITH_TABS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_VAR_ASSIGNS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_VAR_IDENTS, true);
+        settings.putBoolean(ConventionKeys.ALIGN_PARAMS_METHOD_DEF, true);
+        settings.putBoolean(ConventionKeys.COMMENT_JAVADOC_PARSE, true);
+
+        String result = PrinterSources.format(_jalopy, "Sample.java", CHAINED_CALL);
+
+        assertTrue(result, result.indexOf("levelValue = getLevel().intValue();") > -1);
+
+        _jalopy.setCacheMeasures(false);
+        assertEquals(result, PrinterSources.format(_jalopy, "Sample.java", CHAINED_CALL));
+    }
+
+
+    /**
+     * Sets up the formatter and takes a snapshot of the code convention.
+     */
+    protected void setUp()
+    {
+        Convention.getInstance().snapshot();
+        _jalopy = new Jalopy();
+    }
+
+
+    /**
+     * Restores the code convention.
+     */
+    protected void tearDown()
+    {
+        Convention.getInstance().revert();
+    }
+
+
+    /**
+     * Formats all sources with and without caching and compares the results.
+     *
+     * @throws IOException if a source could not be read.
+     */
+    private void compare()
+      throws IOException
+    {
+        List files = PrinterSources.getFiles();
+
+        // format all files in a row, as the state of the test writers carries over
+        List cached = new ArrayList(files.size());
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            cached.add(format((File) files.get(i)));
+        }
+
+        _jalopy.setCacheMeasures(false);
+
+        for (int i = 0, size = files.size(); i < size; i++)
+        {
+            File file = (File) files.get(i);
+            assertEquals(file.getName(), cached.get(i), format(file));
+        }
+    }
+
+
+    /**
+     * Formats the given file.
+     *
+     * @param file the file to format.
+     *
+     * @return the formatted source.
+     *
+     * @throws IOException if the file could not be read.
+     */
+    private String format(File file)
+      throws IOException
+    {
+        return PrinterSources.format(_jalopy, file.getName(), PrinterSources.read(file));
+    }
+}